@@ -58,6 +58,24 @@ public interface EventDistributor {
 	 */
 	@Replicated(remoteOnly=true)
 	void dataModification(String vdbName, int vdbVersion, String schema, String... tableNames);
+	
+	/**
+	 * Notify that a row of the given table has been inserted, updated, or deleted.
+	 * Updatable internal materialized views with a primary key that directly reference the table 
+	 * will be incrementally maintained prior to their next use.  Other dependent internal materialized views
+	 * will be reloaded on their next use.
+	 * <br>
+	 * The tuples are expected to be in table order.  An insert should supply only the new tuple, a delete
+	 * only the old tuple, and an update both.
+	 * @param vdbName
+	 * @param vdbVersion
+	 * @param schema
+	 * @param tableName
+	 * @param oldTuple
+	 * @param newTuple
+	 */
+	@Replicated(remoteOnly=true)
+	void rowModification(String vdbName, int vdbVersion, String schema, String tableName, List<?> oldTuple, List<?> newTuple);
 
 	/**
 	 * Set the column stats
@@ -22,10 +22,13 @@
 
 package org.teiid.client;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.io.ObjectStreamConstants;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -33,6 +36,7 @@ import java.sql.Array;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -48,6 +52,8 @@ import org.teiid.core.types.BlobType;
 import org.teiid.core.types.ClobType;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.types.XMLType;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+import org.teiid.core.util.LZ4BlockCodec;
 import org.teiid.jdbc.JDBCPlugin;
 
 
@@ -63,11 +69,22 @@ import org.teiid.jdbc.JDBCPlugin;
  *   outside of jdbc allowed values
  * <li>version 2: starts with 8.2 and adds better array serialization and
  *   uses a safer date/time serialization
+ * <li>version 3: starts with 8.6 and adds caching of repeated strings
+ * <li>version 4: starts with 8.9 and adds per column encodings - varint, delta, and run length
+ *   for integral values and dictionary encoding for strings.  Also allows for the 
+ *   column data to be LZ4 block compressed.
  * </ul>
  */
 public class BatchSerializer {
 
-    static final byte CURRENT_VERSION = (byte)3;
+    static final byte CURRENT_VERSION = (byte)4;
+    
+    /**
+     * Batches with less serialized data will not be compressed
+     */
+    static final int MIN_COMPRESSION_SIZE = 1 << 10;
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte COMPRESSED = 1;
 
 	private BatchSerializer() {} // Uninstantiable
 
@@ -83,12 +100,14 @@ public class BatchSerializer {
         serializers.put(DataTypeManager.DefaultDataTypes.DATE,          new ColumnSerializer[] {new DateColumnSerializer(), new DateColumnSerializer1(), new DateColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.DOUBLE,        new ColumnSerializer[] {new DoubleColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.FLOAT,         new ColumnSerializer[] {new FloatColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.INTEGER,       new ColumnSerializer[] {new IntColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.LONG,          new ColumnSerializer[] {new LongColumnSerializer()});
+        ColumnSerializer intSerializer = new IntColumnSerializer();
+        serializers.put(DataTypeManager.DefaultDataTypes.INTEGER,       new ColumnSerializer[] {intSerializer, intSerializer, intSerializer, intSerializer, new IntColumnSerializer4()});
+        ColumnSerializer longSerializer = new LongColumnSerializer();
+        serializers.put(DataTypeManager.DefaultDataTypes.LONG,          new ColumnSerializer[] {longSerializer, longSerializer, longSerializer, longSerializer, new LongColumnSerializer4()});
         serializers.put(DataTypeManager.DefaultDataTypes.SHORT,         new ColumnSerializer[] {new ShortColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.TIME,          new ColumnSerializer[] {new TimeColumnSerializer(), new TimeColumnSerializer1(), new TimeColumnSerializer()});
         serializers.put(DataTypeManager.DefaultDataTypes.TIMESTAMP,     new ColumnSerializer[] {new TimestampColumnSerializer()});
-        serializers.put(DataTypeManager.DefaultDataTypes.STRING,     	new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3()});
+        serializers.put(DataTypeManager.DefaultDataTypes.STRING,     	new ColumnSerializer[] {defaultSerializer, new StringColumnSerializer1(), new StringColumnSerializer1(), new StringColumnSerializer3(), new StringColumnSerializer4()});
         serializers.put(DataTypeManager.DefaultDataTypes.CLOB,  	   	new ColumnSerializer[] {defaultSerializer, new ClobColumnSerializer1()});
         serializers.put(DataTypeManager.DefaultDataTypes.BLOB,     		new ColumnSerializer[] {defaultSerializer, new BlobColumnSerializer1()});
         serializers.put(DataTypeManager.DefaultDataTypes.XML,     		new ColumnSerializer[] {defaultSerializer, new XmlColumnSerializer1()});
@@ -354,6 +373,331 @@ public class BatchSerializer {
     	}
     }
 
+    private static final byte PLAIN = 0;
+    private static final byte VARINT = 1;
+    private static final byte DELTA = 2;
+    private static final byte RUN_LENGTH = 3;
+    private static final byte DICTIONARY = 4;
+    
+    /**
+     * Chooses the smallest of the plain, varint, delta, and run length encodings for 
+     * the non-null values of an integral column.
+     */
+    private static abstract class IntegralColumnSerializer4 extends ColumnSerializer {
+    	
+    	@Override
+    	public void writeColumn(ObjectOutput out, int col,
+    			List<? extends List<?>> batch, Map<Object, Integer> cache)
+    			throws IOException {
+    		writeIsNullData(out, col, batch);
+    		long[] values = new long[batch.size()];
+    		int count = 0;
+    		for (int i = 0; i < batch.size(); i++) {
+    			Object obj = batch.get(i).get(col);
+    			if (obj != null) {
+    				values[count++] = toLong(obj);
+    			}
+    		}
+    		if (count == 0) {
+    			return;
+    		}
+    		long varintSize = 0;
+    		long deltaSize = varLongSize(zigZag(values[0]));
+    		long runLengthSize = 0;
+    		int runStart = 0;
+    		for (int i = 0; i < count; i++) {
+    			varintSize += varLongSize(zigZag(values[i]));
+    			if (i > 0) {
+    				deltaSize += varLongSize(zigZag(values[i] - values[i - 1]));
+    				if (values[i] != values[runStart]) {
+    					runLengthSize += varLongSize(i - runStart) + varLongSize(zigZag(values[runStart]));
+    					runStart = i;
+    				}
+    			}
+    		}
+    		runLengthSize += varLongSize(count - runStart) + varLongSize(zigZag(values[runStart]));
+    		byte encoding = PLAIN;
+    		long size = (long)count * getPlainWidth();
+    		if (varintSize < size) {
+    			encoding = VARINT;
+    			size = varintSize;
+    		}
+    		if (deltaSize < size) {
+    			encoding = DELTA;
+    			size = deltaSize;
+    		}
+    		if (runLengthSize < size) {
+    			encoding = RUN_LENGTH;
+    		}
+    		out.writeByte(encoding);
+    		switch (encoding) {
+    		case PLAIN:
+    			for (int i = 0; i < count; i++) {
+    				writePlain(out, values[i]);
+    			}
+    			break;
+    		case VARINT:
+    			for (int i = 0; i < count; i++) {
+    				writeVarLong(out, zigZag(values[i]));
+    			}
+    			break;
+    		case DELTA:
+    			writeVarLong(out, zigZag(values[0]));
+    			for (int i = 1; i < count; i++) {
+    				writeVarLong(out, zigZag(values[i] - values[i - 1]));
+    			}
+    			break;
+    		case RUN_LENGTH:
+    			runStart = 0;
+    			for (int i = 1; i <= count; i++) {
+    				if (i == count || values[i] != values[runStart]) {
+    					writeVarLong(out, i - runStart);
+    					writeVarLong(out, zigZag(values[runStart]));
+    					runStart = i;
+    				}
+    			}
+    			break;
+    		}
+    	}
+    	
+    	@Override
+    	public void readColumn(ObjectInput in, int col,
+    			List<List<Object>> batch, byte[] isNull, List<Object> cache)
+    			throws IOException, ClassNotFoundException {
+    		readIsNullData(in, isNull);
+    		int count = 0;
+    		for (int i = 0; i < batch.size(); i++) {
+    			if (!isNullObject(isNull, i)) {
+    				count++;
+    			}
+    		}
+    		if (count == 0) {
+    			return;
+    		}
+    		byte encoding = in.readByte();
+    		long value = 0;
+    		long runLength = 0;
+    		boolean first = true;
+    		for (int i = 0; i < batch.size(); i++) {
+    			if (isNullObject(isNull, i)) {
+    				continue;
+    			}
+    			switch (encoding) {
+    			case PLAIN:
+    				value = readPlain(in);
+    				break;
+    			case VARINT:
+    				value = unZigZag(readVarLong(in));
+    				break;
+    			case DELTA:
+    				if (first) {
+    					value = unZigZag(readVarLong(in));
+    					first = false;
+    				} else {
+    					value += unZigZag(readVarLong(in));
+    				}
+    				break;
+    			case RUN_LENGTH:
+    				if (runLength == 0) {
+    					runLength = readVarLong(in);
+    					value = unZigZag(readVarLong(in));
+    				}
+    				runLength--;
+    				break;
+    			default:
+    				throw new IOException("Unknown encoding " + encoding); //$NON-NLS-1$
+    			}
+    			batch.get(i).set(col, DataTypeManager.getCanonicalValue(toValue(value)));
+    		}
+    	}
+    	
+    	protected abstract int getPlainWidth();
+    	
+    	protected abstract long toLong(Object obj);
+    	
+    	protected abstract void writePlain(ObjectOutput out, long value) throws IOException;
+    	
+    	protected abstract long readPlain(ObjectInput in) throws IOException;
+    	
+    	protected abstract Object toValue(long value);
+    	
+    }
+    
+    private static class IntColumnSerializer4 extends IntegralColumnSerializer4 {
+    	@Override
+    	protected int getPlainWidth() {
+    		return 4;
+    	}
+    	
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Integer)obj).intValue();
+    	}
+    	
+    	@Override
+    	protected void writePlain(ObjectOutput out, long value) throws IOException {
+    		out.writeInt((int)value);
+    	}
+    	
+    	@Override
+    	protected long readPlain(ObjectInput in) throws IOException {
+    		return in.readInt();
+    	}
+    	
+    	@Override
+    	protected Object toValue(long value) {
+    		return Integer.valueOf((int)value);
+    	}
+    }
+    
+    private static class LongColumnSerializer4 extends IntegralColumnSerializer4 {
+    	@Override
+    	protected int getPlainWidth() {
+    		return 8;
+    	}
+    	
+    	@Override
+    	protected long toLong(Object obj) {
+    		return ((Long)obj).longValue();
+    	}
+    	
+    	@Override
+    	protected void writePlain(ObjectOutput out, long value) throws IOException {
+    		out.writeLong(value);
+    	}
+    	
+    	@Override
+    	protected long readPlain(ObjectInput in) throws IOException {
+    		return in.readLong();
+    	}
+    	
+    	@Override
+    	protected Object toValue(long value) {
+    		return Long.valueOf(value);
+    	}
+    }
+    
+    /**
+     * Uses a column dictionary if there are sufficiently many repeated values, 
+     * otherwise the version 3 string handling.
+     */
+    private static class StringColumnSerializer4 extends StringColumnSerializer3 {
+    	
+    	@Override
+    	public void writeColumn(ObjectOutput out, int col,
+    			List<? extends List<?>> batch, Map<Object, Integer> cache)
+    			throws IOException {
+    		writeIsNullData(out, col, batch);
+    		Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    		int count = 0;
+    		for (int i = 0; i < batch.size(); i++) {
+    			String str = (String)batch.get(i).get(col);
+    			if (str != null) {
+    				count++;
+    				if (!dictionary.containsKey(str)) {
+    					dictionary.put(str, dictionary.size());
+    				}
+    			}
+    		}
+    		if (count == 0) {
+    			return;
+    		}
+    		if (dictionary.size() * 2 > count) {
+    			out.writeByte(PLAIN);
+    			for (int i = 0; i < batch.size(); i++) {
+    				Object obj = batch.get(i).get(col);
+    				if (obj != null) {
+    					writeObject(out, obj, cache);
+    				}
+    			}
+    			return;
+    		}
+    		out.writeByte(DICTIONARY);
+    		String[] entries = new String[dictionary.size()];
+    		for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+    			entries[entry.getValue()] = entry.getKey();
+    		}
+    		writeVarLong(out, entries.length);
+    		for (String entry : entries) {
+    			writeObject(out, entry, cache);
+    		}
+    		for (int i = 0; i < batch.size(); i++) {
+    			Object obj = batch.get(i).get(col);
+    			if (obj != null) {
+    				writeVarLong(out, dictionary.get(obj));
+    			}
+    		}
+    	}
+    	
+    	@Override
+    	public void readColumn(ObjectInput in, int col,
+    			List<List<Object>> batch, byte[] isNull, List<Object> cache)
+    			throws IOException, ClassNotFoundException {
+    		readIsNullData(in, isNull);
+    		Object[] entries = null;
+    		boolean checked = false;
+    		for (int i = 0; i < batch.size(); i++) {
+    			if (isNullObject(isNull, i)) {
+    				continue;
+    			}
+    			if (!checked) {
+    				checked = true;
+    				byte encoding = in.readByte();
+    				if (encoding == DICTIONARY) {
+    					entries = new Object[(int)readVarLong(in)];
+    					for (int j = 0; j < entries.length; j++) {
+    						entries[j] = DataTypeManager.getCanonicalValue(readObject(in, cache));
+    					}
+    				} else if (encoding != PLAIN) {
+    					throw new IOException("Unknown encoding " + encoding); //$NON-NLS-1$
+    				}
+    			}
+    			if (entries != null) {
+    				batch.get(i).set(col, entries[(int)readVarLong(in)]);
+    			} else {
+    				batch.get(i).set(col, DataTypeManager.getCanonicalValue(readObject(in, cache)));
+    			}
+    		}
+    	}
+    }
+    
+    static long zigZag(long value) {
+    	return (value << 1) ^ (value >> 63);
+    }
+    
+    static long unZigZag(long value) {
+    	return (value >>> 1) ^ -(value & 1);
+    }
+    
+    static int varLongSize(long value) {
+    	int size = 1;
+    	while ((value & ~0x7fL) != 0) {
+    		value >>>= 7;
+    		size++;
+    	}
+    	return size;
+    }
+    
+    static void writeVarLong(ObjectOutput out, long value) throws IOException {
+    	while ((value & ~0x7fL) != 0) {
+    		out.write((int)((value & 0x7f) | 0x80));
+    		value >>>= 7;
+    	}
+    	out.write((int)value);
+    }
+    
+    static long readVarLong(ObjectInput in) throws IOException {
+    	long result = 0;
+    	for (int shift = 0; shift < 64; shift += 7) {
+    		int b = in.readByte();
+    		result |= (long)(b & 0x7f) << shift;
+    		if ((b & 0x80) == 0) {
+    			return result;
+    		}
+    	}
+    	throw new IOException("Malformed varint"); //$NON-NLS-1$
+    }
+
     private static class NullColumnSerializer1 extends ColumnSerializer {
     	@Override
     	public void writeColumn(ObjectOutput out, int col,
@@ -817,6 +1161,14 @@ public class BatchSerializer {
     }
 
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version) throws IOException {
+    	writeBatch(out, types, batch, version, false);
+    }
+    
+    /**
+     * @param compress if true and the version is at least 4, the column data will be LZ4 block
+     * compressed if the types allow and there is a sufficient amount of compressible data.
+     */
+    public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch, byte version, boolean compress) throws IOException {
         if (batch == null) {
             out.writeInt(-1);
         } else {
@@ -829,31 +1181,156 @@ public class BatchSerializer {
             if (batch.size() > 0) {
 	            int columns = types.length;
 	            out.writeInt(columns);
-	            Map<Object, Integer> cache = null;
-	            for(int i = 0; i < columns; i++) {
-	            	ColumnSerializer serializer = getSerializer(types[i], version);
-	            	
-	            	if (cache == null && serializer.usesCache(version)) {
-	            		cache = new HashMap<Object, Integer>();
+	            if (version >= 4) {
+	            	if (compress && isCompressible(types) && writeCompressed(out, types, batch, version)) {
+	            		return;
 	            	}
-	                try {
-	                    serializer.writeColumn(out, i, batch, cache);
-	                } catch (ClassCastException e) {
-	                    Object obj = null;
-	                    String objectClass = null;
-	                    objectSearch: for (int row = 0; row < batch.size(); row++) {
-	                        obj = batch.get(row).get(i);
-	                        if (obj != null) {
-	                            objectClass = obj.getClass().getName();
-	                            break objectSearch;
-	                        }
-	                    }
-	                     throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {types[i], new Integer(i), objectClass}));
-	                }
+	            	out.writeByte(UNCOMPRESSED);
 	            }
+	            writeColumns(out, types, batch, version);
             }
         }
     }
+    
+    /**
+     * Lob and object values may rely upon the particular stream, so they are not compressed.
+     */
+    private static boolean isCompressible(String[] types) {
+    	for (String type : types) {
+    		if (!serializers.containsKey(type) 
+    				|| type.equals(DataTypeManager.DefaultDataTypes.OBJECT) 
+    				|| DataTypeManager.isLOB(type)) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+
+	private static boolean writeCompressed(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		writeColumns(oos, types, batch, version);
+		oos.close();
+		int length = baos.getCount();
+		if (length < MIN_COMPRESSION_SIZE) {
+			return false;
+		}
+		byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength(length)];
+		int compressedLength = LZ4BlockCodec.compress(baos.getBuffer(), 0, length, compressed, 0);
+		if (compressedLength >= length) {
+			return false;
+		}
+		out.writeByte(COMPRESSED);
+		out.writeInt(length);
+		out.writeInt(compressedLength);
+		out.write(compressed, 0, compressedLength);
+		return true;
+	}
+
+	private static void writeColumns(ObjectOutput out, String[] types,
+			List<? extends List<?>> batch, byte version) throws IOException {
+		Map<Object, Integer> cache = null;
+		for(int i = 0; i < types.length; i++) {
+			ColumnSerializer serializer = getSerializer(types[i], version);
+			
+			if (cache == null && serializer.usesCache(version)) {
+				cache = new HashMap<Object, Integer>();
+			}
+			writeColumn(out, types[i], i, batch, serializer, cache);
+		}
+	}
+
+	private static void writeColumn(ObjectOutput out, String type, int col,
+			List<? extends List<?>> batch, ColumnSerializer serializer,
+			Map<Object, Integer> cache) throws IOException {
+		try {
+		    serializer.writeColumn(out, col, batch, cache);
+		} catch (ClassCastException e) {
+		    Object obj = null;
+		    String objectClass = null;
+		    objectSearch: for (int row = 0; row < batch.size(); row++) {
+		        obj = batch.get(row).get(col);
+		        if (obj != null) {
+		            objectClass = obj.getClass().getName();
+		            break objectSearch;
+		        }
+		    }
+		     throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20001, e, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20001, new Object[] {type, new Integer(col), objectClass}));
+		}
+	}
+	
+	/**
+	 * Write a single column using the current version.  Unlike {@link #writeBatch(ObjectOutput, String[], List)}
+	 * no string cache is shared with other columns, so the column may be read back independently 
+	 * with {@link #readColumn(ObjectInput, String, int)}.
+	 */
+	public static void writeColumn(ObjectOutput out, String type, int col, List<? extends List<?>> batch) throws IOException {
+		ColumnSerializer serializer = getSerializer(type, CURRENT_VERSION);
+		Map<Object, Integer> cache = null;
+		if (serializer.usesCache(CURRENT_VERSION)) {
+			cache = new HashMap<Object, Integer>();
+		}
+		writeColumn(out, type, col, batch, serializer, cache);
+	}
+	
+	/**
+	 * Read a single column written by {@link #writeColumn(ObjectOutput, String, int, List)}
+	 * @return the column values
+	 */
+	public static Object[] readColumn(ObjectInput in, String type, int rows) throws IOException, ClassNotFoundException {
+		ColumnSerializer serializer = getSerializer(type, CURRENT_VERSION);
+		List<Object> cache = null;
+		if (serializer.usesCache(CURRENT_VERSION)) {
+			cache = new ArrayList<Object>();
+		}
+		Object[] values = new Object[rows];
+		byte[] isNullBuffer = new byte[(rows + 7)/8];
+		serializer.readColumn(in, 0, new ColumnValues(values), isNullBuffer, cache);
+		return values;
+	}
+	
+	/**
+	 * Presents an array of values as a batch with a single column for use with a {@link ColumnSerializer}.
+	 * Only the row being set is accessed at a time, so a single row view is reused.
+	 */
+	private static final class ColumnValues extends AbstractList<List<Object>> {
+		private Object[] values;
+		private int index;
+		private List<Object> row = new AbstractList<Object>() {
+			@Override
+			public Object get(int col) {
+				return values[index];
+			}
+			
+			@Override
+			public Object set(int col, Object element) {
+				Object old = values[index];
+				values[index] = element;
+				return old;
+			}
+			
+			@Override
+			public int size() {
+				return 1;
+			}
+		};
+		
+		ColumnValues(Object[] values) {
+			this.values = values;
+		}
+		
+		@Override
+		public List<Object> get(int i) {
+			index = i;
+			return row;
+		}
+		
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
 
     public static List<List<Object>> readBatch(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
     	int rows = 0;
@@ -888,7 +1365,31 @@ public class BatchSerializer {
             batch.add(currentRow, Arrays.asList(new Object[columns]));
         }
         byte[] isNullBuffer = new byte[(extraRows > 0) ? numBytes + 1: numBytes];
-        List<Object> cache = null;
+        if (version >= 4 && in.readByte() == COMPRESSED) {
+        	int length = in.readInt();
+        	byte[] compressed = new byte[in.readInt()];
+        	in.readFully(compressed);
+        	byte[] bytes = new byte[length];
+        	try {
+        		if (LZ4BlockCodec.decompress(compressed, 0, compressed.length, bytes, 0, length) != length) {
+        			throw new IOException("Invalid compressed batch"); //$NON-NLS-1$
+        		}
+        	} catch (IllegalArgumentException e) {
+        		throw new IOException(e);
+        	}
+        	ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        	readColumns(ois, types, version, columns, batch, isNullBuffer);
+        	ois.close();
+        } else {
+        	readColumns(in, types, version, columns, batch, isNullBuffer);
+        }
+        return batch;
+    }
+
+	private static void readColumns(ObjectInput in, String[] types,
+			byte version, int columns, List<List<Object>> batch,
+			byte[] isNullBuffer) throws IOException, ClassNotFoundException {
+		List<Object> cache = null;
         for (int col = 0; col < columns; col++) {
             ColumnSerializer serializer = getSerializer(types[col], version);
             if (cache == null && serializer.usesCache(version)) {
@@ -896,6 +1397,5 @@ public class BatchSerializer {
         	}
             serializer.readColumn(in, col, batch, isNullBuffer, cache);
         }
-        return batch;
     }
 }
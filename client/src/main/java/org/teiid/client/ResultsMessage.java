@@ -81,6 +81,8 @@ public class ResultsMessage implements Externalizable {
     private String debugLog;
     
     private byte clientSerializationVersion;
+    
+    private transient boolean compressResults;
         
     /** 
      * Query plan annotations, if OPTION SHOWPLAN or OPTION PLANONLY was used:
@@ -314,7 +316,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization) {
         	BatchSerializer.writeBatch(out, dataTypes, null, clientSerializationVersion);
         } else {
-        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion);
+        	BatchSerializer.writeBatch(out, dataTypes, results, clientSerializationVersion, compressResults);
         }
         
         // Plan descriptions
@@ -329,7 +331,7 @@ public class ResultsMessage implements Externalizable {
         if (delayDeserialization && results != null) {
             MultiArrayOutputStream baos = new MultiArrayOutputStream(1 << 13);
             CompactObjectOutputStream oos = new CompactObjectOutputStream(baos);
-            BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
+            BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion, compressResults);
             oos.close();
             out.writeInt(baos.getCount());
             baos.writeTo(out);
@@ -412,6 +414,13 @@ public class ResultsMessage implements Externalizable {
 		this.clientSerializationVersion = clientSerializationVersion;
 	}
 	
+	/**
+	 * Server side setting of whether the results should be compressed when written.
+	 */
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+	
 	public void setUpdateCount(int updateCount) {
 		this.updateCount = updateCount;
 	}
@@ -43,6 +43,7 @@ public class Handshake implements Externalizable {
     private String version = ApplicationInfo.getInstance().getReleaseNumber();
     private byte[] publicKey;
     private AuthenticationType authType = AuthenticationType.USERPASSWORD;
+    private boolean compressResults;
     
     public Handshake() {
     	
@@ -104,6 +105,18 @@ public class Handshake implements Externalizable {
 		this.authType = authType;
 	}
     
+    /**
+     * From the server indicates that compressed results are supported.
+     * From the client indicates that compressed results should be sent.
+     */
+    public boolean isCompressResults() {
+		return compressResults;
+	}
+    
+    public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+    
     @Override
     public void readExternal(ObjectInput in) throws IOException,
     		ClassNotFoundException {
@@ -111,6 +124,7 @@ public class Handshake implements Externalizable {
     	publicKey = (byte[])in.readObject();
     	try {
     		authType = AuthenticationType.values()[in.readByte()];
+    		compressResults = in.readBoolean();
     	} catch (EOFException e) {
     		
     	}
@@ -121,6 +135,7 @@ public class Handshake implements Externalizable {
     	out.writeObject(version);
     	out.writeObject(publicKey);
     	out.writeByte(authType.ordinal());
+    	out.writeBoolean(compressResults);
     }
     
 }
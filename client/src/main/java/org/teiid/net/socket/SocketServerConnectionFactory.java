@@ -148,6 +148,7 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 	//config properties
 	private long synchronousTtl = 240000l;
 	private int maxCachedInstances=16;
+	private boolean compressResults;
 
 	private boolean disablePing;
 
@@ -274,6 +275,7 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 			}
 		}
 		SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, getSynchronousTtl());
+		ssii.setCompressResults(compressResults);
 		ssii.connect(this.channelFactory);
 		if (useCache) {
 			key.actual = ssii;
@@ -324,6 +326,14 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 		this.synchronousTtl = synchronousTTL;
 	}
 
+	public boolean isCompressResults() {
+		return compressResults;
+	}
+	
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+
 	public int getMaxCachedInstances() {
 		return maxCachedInstances;
 	}
@@ -81,6 +81,7 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
     private HashMap<Class<?>, Object> serviceMap = new HashMap<Class<?>, Object>();
     
     private boolean hasReader;
+    private boolean compressResults;
     
     public SocketServerInstanceImpl(HostInfo info, long synchTimeout) {
     	if (!info.isResolved()) {
@@ -90,6 +91,13 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
         this.synchTimeout = synchTimeout;
     }
     
+    /**
+     * Request compressed results if supported by the server.  Must be set prior to connecting.
+     */
+    public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
+    
     public synchronized void connect(ObjectChannelFactory channelFactory) throws CommunicationException, IOException {
         this.socketChannel = channelFactory.createObjectChannel(new InetSocketAddress(info.getInetAddress(), info.getPortNumber()), info.isSsl());
         try {
@@ -154,6 +162,7 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
             }*/
             serverVersion = handshake.getVersion();
             handshake.setVersion();
+            handshake.setCompressResults(this.compressResults && handshake.isCompressResults());
             
             byte[] serverPublicKey = handshake.getPublicKey();
             
@@ -49,11 +49,15 @@ import org.teiid.query.unittest.TimestampUtil;
 public class TestBatchSerializer {
 
     private static void helpTestSerialization(String[] types, List<?>[] batch, byte version) throws IOException, ClassNotFoundException {
+    	helpTestSerialization(types, batch, version, false);
+    }
+    
+    private static int helpTestSerialization(String[] types, List<?>[] batch, byte version, boolean compress) throws IOException, ClassNotFoundException {
         ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
         ObjectOutputStream out = new ObjectOutputStream(byteStream);
         List<List<?>> batchList = Arrays.asList(batch);
         
-        BatchSerializer.writeBatch(out, types, batchList, version);
+        BatchSerializer.writeBatch(out, types, batchList, version, compress);
         out.flush();
         
         byte[] bytes = byteStream.toByteArray();
@@ -65,6 +69,7 @@ public class TestBatchSerializer {
         in.close();
 
         assertTrue(batchList.equals(newBatch));
+        return bytes.length;
     }
     
     private static final String[] sampleBatchTypes = {DataTypeManager.DefaultDataTypes.BIG_DECIMAL,
@@ -155,5 +160,35 @@ public class TestBatchSerializer {
     @Test public void testStringArray() throws IOException, ClassNotFoundException {
     	helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.LONG,  "string[]"}, new List[] {Arrays.asList(1l, new ArrayImpl(new String[] {"a", "b"}))}, BatchSerializer.CURRENT_VERSION);
     }
+    
+    @Test public void testColumnEncodings() throws Exception {
+    	String[] types = {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.LONG, DataTypeManager.DefaultDataTypes.STRING};
+    	List<?>[] batch = new List<?>[1000];
+    	for (int i = 0; i < batch.length; i++) {
+    		//run length, delta, plain, varint with nulls, dictionary
+    		batch[i] = Arrays.asList(i/100, 1000000000000l + i, i * 1000003, i%7==0?null:(long)-i, "value" + i%10);
+    	}
+    	int v3 = helpTestSerialization(types, batch, (byte)3, false);
+    	int v4 = helpTestSerialization(types, batch, (byte)4, false);
+    	assertTrue(v4 < v3);
+    	helpTestSerialization(types, new List<?>[] {Arrays.asList(null, null, Integer.MIN_VALUE, Long.MAX_VALUE, null)}, (byte)4, false);
+    	helpTestSerialization(types, new List<?>[] {Arrays.asList(Integer.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, "a"), Arrays.asList(Integer.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, "b")}, (byte)4, false);
+    }
+    
+    @Test public void testCompression() throws Exception {
+    	String[] types = {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.STRING};
+    	List<?>[] batch = new List<?>[1000];
+    	for (int i = 0; i < batch.length; i++) {
+    		batch[i] = Arrays.asList(i, "some repeated text " + i);
+    	}
+    	int uncompressed = helpTestSerialization(types, batch, BatchSerializer.CURRENT_VERSION, false);
+    	int compressed = helpTestSerialization(types, batch, BatchSerializer.CURRENT_VERSION, true);
+    	assertTrue(compressed < uncompressed);
+    	//too small to compress
+    	assertEquals(helpTestSerialization(types, new List<?>[] {batch[0]}, BatchSerializer.CURRENT_VERSION, false), 
+    			helpTestSerialization(types, new List<?>[] {batch[0]}, BatchSerializer.CURRENT_VERSION, true));
+    	//not compressible types
+    	helpTestSerialization(new String[] {DataTypeManager.DefaultDataTypes.LONG,  "string[]"}, new List[] {Arrays.asList(1l, new ArrayImpl(new String[] {"a", "b"}))}, BatchSerializer.CURRENT_VERSION, true);
+    }
 
 }
@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.core.util;
+
+import java.util.Arrays;
+
+/**
+ * A minimal, dependency free implementation of the LZ4 block format.
+ * <br/>
+ * Uses a single hash table probe per position, which favors speed over ratio.
+ * The output is readable by any LZ4 block decoder and vice versa.
+ */
+public final class LZ4BlockCodec {
+	
+	private static final int MIN_MATCH = 4;
+	private static final int LAST_LITERALS = 5;
+	private static final int MF_LIMIT = 12;
+	private static final int MAX_OFFSET = 0xffff;
+	private static final int HASH_LOG = 12;
+	private static final int RUN_MASK = 0x0f;
+	
+	private LZ4BlockCodec() {
+		
+	}
+	
+	/**
+	 * @return the maximum compressed length for the given length
+	 */
+	public static int maxCompressedLength(int length) {
+		return length + length/255 + 16;
+	}
+	
+	/**
+	 * Compress the source into the destination, which must be at least {@link #maxCompressedLength(int)}
+	 * @return the compressed length
+	 */
+	public static int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) {
+		int srcEnd = srcOff + srcLen;
+		int dp = destOff;
+		int anchor = srcOff;
+		if (srcLen >= MF_LIMIT + 1) {
+			int[] table = new int[1 << HASH_LOG];
+			Arrays.fill(table, -1);
+			int limit = srcEnd - MF_LIMIT;
+			int matchLimit = srcEnd - LAST_LITERALS;
+			int ip = srcOff;
+			while (ip < limit) {
+				int seq = readInt(src, ip);
+				int h = hash(seq);
+				int ref = table[h];
+				table[h] = ip;
+				if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != seq) {
+					ip++;
+					continue;
+				}
+				int matchLen = MIN_MATCH;
+				//extend backwards into the pending literals
+				while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+					ip--;
+					ref--;
+					matchLen++;
+				}
+				while (ip + matchLen < matchLimit && src[ref + matchLen] == src[ip + matchLen]) {
+					matchLen++;
+				}
+				dp = writeSequence(src, anchor, ip - anchor, dest, dp, ip - ref, matchLen);
+				ip += matchLen;
+				anchor = ip;
+			}
+		}
+		int literals = srcEnd - anchor;
+		dest[dp++] = (byte)(Math.min(literals, RUN_MASK) << 4);
+		dp = writeLength(dest, dp, literals);
+		System.arraycopy(src, anchor, dest, dp, literals);
+		dp += literals;
+		return dp - destOff;
+	}
+	
+	/**
+	 * Decompress the source into the destination
+	 * @return the decompressed length
+	 * @throws IllegalArgumentException if the source is malformed 
+	 */
+	public static int decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+		int sp = srcOff;
+		int srcEnd = srcOff + srcLen;
+		int dp = destOff;
+		int destEnd = destOff + destLen;
+		try {
+			while (sp < srcEnd) {
+				int token = src[sp++] & 0xff;
+				int literals = token >>> 4;
+				if (literals == RUN_MASK) {
+					int b;
+					do {
+						b = src[sp++] & 0xff;
+						literals += b;
+					} while (b == 0xff);
+				}
+				if (literals > srcEnd - sp || literals > destEnd - dp) {
+					throw new IllegalArgumentException("Malformed input"); //$NON-NLS-1$
+				}
+				System.arraycopy(src, sp, dest, dp, literals);
+				sp += literals;
+				dp += literals;
+				if (sp >= srcEnd) {
+					break;
+				}
+				int offset = (src[sp] & 0xff) | ((src[sp + 1] & 0xff) << 8);
+				sp += 2;
+				int matchLen = token & RUN_MASK;
+				if (matchLen == RUN_MASK) {
+					int b;
+					do {
+						b = src[sp++] & 0xff;
+						matchLen += b;
+					} while (b == 0xff);
+				}
+				matchLen += MIN_MATCH;
+				int ref = dp - offset;
+				if (offset == 0 || ref < destOff || matchLen > destEnd - dp) {
+					throw new IllegalArgumentException("Malformed input"); //$NON-NLS-1$
+				}
+				//the match may overlap the output
+				for (int i = 0; i < matchLen; i++) {
+					dest[dp++] = dest[ref++];
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Malformed input", e); //$NON-NLS-1$
+		}
+		return dp - destOff;
+	}
+
+	private static int writeSequence(byte[] src, int literalStart, int literals, byte[] dest, int dp, int offset, int matchLen) {
+		int matchRun = matchLen - MIN_MATCH;
+		dest[dp++] = (byte)((Math.min(literals, RUN_MASK) << 4) | Math.min(matchRun, RUN_MASK));
+		dp = writeLength(dest, dp, literals);
+		System.arraycopy(src, literalStart, dest, dp, literals);
+		dp += literals;
+		dest[dp++] = (byte)offset;
+		dest[dp++] = (byte)(offset >>> 8);
+		return writeLength(dest, dp, matchRun);
+	}
+
+	private static int writeLength(byte[] dest, int dp, int length) {
+		if (length < RUN_MASK) {
+			return dp;
+		}
+		length -= RUN_MASK;
+		while (length >= 0xff) {
+			dest[dp++] = (byte)0xff;
+			length -= 0xff;
+		}
+		dest[dp++] = (byte)length;
+		return dp;
+	}
+	
+	private static int readInt(byte[] b, int i) {
+		return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8) | ((b[i + 2] & 0xff) << 16) | ((b[i + 3] & 0xff) << 24);
+	}
+	
+	private static int hash(int seq) {
+		return (seq * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+}
@@ -22,6 +22,7 @@
 
 package org.teiid.core.util;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -40,6 +41,24 @@ public class NamedThreadFactory implements ThreadFactory {
 		t.setDaemon(true);
 		return t;
 	}
+	
+	/**
+	 * Create a factory for virtual threads.  Uses reflection as virtual threads 
+	 * are only available in newer JREs.
+	 * @param name
+	 * @return the factory or null if virtual threads are not supported
+	 */
+	public static ThreadFactory createVirtualThreadFactory(String name) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null); //$NON-NLS-1$
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder"); //$NON-NLS-1$
+			Method nameMethod = builderClass.getMethod("name", String.class, long.class); //$NON-NLS-1$
+			builder = nameMethod.invoke(builder, name != null ? name : "Worker_", 0L); //$NON-NLS-1$
+			return (ThreadFactory)builderClass.getMethod("factory").invoke(builder); //$NON-NLS-1$
+		} catch (Exception e) {
+			return null;
+		}
+	}
 }
 
 
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.core.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TestLZ4BlockCodec {
+
+	private static int helpTestRoundTrip(byte[] bytes) {
+		byte[] compressed = new byte[LZ4BlockCodec.maxCompressedLength(bytes.length) + 2];
+		int length = LZ4BlockCodec.compress(bytes, 0, bytes.length, compressed, 2);
+		byte[] result = new byte[bytes.length];
+		assertEquals(bytes.length, LZ4BlockCodec.decompress(compressed, 2, length, result, 0, result.length));
+		assertArrayEquals(bytes, result);
+		return length;
+	}
+
+	@Test public void testRoundTrip() {
+		helpTestRoundTrip(new byte[0]);
+		helpTestRoundTrip(new byte[] {1, 2, 3});
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append("hello world ").append(i % 17);
+		}
+		byte[] bytes = sb.toString().getBytes();
+		assertTrue(helpTestRoundTrip(bytes) < bytes.length / 4);
+		bytes = new byte[100000];
+		new Random(1).nextBytes(bytes);
+		helpTestRoundTrip(bytes);
+		Arrays.fill(bytes, (byte)7);
+		helpTestRoundTrip(bytes);
+	}
+
+	@Test(expected=IllegalArgumentException.class) public void testMalformed() {
+		byte[] bytes = new byte[] {(byte)0xf0, 1};
+		LZ4BlockCodec.decompress(bytes, 0, bytes.length, new byte[10], 0, 10);
+	}
+
+}
@@ -21,6 +21,9 @@
  */
 package org.teiid.resource.adapter.salesforce;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -48,6 +51,7 @@ import com.sforce.async.BatchInfo;
 import com.sforce.async.BatchInfoList;
 import com.sforce.async.BatchRequest;
 import com.sforce.async.BatchResult;
+import com.sforce.async.BatchStateEnum;
 import com.sforce.async.BulkConnection;
 import com.sforce.async.ContentType;
 import com.sforce.async.JobInfo;
@@ -402,11 +406,15 @@ public class SalesforceConnectionImpl extends BasicConnection implements Salesfo
 	}
 
 	private JobInfo createBulkJob(String objectName) throws ResourceException {
+		return createBulkJob(objectName, OperationEnum.insert, ContentType.XML);
+	}
+	
+	private JobInfo createBulkJob(String objectName, OperationEnum operation, ContentType contentType) throws ResourceException {
         try {
 			JobInfo job = new JobInfo();
 			job.setObject(objectName);
-			job.setOperation(OperationEnum.insert);
-			job.setContentType(ContentType.XML);
+			job.setOperation(operation);
+			job.setContentType(contentType);
 			return this.bulkConnection.createJob(job);
 		} catch (AsyncApiException e) {
 			throw new ResourceException(e);
@@ -468,4 +476,43 @@ public class SalesforceConnectionImpl extends BasicConnection implements Salesfo
 			throw new ResourceException(e);
 		}
 	}	
+	
+	@Override
+	public BatchInfo executeBulkQuery(String objectName, String query) throws ResourceException {
+		try {
+			JobInfo job = createBulkJob(objectName, OperationEnum.query, ContentType.CSV);
+			BatchInfo batch = this.bulkConnection.createBatchFromStream(job, new ByteArrayInputStream(query.getBytes("UTF-8"))); //$NON-NLS-1$
+			this.bulkConnection.closeJob(job.getId());
+			return batch;
+		} catch (AsyncApiException e) {
+			throw new ResourceException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new ResourceException(e);
+		}
+	}
+	
+	@Override
+	public String[] getBulkQueryResults(BatchInfo batch) throws ResourceException {
+		try {
+			BatchInfo info = this.bulkConnection.getBatchInfo(batch.getJobId(), batch.getId());
+			if (info.getState() == BatchStateEnum.Completed) {
+				return this.bulkConnection.getQueryResultList(batch.getJobId(), batch.getId()).getResult();
+			}
+			if (info.getState() == BatchStateEnum.Failed || info.getState() == BatchStateEnum.NotProcessed) {
+				throw new ResourceException(info.getStateMessage());
+			}
+			throw new DataNotAvailableException(500);
+		} catch (AsyncApiException e) {
+			throw new ResourceException(e);
+		}
+	}
+	
+	@Override
+	public InputStream getBulkQueryResultStream(BatchInfo batch, String resultId) throws ResourceException {
+		try {
+			return this.bulkConnection.getQueryResultStream(batch.getJobId(), batch.getId(), resultId);
+		} catch (AsyncApiException e) {
+			throw new ResourceException(e);
+		}
+	}
 }
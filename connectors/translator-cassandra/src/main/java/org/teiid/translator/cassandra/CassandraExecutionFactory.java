@@ -46,6 +46,9 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
 		TEIID22000
 	}
 	
+	private int tokenRangeSplits;
+	private int maxConcurrentSplits = 4;
+	
 	@Override
 	public void start() throws TranslatorException {
 		super.start();
@@ -56,7 +59,9 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
 	public ResultSetExecution createResultSetExecution(QueryExpression command,
 			ExecutionContext executionContext, RuntimeMetadata metadata,
 			CassandraConnection connection) throws TranslatorException {
-		return new CassandraQueryExecution(command, connection, executionContext);
+		CassandraQueryExecution execution = new CassandraQueryExecution(command, connection, executionContext);
+		execution.setTokenRangeSplits(this.tokenRangeSplits, this.maxConcurrentSplits);
+		return execution;
 	}
 
 	@Override
@@ -122,4 +127,22 @@ public class CassandraExecutionFactory extends ExecutionFactory<ConnectionFactor
 		return true;
 	}
 	
+	@TranslatorProperty(display="Token Range Splits", description="The number of token range queries a full table scan is split into.  0 or 1 disables splitting.", advanced=true)
+	public int getTokenRangeSplits() {
+		return tokenRangeSplits;
+	}
+	
+	public void setTokenRangeSplits(int tokenRangeSplits) {
+		this.tokenRangeSplits = tokenRangeSplits;
+	}
+	
+	@TranslatorProperty(display="Max Concurrent Splits", description="The maximum number of token range queries executing at once for a single query.  At most a page of rows is buffered for each.", advanced=true)
+	public int getMaxConcurrentSplits() {
+		return maxConcurrentSplits;
+	}
+	
+	public void setMaxConcurrentSplits(int maxConcurrentSplits) {
+		this.maxConcurrentSplits = maxConcurrentSplits;
+	}
+	
 }
@@ -22,12 +22,25 @@
 
 package org.teiid.translator.cassandra;
 
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
+import javax.resource.ResourceException;
+
+import org.teiid.core.util.StringUtil;
+import org.teiid.language.ColumnReference;
 import org.teiid.language.Command;
+import org.teiid.language.DerivedColumn;
+import org.teiid.language.NamedTable;
+import org.teiid.language.Select;
+import org.teiid.language.visitor.SQLStringVisitor;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
 import org.teiid.translator.DataNotAvailableException;
@@ -35,33 +48,90 @@ import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
 
+import com.datastax.driver.core.ColumnMetadata;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TableMetadata;
+import com.google.common.util.concurrent.ListenableFuture;
 
 public class CassandraQueryExecution implements ResultSetExecution {
+	
+	private static final String MURMUR3_PARTITIONER = "Murmur3Partitioner"; //$NON-NLS-1$
+	private static final String RANDOM_PARTITIONER = "RandomPartitioner"; //$NON-NLS-1$
+	
+	private static final Executor SAME_THREAD = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+	
+	/**
+	 * A query executed asynchronously.  The next page is only requested once the
+	 * current page has been read, which bounds the rows buffered for each split. 
+	 */
+	private class Split implements Runnable {
+		private ListenableFuture<?> pending;
+		private ResultSet results;
+		
+		void await(ListenableFuture<?> future) {
+			this.pending = future;
+			future.addListener(this, SAME_THREAD);
+		}
+		
+		@Override
+		public void run() {
+			executionContext.dataAvailable();
+		}
+	}
 
 	private Command query;
 	private CassandraConnection connection;
 	private ResultSet resultSet = null;
 	private ExecutionContext executionContext;
 	protected boolean returnsArray;
+	private int tokenRangeSplits;
+	private int maxConcurrentSplits = 1;
+	private LinkedList<String> pendingQueries;
+	private List<Split> activeSplits;
 	
 	public CassandraQueryExecution(Command query, CassandraConnection connection, ExecutionContext context){
 		this.query = query;
 		this.connection = connection;
 		this.executionContext = context;
 	}
+	
+	/**
+	 * Split full table scans into the given number of token range queries, with at most
+	 * maxConcurrentSplits executing at once.
+	 */
+	public void setTokenRangeSplits(int tokenRangeSplits, int maxConcurrentSplits) {
+		this.tokenRangeSplits = tokenRangeSplits;
+		this.maxConcurrentSplits = Math.max(1, maxConcurrentSplits);
+	}
 
 	@Override
 	public void close() {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, CassandraExecutionFactory.UTIL.getString("close_query")); //$NON-NLS-1$
-		
+		cancelSplits();
 	}
 
 	@Override
 	public void cancel() throws TranslatorException {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, CassandraExecutionFactory.UTIL.getString("cancel_query")); //$NON-NLS-1$
-		
+		cancelSplits();
+	}
+	
+	private void cancelSplits() {
+		if (this.activeSplits != null) {
+			for (Split split : this.activeSplits) {
+				if (split.pending != null) {
+					split.pending.cancel(true);
+				}
+			}
+			this.activeSplits.clear();
+			this.pendingQueries.clear();
+		}
 	}
 
 	@Override
@@ -69,7 +139,143 @@ public class CassandraQueryExecution implements ResultSetExecution {
 		CassandraSQLVisitor visitor = new CassandraSQLVisitor();
 		visitor.translateSQL(query);
 		String cql = visitor.getTranslatedSQL();
-		execute(cql);
+		List<String> queries = getTokenRangeQueries(cql);
+		if (queries == null) {
+			queries = Collections.singletonList(cql);
+		}
+		this.pendingQueries = new LinkedList<String>(queries);
+		this.activeSplits = new ArrayList<Split>(this.maxConcurrentSplits);
+		startSplits();
+	}
+	
+	/**
+	 * Split an unfiltered scan of a single table into queries over contiguous token ranges.
+	 * @return the token range queries or null if the query should not be split
+	 */
+	List<String> getTokenRangeQueries(String cql) throws TranslatorException {
+		if (this.tokenRangeSplits < 2 || !(this.query instanceof Select)) {
+			return null;
+		}
+		Select select = (Select)this.query;
+		if (select.getWhere() != null || select.getOrderBy() != null || select.getLimit() != null 
+				|| select.getFrom().size() != 1 || !(select.getFrom().get(0) instanceof NamedTable)) {
+			return null;
+		}
+		for (DerivedColumn column : select.getDerivedColumns()) {
+			if (!(column.getExpression() instanceof ColumnReference)) {
+				return null;
+			}
+		}
+		try {
+			TableMetadata table = this.connection.keyspaceInfo().getTable(SQLStringVisitor.getRecordName(((NamedTable)select.getFrom().get(0)).getMetadataObject()));
+			if (table == null) {
+				return null;
+			}
+			Row row = this.connection.executeQuery("SELECT partitioner FROM system.local").one(); //$NON-NLS-1$
+			String partitioner = row == null ? null : row.getString(0);
+			BigInteger min = null;
+			BigInteger max = null;
+			if (partitioner == null) {
+				return null;
+			} else if (partitioner.endsWith(MURMUR3_PARTITIONER)) {
+				min = BigInteger.valueOf(Long.MIN_VALUE);
+				max = BigInteger.valueOf(Long.MAX_VALUE);
+			} else if (partitioner.endsWith(RANDOM_PARTITIONER)) {
+				min = BigInteger.valueOf(-1);
+				max = BigInteger.valueOf(2).pow(127);
+			} else {
+				//order preserving partitioners do not have evenly distributed numeric tokens
+				return null;
+			}
+			StringBuilder token = new StringBuilder("token("); //$NON-NLS-1$
+			for (Iterator<ColumnMetadata> iter = table.getPartitionKey().iterator(); iter.hasNext();) {
+				token.append('"').append(StringUtil.replaceAll(iter.next().getName(), "\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+				if (iter.hasNext()) {
+					token.append(", "); //$NON-NLS-1$
+				}
+			}
+			token.append(')');
+			BigInteger range = max.subtract(min);
+			List<String> result = new ArrayList<String>(this.tokenRangeSplits);
+			BigInteger lower = min;
+			for (int i = 1; i <= this.tokenRangeSplits; i++) {
+				BigInteger upper = max;
+				if (i < this.tokenRangeSplits) {
+					upper = min.add(range.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(this.tokenRangeSplits)));
+				}
+				result.add(cql + " WHERE " + token + " > " + lower + " AND " + token + " <= " + upper); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				lower = upper;
+			}
+			return result;
+		} catch (ResourceException e) {
+			throw new TranslatorException(e);
+		} catch (RuntimeException e) {
+			throw new TranslatorException(e);
+		}
+	}
+	
+	private void startSplits() throws TranslatorException {
+		while (this.activeSplits.size() < this.maxConcurrentSplits && !this.pendingQueries.isEmpty()) {
+			String cql = this.pendingQueries.removeFirst();
+			LogManager.logDetail(LogConstants.CTX_CONNECTOR, "Source-Query:", cql); //$NON-NLS-1$
+			Split split = new Split();
+			try {
+				split.await(this.connection.executeQueryAsync(cql, this.executionContext.getBatchSize()));
+			} catch (Throwable t) {
+				throw new TranslatorException(t);
+			}
+			this.activeSplits.add(split);
+		}
+	}
+	
+	/**
+	 * Get the next row from any split with a page available. 
+	 * @throws DataNotAvailableException if all splits are waiting on results
+	 */
+	private Row nextSplitRow() throws TranslatorException {
+		while (true) {
+			startSplits();
+			if (this.activeSplits.isEmpty()) {
+				return null;
+			}
+			boolean finished = false;
+			for (Iterator<Split> iter = this.activeSplits.iterator(); iter.hasNext();) {
+				Split split = iter.next();
+				if (split.pending != null) {
+					if (!split.pending.isDone()) {
+						continue;
+					}
+					try {
+						Object result = split.pending.get();
+						if (split.results == null) {
+							split.results = (ResultSet)result;
+						}
+					} catch (InterruptedException e) {
+						throw new TranslatorException(e);
+					} catch (ExecutionException e) {
+						throw new TranslatorException(e.getCause());
+					}
+					split.pending = null;
+				}
+				if (split.results.getAvailableWithoutFetching() > 0) {
+					Row row = split.results.one();
+					if (split.results.getAvailableWithoutFetching() == 0 && !split.results.isFullyFetched()) {
+						//request the next page while the other splits are read
+						split.await(split.results.fetchMoreResults());
+					}
+					return row;
+				}
+				if (!split.results.isFullyFetched()) {
+					split.await(split.results.fetchMoreResults());
+					continue;
+				}
+				iter.remove();
+				finished = true;
+			}
+			if (!finished) {
+				throw DataNotAvailableException.NO_POLLING;
+			}
+		}
 	}
 
 	protected void execute(String cql) throws TranslatorException {
@@ -83,6 +289,9 @@ public class CassandraQueryExecution implements ResultSetExecution {
 
 	@Override
 	public List<?> next() throws TranslatorException, DataNotAvailableException {
+		if (this.activeSplits != null) {
+			return getRow(nextSplitRow());
+		}
 		return getRow(resultSet.one());
 	}
 	
@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.translator.cassandra;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.language.Command;
+import org.teiid.language.Select;
+import org.teiid.metadata.RuntimeMetadata;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.translator.DataNotAvailableException;
+import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.ResultSetExecution;
+
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.ColumnMetadata;
+import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.TableMetadata;
+
+@SuppressWarnings("nls")
+public class TestCassandraQueryExecution {
+	
+	private ResultSetFuture helpCreateFuture(boolean done, int rows) throws Exception {
+		ResultSet rs = Mockito.mock(ResultSet.class);
+		Row row = Mockito.mock(Row.class);
+		Mockito.stub(row.getColumnDefinitions()).toReturn(Mockito.mock(ColumnDefinitions.class));
+		//the available count is checked before and after reading each row
+		Integer[] available = new Integer[2*rows - 1];
+		for (int i = 0; i < available.length; i++) {
+			available[i] = rows - (i + 2)/2;
+		}
+		Mockito.when(rs.getAvailableWithoutFetching()).thenReturn(rows, available);
+		Mockito.stub(rs.isFullyFetched()).toReturn(true);
+		Mockito.stub(rs.one()).toReturn(row);
+		ResultSetFuture future = Mockito.mock(ResultSetFuture.class);
+		Mockito.stub(future.isDone()).toReturn(done);
+		Mockito.stub(future.get()).toReturn(rs);
+		return future;
+	}
+
+	@Test public void testTokenRangeSplits() throws Exception {
+		CassandraExecutionFactory cef = new CassandraExecutionFactory();
+		cef.setTokenRangeSplits(2);
+		cef.setMaxConcurrentSplits(2);
+		
+		TransformationMetadata metadata = RealMetadataFactory.fromDDL("create foreign table Person (id integer primary key, name string)", "x", "y");
+		TranslationUtility util = new TranslationUtility(metadata);
+		Command command = util.parseCommand("select id, name from Person");
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		Mockito.stub(ec.getBatchSize()).toReturn(256);
+		CassandraConnection connection = Mockito.mock(CassandraConnection.class);
+		
+		ColumnMetadata id = Mockito.mock(ColumnMetadata.class);
+		Mockito.stub(id.getName()).toReturn("id");
+		TableMetadata table = Mockito.mock(TableMetadata.class);
+		Mockito.stub(table.getPartitionKey()).toReturn(Arrays.asList(id));
+		KeyspaceMetadata keyspace = Mockito.mock(KeyspaceMetadata.class);
+		Mockito.stub(keyspace.getTable("Person")).toReturn(table);
+		Mockito.stub(connection.keyspaceInfo()).toReturn(keyspace);
+		
+		ResultSet partitioner = Mockito.mock(ResultSet.class);
+		Row row = Mockito.mock(Row.class);
+		Mockito.stub(row.getString(0)).toReturn("org.apache.cassandra.dht.Murmur3Partitioner");
+		Mockito.stub(partitioner.one()).toReturn(row);
+		Mockito.stub(connection.executeQuery("SELECT partitioner FROM system.local")).toReturn(partitioner);
+		
+		ResultSetFuture first = helpCreateFuture(false, 1);
+		ResultSetFuture second = helpCreateFuture(true, 2);
+		Mockito.stub(connection.executeQueryAsync("SELECT id, name FROM Person WHERE token(\"id\") > -9223372036854775808 AND token(\"id\") <= -1", 256)).toReturn(first);
+		Mockito.stub(connection.executeQueryAsync("SELECT id, name FROM Person WHERE token(\"id\") > -1 AND token(\"id\") <= 9223372036854775807", 256)).toReturn(second);
+		
+		ResultSetExecution execution = cef.createResultSetExecution((Select)command, ec, Mockito.mock(RuntimeMetadata.class), connection);
+		execution.execute();
+		
+		//the second split is read while the first is still executing
+		assertNotNull(execution.next());
+		assertNotNull(execution.next());
+		try {
+			execution.next();
+			fail("expected the first split to still be executing");
+		} catch (DataNotAvailableException e) {
+		}
+		Mockito.stub(first.isDone()).toReturn(true);
+		assertNotNull(execution.next());
+		assertNull(execution.next());
+	}
+	
+	@Test public void testFilteredQueryNotSplit() throws Exception {
+		CassandraExecutionFactory cef = new CassandraExecutionFactory();
+		cef.setTokenRangeSplits(2);
+		
+		TransformationMetadata metadata = RealMetadataFactory.fromDDL("create foreign table Person (id integer primary key, name string)", "x", "y");
+		TranslationUtility util = new TranslationUtility(metadata);
+		Command command = util.parseCommand("select id, name from Person where id = 1");
+		CassandraConnection connection = Mockito.mock(CassandraConnection.class);
+		ResultSetFuture future = helpCreateFuture(true, 1);
+		Mockito.stub(connection.executeQueryAsync("SELECT id, name FROM Person WHERE id = 1", 0)).toReturn(future);
+		
+		ResultSetExecution execution = cef.createResultSetExecution((Select)command, Mockito.mock(ExecutionContext.class), Mockito.mock(RuntimeMetadata.class), connection);
+		execution.execute();
+		assertNotNull(execution.next());
+		assertNull(execution.next());
+		Mockito.verify(connection, Mockito.never()).keyspaceInfo();
+	}
+	
+}
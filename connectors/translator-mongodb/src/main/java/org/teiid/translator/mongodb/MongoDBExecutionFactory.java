@@ -44,6 +44,7 @@ import org.teiid.translator.*;
 import org.teiid.translator.jdbc.AliasModifier;
 import org.teiid.translator.jdbc.FunctionModifier;
 
+import com.mongodb.AggregationOptions;
 import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
@@ -70,6 +71,8 @@ public class MongoDBExecutionFactory extends ExecutionFactory<ConnectionFactory,
     
 	protected Map<String, FunctionModifier> functionModifiers = new TreeMap<String, FunctionModifier>(String.CASE_INSENSITIVE_ORDER);
 	private Version version = TWO_4;
+	private int aggregationBatchSize;
+	private boolean allowDiskUse = true;
 	
 	public MongoDBExecutionFactory() {
 		setSupportsOrderBy(true);
@@ -193,6 +196,41 @@ public class MongoDBExecutionFactory extends ExecutionFactory<ConnectionFactory,
     public void setDatabaseVersion(Version version) {
         this.version = version;
     }	
+    
+    @TranslatorProperty(display="Aggregation Batch Size", description="The number of documents returned in each batch of an aggregation cursor. 0 uses the engine batch size.", advanced=true)
+    public int getAggregationBatchSize() {
+    	return this.aggregationBatchSize;
+    }
+    
+    public void setAggregationBatchSize(int aggregationBatchSize) {
+    	this.aggregationBatchSize = aggregationBatchSize;
+    }
+    
+    @TranslatorProperty(display="Allow Disk Use", description="True, aggregation stages may write temporary files on the server when they exceed its memory limit. Only used with 2.6 or later.", advanced=true)
+    public boolean isAllowDiskUse() {
+    	return this.allowDiskUse;
+    }
+    
+    public void setAllowDiskUse(boolean allowDiskUse) {
+    	this.allowDiskUse = allowDiskUse;
+    }
+    
+    /**
+     * Get the aggregation options.  Prior to 2.6 the results can only be returned inline 
+     * in a single response document. 
+     */
+    AggregationOptions getAggregationOptions(int batchSize) {
+    	if (this.aggregationBatchSize > 0) {
+    		batchSize = this.aggregationBatchSize;
+    	}
+    	AggregationOptions.Builder builder = AggregationOptions.builder().batchSize(batchSize);
+    	if (this.version.compareTo(TWO_6) >= 0) {
+    		builder.outputMode(AggregationOptions.OutputMode.CURSOR).allowDiskUse(this.allowDiskUse);
+    	} else {
+    		builder.outputMode(AggregationOptions.OutputMode.INLINE);
+    	}
+    	return builder.build();
+    }
 	
 	@Override
     public MetadataProcessor<MongoDBConnection> getMetadataProcessor() {
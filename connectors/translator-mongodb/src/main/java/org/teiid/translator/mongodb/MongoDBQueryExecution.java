@@ -22,7 +22,6 @@
 package org.teiid.translator.mongodb;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import org.teiid.language.QueryExpression;
@@ -41,9 +40,11 @@ import com.mongodb.*;
 public class MongoDBQueryExecution extends MongoDBBaseExecution implements ResultSetExecution {
 	private Select command;
 	private MongoDBExecutionFactory executionFactory;
-	private Iterator<DBObject> results;
+	private Cursor results;
 	private MongoDBSelectVisitor visitor;
 	private Class<?>[] expectedTypes;
+	private String[] columns;
+	private String[] columnReferences;
 
 	public MongoDBQueryExecution(
 			MongoDBExecutionFactory executionFactory,
@@ -99,8 +100,7 @@ public class MongoDBQueryExecution extends MongoDBBaseExecution implements Resul
 			buildAggregate(ops, "$limit", this.visitor.limit); //$NON-NLS-1$
 
 			try {
-				AggregationOutput output = collection.aggregate(ops.remove(0), ops.toArray(new DBObject[ops.size()]));
-				this.results = output.results().iterator();
+				this.results = collection.aggregate(ops, this.executionFactory.getAggregationOptions(this.executionContext.getBatchSize()));
 			} catch (MongoException e) {
 				throw new TranslatorException(e);
 			}
@@ -116,22 +116,38 @@ public class MongoDBQueryExecution extends MongoDBBaseExecution implements Resul
 
 	@Override
 	public List<?> next() throws TranslatorException, DataNotAvailableException {
-		if (this.results != null && this.results.hasNext()) {
-			DBObject result = this.results.next();
-			if (result != null) {
-				ArrayList row = new ArrayList();
-				for (int i = 0; i < this.visitor.selectColumns.size();i++) {
-					row.add(this.executionFactory.retrieveValue(result.get(this.visitor.selectColumns.get(i)), this.expectedTypes[i], this.mongoDB, this.visitor.selectColumns.get(i), this.visitor.selectColumnReferences.get(i)));
-				}
-				return row;
+		if (this.results == null) {
+			return null;
+		}
+		DBObject result = null;
+		try {
+			if (this.results.hasNext()) {
+				result = this.results.next();
+			}
+		} catch (MongoException e) {
+			throw new TranslatorException(e);
+		}
+		if (result != null) {
+			if (this.columns == null) {
+				this.columns = this.visitor.selectColumns.toArray(new String[this.visitor.selectColumns.size()]);
+				this.columnReferences = this.visitor.selectColumnReferences.toArray(new String[this.visitor.selectColumnReferences.size()]);
+			}
+			//the engine holds onto the returned rows, so only the column lookups are reused
+			ArrayList<Object> row = new ArrayList<Object>(this.columns.length);
+			for (int i = 0; i < this.columns.length; i++) {
+				row.add(this.executionFactory.retrieveValue(result.get(this.columns[i]), this.expectedTypes[i], this.mongoDB, this.columns[i], this.columnReferences[i]));
 			}
+			return row;
 		}
 		return null;
 	}
 
 	@Override
 	public void close() {
-		this.results = null;
+		if (this.results != null) {
+			this.results.close();
+			this.results = null;
+		}
 	}
 
 	@Override
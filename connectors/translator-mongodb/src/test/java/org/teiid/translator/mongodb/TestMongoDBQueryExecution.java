@@ -21,8 +21,12 @@
  */
 package org.teiid.translator.mongodb;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -68,7 +72,7 @@ public class TestMongoDBQueryExecution {
     	this.utility = new TranslationUtility(metadata);
     }
 
-	private DBCollection helpExecute(String query, String[] expectedCollection, int expectedParameters) throws TranslatorException {
+	private DBCollection helpExecute(String query, String[] expectedCollection) throws TranslatorException {
 		Command cmd = this.utility.parseCommand(query);
 		ExecutionContext context = Mockito.mock(ExecutionContext.class);
 		MongoDBConnection connection = Mockito.mock(MongoDBConnection.class);
@@ -79,15 +83,8 @@ public class TestMongoDBQueryExecution {
 			Mockito.stub(db.getCollection(collection)).toReturn(dbCollection);
 		}
 
-		AggregationOutput output = Mockito.mock(AggregationOutput.class);
-		Mockito.stub(output.results()).toReturn(new ArrayList<DBObject>());
-
-		ArrayList<DBObject> params = new ArrayList<DBObject>();
-		for (int i = 0; i < expectedParameters; i++) {
-			params.add(Mockito.any(DBObject.class));
-		}
-
-		Mockito.stub(dbCollection.aggregate(params.remove(0), params.toArray(new DBObject[params.size()]))).toReturn(output);
+		Cursor output = Mockito.mock(Cursor.class);
+		Mockito.stub(dbCollection.aggregate(Mockito.anyListOf(DBObject.class), Mockito.any(AggregationOptions.class))).toReturn(output);
 
 		Mockito.stub(db.collectionExists(Mockito.anyString())).toReturn(true);
 		Mockito.stub(connection.getDatabase()).toReturn(db);
@@ -98,12 +95,16 @@ public class TestMongoDBQueryExecution {
 		execution.execute();
 		return dbCollection;
 	}
+	
+	private List<DBObject> buildArray(DBObject... basicDBObjects) {
+		return Arrays.asList(basicDBObjects);
+	}
 
 	@Test
 	public void testSimpleSelectNoAssosiations() throws Exception {
 		String query = "SELECT * FROM Customers";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 1);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id");
@@ -118,84 +119,99 @@ public class TestMongoDBQueryExecution {
 	    result.append( "_m9","$Phone");
 	    result.append( "_m10","$Fax");
 
-		Mockito.verify(dbCollection).aggregate(new BasicDBObject("$project", result));
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
+	}
+
+	@Test
+	public void testAggregationOptions() throws Exception {
+		this.translator.setAggregationBatchSize(100);
+		AggregationOptions options = this.translator.getAggregationOptions(256);
+		assertEquals(AggregationOptions.OutputMode.CURSOR, options.getOutputMode());
+		assertEquals(Integer.valueOf(100), options.getBatchSize());
+		assertTrue(options.getAllowDiskUse());
+		
+		this.translator.setAggregationBatchSize(0);
+		this.translator.setDatabaseVersion("2.4");
+		options = this.translator.getAggregationOptions(256);
+		assertEquals(AggregationOptions.OutputMode.INLINE, options.getOutputMode());
+		assertEquals(Integer.valueOf(256), options.getBatchSize());
 	}
 
 	@Test
 	public void testSimpleWhere() throws Exception {
 		String query = "SELECT CompanyName, ContactTitle FROM Customers WHERE Country='USA'";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CompanyName");
 	    result.append( "_m1","$ContactTitle");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", new BasicDBObject("Country", "USA")),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
 	public void testSelectEmbeddable() throws Exception {
 		String query = "SELECT CategoryName FROM Categories";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 1);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CategoryName");
 
-		Mockito.verify(dbCollection).aggregate(
-						new BasicDBObject("$project", result));
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 	
 	@Test
 	public void testSelectEmbeddableWithWhere_ON_NONPK() throws Exception {
 		String query = "SELECT CategoryName FROM Categories WHERE CategoryName = 'Drinks'";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CategoryName");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match",new BasicDBObject("CategoryName", "Drinks")),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test
 	public void testSelectEmbeddableWithWhere_ON_PK() throws Exception {
 		String query = "SELECT CategoryName FROM Categories WHERE CategoryID = 10";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CategoryName");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match",new BasicDBObject("_id", 10)),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 
 	@Test
 	public void testSelectFromMerged() throws Exception {
 		String query = "SELECT UnitPrice FROM OrderDetails";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$OrderDetails.UnitPrice");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$unwind","$OrderDetails"),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
 	public void testSelectMergedWithWhere() throws Exception {
 		String query = "SELECT * FROM OrderDetails WHERE odID = 10248";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id");
@@ -205,40 +221,40 @@ public class TestMongoDBQueryExecution {
 	    result.append( "_m4","$OrderDetails.Discount");
 
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$unwind","$OrderDetails"),
 						new BasicDBObject("$match", new BasicDBObject("_id", 10248)),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 	
 	@Test // one-2-many
 	public void testSelectMergedWithWhere_ON_NON_PK() throws Exception {
 		String query = "SELECT Quantity FROM OrderDetails WHERE UnitPrice = '0.99'";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$OrderDetails.Quantity");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$unwind","$OrderDetails"),
 						new BasicDBObject("$match", new BasicDBObject("OrderDetails.UnitPrice", 0.99)),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test // one-2-one
 	public void testSelectMergedWithWhere_ON_NON_PK_one_to_one() throws Exception {
 		String query = "SELECT cust_id, zip FROM Address WHERE Street = 'Highway 100'";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id");
 	    result.append( "_m1","$address.zip");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", new BasicDBObject("address.street", "Highway 100")),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test // one-2-one
@@ -247,45 +263,45 @@ public class TestMongoDBQueryExecution {
 				"FROM customer c join address a " +
 				"on c.customer_id=a.cust_id";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
 	    result.append( "_m1","$address.zip");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", new BasicDBObject("address", new BasicDBObject("$exists", "true").append("$ne", null))),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test // one-2-one
 	public void testSelectMergedWithNOWhere_one_to_one() throws Exception {
 		String query = "SELECT cust_id, zip FROM Address";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id");
 	    result.append( "_m1","$address.zip");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", QueryBuilder.start("address").exists("true").get()),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 
 	@Test
 	public void testTwoTableInnerJoinMergeAssosiationMany() throws Exception {
 		String query = "SELECT o.CustomerID, od.ProductID FROM Orders o JOIN OrderDetails od ON o.OrderID=od.odID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CustomerID");
 	    result.append( "_m1","$OrderDetails._id.ProductID");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$unwind","$OrderDetails"),
 						new BasicDBObject("$match", QueryBuilder.start("OrderDetails").exists("true").notEquals(null).get()),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
@@ -293,15 +309,15 @@ public class TestMongoDBQueryExecution {
 		String query = "select p.ProductName, c.CategoryName from Products p " +
 				"join Categories c on p.CategoryID = c.CategoryID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Categories.CategoryName");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", QueryBuilder.start("Categories").exists("true").notEquals(null).get()),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
@@ -310,7 +326,7 @@ public class TestMongoDBQueryExecution {
 				"JOIN Categories c on p.CategoryID = c.CategoryID " +
 				"WHERE p.CategoryID = 1 AND c.CategoryID = 1";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
@@ -321,9 +337,9 @@ public class TestMongoDBQueryExecution {
 	    DBObject p2 =  QueryBuilder.start("CategoryID").is(1).get();
 
 	    DBObject match = QueryBuilder.start().and(exists, p1, p2).get(); // duplicate criteria, mongo should ignore it
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$match", match),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
@@ -332,7 +348,7 @@ public class TestMongoDBQueryExecution {
 				"FROM Orders o JOIN OrderDetails od ON o.OrderID=od.odID " +
 				"JOIN Shippers s ON o.ShipVia = s.ShipperID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$CustomerID");
@@ -343,10 +359,10 @@ public class TestMongoDBQueryExecution {
 	    		(QueryBuilder.start("Shippers").exists("true").notEquals(null).get())).get();
 
 	    
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$unwind","$OrderDetails"),
 						new BasicDBObject("$match", match),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 	@Test
@@ -355,7 +371,7 @@ public class TestMongoDBQueryExecution {
 				"LEFT OUTER JOIN OrderDetails ON Orders.OrderID = OrderDetails.odID " +
 				"WHERE OrderDetails.UnitPrice IS NOT NULL";
 		
-		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"}, 4);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Orders"});
 
 	    BasicDBObject projection = new BasicDBObject();
 	    projection.append( "OrderID", 1);
@@ -371,11 +387,11 @@ public class TestMongoDBQueryExecution {
 	    result.append( "_m1","$__NN_OrderDetails._id.ProductID");
 
 	    DBObject match = QueryBuilder.start("__NN_OrderDetails.UnitPrice").notEquals(null).get();
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    				new BasicDBObject("$project", projection),
 						new BasicDBObject("$unwind","$__NN_OrderDetails"),
 						new BasicDBObject("$match",match),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 
 
@@ -383,7 +399,7 @@ public class TestMongoDBQueryExecution {
     public void testSelectNestedEmbedding()  throws Exception {
     	String query = "select T1.e1, T2.e1, T3.e1 from T1 JOIN T2 ON T1.e1=T2.e1 JOIN T3 ON T2.e1 = T3.e1";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"T1", "T2", "T3"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"T1", "T2", "T3"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$e1");
@@ -392,26 +408,26 @@ public class TestMongoDBQueryExecution {
 
 	    DBObject match = QueryBuilder.start().and(QueryBuilder.start("T2").exists("true").notEquals(null).get(),
 	    		(QueryBuilder.start("T3").exists("true").notEquals(null).get())).get();
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$match", match),
-	    		new BasicDBObject("$project", result));
+	    		new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
 
     @Test
     public void testSelectNestedMerge()  throws Exception {
     	String query = "select * from payment";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$rental.payment._id");
 	    result.append( "_m1","$rental.payment.rental_id");
 	    result.append( "_m2","$rental.payment.amount");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 				new BasicDBObject("$unwind","$rental"),
 				new BasicDBObject("$unwind","$rental.payment"),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
         
@@ -423,15 +439,15 @@ public class TestMongoDBQueryExecution {
     			"Products p " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 				new BasicDBObject("$match", QueryBuilder.start("Suppliers").exists("true").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test // embedded means always nested as doc not as array 
@@ -442,15 +458,15 @@ public class TestMongoDBQueryExecution {
     			"Suppliers s " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 				new BasicDBObject("$match", QueryBuilder.start("Suppliers").exists("true").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test(expected=TranslatorException.class) // embedded means always nested as doc not as array 
@@ -461,15 +477,15 @@ public class TestMongoDBQueryExecution {
     			"Products p " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 				new BasicDBObject("$match", QueryBuilder.start("SupplierID").notEquals(null).and(QueryBuilder.start("Suppliers._id").notEquals(null).get()).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test // embedded means always nested as doc not as array 
@@ -480,14 +496,14 @@ public class TestMongoDBQueryExecution {
     			"Suppliers s " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 1);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
-				new BasicDBObject("$project", result));
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test // embedded means always nested as doc not as array 
@@ -498,13 +514,13 @@ public class TestMongoDBQueryExecution {
     			"Products p " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 1);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
-				new BasicDBObject("$project", result));
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     // embedded means always nested as doc not as array
@@ -516,15 +532,15 @@ public class TestMongoDBQueryExecution {
     			"Suppliers s " +
     			"ON s.SupplierID = p.SupplierID";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Products"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Products"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$ProductName");
 	    result.append( "_m1","$Suppliers.CompanyName");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 				new BasicDBObject("$match", QueryBuilder.start("_id").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test // merge where one to many relation 
@@ -535,17 +551,17 @@ public class TestMongoDBQueryExecution {
     			"Notes n " +
     			"ON c.customer_id = n.CustomerId";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
 	    result.append( "_m1","$Notes.Comment");
 	    result.append( "_m2","$_id");
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$unwind", "$Notes"),
 				new BasicDBObject("$match", QueryBuilder.start("Notes").exists("true").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test // merge where one to many relation 
@@ -556,7 +572,7 @@ public class TestMongoDBQueryExecution {
     			"Notes n " +
     			"ON c.customer_id = n.CustomerId";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
@@ -568,10 +584,10 @@ public class TestMongoDBQueryExecution {
 	 	project.append("customer_id", 1);
 	 	project.append("name", 1);
 	 	project.append("__NN_Notes", ifnull);
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$project", project),
 	    		new BasicDBObject("$unwind", "$__NN_Notes"),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test // merge where one to many relation - equal to inner join with doc format teiid has
@@ -582,16 +598,16 @@ public class TestMongoDBQueryExecution {
     			"Notes n " +
     			"ON c.customer_id = n.CustomerId";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 		
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
 	    result.append( "_m1","$Notes.Comment");
 		
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$unwind", "$Notes"),
 	    		new BasicDBObject("$match", QueryBuilder.start("Notes").exists("true").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     
@@ -603,16 +619,16 @@ public class TestMongoDBQueryExecution {
     			"Customer c " +
     			"ON c.customer_id = n.CustomerId";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 		
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
 	    result.append( "_m1","$Notes.Comment");
 		
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$unwind", "$Notes"),
 	    		new BasicDBObject("$match", QueryBuilder.start("Notes").exists("true").notEquals(null).get()),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test // merge where one to many relation (2 merged tables into customer)
@@ -624,7 +640,7 @@ public class TestMongoDBQueryExecution {
     			"ON c.customer_id = n.CustomerId " +
     			"LEFT JOIN rental r ON r.customer_id = c.customer_id";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 4);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$name");
@@ -636,11 +652,11 @@ public class TestMongoDBQueryExecution {
 	 	project.append("name", 1);
 	 	project.append("__NN_Notes", buildIfNullExpression("Notes"));
 	 	project.append("__NN_rental", buildIfNullExpression("rental"));
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$project", project),
 	    		new BasicDBObject("$unwind", "$__NN_rental"),
 	    		new BasicDBObject("$unwind", "$__NN_Notes"),
-				new BasicDBObject("$project", result));
+				new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
 
 	private BasicDBObject buildIfNullExpression(String table) {
@@ -657,21 +673,21 @@ public class TestMongoDBQueryExecution {
 	public void testSimpleGroupBy() throws Exception {
 		String query = "SELECT Country FROM Customers GROUP BY Country";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id._c0");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$group", new BasicDBObject("_id", new BasicDBObject("_c0", "$Country"))),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}
 	
 	@Test
 	public void testMultipleGroupBy() throws Exception {
 		String query = "SELECT Country,City FROM Customers GROUP BY Country,City";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject project = new BasicDBObject();
 	    project.append( "_m0","$_id._c0");
@@ -681,30 +697,30 @@ public class TestMongoDBQueryExecution {
 	    group.append( "_c0","$Country");
 	    group.append( "_c1","$City");
 	    	    
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$group", new BasicDBObject("_id", group)),
-						new BasicDBObject("$project", project));
+						new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test
 	public void testDistinctSingle() throws Exception {
 		String query = "SELECT DISTINCT Country FROM Customers";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id._m0");
 
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$group", new BasicDBObject("_id", new BasicDBObject("_m0", "$Country"))),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
 	@Test
 	public void testDistinctMulti() throws Exception {
 		String query = "SELECT DISTINCT Country, City FROM Customers";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"Customers"});
 
 	    BasicDBObject result = new BasicDBObject();
 	    result.append( "_m0","$_id._m0");
@@ -714,9 +730,9 @@ public class TestMongoDBQueryExecution {
 	    group.append( "_m0","$Country");
 	    group.append( "_m1","$City");
 	    
-		Mockito.verify(dbCollection).aggregate(
+		Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 						new BasicDBObject("$group", new BasicDBObject("_id", group)),
-						new BasicDBObject("$project", result));
+						new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
 	}	
 	
     @Test // embedded means always nested as doc not as array 
@@ -726,7 +742,7 @@ public class TestMongoDBQueryExecution {
 				"on c.customer_id=a.cust_id " +
 				"GROUP BY c.name, a.zip";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 3);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject project = new BasicDBObject();
 	    project.append( "_m0","$_id._c0");
@@ -736,10 +752,10 @@ public class TestMongoDBQueryExecution {
 	    group.append( "_c0","$name");
 	    group.append( "_c1","$address.zip");	    
 
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$match", new BasicDBObject("address", new BasicDBObject("$exists", "true").append("$ne", null))),
 	    		new BasicDBObject("$group", new BasicDBObject("_id", group)),
-				new BasicDBObject("$project", project));
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));
     }	
     
     @Test // embedded means always nested as doc not as array 
@@ -751,7 +767,7 @@ public class TestMongoDBQueryExecution {
 				"ORDER BY c.name, a.zip " +
 				"limit 2";
 
-		DBCollection dbCollection = helpExecute(query, new String[]{"customer"}, 6);
+		DBCollection dbCollection = helpExecute(query, new String[]{"customer"});
 
 	    BasicDBObject project = new BasicDBObject();
 	    project.append( "_m0","$_id._c0");
@@ -765,20 +781,20 @@ public class TestMongoDBQueryExecution {
 	    sort.append( "_m0",1);
 	    sort.append( "_m1",1);
 	    
-	    Mockito.verify(dbCollection).aggregate(
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
 	    		new BasicDBObject("$match", new BasicDBObject("address", new BasicDBObject("$exists", "true").append("$ne", null))),
 	    		new BasicDBObject("$group", new BasicDBObject("_id", group)),
 				new BasicDBObject("$project", project),
 				new BasicDBObject("$sort", sort),
 				new BasicDBObject("$skip", 0),
-				new BasicDBObject("$limit", 2));
+				new BasicDBObject("$limit", 2))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test
     public void testSumWithGroupBy() throws Exception {
     	String query = "SELECT SUM(age) as total FROM users GROUP BY user_id";
     	
-    	DBCollection dbCollection = helpExecute(query, new String[]{"users"}, 2);
+    	DBCollection dbCollection = helpExecute(query, new String[]{"users"});
     	BasicDBObject id = new BasicDBObject();
 	    id.append( "_c0","$user_id");
 	    
@@ -788,9 +804,9 @@ public class TestMongoDBQueryExecution {
 		BasicDBObject project = new BasicDBObject();
 	    project.append( "total",1);
 
-	    Mockito.verify(dbCollection).aggregate(	    		
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(	    		
 	    		new BasicDBObject("$group", group),
-				new BasicDBObject("$project", project));
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));
     }
     
     
@@ -798,7 +814,7 @@ public class TestMongoDBQueryExecution {
     public void testSumWithGroupBy2() throws Exception {
     	String query = "SELECT user_id, status, SUM(age) as total FROM users GROUP BY user_id, status";
     	
-		DBCollection dbCollection = helpExecute(query, new String[]{"users"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"users"});
 
 		BasicDBObject project = new BasicDBObject();
 	    project.append( "_m0","$_id._c0");
@@ -812,16 +828,16 @@ public class TestMongoDBQueryExecution {
 	    BasicDBObject group = new BasicDBObject("_id", id);
 	    group.append("total", new BasicDBObject("$sum", "$age"));
 		
-	    Mockito.verify(dbCollection).aggregate(	    		
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(	    		
 	    		new BasicDBObject("$group", group),
-				new BasicDBObject("$project", project));
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));
     }
  
     @Test
     public void testSumWithGroupBy3() throws Exception {
     	String query = "SELECT user_id, SUM(age) as total FROM users GROUP BY user_id";
     	
-		DBCollection dbCollection = helpExecute(query, new String[]{"users"}, 2);
+		DBCollection dbCollection = helpExecute(query, new String[]{"users"});
 
 		BasicDBObject project = new BasicDBObject();
 	    project.append( "_m0","$_id._c0");
@@ -833,16 +849,16 @@ public class TestMongoDBQueryExecution {
 	    BasicDBObject group = new BasicDBObject("_id", id);
 	    group.append("total", new BasicDBObject("$sum", "$age"));
 		
-	    Mockito.verify(dbCollection).aggregate(	    		
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(	    		
 	    		new BasicDBObject("$group", group),
-				new BasicDBObject("$project", project));    	
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));    	
     }     
     
     @Test
     public void testAggregateWithHaving() throws Exception {
     	String query = "SELECT SUM(age) as total FROM users GROUP BY user_id HAVING SUM(age) > 250";
 
-    	DBCollection dbCollection = helpExecute(query, new String[]{"users"}, 3);
+    	DBCollection dbCollection = helpExecute(query, new String[]{"users"});
 
 		BasicDBObject project = new BasicDBObject();
 	    project.append( "total",1);
@@ -853,10 +869,10 @@ public class TestMongoDBQueryExecution {
 	    BasicDBObject group = new BasicDBObject("_id", id);
 	    group.append("total", new BasicDBObject("$sum", "$age"));
 		
-	    Mockito.verify(dbCollection).aggregate(	   
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(	   
 	    		new BasicDBObject("$group", group),
 	    		new BasicDBObject("$match", QueryBuilder.start("total").greaterThan(250).get()),
-				new BasicDBObject("$project", project));    	
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));    	
     	
     }    
     
@@ -864,7 +880,7 @@ public class TestMongoDBQueryExecution {
     public void testAggregateWithHavingAndWhere() throws Exception {
     	String query = "SELECT SUM(age) as total FROM users WHERE age > 45 GROUP BY user_id HAVING SUM(age) > 250";
     	
-		DBCollection dbCollection = helpExecute(query, new String[]{"users"}, 4);
+		DBCollection dbCollection = helpExecute(query, new String[]{"users"});
 
 		BasicDBObject project = new BasicDBObject();
 	    project.append( "total",1);
@@ -875,18 +891,18 @@ public class TestMongoDBQueryExecution {
 	    BasicDBObject group = new BasicDBObject("_id", id);
 	    group.append("total", new BasicDBObject("$sum", "$age"));
 		
-	    Mockito.verify(dbCollection).aggregate(	   
+	    Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(	   
 	    		new BasicDBObject("$match", QueryBuilder.start("age").greaterThan(45).get()),
 	    		new BasicDBObject("$group", group),
 	    		new BasicDBObject("$match", QueryBuilder.start("total").greaterThan(250).get()),
-				new BasicDBObject("$project", project));    	
+				new BasicDBObject("$project", project))), Mockito.any(AggregationOptions.class));    	
     }    
     
     @Test
     public void testCountStar() throws Exception {
         String query = "SELECT count(*) FROM Categories";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
         BasicDBObject group = new BasicDBObject();
         group.append( "_id", null);
@@ -895,16 +911,16 @@ public class TestMongoDBQueryExecution {
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", 1);
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                         new BasicDBObject("$group", group),
-                        new BasicDBObject("$project", result));
+                        new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }  
     
     @Test
     public void testCountOnColumn() throws Exception {
         String query = "SELECT count(CategoryName) FROM Categories";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 3);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
         
         BasicDBObject group = new BasicDBObject();
         group.append( "_id", null);
@@ -913,17 +929,17 @@ public class TestMongoDBQueryExecution {
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", 1);
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                         new BasicDBObject("$match", QueryBuilder.start("CategoryName").notEquals(null).get()),
                         new BasicDBObject("$group", group),
-                        new BasicDBObject("$project", result));
+                        new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }     
     
     @Test(expected=TranslatorException.class)
     public void testCountOnmultipleColumns() throws Exception {
         String query = "SELECT count(CategoryName), count(CategoryID) FROM Categories";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 3);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
         
         BasicDBObject group = new BasicDBObject();
         group.append( "_id", null);
@@ -932,17 +948,17 @@ public class TestMongoDBQueryExecution {
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", 1);
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                         new BasicDBObject("$match", QueryBuilder.start("CategoryName").notEquals(null).get()),
                         new BasicDBObject("$group", group),
-                        new BasicDBObject("$project", result));
+                        new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }  
     
     @Test
     public void testFunctionInWhere() throws Exception {
         String query = "SELECT CategoryName FROM Categories WHERE CONCAT(CategoryName, '2') = '2'";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
         
         // { "$project" : { "_m0" : { "$concat" : [ "$CategoryName" , "2"]} , "_m1" : "$CategoryName"}},
         BasicDBList params = new BasicDBList();
@@ -953,16 +969,16 @@ public class TestMongoDBQueryExecution {
         result.append( "_m0", new BasicDBObject("$concat", params));
         result.append( "_m1", "$CategoryName");
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                         new BasicDBObject("$project", result),
-                        new BasicDBObject("$match", QueryBuilder.start("_m0").is("2").get()));
+                        new BasicDBObject("$match", QueryBuilder.start("_m0").is("2").get()))), Mockito.any(AggregationOptions.class));
     }   
     
     @Test
     public void testSubStr() throws Exception {
         String query = "SELECT SUBSTRING(CategoryName, 3) FROM Categories";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 1);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
         BasicDBList params = new BasicDBList();
         params.add("$CategoryName");
@@ -973,33 +989,33 @@ public class TestMongoDBQueryExecution {
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", new BasicDBObject("$substr", params));
 
-        Mockito.verify(dbCollection).aggregate(new BasicDBObject("$project", result));
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }   
     
     @Test
     public void testSelectConstant() throws Exception {
         String query = "SELECT 'hit' FROM Categories";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 1);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", new BasicDBObject("$literal", "hit"));
 
-        Mockito.verify(dbCollection).aggregate(new BasicDBObject("$project", result));
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test
     public void testOffsetWithoutLimit() throws Exception {
         String query = "SELECT CategoryName FROM Categories OFFSET 45 ROWS";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
 
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", "$CategoryName");
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                 new BasicDBObject("$project", result),
-                new BasicDBObject("$skip", 45));
+                new BasicDBObject("$skip", 45))), Mockito.any(AggregationOptions.class));
     }     
     
     
@@ -1007,21 +1023,21 @@ public class TestMongoDBQueryExecution {
     public void testArrtyType() throws Exception {
         String query = "SELECT * FROM ArrayTest";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"ArrayTest"}, 1);
+        DBCollection dbCollection = helpExecute(query, new String[]{"ArrayTest"});
 
         BasicDBObject result = new BasicDBObject();
         result.append( "_m0", "$id");
         result.append("_m1", "$column1");
 
-        Mockito.verify(dbCollection).aggregate(
-                new BasicDBObject("$project", result));
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
+                new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }    
     
     @Test
     public void testGeoFunctionInWhere() throws Exception {
         String query = "SELECT CategoryName FROM Categories WHERE mongo.geoWithin(CategoryName, 'Polygon', ((1.0, 2.0),(3.0, 4.0))) or CategoryID=1";
 
-        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"}, 2);
+        DBCollection dbCollection = helpExecute(query, new String[]{"Categories"});
         
         BasicDBObjectBuilder builder = new BasicDBObjectBuilder();
         builder.push("CategoryName");
@@ -1049,14 +1065,14 @@ public class TestMongoDBQueryExecution {
 		BasicDBObject result = new BasicDBObject();
         result.append( "_m1", "$CategoryName");
 
-        Mockito.verify(dbCollection).aggregate(
+        Mockito.verify(dbCollection).aggregate(Mockito.eq(buildArray(
                         new BasicDBObject("$match", qb.get()),
-                        new BasicDBObject("$project", result));
+                        new BasicDBObject("$project", result))), Mockito.any(AggregationOptions.class));
     }
     
     @Test(expected=TranslatorException.class)
     public void testGeoFunctionInWhereWithFalse() throws Exception {
         String query = "SELECT CategoryName FROM Categories WHERE mongo.geoWithin(CategoryName, 'Polygon', ((1.0, 2.0),(3.0, 4.0))) = false";
-        helpExecute(query, new String[]{"Categories"}, 2);
+        helpExecute(query, new String[]{"Categories"});
     }     
 }
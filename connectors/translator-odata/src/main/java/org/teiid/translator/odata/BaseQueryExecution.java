@@ -31,8 +31,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.ws.rs.core.Response.Status;
 
@@ -63,6 +65,7 @@ import org.teiid.logging.LogManager;
 import org.teiid.logging.MessageLevel;
 import org.teiid.metadata.Column;
 import org.teiid.metadata.RuntimeMetadata;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.TranslatorException;
 import org.teiid.translator.TypeFacility;
@@ -74,6 +77,7 @@ public class BaseQueryExecution {
 	protected ODataExecutionFactory translator;
 	protected RuntimeMetadata metadata;
 	protected ExecutionContext executionContext;
+	protected FormatType formatType = FormatType.ATOM;
 
 	public BaseQueryExecution(ODataExecutionFactory translator, ExecutionContext executionContext, RuntimeMetadata metadata, WSConnection connection) {
 		this.metadata = metadata;
@@ -87,7 +91,7 @@ public class BaseQueryExecution {
 			// if parser is written to return raw objects; then we can avoid some un-necessary object creation
 			// due to time, I am not pursuing that now.
 			FormatParser<Feed> parser = FormatParserFactory.getParser(
-					Feed.class, FormatType.ATOM, new Settings(version, edsMetadata, entityTable, null));
+					Feed.class, this.formatType, new Settings(version, edsMetadata, entityTable, null));
 			return parser.parse(new InputStreamReader(blob.getBinaryStream()));
 		} catch (SQLException e) {
 			throw new TranslatorException(ODataPlugin.Event.TEIID17010, e, e.getMessage());
@@ -190,8 +194,12 @@ public class BaseQueryExecution {
 		// do some error handling
 		try {
 			Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			//FormatParser<OError> parser = FormatParserFactory.getParser(OError.class, FormatType.ATOM, null);
-			FormatParser<OError> parser = new AtomErrorFormatParser();
+			FormatParser<OError> parser = null;
+			if (this.formatType == FormatType.JSON) {
+				parser = FormatParserFactory.getParser(OError.class, FormatType.JSON, null);
+			} else {
+				parser = new AtomErrorFormatParser();
+			}
 			OError error = parser.parse(new InputStreamReader(blob.getBinaryStream(), Charset.forName("UTF-8"))); //$NON-NLS-1$
 			return new TranslatorException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID17013, execution.getResponseCode(), error.getCode(), error.getMessage(), error.getInnerError()));
 		}
@@ -228,7 +236,7 @@ public class BaseQueryExecution {
 
 	protected Map<String, List<String>> getDefaultHeaders() {
 		Map<String, List<String>> headers = new HashMap<String, List<String>>();
-		headers.put("Accept", Arrays.asList(FormatType.ATOM.getAcceptableMediaTypes())); //$NON-NLS-1$
+		headers.put("Accept", Arrays.asList(this.formatType.getAcceptableMediaTypes())); //$NON-NLS-1$
 		headers.put("Content-Type", Arrays.asList("application/xml")); //$NON-NLS-1$ //$NON-NLS-2$
 		return headers;
 	}
@@ -242,6 +250,7 @@ public class BaseQueryExecution {
 		private Status[] acceptedStatus;
 		private Iterator<OProperty<?>> complexValues;
 		private EdmDataServices edsMetadata;
+		private FeedPrefetch prefetch;
 
 		public ODataEntitiesResponse(String uri, Feed feed, String entityTypeName, EdmDataServices edsMetadata, Status... accptedStatus) {
 			this.uri = uri;
@@ -275,7 +284,27 @@ public class BaseQueryExecution {
 			return this.exception;
 		}
 
+		/**
+		 * Fetch and parse up to the given number of pages in the background ahead of the 
+		 * page being read.
+		 */
+		void setPrefetchPages(int pages) throws TranslatorException {
+			if (pages > 0 && this.feed != null) {
+				this.prefetch = new FeedPrefetch(pages, getNextUri(this.feed.getNext()));
+				this.prefetch.schedule();
+			}
+		}
+		
+		void close() {
+			if (this.prefetch != null) {
+				this.prefetch.close();
+			}
+		}
+
 		public List<?> getNextRow(Column[] columns, Class<?>[] expectedType) throws TranslatorException {
+			if (this.prefetch != null) {
+				nextPrefetchedFeed();
+			}
 			if (this.rowIter != null && this.rowIter.hasNext()) {
 				OEntity entity = this.rowIter.next().getEntity();
 				ArrayList results = new ArrayList();
@@ -298,7 +327,9 @@ public class BaseQueryExecution {
 					}
 					results.add(BaseQueryExecution.this.translator.retrieveValue(value, expectedType[i]));
 				}
-				fetchNextBatch(!this.rowIter.hasNext(), this.edsMetadata);
+				if (this.prefetch == null) {
+					fetchNextBatch(!this.rowIter.hasNext(), this.edsMetadata);
+				}
 				return results;
 			}
 			else if (this.complexValues != null) {
@@ -317,18 +348,51 @@ public class BaseQueryExecution {
 			return null;
 		}
 
-		// TODO:there is possibility here to async execute this feed
 		private void fetchNextBatch(boolean fetch, EdmDataServices edsMetadata) throws TranslatorException {
 			if (!fetch) {
 				return;
 			}
 
-			String next = this.feed.getNext();
-			if (next == null) {
+			String nextUri = getNextUri(this.feed.getNext());
+			if (nextUri == null) {
 				this.feed = null;
 				this.rowIter = null;
 				return;
 			}
+			this.feed = fetchFeed(nextUri, edsMetadata);
+			this.rowIter = this.feed.getEntries().iterator();
+		}
+		
+		/**
+		 * Move to the next prefetched feed if the current one has been read.
+		 * @throws DataNotAvailableException if the next feed is still being fetched
+		 */
+		private void nextPrefetchedFeed() throws TranslatorException {
+			while (this.rowIter != null && !this.rowIter.hasNext()) {
+				Object page = this.prefetch.poll();
+				if (page == null) {
+					if (this.prefetch.isDone()) {
+						this.feed = null;
+						this.rowIter = null;
+						return;
+					}
+					throw DataNotAvailableException.NO_POLLING;
+				}
+				if (page instanceof TranslatorException) {
+					throw (TranslatorException)page;
+				}
+				this.feed = (Feed)page;
+				this.rowIter = this.feed.getEntries().iterator();
+			}
+		}
+		
+		/**
+		 * @return the uri for the next link or null if there are no more results
+		 */
+		private String getNextUri(String next) throws TranslatorException {
+			if (next == null) {
+				return null;
+			}
 
 			int idx = next.indexOf("$skiptoken="); //$NON-NLS-1$
 			if (idx != -1) {
@@ -341,31 +405,122 @@ public class BaseQueryExecution {
 					throw new TranslatorException(e);
 				}
 
-				String nextUri = this.uri;
 				if (this.uri.indexOf('?') == -1) {
-					nextUri = this.uri + "?$skiptoken="+skip; //$NON-NLS-1$
-				}
-				else {
-					nextUri = this.uri + "&$skiptoken="+skip; //$NON-NLS-1$
+					return this.uri + "?$skiptoken="+skip; //$NON-NLS-1$
 				}
-				BinaryWSProcedureExecution execution = executeDirect("GET", nextUri, null, getDefaultHeaders()); //$NON-NLS-1$
-				validateResponse(execution);
-				Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			    ODataVersion version = getODataVersion(execution);
-
-				this.feed = parse(blob, version, this.entityTypeName, edsMetadata);
-				this.rowIter = this.feed.getEntries().iterator();
-
+				return this.uri + "&$skiptoken="+skip; //$NON-NLS-1$
 			} else if (next.toLowerCase().startsWith("http")) { //$NON-NLS-1$
-				BinaryWSProcedureExecution execution = executeDirect("GET", next, null, getDefaultHeaders()); //$NON-NLS-1$
-				validateResponse(execution);
-				Blob blob = (Blob)execution.getOutputParameterValues().get(0);
-			    ODataVersion version = getDataServiceVersion((String)execution.getResponseHeader(ODataConstants.Headers.DATA_SERVICE_VERSION));
-
-				this.feed = parse(blob, version, this.entityTypeName, edsMetadata);
-				this.rowIter = this.feed.getEntries().iterator();
-			} else {
-				throw new TranslatorException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID17001, next));
+				return next;
+			} 
+			throw new TranslatorException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID17001, next));
+		}
+		
+		private Feed fetchFeed(String nextUri, EdmDataServices edsMetadata) throws TranslatorException {
+			BinaryWSProcedureExecution execution = executeDirect("GET", nextUri, null, getDefaultHeaders()); //$NON-NLS-1$
+			validateResponse(execution);
+			Blob blob = (Blob)execution.getOutputParameterValues().get(0);
+		    ODataVersion version = getODataVersion(execution);
+			return parse(blob, version, this.entityTypeName, edsMetadata);
+		}
+		
+		/**
+		 * A bounded read-ahead of feed pages.  Since the next link is only known once
+		 * a page has been parsed, a single task fetches pages sequentially until the 
+		 * limit of unread pages is reached and is rescheduled as pages are read.
+		 * <br>
+		 * The connection is not used once closed - {@link #close()} waits for an in-flight
+		 * fetch to complete.
+		 */
+		private class FeedPrefetch implements Runnable {
+			private int pages;
+			private String nextUri;
+			private LinkedList<Object> fetched = new LinkedList<Object>();
+			private boolean running;
+			private boolean closed;
+			private Executor executor;
+			
+			FeedPrefetch(int pages, String nextUri) {
+				this.pages = pages;
+				this.nextUri = nextUri;
+				this.executor = translator.acquirePrefetchExecutor();
+			}
+			
+			synchronized void schedule() {
+				if (!this.running && !this.closed && this.nextUri != null && this.fetched.size() < this.pages) {
+					this.running = true;
+					this.executor.execute(this);
+				}
+			}
+			
+			/**
+			 * @return the next {@link Feed} or {@link TranslatorException}, or null if none is available
+			 */
+			synchronized Object poll() {
+				Object page = this.fetched.poll();
+				schedule();
+				return page;
+			}
+			
+			synchronized boolean isDone() {
+				return !this.running && this.nextUri == null && this.fetched.isEmpty();
+			}
+			
+			synchronized void close() {
+				if (this.closed) {
+					return;
+				}
+				this.closed = true;
+				this.fetched.clear();
+				if (!this.running) {
+					translator.releasePrefetchExecutor();
+					return;
+				}
+				//the task will release the executor when it exits
+				while (this.running) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+			
+			@Override
+			public void run() {
+				while (true) {
+					String uri = null;
+					synchronized (this) {
+						if (this.closed || this.nextUri == null || this.fetched.size() >= this.pages) {
+							this.running = false;
+							if (this.closed) {
+								translator.releasePrefetchExecutor();
+							}
+							notifyAll();
+							return;
+						}
+						uri = this.nextUri;
+					}
+					Object page = null;
+					String next = null;
+					try {
+						Feed feed = fetchFeed(uri, edsMetadata);
+						next = getNextUri(feed.getNext());
+						page = feed;
+					} catch (TranslatorException e) {
+						page = e;
+					} catch (RuntimeException e) {
+						page = new TranslatorException(e);
+					}
+					synchronized (this) {
+						if (this.closed) {
+							continue;
+						}
+						this.fetched.add(page);
+						this.nextUri = next;
+					}
+					executionContext.dataAvailable();
+				}
 			}
 		}
 
@@ -24,6 +24,8 @@ package org.teiid.translator.odata;
 import static org.teiid.language.SQLConstants.Reserved.NULL;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 import javax.resource.cci.ConnectionFactory;
 
@@ -34,6 +36,7 @@ import org.joda.time.LocalTime;
 import org.odata4j.core.UnsignedByte;
 import org.odata4j.internal.InternalUtil;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
 import org.teiid.core.util.StringUtil;
 import org.teiid.language.*;
@@ -64,6 +67,11 @@ public class ODataExecutionFactory extends ExecutionFactory<ConnectionFactory, W
 	private boolean supportsOdataCount;
 	private boolean supportsOdataSkip;
 	private boolean supportsOdataTop;
+	private int prefetchPages;
+	private int prefetchThreads = 16;
+	private boolean useJsonFormat;
+	private ExecutorService prefetchExecutor;
+	private int prefetchUsers;
 
 	public ODataExecutionFactory() {
 		setSourceRequiredForMetadata(true);
@@ -103,6 +111,56 @@ public class ODataExecutionFactory extends ExecutionFactory<ConnectionFactory, W
 	public void setDatabaseTimeZone(String databaseTimeZone) {
 		this.databaseTimeZone = databaseTimeZone;
 	}
+	
+	@TranslatorProperty(display="Prefetch Pages", description="The number of query result pages to fetch and parse in the background ahead of the page being read. 0 disables prefetching.", advanced=true)
+	public int getPrefetchPages() {
+		return this.prefetchPages;
+	}
+	
+	public void setPrefetchPages(int prefetchPages) {
+		this.prefetchPages = prefetchPages;
+	}
+	
+	@TranslatorProperty(display="Prefetch Threads", description="The maximum number of threads shared by all executions of this translator to prefetch result pages.", advanced=true)
+	public int getPrefetchThreads() {
+		return this.prefetchThreads;
+	}
+	
+	public void setPrefetchThreads(int prefetchThreads) {
+		this.prefetchThreads = prefetchThreads;
+	}
+	
+	@TranslatorProperty(display="Use JSON Format", description="True, query results are requested in the JSON format, which is less expensive to parse than Atom", advanced=true)
+	public boolean isUseJsonFormat() {
+		return this.useJsonFormat;
+	}
+	
+	public void setUseJsonFormat(boolean useJsonFormat) {
+		this.useJsonFormat = useJsonFormat;
+	}
+	
+	/**
+	 * Get the prefetch executor.  Each call must be matched by a call to {@link #releasePrefetchExecutor()}
+	 * once the caller will no longer submit work.  The executor is shutdown when it is no longer in use.
+	 */
+	synchronized Executor acquirePrefetchExecutor() {
+		if (this.prefetchExecutor == null) {
+			this.prefetchExecutor = ExecutorUtils.newFixedThreadPool(Math.max(1, this.prefetchThreads), "OData Prefetch"); //$NON-NLS-1$
+		}
+		this.prefetchUsers++;
+		return this.prefetchExecutor;
+	}
+	
+	synchronized void releasePrefetchExecutor() {
+		if (--this.prefetchUsers == 0) {
+			this.prefetchExecutor.shutdown();
+			this.prefetchExecutor = null;
+		}
+	}
+	
+	synchronized boolean isPrefetchExecutorActive() {
+		return this.prefetchExecutor != null;
+	}
 
 	@Override
 	public void getMetadata(MetadataFactory metadataFactory, WSConnection conn) throws TranslatorException {
@@ -32,6 +32,7 @@ import java.util.TreeMap;
 import javax.ws.rs.core.Response.Status;
 
 import org.odata4j.edm.EdmDataServices;
+import org.odata4j.format.FormatType;
 import org.teiid.core.util.ObjectConverterUtil;
 import org.teiid.language.QueryExpression;
 import org.teiid.metadata.RuntimeMetadata;
@@ -62,6 +63,9 @@ public class ODataQueryExecution extends BaseQueryExecution implements ResultSet
     	}
     	
     	this.expectedColumnTypes = command.getColumnTypes();
+    	if (this.translator.isUseJsonFormat()) {
+    		this.formatType = FormatType.JSON;
+    	}
 	}
 
 	@Override
@@ -93,6 +97,9 @@ public class ODataQueryExecution extends BaseQueryExecution implements ResultSet
 			if (this.response != null && this.response.hasError()) {
 				throw this.response.getError();
 			}
+			if (this.response != null) {
+				this.response.setPrefetchPages(this.translator.getPrefetchPages());
+			}
 		}
 	}
 	
@@ -113,6 +120,9 @@ public class ODataQueryExecution extends BaseQueryExecution implements ResultSet
 	
 	@Override
 	public void close() {
+		if (this.response != null) {
+			this.response.close();
+		}
 	}
 
 	@Override
@@ -23,7 +23,11 @@ package org.teiid.translator.odata;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,9 +37,12 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.activation.DataSource;
 import javax.xml.ws.Dispatch;
@@ -55,6 +62,7 @@ import org.teiid.core.util.UnitTestUtil;
 import org.teiid.language.Command;
 import org.teiid.language.QueryExpression;
 import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
 import org.teiid.translator.ResultSetExecution;
 import org.teiid.translator.TranslatorException;
@@ -64,6 +72,8 @@ import org.teiid.translator.WSConnection;
 public class TestODataQueryExecution {
 	private ODataExecutionFactory translator;
 	private TranslationUtility utility;
+	private Map<String, Object> requestContext;
+	private Dispatch<DataSource> dispatch;
 	
     @Before
     public void setUp() throws Exception {
@@ -78,6 +88,10 @@ public class TestODataQueryExecution {
 		return helpExecute(query, resultXML, expectedURL, 200);
 	}    
 	private ResultSetExecution helpExecute(String query, final String resultXML, String expectedURL, int responseCode) throws Exception {
+		return helpExecute(query, new String[] {resultXML}, expectedURL, responseCode);
+	}
+	
+	private ResultSetExecution helpExecute(String query, final String[] resultXML, String expectedURL, int responseCode) throws Exception {
 		Command cmd = this.utility.parseCommand(query);
 		ExecutionContext context = Mockito.mock(ExecutionContext.class);
 		WSConnection connection = Mockito.mock(WSConnection.class);
@@ -89,10 +103,30 @@ public class TestODataQueryExecution {
 		Dispatch<DataSource> dispatch = Mockito.mock(Dispatch.class);
 		Mockito.stub(dispatch.getRequestContext()).toReturn(headers);
 		Mockito.stub(dispatch.getResponseContext()).toReturn(headers);
+		this.requestContext = headers;
+		this.dispatch = dispatch;
 		
 		Mockito.stub(connection.createDispatch(Mockito.eq(HTTPBinding.HTTP_BINDING), Mockito.anyString(), Mockito.eq(DataSource.class), Mockito.eq(Mode.MESSAGE))).toReturn(dispatch);
 		
-		DataSource ds = new DataSource() {
+		DataSource[] ds = new DataSource[resultXML.length];
+		for (int i = 0; i < resultXML.length; i++) {
+			ds[i] = createDataSource(resultXML[i]);
+		}
+		Mockito.when(dispatch.invoke(Mockito.any(DataSource.class))).thenReturn(ds[0], Arrays.copyOfRange(ds, 1, ds.length));
+		
+		ResultSetExecution execution = this.translator.createResultSetExecution((QueryExpression)cmd, context, this.utility.createRuntimeMetadata(), connection);
+		execution.execute();
+		
+		ArgumentCaptor<String> endpoint = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> binding = ArgumentCaptor.forClass(String.class);
+		
+		Mockito.verify(connection).createDispatch(binding.capture(), endpoint.capture(), Mockito.eq(DataSource.class), Mockito.eq(Mode.MESSAGE));
+		assertEquals(expectedURL, URLDecoder.decode(endpoint.getValue(), "utf-8"));
+		return execution;
+	}
+
+	private DataSource createDataSource(final String resultXML) {
+		return new DataSource() {
 			@Override
 			public OutputStream getOutputStream() throws IOException {
 				return new ByteArrayOutputStream();
@@ -111,17 +145,6 @@ public class TestODataQueryExecution {
 				return "application/xml";
 			}
 		};
-		Mockito.stub(dispatch.invoke(Mockito.any(DataSource.class))).toReturn(ds);
-		
-		ResultSetExecution execution = this.translator.createResultSetExecution((QueryExpression)cmd, context, this.utility.createRuntimeMetadata(), connection);
-		execution.execute();
-		
-		ArgumentCaptor<String> endpoint = ArgumentCaptor.forClass(String.class);
-		ArgumentCaptor<String> binding = ArgumentCaptor.forClass(String.class);
-		
-		Mockito.verify(connection).createDispatch(binding.capture(), endpoint.capture(), Mockito.eq(DataSource.class), Mockito.eq(Mode.MESSAGE));
-		assertEquals(expectedURL, URLDecoder.decode(endpoint.getValue(), "utf-8"));
-		return execution;
 	}
 
 	@Test
@@ -138,6 +161,115 @@ public class TestODataQueryExecution {
 		reader.close();
 	}
 	
+	@Test
+	public void testPrefetch() throws Exception {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		final int[] users = new int[1];
+		this.translator = new ODataExecutionFactory() {
+			@Override
+			Executor acquirePrefetchExecutor() {
+				users[0]++;
+				return new Executor() {
+					@Override
+					public void execute(Runnable command) {
+						tasks.add(command);
+					}
+				};
+			}
+			@Override
+			void releasePrefetchExecutor() {
+				users[0]--;
+			}
+		};
+		this.translator.setPrefetchPages(1);
+		this.translator.start();
+		
+		String query = "SELECT CategoryID, CategoryName, Description FROM Categories";
+		String expectedURL = "Categories?$select=Description,CategoryName,CategoryID";
+		
+		FileReader reader = new FileReader(UnitTestUtil.getTestDataFile("categories.xml"));
+		String page = ObjectConverterUtil.convertToString(reader);
+		reader.close();
+		String firstPage = page.replace("</feed>", "<link rel=\"next\" href=\"Categories?$skiptoken=3\"/></feed>");
+		ResultSetExecution excution = helpExecute(query, new String[] {firstPage, page}, expectedURL, 200);
+		
+		assertEquals(1, tasks.size());
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(excution.next());
+		}
+		try {
+			excution.next();
+			fail("expected the next page to not be available");
+		} catch (DataNotAvailableException e) {
+		}
+		tasks.remove(0).run();
+		assertArrayEquals(new Object[] {1, "Beverages", "Soft drinks, coffees, teas, beers, and ales"}, excution.next().toArray(new Object[3]));
+		assertNotNull(excution.next());
+		assertNotNull(excution.next());
+		assertNull(excution.next());
+		assertTrue(tasks.isEmpty());
+		assertEquals(1, users[0]);
+		excution.close();
+		assertEquals(0, users[0]);
+	}
+	
+	@Test
+	public void testPrefetchClose() throws Exception {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		this.translator = new ODataExecutionFactory() {
+			@Override
+			Executor acquirePrefetchExecutor() {
+				super.acquirePrefetchExecutor();
+				return new Executor() {
+					@Override
+					public void execute(Runnable command) {
+						tasks.add(command);
+					}
+				};
+			}
+		};
+		this.translator.setPrefetchPages(1);
+		this.translator.start();
+		
+		String query = "SELECT CategoryID, CategoryName, Description FROM Categories";
+		String expectedURL = "Categories?$select=Description,CategoryName,CategoryID";
+		
+		FileReader reader = new FileReader(UnitTestUtil.getTestDataFile("categories.xml"));
+		String page = ObjectConverterUtil.convertToString(reader);
+		reader.close();
+		String firstPage = page.replace("</feed>", "<link rel=\"next\" href=\"Categories?$skiptoken=3\"/></feed>");
+		ResultSetExecution excution = helpExecute(query, new String[] {firstPage, page}, expectedURL, 200);
+		
+		assertEquals(1, tasks.size());
+		assertTrue(this.translator.isPrefetchExecutorActive());
+		excution.close();
+		assertFalse(this.translator.isPrefetchExecutorActive());
+		//the queued task must not use the connection after close
+		tasks.remove(0).run();
+		Mockito.verify(this.dispatch, Mockito.times(1)).invoke(Mockito.any(DataSource.class));
+	}
+	
+	@Test
+	public void testJsonFormat() throws Exception {
+		this.translator.setUseJsonFormat(true);
+		String query = "SELECT CategoryID, CategoryName, Description FROM Categories";
+		String expectedURL = "Categories?$select=Description,CategoryName,CategoryID";
+		
+		String json = "{\"d\" : {\"results\" : [" 
+				+ "{\"__metadata\" : {\"uri\" : \"http://services.odata.org/Northwind/Northwind.svc/Categories(1)\", \"type\" : \"NorthwindModel.Category\"}, "
+				+ "\"CategoryID\" : 1, \"CategoryName\" : \"Beverages\", \"Description\" : \"Soft drinks, coffees, teas, beers, and ales\"}, "
+				+ "{\"__metadata\" : {\"uri\" : \"http://services.odata.org/Northwind/Northwind.svc/Categories(2)\", \"type\" : \"NorthwindModel.Category\"}, "
+				+ "\"CategoryID\" : 2, \"CategoryName\" : \"Condiments\", \"Description\" : \"Sweet and savory sauces, relishes, spreads, and seasonings\"}"
+				+ "]}}";
+		ResultSetExecution excution = helpExecute(query, json, expectedURL);
+		
+		Map<String, List<String>> headers = (Map<String, List<String>>)this.requestContext.get(MessageContext.HTTP_REQUEST_HEADERS);
+		assertTrue(headers.get("Accept").contains("application/json"));
+		assertArrayEquals(new Object[] {1, "Beverages", "Soft drinks, coffees, teas, beers, and ales"}, excution.next().toArray(new Object[3]));
+		assertArrayEquals(new Object[] {2, "Condiments", "Sweet and savory sauces, relishes, spreads, and seasonings"}, excution.next().toArray(new Object[3]));
+		assertNull(excution.next());
+	}
+	
 	@Test
 	public void testSimpleSelectStar() throws Exception {
 		String query = "SELECT * FROM Categories";
@@ -190,7 +322,23 @@ public class TestODataQueryExecution {
 				"</error>";
 		ResultSetExecution excution = helpExecute(query, error, expectedURL, 400);
 		excution.next();
-	}		
+	}
+
+	@Test
+	public void testJsonError() throws Exception {
+		this.translator.setUseJsonFormat(true);
+		String query = "SELECT * FROM Categories Where CategoryName = 'Beverages'";
+		String expectedURL = "Categories?$filter=CategoryName eq 'Beverages'&$select=Picture,Description,CategoryName,CategoryID";
+		String error = "{\"error\" : {\"code\" : \"005056A509B11EE1BB8AF4A65EC3CA20\", "
+				+ "\"message\" : {\"lang\" : \"en\", \"value\" : \"Invalid parametertype used at function '' (Position: 16)\"}}}";
+		try {
+			ResultSetExecution excution = helpExecute(query, error, expectedURL, 400);
+			excution.next();
+			fail("expected the error response to be reported");
+		} catch (TranslatorException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("005056A509B11EE1BB8AF4A65EC3CA20"));
+		}
+	}
 	
 	@Test
 	public void testNoResults() throws Exception {
@@ -26,6 +26,7 @@ import static org.teiid.translator.TypeFacility.RUNTIME_NAMES.BOOLEAN;
 import static org.teiid.translator.TypeFacility.RUNTIME_NAMES.STRING;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import javax.resource.cci.ConnectionFactory;
@@ -33,7 +34,10 @@ import javax.resource.cci.ConnectionFactory;
 import org.teiid.language.Argument;
 import org.teiid.language.Call;
 import org.teiid.language.Command;
+import org.teiid.language.NamedTable;
 import org.teiid.language.QueryExpression;
+import org.teiid.language.Select;
+import org.teiid.language.TableReference;
 import org.teiid.language.visitor.SQLStringVisitor;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
@@ -48,8 +52,10 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
 	private static final String SALESFORCE = "salesforce"; //$NON-NLS-1$
 	private static final String EXCLUDES = "excludes";//$NON-NLS-1$
 	private static final String INCLUDES = "includes";//$NON-NLS-1$
+	private static final String BULK = "bulk";//$NON-NLS-1$
 	private boolean auditModelFields = false;
 	private int maxInsertBatchSize = 2048;
+	private int bulkQueryThreshold = -1;
 	
 	public SalesForceExecutionFactory() {
 	    // http://jira.jboss.org/jira/browse/JBEDSP-306
@@ -80,7 +86,34 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
 	@Override
 	public ResultSetExecution createResultSetExecution(QueryExpression command, ExecutionContext executionContext, RuntimeMetadata metadata, SalesforceConnection connection)
 			throws TranslatorException {
-		return new QueryExecutionImpl(command, connection, metadata, executionContext);
+		QueryExecutionImpl result = new QueryExecutionImpl(command, connection, metadata, executionContext);
+		result.setBulkQuery(useBulkQuery(command, executionContext));
+		return result;
+	}
+	
+	/**
+	 * Determine if the query should be run as a bulk query job, either by the bulk source hint
+	 * or by the cardinality of the queried object.
+	 */
+	protected boolean useBulkQuery(QueryExpression command, ExecutionContext executionContext) {
+		Collection<String> hints = executionContext.getSourceHints();
+		if (hints != null) {
+			for (String hint : hints) {
+				if (BULK.equalsIgnoreCase(hint.trim())) {
+					return true;
+				}
+			}
+		}
+		if (this.bulkQueryThreshold < 0 || !(command instanceof Select)) {
+			return false;
+		}
+		for (TableReference tr : ((Select)command).getFrom()) {
+			if (tr instanceof NamedTable && ((NamedTable)tr).getMetadataObject() != null 
+					&& ((NamedTable)tr).getMetadataObject().getCardinalityAsFloat() >= this.bulkQueryThreshold) {
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	@Override
@@ -246,4 +279,13 @@ public class SalesForceExecutionFactory extends ExecutionFactory<ConnectionFacto
     	}
 		this.maxInsertBatchSize = maxInsertBatchSize;
 	}
+    
+    @TranslatorProperty(display="Bulk Query Threshold", description="The estimated row count of the queried object at or above which queries are run as bulk query jobs.  Default -1, which uses bulk query jobs only with the bulk source hint.", advanced=true)
+    public int getBulkQueryThreshold() {
+    	return bulkQueryThreshold;
+    }
+    
+    public void setBulkQueryThreshold(int bulkQueryThreshold) {
+    	this.bulkQueryThreshold = bulkQueryThreshold;
+    }
 }
@@ -21,6 +21,7 @@
  */
 package org.teiid.translator.salesforce;
 
+import java.io.InputStream;
 import java.util.List;
 
 import javax.resource.ResourceException;
@@ -31,6 +32,7 @@ import org.teiid.translator.salesforce.execution.DataPayload;
 import org.teiid.translator.salesforce.execution.DeletedResult;
 import org.teiid.translator.salesforce.execution.UpdatedResult;
 
+import com.sforce.async.BatchInfo;
 import com.sforce.async.BatchResult;
 import com.sforce.async.JobInfo;
 import com.sforce.async.SObject;
@@ -67,4 +69,18 @@ public interface SalesforceConnection extends Connection {
 	public BatchResult getBulkResults(JobInfo job) throws ResourceException;
 
 	public void cancelBulkJob(JobInfo job) throws ResourceException;
+	
+	/**
+	 * Submit the query as a bulk query job with CSV results.
+	 * @return the batch for the query
+	 */
+	public BatchInfo executeBulkQuery(String objectName, String query) throws ResourceException;
+	
+	/**
+	 * Get the result ids for the bulk query.
+	 * @throws org.teiid.translator.DataNotAvailableException if the batch is still being processed 
+	 */
+	public String[] getBulkQueryResults(BatchInfo batch) throws ResourceException;
+	
+	public InputStream getBulkQueryResultStream(BatchInfo batch, String resultId) throws ResourceException;
 }
@@ -21,6 +21,8 @@
  */
 package org.teiid.translator.salesforce.execution;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -32,6 +34,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +67,9 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.sforce.async.BatchInfo;
+import com.sforce.async.CSVReader;
+import com.sforce.async.JobInfo;
 import com.sforce.soap.partner.QueryResult;
 import com.sforce.soap.partner.sobject.SObject;
 
@@ -114,6 +120,20 @@ public class QueryExecutionImpl implements ResultSetExecution {
 	
 	private Calendar cal;
 	
+	private boolean bulkQuery;
+	
+	private BatchInfo bulkBatch;
+	
+	private String[] bulkResults;
+	
+	private int bulkResultIndex;
+	
+	private InputStream bulkStream;
+	
+	private CSVReader bulkReader;
+	
+	private int[] bulkColumnIndexes;
+	
 	public QueryExecutionImpl(QueryExpression command, SalesforceConnection connection, RuntimeMetadata metadata, ExecutionContext context) {
 		this.connection = connection;
 		this.metadata = metadata;
@@ -126,12 +146,29 @@ public class QueryExecutionImpl implements ResultSetExecution {
 		partIdentifier = context.getPartIdentifier();
 	}
 
+	/**
+	 * Set to true to run the query as a bulk query job if the query supports it. 
+	 */
+	public void setBulkQuery(boolean bulkQuery) {
+		this.bulkQuery = bulkQuery;
+	}
+
 	public void cancel() throws TranslatorException {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.cancel"));//$NON-NLS-1$
+		if (this.bulkBatch != null && this.bulkResults == null) {
+			JobInfo job = new JobInfo();
+			job.setId(this.bulkBatch.getJobId());
+			try {
+				connection.cancelBulkJob(job);
+			} catch (ResourceException e) {
+				throw new TranslatorException(e);
+			}
+		}
 	}
 
 	public void close() {
 		LogManager.logDetail(LogConstants.CTX_CONNECTOR, SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.close")); //$NON-NLS-1$
+		closeBulkResult();
 	}
 
 	@Override
@@ -154,6 +191,11 @@ public class QueryExecutionImpl implements ResultSetExecution {
 							visitor.getTableName(), visitor.getIdInCriteria());
 				} else {
 					finalQuery = visitor.getQuery().trim();
+					if (this.bulkQuery && visitor.canBulkQuery()) {
+						LogManager.logDetail(LogConstants.CTX_CONNECTOR,  getLogPreamble(), "Executing Bulk Query:", finalQuery); //$NON-NLS-1$
+						this.bulkBatch = connection.executeBulkQuery(visitor.getTableName(), finalQuery);
+						return;
+					}
 					LogManager.logDetail(LogConstants.CTX_CONNECTOR,  getLogPreamble(), "Executing Query:", finalQuery); //$NON-NLS-1$
 					results = connection.query(finalQuery, this.context.getBatchSize(), visitor.getQueryAll());
 				}
@@ -166,9 +208,103 @@ public class QueryExecutionImpl implements ResultSetExecution {
 	@SuppressWarnings("unchecked")
 	@Override
 	public List next() throws TranslatorException, DataNotAvailableException {
+		if (this.bulkBatch != null) {
+			return getBulkRow();
+		}
 		List<?> result = getRow(results);
 		return result;
 	}
+	
+	/**
+	 * Read the next row from the CSV results of the bulk query.  
+	 * While the batch is processing a {@link DataNotAvailableException} is thrown from the connection.
+	 */
+	private List<Object> getBulkRow() throws TranslatorException {
+		try {
+			if (this.bulkResults == null) {
+				this.bulkResults = connection.getBulkQueryResults(this.bulkBatch);
+			}
+			while (true) {
+				if (this.bulkReader == null) {
+					if (this.bulkResultIndex >= this.bulkResults.length) {
+						return null;
+					}
+					this.bulkStream = connection.getBulkQueryResultStream(this.bulkBatch, this.bulkResults[this.bulkResultIndex++]);
+					this.bulkReader = new CSVReader(this.bulkStream, "UTF-8"); //$NON-NLS-1$
+					if (this.bulkColumnIndexes == null) {
+						mapBulkColumns(this.bulkReader.nextRecord());
+					} else {
+						this.bulkReader.nextRecord(); //skip the header
+					}
+				}
+				List<String> record = this.bulkReader.nextRecord();
+				if (record != null) {
+					return getBulkRowData(record);
+				}
+				closeBulkResult();
+			}
+		} catch (ResourceException e) {
+			throw new TranslatorException(e);
+		} catch (IOException e) {
+			throw new TranslatorException(e);
+		}
+	}
+
+	private void mapBulkColumns(List<String> header) throws TranslatorException {
+		if (header == null) {
+			header = new ArrayList<String>(0);
+		}
+		Map<String, Integer> headerIndexes = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < header.size(); i++) {
+			headerIndexes.put(header.get(i), i);
+		}
+		this.bulkColumnIndexes = new int[visitor.getSelectSymbolCount()];
+		for (int j = 0; j < visitor.getSelectSymbolCount(); j++) {
+			Column element = ((ColumnReference)visitor.getSelectSymbolMetadata(j)).getMetadataObject();
+			Integer index = headerIndexes.get(element.getNameInSource());
+			if (index == null) {
+				index = headerIndexes.get(element.getParent().getNameInSource() + '.' + element.getNameInSource());
+			}
+			if (index == null) {
+				throw new TranslatorException(SalesForcePlugin.Util.getString("SalesforceQueryExecutionImpl.missing.field")+ element.getNameInSource()); //$NON-NLS-1$
+			}
+			this.bulkColumnIndexes[j] = index;
+		}
+	}
+	
+	private List<Object> getBulkRowData(List<String> record) throws TranslatorException {
+		List<Object> row = new ArrayList<Object>(this.bulkColumnIndexes.length);
+		for (int j = 0; j < this.bulkColumnIndexes.length; j++) {
+			String value = record.get(this.bulkColumnIndexes[j]);
+			//the csv format does not distinguish between null and empty 
+			if (value == null || value.isEmpty()) {
+				row.add(null);
+				continue;
+			}
+			Class<?> type = visitor.getSelectSymbolMetadata(j).getType();
+			if (type.equals(java.sql.Timestamp.class) || type.equals(java.sql.Time.class)) {
+				if (cal == null) {
+					cal = Calendar.getInstance();
+				}
+				row.add(parseDateTime(value, type, cal));
+			} else {
+				row.add(value);
+			}
+		}
+		return row;
+	}
+	
+	private void closeBulkResult() {
+		this.bulkReader = null;
+		if (this.bulkStream != null) {
+			try {
+				this.bulkStream.close();
+			} catch (IOException e) {
+				LogManager.logDetail(LogConstants.CTX_CONNECTOR, e, "Could not close the bulk query result"); //$NON-NLS-1$
+			}
+			this.bulkStream = null;
+		}
+	}
 
 	private List<Object> getRow(QueryResult result) throws TranslatorException {
 		List<Object> row;
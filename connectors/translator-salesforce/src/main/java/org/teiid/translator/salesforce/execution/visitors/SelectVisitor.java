@@ -47,6 +47,7 @@ public class SelectVisitor extends CriteriaVisitor implements IQueryProvidingVis
 	protected StringBuilder groupByClause = new StringBuilder();
 	protected StringBuilder havingClause = new StringBuilder();
 	private Boolean objectSupportsRetrieve;
+	private boolean hasAggregates;
 	
 	public SelectVisitor(RuntimeMetadata metadata) {
 		super(metadata);
@@ -93,6 +94,7 @@ public class SelectVisitor extends CriteriaVisitor implements IQueryProvidingVis
 					idIndex = index;
 				}
 			} else if (expression instanceof AggregateFunction) {
+				hasAggregates = true;
 				selectSymbolNameToIndex.put(AGG_PREFIX + (aggCount++), index); 
 			}
 		}
@@ -237,5 +239,12 @@ public class SelectVisitor extends CriteriaVisitor implements IQueryProvidingVis
 	public boolean canRetrieve() {
 		return objectSupportsRetrieve && hasOnlyIDCriteria() && this.limitClause.length() == 0 && groupByClause.length() == 0;
 	}
+	
+	/**
+	 * Bulk query jobs do not support aggregates or querying deleted records.
+	 */
+	public boolean canBulkQuery() {
+		return !hasAggregates && groupByClause.length() == 0 && !Boolean.TRUE.equals(queryAll);
+	}
 
 }
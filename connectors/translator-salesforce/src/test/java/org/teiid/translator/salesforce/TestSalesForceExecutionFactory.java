@@ -0,0 +1,84 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.translator.salesforce;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.teiid.cdk.api.TranslationUtility;
+import org.teiid.language.NamedTable;
+import org.teiid.language.Select;
+import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.salesforce.execution.visitors.TestVisitors;
+
+@SuppressWarnings("nls")
+public class TestSalesForceExecutionFactory {
+
+	private Select helpGetCommand(int cardinality) {
+		TranslationUtility translationUtility = new TranslationUtility(TestVisitors.exampleSalesforce());
+		Select command = (Select)translationUtility.parseCommand("select Name from Account");
+		((NamedTable)command.getFrom().get(0)).getMetadataObject().setCardinality(cardinality);
+		return command;
+	}
+
+	private ExecutionContext helpGetContext(String... sourceHints) {
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		if (sourceHints.length > 0) {
+			Mockito.stub(ec.getSourceHints()).toReturn(Arrays.asList(sourceHints));
+		}
+		return ec;
+	}
+
+	@Test public void testBulkQueryDefault() throws Exception {
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		assertFalse(sef.useBulkQuery(helpGetCommand(1000000), helpGetContext()));
+	}
+
+	@Test public void testBulkQuerySourceHint() throws Exception {
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		assertTrue(sef.useBulkQuery(helpGetCommand(-1), helpGetContext(" BULK ")));
+		assertFalse(sef.useBulkQuery(helpGetCommand(-1), helpGetContext("other")));
+	}
+
+	@Test public void testBulkQueryThreshold() throws Exception {
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		sef.setBulkQueryThreshold(100000);
+		assertTrue(sef.useBulkQuery(helpGetCommand(100000), helpGetContext()));
+		assertTrue(sef.useBulkQuery(helpGetCommand(200000), helpGetContext()));
+		assertFalse(sef.useBulkQuery(helpGetCommand(99999), helpGetContext()));
+	}
+
+	/**
+	 * An unknown cardinality should not be treated as exceeding the threshold
+	 */
+	@Test public void testBulkQueryUnknownCardinality() throws Exception {
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		sef.setBulkQueryThreshold(0);
+		assertFalse(sef.useBulkQuery(helpGetCommand(-1), helpGetContext()));
+		assertTrue(sef.useBulkQuery(helpGetCommand(0), helpGetContext()));
+	}
+
+}
@@ -24,8 +24,10 @@ package org.teiid.translator.salesforce.execution;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.TimeZone;
 
@@ -37,11 +39,15 @@ import org.teiid.cdk.api.TranslationUtility;
 import org.teiid.language.Select;
 import org.teiid.metadata.RuntimeMetadata;
 import org.teiid.query.unittest.TimestampUtil;
+import org.teiid.translator.DataNotAvailableException;
 import org.teiid.translator.ExecutionContext;
+import org.teiid.translator.ResultSetExecution;
+import org.teiid.translator.salesforce.SalesForceExecutionFactory;
 import org.teiid.translator.salesforce.SalesforceConnection;
 import org.teiid.translator.salesforce.execution.visitors.TestVisitors;
 import org.w3c.dom.Element;
 
+import com.sforce.async.BatchInfo;
 import com.sforce.soap.partner.QueryResult;
 import com.sforce.soap.partner.sobject.SObject;
 
@@ -74,6 +80,31 @@ public class TestQueryExecutionImpl {
 		assertNull(qei.next());
 	}
 	
+	@Test public void testBulkQuery() throws Exception {
+		Select command = (Select)translationUtility.parseCommand("select Name from Account"); //$NON-NLS-1$
+		SalesforceConnection sfc = Mockito.mock(SalesforceConnection.class);
+		BatchInfo batch = new BatchInfo();
+		Mockito.stub(sfc.executeBulkQuery("Account", "SELECT Account.AccountName FROM Account")).toReturn(batch);
+		Mockito.when(sfc.getBulkQueryResults(batch)).thenThrow(new DataNotAvailableException(500)).thenReturn(new String[] {"1", "2"});
+		Mockito.stub(sfc.getBulkQueryResultStream(batch, "1")).toReturn(new ByteArrayInputStream("\"AccountName\"\n\"a\"\n\"\"\n".getBytes("UTF-8")));
+		Mockito.stub(sfc.getBulkQueryResultStream(batch, "2")).toReturn(new ByteArrayInputStream("\"AccountName\"\n\"b\"\n".getBytes("UTF-8")));
+		ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+		Mockito.stub(ec.getSourceHints()).toReturn(Arrays.asList("bulk"));
+		SalesForceExecutionFactory sef = new SalesForceExecutionFactory();
+		ResultSetExecution qei = sef.createResultSetExecution(command, ec, Mockito.mock(RuntimeMetadata.class), sfc);
+		qei.execute();
+		try {
+			qei.next();
+			fail("expected the batch to still be processing");
+		} catch (DataNotAvailableException e) {
+		}
+		assertEquals("a", qei.next().get(0));
+		assertNull(qei.next().get(0));
+		assertEquals("b", qei.next().get(0));
+		assertNull(qei.next());
+		Mockito.verify(sfc, Mockito.never()).query(Mockito.anyString(), Mockito.anyInt(), Mockito.anyBoolean());
+	}
+	
 	@BeforeClass static public void oneTimeSetup() {
 		TimeZone.setDefault(TimeZone.getTimeZone("GMT-06:00"));
 	}
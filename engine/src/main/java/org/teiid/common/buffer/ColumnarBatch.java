@@ -0,0 +1,281 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * An immutable batch of rows stored by column.  Integer, long, and double values
+ * are held in primitive arrays with a null bitmap rather than as boxed values in
+ * per row lists.
+ *
+ * The batch is also a row list so that existing consumers may use it unchanged.
+ * Rows are light-weight read-only views that box values on access.
+ */
+public final class ColumnarBatch extends AbstractList<List<?>> implements RandomAccess {
+
+	public static abstract class Column {
+		protected BitSet nulls;
+
+		public boolean isNull(int row) {
+			return nulls != null && nulls.get(row);
+		}
+
+		public abstract Object get(int row);
+
+		/**
+		 * @return the width in bytes of each value, or -1 if values are held by reference
+		 */
+		public abstract int getWidth();
+
+		void setNull(int row) {
+			if (nulls == null) {
+				nulls = new BitSet();
+			}
+			nulls.set(row);
+		}
+
+		abstract void set(int row, Object value);
+	}
+
+	public static final class IntColumn extends Column {
+		private int[] values;
+
+		IntColumn(int rows) {
+			values = new int[rows];
+		}
+
+		public int[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Integer)value;
+		}
+
+		@Override
+		public int getWidth() {
+			return 4;
+		}
+	}
+
+	public static final class LongColumn extends Column {
+		private long[] values;
+
+		LongColumn(int rows) {
+			values = new long[rows];
+		}
+
+		public long[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Long)value;
+		}
+
+		@Override
+		public int getWidth() {
+			return 8;
+		}
+	}
+
+	public static final class DoubleColumn extends Column {
+		private double[] values;
+
+		DoubleColumn(int rows) {
+			values = new double[rows];
+		}
+
+		public double[] getValues() {
+			return values;
+		}
+
+		@Override
+		public Object get(int row) {
+			if (isNull(row)) {
+				return null;
+			}
+			return values[row];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = (Double)value;
+		}
+
+		@Override
+		public int getWidth() {
+			return 8;
+		}
+	}
+
+	public static final class ObjectColumn extends Column {
+		private Object[] values;
+
+		ObjectColumn(int rows) {
+			values = new Object[rows];
+		}
+
+		@Override
+		public boolean isNull(int row) {
+			return values[row] == null;
+		}
+
+		@Override
+		public Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		void set(int row, Object value) {
+			values[row] = value;
+		}
+
+		@Override
+		public int getWidth() {
+			return -1;
+		}
+	}
+
+	private final class Row extends AbstractList<Object> implements RandomAccess {
+		private int index;
+
+		public Row(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object get(int col) {
+			return columns[col].get(index);
+		}
+
+		@Override
+		public int size() {
+			return columns.length;
+		}
+	}
+
+	private Column[] columns;
+	private int rowCount;
+
+	/**
+	 * Create a columnar copy of the given rows.
+	 */
+	public static ColumnarBatch create(Class<?>[] types, List<? extends List<?>> rows) {
+		int rowCount = rows.size();
+		Column[] columns = new Column[types.length];
+		for (int col = 0; col < types.length; col++) {
+			columns[col] = createColumn(types[col], rowCount);
+		}
+		for (int row = 0; row < rowCount; row++) {
+			List<?> tuple = rows.get(row);
+			for (int col = 0; col < columns.length; col++) {
+				Object value = tuple.get(col);
+				if (value == null) {
+					columns[col].setNull(row);
+				} else {
+					columns[col].set(row, value);
+				}
+			}
+		}
+		return new ColumnarBatch(columns, rowCount);
+	}
+
+	private static Column createColumn(Class<?> type, int rows) {
+		if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+			return new IntColumn(rows);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.LONG) {
+			return new LongColumn(rows);
+		}
+		if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+			return new DoubleColumn(rows);
+		}
+		return new ObjectColumn(rows);
+	}
+
+	/**
+	 * @return true if any of the types will be stored in a primitive column
+	 */
+	public static boolean hasPrimitiveColumns(Class<?>[] types) {
+		for (Class<?> type : types) {
+			if (type == DataTypeManager.DefaultDataClasses.INTEGER
+					|| type == DataTypeManager.DefaultDataClasses.LONG
+					|| type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private ColumnarBatch(Column[] columns, int rowCount) {
+		this.columns = columns;
+		this.rowCount = rowCount;
+	}
+
+	public Column getColumn(int col) {
+		return columns[col];
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	@Override
+	public List<?> get(int index) {
+		if (index < 0 || index >= rowCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return new Row(index);
+	}
+
+	@Override
+	public int size() {
+		return rowCount;
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+package org.teiid.common.buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.teiid.client.BatchSerializer;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.util.AccessibleByteArrayOutputStream;
+
+/**
+ * An immutable batch read from the column indexed spill format.  Each column is
+ * serialized independently and the column data is preceded by a table of column offsets,
+ * so a column is only decoded when a value from it is first accessed.
+ *
+ * Rows are light-weight read-only views.  Lob values are not expected as their
+ * references must be attached when the batch is read.
+ */
+public final class LazyColumnBatch extends AbstractList<List<?>> implements RandomAccess {
+
+	private final class Row extends AbstractList<Object> implements RandomAccess {
+		private int index;
+
+		public Row(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public Object get(int col) {
+			return getColumn(col)[index];
+		}
+
+		@Override
+		public int size() {
+			return types.length;
+		}
+	}
+
+	private String[] types;
+	private int rowCount;
+	private byte[] data;
+	private int[] offsets;
+	private AtomicReferenceArray<Object[]> columns;
+
+	private LazyColumnBatch(String[] types, int rowCount, byte[] data, int[] offsets) {
+		this.types = types;
+		this.rowCount = rowCount;
+		this.data = data;
+		this.offsets = offsets;
+		this.columns = new AtomicReferenceArray<Object[]>(types.length);
+	}
+
+	/**
+	 * Write the batch in the column indexed format.
+	 */
+	public static void write(ObjectOutput out, String[] types, List<? extends List<?>> batch) throws IOException {
+		if (batch instanceof LazyColumnBatch) {
+			//already in serialized form
+			LazyColumnBatch lazy = (LazyColumnBatch)batch;
+			writeHeader(out, lazy.rowCount, lazy.offsets);
+			out.write(lazy.data);
+			return;
+		}
+		AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
+		int[] offsets = new int[types.length + 1];
+		for (int col = 0; col < types.length; col++) {
+			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			BatchSerializer.writeColumn(oos, types[col], col, batch);
+			oos.flush();
+			offsets[col + 1] = baos.getCount();
+		}
+		writeHeader(out, batch.size(), offsets);
+		out.write(baos.getBuffer(), 0, baos.getCount());
+	}
+
+	private static void writeHeader(ObjectOutput out, int rowCount, int[] offsets) throws IOException {
+		out.writeInt(rowCount);
+		out.writeInt(offsets.length - 1);
+		for (int col = 1; col < offsets.length; col++) {
+			out.writeInt(offsets[col]);
+		}
+	}
+
+	/**
+	 * Read a batch written by {@link #write(ObjectOutput, String[], List)}.  Only the raw
+	 * column data is read, values are decoded on demand.
+	 */
+	public static LazyColumnBatch read(ObjectInput in, String[] types) throws IOException {
+		int rowCount = in.readInt();
+		int columns = in.readInt();
+		if (columns != types.length) {
+			throw new IOException("Expected " + types.length + " columns, but was " + columns); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		int[] offsets = new int[columns + 1];
+		for (int col = 1; col < offsets.length; col++) {
+			offsets[col] = in.readInt();
+		}
+		byte[] data = new byte[offsets[columns]];
+		in.readFully(data);
+		return new LazyColumnBatch(types, rowCount, data, offsets);
+	}
+
+	Object[] getColumn(int col) {
+		Object[] values = columns.get(col);
+		if (values == null) {
+			//concurrent readers may both decode, but the results are equivalent
+			try {
+				ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data, offsets[col], offsets[col + 1] - offsets[col]));
+				values = BatchSerializer.readColumn(ois, types[col], rowCount);
+			} catch (IOException e) {
+				throw new TeiidRuntimeException(e);
+			} catch (ClassNotFoundException e) {
+				throw new TeiidRuntimeException(e);
+			}
+			columns.set(col, values);
+		}
+		return values;
+	}
+
+	/**
+	 * @return true if the column has been decoded
+	 */
+	public boolean isDecoded(int col) {
+		return columns.get(col) != null;
+	}
+
+	@Override
+	public List<?> get(int index) {
+		if (index < 0 || index >= rowCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return new Row(index);
+	}
+
+	@Override
+	public int size() {
+		return rowCount;
+	}
+
+}
@@ -27,6 +27,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,6 +43,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.processor.relational.ListNestedSortComparator;
+import org.teiid.query.sql.symbol.Constant;
 
 /**
  * Self balancing search tree using skip list like logic
@@ -54,6 +56,7 @@ public class STree implements Cloneable {
 	public enum InsertMode {ORDERED, NEW, UPDATE}
 
 	private static final Random seedGenerator = new Random(0);
+	private static final int MIN_SAMPLE_SIZE = 8;
 
 	protected int randomSeed;
 	private int mask = 1;
@@ -71,6 +74,11 @@ public class STree implements Cloneable {
 	protected boolean batchInsert;
 	protected SPage incompleteInsert;
 	protected LobManager lobManager;
+	protected List<BulkLevel> bulkLevels;
+	protected List bulkLastTuple;
+	protected int[] distinctCounts;
+	protected int distinctRowCount;
+	protected volatile List<List<?>> sample;
     
     protected ReentrantLock updateLock = new ReentrantLock();
     
@@ -111,6 +119,9 @@ public class STree implements Cloneable {
 			}
 			clone.updateLock = new ReentrantLock();
 			clone.rowCount = new AtomicInteger(rowCount.get());
+			if (distinctCounts != null) {
+				clone.distinctCounts = distinctCounts.clone();
+			}
 			//clone the pages
 			clone.pages = new HashMap<Long, SPage>(pages);
 			for (Map.Entry<Long, SPage> entry : clone.pages.entrySet()) {
@@ -155,6 +166,7 @@ public class STree implements Cloneable {
 			if (page.next == null) {
 				break;
 			}
+			page = page.next;
 		}
 	}
 	
@@ -176,15 +188,19 @@ public class STree implements Cloneable {
 	
 	public void readValuesFrom(ObjectInputStream ois) throws IOException, ClassNotFoundException, TeiidComponentException {
 		int size = ois.readInt();
-		int sizeHint = this.getExpectedHeight(size);
-		batchInsert = true;
-		while (this.getRowCount() < size) {
-			List<List<Object>> batch = BatchSerializer.readBatch(ois, leafManager.getTypes());
-			for (List list : batch) {
-				this.insert(list, InsertMode.ORDERED, sizeHint);
+		startBulkLoad();
+		try {
+			while (this.getRowCount() < size) {
+				List<List<Object>> batch = BatchSerializer.readBatch(ois, leafManager.getTypes());
+				for (List list : batch) {
+					if (!this.bulkAdd(list)) {
+						throw new AssertionError("Out of order tuple"); //$NON-NLS-1$
+					}
+				}
 			}
+		} finally {
+			finishBulkLoad();
 		}
-		batchInsert = false;
 	}
 	
 	protected SPage findChildTail(SPage page) {
@@ -276,6 +292,7 @@ public class STree implements Cloneable {
 		if (tuple.size() != this.leafManager.getTypes().length) {
 			throw new AssertionError("Invalid tuple."); //$NON-NLS-1$
 		}
+		finishBulkLoad();
 		LinkedList<SearchResult> places = new LinkedList<SearchResult>();
 		List match = null;
 		if (this.lobManager != null) {
@@ -305,6 +322,7 @@ public class STree implements Cloneable {
 				return match;
 			}
 		}
+		sample = null;
 		List key = extractKey(tuple);
 		int level = 0;
 		if (mode != InsertMode.ORDERED) {
@@ -344,6 +362,219 @@ public class STree implements Cloneable {
 		return null;
 	}
 	
+	/**
+	 * The right most page of a level during a bulk load
+	 */
+	static class BulkLevel {
+		SPage page;
+		List<List<?>> values;
+		SPage first;
+	}
+	
+	/**
+	 * Begin a bottom-up bulk load that appends tuples after the current last tuple.
+	 * <br>
+	 * Each page is filled completely and written once rather than having each tuple 
+	 * inserted through the search path.  The tree must not be otherwise accessed until
+	 * {@link #finishBulkLoad()} is called.
+	 * @throws TeiidComponentException
+	 */
+	public void startBulkLoad() throws TeiidComponentException {
+		if (bulkLevels != null) {
+			return;
+		}
+		bulkLevels = new ArrayList<BulkLevel>(header.length);
+		SPage page = null;
+		for (int i = header.length - 1; i >= 0; i--) {
+			page = findChildTail(page);
+			BulkLevel level = new BulkLevel();
+			level.page = page;
+			level.values = page.getValues();
+			level.first = header[i];
+			bulkLevels.add(0, level);
+		}
+		List<List<?>> leafValues = bulkLevels.get(0).values;
+		if (!leafValues.isEmpty()) {
+			bulkLastTuple = leafValues.get(leafValues.size() - 1);
+		} else {
+			distinctCounts = new int[keyLength];
+		}
+	}
+	
+	/**
+	 * Add the tuple to the bulk load if it is greater than the last tuple. 
+	 * @return false if the tuple is out of order and was not added
+	 * @throws TeiidComponentException
+	 */
+	public boolean bulkAdd(List tuple) throws TeiidComponentException {
+		if (tuple.size() != this.leafManager.getTypes().length) {
+			throw new AssertionError("Invalid tuple."); //$NON-NLS-1$
+		}
+		if (bulkLastTuple != null && comparator.compare(tuple, bulkLastTuple) <= 0) {
+			//the remaining tuples won't be counted
+			distinctCounts = null;
+			return false;
+		}
+		if (this.lobManager != null) {
+			this.lobManager.updateReferences(tuple, ReferenceMode.CREATE);
+		}
+		if (distinctCounts != null) {
+			int i = 0;
+			if (bulkLastTuple != null) {
+				while (i < keyLength && equals(tuple.get(i), bulkLastTuple.get(i))) {
+					i++;
+				}
+			}
+			for (; i < keyLength; i++) {
+				distinctCounts[i]++;
+			}
+		}
+		bulkAdd(0, tuple, null);
+		bulkLastTuple = tuple;
+		rowCount.addAndGet(1);
+		return true;
+	}
+	
+	private void bulkAdd(int index, List value, SPage child) throws TeiidComponentException {
+		BulkLevel level = null;
+		if (index == bulkLevels.size()) {
+			level = new BulkLevel();
+			bulkLevels.add(level);
+		} else {
+			level = bulkLevels.get(index);
+		}
+		boolean leaf = child == null;
+		if (level.page == null || level.values.size() == getPageSize(leaf)) {
+			SPage page = new SPage(this, leaf);
+			if (level.page == null) {
+				level.first = page;
+			} else {
+				level.page.setValues(level.values);
+				level.page.next = page;
+				page.prev = level.page;
+			}
+			level.page = page;
+			level.values = page.getValues();
+			level.values.add(value);
+			if (!leaf) {
+				page.children.add(child);
+			}
+			if (level.first != page) {
+				//the first page of a level is reachable from the header, so only subsequent pages need parent entries
+				bulkAdd(index + 1, extractKey(value), page);
+			}
+			return;
+		}
+		level.values.add(value);
+		if (!leaf) {
+			level.page.children.add(child);
+		}
+	}
+	
+	/**
+	 * Write the remaining pages of a bulk load and update the header. 
+	 * @throws TeiidComponentException
+	 */
+	public void finishBulkLoad() throws TeiidComponentException {
+		if (bulkLevels == null) {
+			return;
+		}
+		List<BulkLevel> levels = bulkLevels;
+		bulkLevels = null;
+		bulkLastTuple = null;
+		SPage[] newHeader = new SPage[levels.size()];
+		for (int i = 0; i < newHeader.length; i++) {
+			BulkLevel level = levels.get(i);
+			level.page.setValues(level.values);
+			newHeader[i] = level.first;
+		}
+		header = newHeader;
+		distinctRowCount = getRowCount();
+		sample = null;
+	}
+	
+	public boolean isBulkLoading() {
+		return bulkLevels != null;
+	}
+	
+	private static boolean equals(Object value, Object other) {
+		if (value == null) {
+			return other == null;
+		}
+		return other != null && Constant.COMPARATOR.compare(value, other) == 0;
+	}
+	
+	/**
+	 * Get the number of distinct values for the leading key columns.  This is
+	 * only known for trees built with a bulk load and is not maintained by subsequent
+	 * updates, so it should only be used as an estimate.
+	 * @param prefixLength
+	 * @return the distinct count or -1 if unknown
+	 */
+	public int getDistinctCount(int prefixLength) {
+		int count = getRowCount();
+		if (distinctCounts == null || prefixLength < 1 || prefixLength > keyLength 
+				|| count > 2*distinctRowCount || 2*count < distinctRowCount) {
+			return -1;
+		}
+		return distinctCounts[prefixLength - 1];
+	}
+	
+	/**
+	 * Estimate the fraction of rows between the bounds using the first index level, 
+	 * which holds a sample of the leaf keys.
+	 * @param lower partial key lower bound or null
+	 * @param upper partial key upper bound or null
+	 * @return the estimated fraction or -1 if the tree is too small to estimate
+	 * @throws TeiidComponentException
+	 */
+	public float estimateSelectivity(List lower, List upper) throws TeiidComponentException {
+		List<List<?>> values = getSample();
+		if (values.size() < MIN_SAMPLE_SIZE) {
+			return -1;
+		}
+		if (lower != null && lower.size() < keyLength) {
+			lower = new ArrayList(lower);
+			lower.addAll(Collections.nCopies(keyLength - lower.size(), null));
+		}
+		int start = 0;
+		int end = values.size();
+		if (lower != null) {
+			start = Collections.binarySearch(values, lower, comparator);
+			if (start < 0) {
+				start = -start - 1;
+			}
+		}
+		if (upper != null) {
+			end = Collections.binarySearch(values, upper, comparator);
+			if (end < 0) {
+				end = -end - 1;
+			} else {
+				end++;
+			}
+		}
+		return (float)Math.max(0, end - start)/values.size();
+	}
+	
+	/**
+	 * Get the keys of the first index level, which are cached until the tree is modified.
+	 */
+	private List<List<?>> getSample() throws TeiidComponentException {
+		List<List<?>> result = sample;
+		if (result != null) {
+			return result;
+		}
+		SPage[] levels = header;
+		result = new ArrayList<List<?>>();
+		if (levels.length > 1) {
+			for (SPage page = levels[1]; page != null; page = page.next) {
+				result.addAll(page.getValues());
+			}
+		}
+		sample = result;
+		return result;
+	}
+	
 	public int getExpectedHeight(int sizeHint) {
 		if (sizeHint == 0) {
 			return 0;
@@ -427,6 +658,7 @@ public class STree implements Cloneable {
 			return null;
 		}
 		rowCount.addAndGet(-1);
+		sample = null;
 		for (int i = 0; i < header.length; i++) {
 			SearchResult searchResult = places.removeLast();
 			if (searchResult.index < 0) {
@@ -499,6 +731,10 @@ public class STree implements Cloneable {
 	
 	public int truncate(boolean force) {
 		int oldSize = rowCount.getAndSet(0);
+		bulkLevels = null;
+		bulkLastTuple = null;
+		distinctCounts = null;
+		sample = null;
 		for (int i = 0; i < header.length; i++) {
 			SPage page = header[i];
 			while (page != null) {
@@ -561,6 +797,7 @@ public class STree implements Cloneable {
 			}
 			//remove unneeded index level
 			this.header = Arrays.copyOf(this.header, header.length - 1);
+			this.sample = null;
 		}
 	}
 
@@ -569,6 +806,7 @@ public class STree implements Cloneable {
 		int[] sortParameters = this.comparator.getSortParameters();
 		sortParameters = Arrays.copyOf(sortParameters, sortParameters.length - 1);
 		this.comparator.setSortParameters(sortParameters);
+		this.sample = null;
 	}
 	
 	public void clearClonedFlags() {
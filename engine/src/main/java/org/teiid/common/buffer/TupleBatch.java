@@ -43,6 +43,7 @@ public class TupleBatch {
 	
 	private int rowOffset;    
     protected List<List<?>> tuples;
+    private ColumnarBatch columnarBatch;
     
     // Optional state
     private byte terminationFlag = NOT_TERMINATED;
@@ -73,6 +74,9 @@ public class TupleBatch {
     public TupleBatch(int beginRow, List<? extends List<?>> listOfTupleLists) {
         this.rowOffset = beginRow;
         this.tuples = new ArrayList<List<?>>(listOfTupleLists);
+        if (listOfTupleLists instanceof ColumnarBatch) {
+        	this.columnarBatch = (ColumnarBatch)listOfTupleLists;
+        }
     }
 
     /**
@@ -113,6 +117,17 @@ public class TupleBatch {
 		return tuples;
 	}
     
+    /**
+     * Get the columnar form of the tuples if available. 
+     * @return the {@link ColumnarBatch} or null if the tuples are not columnar or have been modified
+     */
+    public ColumnarBatch getColumnarBatch() {
+    	if (columnarBatch != null && columnarBatch.size() != tuples.size()) {
+    		columnarBatch = null;
+    	}
+		return columnarBatch;
+	}
+    
     /**
      * Get all tuples 
      * @return All tuples
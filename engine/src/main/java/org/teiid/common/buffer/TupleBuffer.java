@@ -130,6 +130,7 @@ public class TupleBuffer {
 	private List<List<?>> batchBuffer;
 	private boolean removed;
 	private boolean forwardOnly;
+	private Class<?>[] columnarTypes;
 
 	private LobManager lobManager;
 	private String uuid;
@@ -247,7 +248,11 @@ public class TupleBuffer {
 		if (batchBuffer == null || batchBuffer.isEmpty() || (!force && batchBuffer.size() < Math.max(1, batchSize / 32))) {
 			return;
 		}
-		Long mbatch = manager.createManagedBatch(batchBuffer, null, false);
+		List<? extends List<?>> toSave = batchBuffer;
+		if (columnarTypes != null) {
+			toSave = ColumnarBatch.create(columnarTypes, batchBuffer);
+		}
+		Long mbatch = manager.createManagedBatch(toSave, null, false);
 		this.batches.put(rowCount - batchBuffer.size() + 1, mbatch);
         batchBuffer = null;
 	}
@@ -361,6 +366,15 @@ public class TupleBuffer {
     	return lobManager.getLobReference(id);
     }
     
+    /**
+     * Store managed batches in columnar form using the given types.
+     * Rows read back from managed batches will be read-only.
+     * @param types or null to store rows
+     */
+    public void setColumnarTypes(Class<?>[] types) {
+		this.columnarTypes = types;
+	}
+    
     public void setForwardOnly(boolean forwardOnly) {
 		this.forwardOnly = forwardOnly;
 	}
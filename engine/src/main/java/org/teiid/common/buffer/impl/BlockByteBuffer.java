@@ -58,11 +58,11 @@ public class BlockByteBuffer {
 		this.data.segmentSize = 1 << this.data.segmentAddressBits;
 		this.data.blockCount = blockCount;
 		long size = ((long)blockCount)<<blockAddressBits;
-		int fullSegments = (int)size>>segmentAddressBits;
+		int segments = getSegmentCount(segmentAddressBits, blockCount, blockAddressBits);
 		int lastSegmentSize = (int) (size&(data.segmentSize-1));
-		int segments = fullSegments;
+		int fullSegments = segments;
 		if (lastSegmentSize > 0) {
-			segments++;
+			fullSegments--;
 		}
 		origBuffers = new ByteBuffer[segments];
 		buffers = new ByteBuffer[segments];
@@ -77,6 +77,19 @@ public class BlockByteBuffer {
 	private BlockByteBuffer() {
 		
 	}
+	
+	/**
+	 * Get the number of segments needed to hold (1 << blockAddressBits)*blockCount bytes,
+	 * which may be larger than an int.
+	 */
+	static int getSegmentCount(int segmentAddressBits, int blockCount, int blockAddressBits) {
+		long size = ((long)blockCount)<<blockAddressBits;
+		int segments = (int)(size>>segmentAddressBits);
+		if ((size&((1<<segmentAddressBits)-1)) > 0) {
+			segments++;
+		}
+		return segments;
+	}
 
 	public static ByteBuffer allocate(int size, boolean direct) {
 		if (direct) {
@@ -828,12 +828,10 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 			fileLock.lock();
 			locked = true;
 			ExtensibleBufferedOutputStream os = new BlockOutputStream(manager, -1);
-			//TODO: there is still an extra buffer being created here, we could FileChannels to do better
+			//the buffers may be memory mapped, in which case there is no intermediate copy
 			ByteBuffer bb = null;
 			while ((bb = is.getBuffer()) != null) {
-				byte[] array = bb.array();
-				os.write(array, bb.position() + bb.arrayOffset(), bb.remaining());
-				bb.position(bb.position()+bb.remaining());
+				os.write(bb);
 			}
 			fileLock.unlock();
 			os.close();
@@ -1192,7 +1190,11 @@ public class BufferFrontedFileStoreCache implements Cache<PhysicalInfo> {
 	}
 	
 	public long getMemoryInUseBytes() {
-		return this.blocksInuse.getBitsSet() * BLOCK_SIZE + this.inodesInuse.getBitsSet() * (1 << LOG_INODE_SIZE);
+		return getMemoryInUseBytes(this.blocksInuse.getBitsSet(), this.inodesInuse.getBitsSet());
+	}
+	
+	static long getMemoryInUseBytes(int blocksInUse, int inodesInUse) {
+		return (long)blocksInUse * BLOCK_SIZE + (long)inodesInUse * (1 << LOG_INODE_SIZE);
 	}
 	
 	public void setBufferManager(BufferManagerImpl bufferManager) {
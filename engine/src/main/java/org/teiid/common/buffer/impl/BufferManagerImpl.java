@@ -80,6 +80,29 @@ import org.teiid.query.util.CommandContext;
  * TODO: add a pre-fetch for tuplebuffers or some built-in correlation logic with the queue.      
  */
 public class BufferManagerImpl implements BufferManager, ReplicatedObject<String> {
+	
+	public enum EvictionPolicy {
+		/**
+		 * Least recently/frequently used ordering with a skip list
+		 */
+		LRFU {
+			@Override
+			public <V extends BaseCacheEntry> EvictionQueue<V> createQueue(AtomicLong clock) {
+				return new LrfuEvictionQueue<V>(clock);
+			}
+		},
+		/**
+		 * Scan resistant clock with lock free access recording
+		 */
+		CLOCK {
+			@Override
+			public <V extends BaseCacheEntry> EvictionQueue<V> createQueue(AtomicLong clock) {
+				return new ClockEvictionQueue<V>(clock);
+			}
+		};
+		
+		public abstract <V extends BaseCacheEntry> EvictionQueue<V> createQueue(AtomicLong clock);
+	}
 
 	private static final int SYSTEM_OVERHEAD_MEGS = 150;
 
@@ -147,6 +170,12 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	 */
 	private static final long BATCH_OVERHEAD = 128;
 	
+	/**
+	 * The minimum number of columns for the column indexed spill format to be used.
+	 * Narrower batches are not worth the per column overhead.
+	 */
+	public static final int LAZY_COLUMN_MINIMUM = 8;
+	
 	final class BatchManagerImpl implements BatchManager, Serializer<List<? extends List<?>>> {
 		final Long id;
 		SizeUtility sizeUtility;
@@ -155,6 +184,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		AtomicBoolean prefersMemory = new AtomicBoolean();
 		String[] types;
 		private LobManager lobManager;
+		private boolean lazyColumns;
 		private long totalSize;
 		private long rowsSampled;
 
@@ -176,6 +206,14 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			this.lobManager = lobManager;
 		}
 		
+		/**
+		 * Use the column indexed format so that spilled batches are read back 
+		 * as {@link LazyColumnBatch}es.  Should not be used with lobs.
+		 */
+		public void setLazyColumns(boolean lazyColumns) {
+			this.lazyColumns = lazyColumns;
+		}
+		
 		@Override
 		public String[] getTypes() {
 			return types;
@@ -240,6 +278,9 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		@Override
 		public List<? extends List<?>> deserialize(ObjectInput ois)
 				throws IOException, ClassNotFoundException {
+			if (lazyColumns) {
+				return LazyColumnBatch.read(ois, types);
+			}
 			List<? extends List<?>> batch = BatchSerializer.readBatch(ois, types);
 			if (lobManager != null) {
 				for (int i = batch.size() - 1; i >= 0; i--) {
@@ -262,7 +303,11 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 			}
 			try {
 				//it's expected that the containing structure has updated the lob manager
-				BatchSerializer.writeBatch(oos, types, obj);
+				if (lazyColumns) {
+					LazyColumnBatch.write(oos, types, obj);
+				} else {
+					BatchSerializer.writeBatch(oos, types, obj);
+				}
 			} catch (RuntimeException e) {
 				if (ExceptionUtil.getExceptionOfType(e, ClassCastException.class) != null) {
 					throw e;
@@ -376,6 +421,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     private int maxActivePlans = DQPConfiguration.DEFAULT_MAX_ACTIVE_PLANS; //used as a hint to set the reserveBatchKB
     private boolean useWeakReferences = true;
     private boolean inlineLobs = true;
+    private boolean columnarBatches;
+    private boolean lazyColumnBatches;
     private int targetBytesPerRow = TARGET_BYTES_PER_ROW;
     private int maxSoftReferences;
     private int nominalProcessingMemoryMax = maxProcessingBytes;
@@ -387,8 +434,9 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     private AtomicLong readAttempts = new AtomicLong();
     //TODO: consider the size estimate in the weighting function
-    LrfuEvictionQueue<CacheEntry> evictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
-    LrfuEvictionQueue<CacheEntry> initialEvictionQueue = new LrfuEvictionQueue<CacheEntry>(readAttempts);
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRFU;
+    EvictionQueue<CacheEntry> evictionQueue = evictionPolicy.<CacheEntry>createQueue(readAttempts);
+    EvictionQueue<CacheEntry> initialEvictionQueue = evictionPolicy.<CacheEntry>createQueue(readAttempts);
     ConcurrentHashMap<Long, CacheEntry> memoryEntries = new ConcurrentHashMap<Long, CacheEntry>(16, .75f, CONCURRENCY_LEVEL);
     
     //limited size reference caches based upon the memory settings
@@ -502,6 +550,12 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         	LogManager.logDetail(LogConstants.CTX_BUFFER_MGR, "Creating TupleBuffer:", newID, elements, Arrays.toString(types), "batch size", tupleBuffer.getBatchSize(), "of type", tupleSourceType); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
         }
     	tupleBuffer.setInlineLobs(inlineLobs);
+    	if (columnarBatches && lobIndexes == null && ColumnarBatch.hasPrimitiveColumns(types)) {
+    		tupleBuffer.setColumnarTypes(types);
+    	}
+    	if (lazyColumnBatches && lobIndexes == null && types.length >= LAZY_COLUMN_MINIMUM) {
+    		batchManager.setLazyColumns(true);
+    	}
         return tupleBuffer;
     }
     
@@ -559,7 +613,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     public void setMaxProcessingKB(int maxProcessingKB) {
     	if (maxProcessingKB > -1) {
-    		this.maxProcessingBytes = maxProcessingKB<<10;
+    		this.maxProcessingBytes = (int)Math.min(((long)maxProcessingKB)<<10, Integer.MAX_VALUE);
     	} else {
     		this.maxProcessingBytes = -1;
     	}
@@ -567,7 +621,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
     
     public void setMaxReserveKB(int maxReserveBatchKB) {
 		if (maxReserveBatchKB > -1) {
-			int maxReserve = maxReserveBatchKB<<10;
+			long maxReserve = ((long)maxReserveBatchKB)<<10;
 			this.maxReserveBytes = maxReserve;
 			this.reserveBatchBytes.set(maxReserve);
 		} else {
@@ -818,8 +872,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		//we delay work here as there should be excess vm space, we are using an overestimate, and we want the cleaner to do the work if possible
 		//TODO: track sizes held by each queue independently
 		long maxToFree = Math.min(max, memoryCount - maxReserveBytes);
-		LrfuEvictionQueue<CacheEntry> first = initialEvictionQueue;
-		LrfuEvictionQueue<CacheEntry> second = evictionQueue;
+		EvictionQueue<CacheEntry> first = initialEvictionQueue;
+		EvictionQueue<CacheEntry> second = evictionQueue;
 		if (evictionQueue.getSize() > 2*initialEvictionQueue.getSize()) {
 			//attempt to evict from the non-initial queue first as these should essentially be cost "free" and hopefully the reference cache can mitigate
 			//the cost of rereading
@@ -835,7 +889,7 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		}
 	}
 	
-	long doEvictions(long maxToFree, boolean checkActiveBatch, LrfuEvictionQueue<CacheEntry> queue) {
+	long doEvictions(long maxToFree, boolean checkActiveBatch, EvictionQueue<CacheEntry> queue) {
 		if (queue == evictionQueue) {
 			maxToFree = Math.min(maxToFree, this.maxProcessingBytes);
 		}
@@ -1097,8 +1151,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 		this.cache.shutdown();
 		this.cache = null;
 		this.memoryEntries.clear();
-		this.evictionQueue.getEvictionQueue().clear();
-		this.initialEvictionQueue.getEvictionQueue().clear();
+		this.evictionQueue.clear();
+		this.initialEvictionQueue.clear();
 		this.cleaner.cancel();
 	}
 
@@ -1237,9 +1291,46 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
 	public void setInlineLobs(boolean inlineLobs) {
 		this.inlineLobs = inlineLobs;
 	}
+	
+	/**
+	 * Set if {@link TupleBuffer} batches with integer, long, or double columns should be held in columnar form
+	 */
+	public void setColumnarBatches(boolean columnarBatches) {
+		this.columnarBatches = columnarBatches;
+	}
+	
+	public boolean isColumnarBatches() {
+		return columnarBatches;
+	}
+	
+	/**
+	 * Set if spilled {@link TupleBuffer} batches of at least {@link #LAZY_COLUMN_MINIMUM} columns
+	 * should use a column indexed format so that only the columns accessed are decoded when read back.
+	 * Rows read back from such batches will be read-only.
+	 */
+	public void setLazyColumnBatches(boolean lazyColumnBatches) {
+		this.lazyColumnBatches = lazyColumnBatches;
+	}
+	
+	public boolean isLazyColumnBatches() {
+		return lazyColumnBatches;
+	}
+	
+	/**
+	 * Set the policy used to order memory entries for eviction.  Should be set prior to use.
+	 */
+	public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+		this.evictionPolicy = evictionPolicy;
+		this.evictionQueue = evictionPolicy.<CacheEntry>createQueue(readAttempts);
+		this.initialEvictionQueue = evictionPolicy.<CacheEntry>createQueue(readAttempts);
+	}
+	
+	public EvictionPolicy getEvictionPolicy() {
+		return evictionPolicy;
+	}
 
 	public int getMaxReserveKB() {
-		return (int)maxReserveBytes>>10;
+		return (int)(maxReserveBytes>>10);
 	}
 	
 	public void setCache(Cache cache) {
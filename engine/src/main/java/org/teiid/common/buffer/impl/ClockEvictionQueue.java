@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
+
+/**
+ * A scan resistant CLOCK eviction queue.  
+ * <p>
+ * Each entry has a small access count that is incremented without locking on access, 
+ * so reads never modify the ordering structure.  The clock hand gives entries with a 
+ * count a second chance by decrementing the count and moving them to the back. 
+ * New entries are seeded with the count from a {@link FrequencySketch} that retains history for 
+ * evicted entries, so that entries seen only once by a scan are the first to be evicted.
+ * <p>
+ * Removal is lazy - entries are left in the ring until the hand passes or a compaction is needed.
+ * @param <V>
+ */
+public class ClockEvictionQueue<V extends BaseCacheEntry> implements EvictionQueue<V> {
+	
+	static final int MAX_COUNT = 3;
+	private static final long MIN_INTERVAL = 1<<10;
+	private static final int DEFAULT_SKETCH_LOG = 14;
+	
+	private static final class Entry<V> {
+		final V value;
+		volatile int count;
+		
+		Entry(V value, int count) {
+			this.value = value;
+			this.count = count;
+		}
+	}
+	
+	private ConcurrentHashMap<Long, Entry<V>> entries = new ConcurrentHashMap<Long, Entry<V>>();
+	private ArrayDeque<Entry<V>> ring = new ArrayDeque<Entry<V>>();
+	private AtomicInteger size = new AtomicInteger();
+	private AtomicBoolean compacting = new AtomicBoolean();
+	private FrequencySketch sketch;
+	protected AtomicLong clock;
+	
+	public ClockEvictionQueue(AtomicLong clock) {
+		this(clock, DEFAULT_SKETCH_LOG);
+	}
+	
+	ClockEvictionQueue(AtomicLong clock, int sketchLog) {
+		this.clock = clock;
+		this.sketch = new FrequencySketch(sketchLog);
+	}
+	
+	@Override
+	public boolean add(V value) {
+		Long id = value.getId();
+		Entry<V> entry = new Entry<V>(value, Math.min(MAX_COUNT, sketch.frequency(id)));
+		sketch.increment(id);
+		Entry<V> old = entries.put(id, entry);
+		synchronized (ring) {
+			ring.addLast(entry);
+		}
+		if (old == null) {
+			size.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public boolean remove(V value) {
+		if (entries.remove(value.getId()) == null) {
+			return false;
+		}
+		size.decrementAndGet();
+		compact();
+		return true;
+	}
+	
+	@Override
+	public void touch(V value) {
+		Long id = value.getId();
+		Entry<V> entry = entries.get(id);
+		if (entry == null) {
+			return;
+		}
+		int count = entry.count;
+		if (count < MAX_COUNT) {
+			entry.count = count + 1;
+		}
+		long tick = clock.get();
+		if (tick - MIN_INTERVAL < value.getKey().getLastAccess()) {
+			return;
+		}
+		sketch.increment(id);
+		recordAccess(value);
+	}
+	
+	/**
+	 * Callers should be synchronized on value
+	 */
+	@Override
+	public void recordAccess(V value) {
+		CacheKey key = value.getKey();
+		value.setKey(new CacheKey(key.getId(), clock.get(), key.getOrderingValue()));
+	}
+	
+	@Override
+	public V firstEntry(boolean poll) {
+		synchronized (ring) {
+			while (true) {
+				Entry<V> entry = ring.peekFirst();
+				if (entry == null) {
+					return null;
+				}
+				V value = entry.value;
+				if (entries.get(value.getId()) != entry) {
+					ring.pollFirst(); //removed or replaced
+					continue;
+				}
+				int count = entry.count;
+				if (count > 0) {
+					//second chance
+					entry.count = count - 1;
+					ring.addLast(ring.pollFirst());
+					continue;
+				}
+				if (poll) {
+					ring.pollFirst();
+					if (entries.remove(value.getId(), entry)) {
+						size.decrementAndGet();
+					}
+				}
+				return value;
+			}
+		}
+	}
+	
+	/**
+	 * Remove the lazily removed entries if they significantly outnumber the live entries
+	 */
+	private void compact() {
+		//unsynchronized read of the ring size is only a heuristic
+		if (ring.size() <= 2*size.get() + 64 || !compacting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			synchronized (ring) {
+				for (Iterator<Entry<V>> iter = ring.iterator(); iter.hasNext();) {
+					Entry<V> entry = iter.next();
+					if (entries.get(entry.value.getId()) != entry) {
+						iter.remove();
+					}
+				}
+			}
+		} finally {
+			compacting.set(false);
+		}
+	}
+	
+	@Override
+	public int getSize() {
+		return size.get();
+	}
+	
+	@Override
+	public void clear() {
+		synchronized (ring) {
+			entries.clear();
+			ring.clear();
+			size.set(0);
+		}
+	}
+	
+}
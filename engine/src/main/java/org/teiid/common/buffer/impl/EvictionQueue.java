@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import org.teiid.common.buffer.BaseCacheEntry;
+
+/**
+ * A concurrent eviction ordering of cache entries.  Has assumptions that match buffermanager usage.
+ * Null values are not allowed.
+ * @param <V>
+ */
+public interface EvictionQueue<V extends BaseCacheEntry> {
+	
+	/**
+	 * @return true if the value was not already present
+	 */
+	boolean add(V value);
+	
+	/**
+	 * @return true if the value was present
+	 */
+	boolean remove(V value);
+	
+	/**
+	 * Record an access to a value that may be present
+	 */
+	void touch(V value);
+	
+	/**
+	 * Update the access information held by the value key.
+	 * Callers should be synchronized on value
+	 */
+	void recordAccess(V value);
+	
+	/**
+	 * Get the next eviction candidate
+	 * @param poll if true the entry will also be removed
+	 */
+	V firstEntry(boolean poll);
+	
+	int getSize();
+	
+	void clear();
+
+}
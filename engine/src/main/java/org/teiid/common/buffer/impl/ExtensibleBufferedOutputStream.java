@@ -69,6 +69,20 @@ public abstract class ExtensibleBufferedOutputStream extends OutputStream {
     	}
     }
 
+    /**
+     * Write the remaining bytes of the src buffer, which may be direct.
+     */
+    public void write(ByteBuffer src) throws IOException {
+    	while (src.hasRemaining()) {
+    		ensureBuffer();
+    		int toCopy = Math.min(buf.remaining(), src.remaining());
+    		ByteBuffer bytes = src.duplicate();
+    		bytes.limit(bytes.position() + toCopy);
+    		buf.put(bytes);
+    		src.position(src.position() + toCopy);
+    	}
+    }
+
 	public void flush() throws IOException {
 		if (buf != null) {
 			int bytes = buf.position() - startPosition;
@@ -26,12 +26,21 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
@@ -43,6 +52,12 @@ import org.teiid.query.QueryPlugin;
 
 /**
  * Implements file storage that automatically splits large files and limits the number of open files.
+ * <p>
+ * If memory mapped, then the files are accessed through mapped regions rather than explicit
+ * reads and writes.  Input streams will then return the mapped buffers directly.
+ * Mapped files grow by doubling, up to a region at a time, so that appends do not remap 
+ * on every write.  The space of a removed file is released from the used buffer space
+ * immediately, even though the file system frees a mapped file only once its mappings are collected.
  */
 public class FileStorageManager implements StorageManager {
 	
@@ -50,6 +65,8 @@ public class FileStorageManager implements StorageManager {
 	public static final int DEFAULT_MAX_OPEN_FILES = 64;
 	public static final long DEFAULT_MAX_BUFFERSPACE = 50L * 1024L * MB;
 	private static final String FILE_PREFIX = "b_"; //$NON-NLS-1$
+	static final int DEFAULT_LOG_REGION_SIZE = 26;
+	static final int MIN_MAPPED_LENGTH = 1 << 13;
 	
 	private long maxBufferSpace = DEFAULT_MAX_BUFFERSPACE;
 	private AtomicLong usedBufferSpace = new AtomicLong();
@@ -57,6 +74,22 @@ public class FileStorageManager implements StorageManager {
 	
 	private AtomicLong sample = new AtomicLong();
 	
+	private ReferenceQueue<MappedByteBuffer> mappingQueue = new ReferenceQueue<MappedByteBuffer>();
+	private Set<MappingReference> mappingReferences = Collections.synchronizedSet(new HashSet<MappingReference>());
+	
+	/**
+	 * Tracks a mapping, which along with any buffers derived from it, 
+	 * prevents the file from being shortened until it is collected 
+	 */
+	private static class MappingReference extends PhantomReference<MappedByteBuffer> {
+		private DiskStore store;
+		
+		public MappingReference(MappedByteBuffer buffer, DiskStore store, ReferenceQueue<MappedByteBuffer> queue) {
+			super(buffer, queue);
+			this.store = store;
+		}
+	}
+	
 	private class FileInfo {
     	private File file;
         private RandomAccessFile fileData;       // may be null if not open
@@ -101,6 +134,10 @@ public class FileStorageManager implements StorageManager {
 	public class DiskStore extends FileStore {
 	    private String name;
 		private FileInfo fileInfo; 
+		private long length;
+		private MappedByteBuffer[] regions;
+		//the count of live mappings plus one for the store itself
+		private AtomicInteger references = new AtomicInteger(1);
 	    
 	    public DiskStore(String name) {
 			this.name = name;
@@ -111,12 +148,19 @@ public class FileStorageManager implements StorageManager {
 	    	if (fileInfo == null) {
 	    		return 0;
 	    	}
+	    	if (memoryMapped) {
+	    		//the file may be longer than the logical length
+	    		return this.length;
+	    	}
 	    	return fileInfo.file.length();
 	    }
 	    
 	    @Override
 	    protected synchronized int readWrite(long fileOffset, byte[] b, int offSet,
 	    		int length, boolean write) throws IOException {
+	    	if (memoryMapped) {
+	    		return mappedReadWrite(fileOffset, b, offSet, length, write);
+	    	}
 	    	if (!write) {
 	    		if (fileInfo == null) {
 	    			return -1;
@@ -144,6 +188,131 @@ public class FileStorageManager implements StorageManager {
 	    	return length;
 	    }
 
+		private int mappedReadWrite(long fileOffset, byte[] b, int offSet,
+				int len, boolean write) throws IOException {
+			if (write) {
+				if (fileInfo == null) {
+					fileInfo = new FileInfo(createFile(name));
+				}
+				if (fileOffset + len > this.length) {
+					try {
+						setMappedLength(fileInfo.open(), fileOffset + len, false);
+					} finally {
+						fileInfo.close();
+					}
+				}
+			}
+			ByteBuffer bb = getMappedBuffer(fileOffset, len);
+			if (bb == null) {
+				return -1;
+			}
+			int count = bb.remaining();
+			if (write) {
+				bb.put(b, offSet, count);
+			} else {
+				bb.get(b, offSet, count);
+			}
+			return count;
+		}
+		
+		/**
+		 * Get a buffer over the mapped region starting at the offset.
+		 * The buffer will not extend beyond the end of a mapped region.
+		 * @param len the max length or -1 to the end of the file
+		 * @return the buffer or null if the offset is not within the file
+		 */
+		synchronized ByteBuffer getMappedBuffer(long fileOffset, long len) throws IOException {
+			if (fileInfo == null || fileOffset >= this.length) {
+				return null;
+			}
+			int index = (int)(fileOffset >> logRegionSize);
+			long regionStart = (long)index << logRegionSize;
+			long end = Math.min(this.length, regionStart + (1 << logRegionSize));
+			if (len >= 0) {
+				end = Math.min(end, fileOffset + len);
+			}
+			if (regions == null) {
+				regions = new MappedByteBuffer[index + 1];
+			} else if (regions.length <= index) {
+				regions = Arrays.copyOf(regions, Math.max(index + 1, regions.length << 1));
+			}
+			MappedByteBuffer region = regions[index];
+			if (region == null || region.capacity() < end - regionStart) {
+				//map the whole region that exists in the file, a smaller existing mapping is simply replaced
+				try {
+					RandomAccessFile fileAccess = fileInfo.open();
+					long size = Math.min(fileAccess.length() - regionStart, 1 << logRegionSize);
+					region = fileAccess.getChannel().map(MapMode.READ_WRITE, regionStart, size);
+				} finally {
+					fileInfo.close();
+				}
+				references.incrementAndGet();
+				mappingReferences.add(new MappingReference(region, this, mappingQueue));
+				regions[index] = region;
+			}
+			ByteBuffer result = region.duplicate();
+			result.limit((int)(end - regionStart));
+			result.position((int)(fileOffset - regionStart));
+			return result.slice();
+		}
+		
+		@Override
+		public ExtensibleBufferedInputStream createInputStream(final long start,
+				final long streamLength) {
+			if (!memoryMapped) {
+				return super.createInputStream(start, streamLength);
+			}
+			return new ExtensibleBufferedInputStream() {
+				private long offset = start;
+				private long remaining = streamLength;
+				
+				@Override
+				protected ByteBuffer nextBuffer() throws IOException {
+					if (remaining == 0) {
+						return null;
+					}
+					ByteBuffer bb = getMappedBuffer(offset, remaining);
+					if (bb == null) {
+						return null;
+					}
+					offset += bb.remaining();
+					if (remaining != -1) {
+						remaining -= bb.remaining();
+					}
+					return bb;
+				}
+			};
+		}
+
+		/**
+		 * Set the logical length of a mapped file.  The file itself is grown by doubling, 
+		 * up to a region at a time, so that the mappings are not replaced on every write.
+		 * <br>
+		 * The file is only shortened if there are no live mappings, as accessing a mapping
+		 * beyond the end of the file is an error.  Otherwise the space is released on removal.
+		 */
+		private void setMappedLength(RandomAccessFile fileAccess, long newLength, boolean truncate) 
+				throws IOException {
+			long fileLength = fileAccess.length();
+			if (newLength > fileLength) {
+				long increment = Math.min(1 << logRegionSize, Math.max(MIN_MAPPED_LENGTH, fileLength));
+				setLength(fileAccess, Math.max(newLength, fileLength + increment), false);
+			} else if (truncate && newLength < this.length) {
+				if (regions != null) {
+					//regions entirely beyond the new length are no longer needed
+					int index = (int)((newLength + (1 << logRegionSize) - 1) >> logRegionSize);
+					if (index < regions.length) {
+						Arrays.fill(regions, index, regions.length, null);
+					}
+				}
+				releaseMappings();
+				if (references.get() == 1) {
+					setLength(fileAccess, newLength, true);
+				}
+			}
+			this.length = newLength;
+		}
+		
 		private void setLength(RandomAccessFile fileAccess, long newLength, boolean truncate)
 				throws IOException {
 			long currentLength = fileAccess.length();
@@ -156,6 +325,7 @@ public class FileStorageManager implements StorageManager {
 					return;
 				}
 			} else if (bytesUsed > MB) {
+				releaseMappings();
 				//this is a weak check, concurrent access may push us over the max.  we are just trying to prevent large overage allocations
 				long used = usedBufferSpace.get() + bytesUsed;
 				if (used > maxBufferSpace) {
@@ -180,7 +350,11 @@ public class FileStorageManager implements StorageManager {
 				fileInfo = new FileInfo(createFile(name));
 	        }
 	    	try {
-	    		setLength(fileInfo.open(), length, true);
+	    		if (memoryMapped) {
+	    			setMappedLength(fileInfo.open(), length, true);
+	    		} else {
+	    			setLength(fileInfo.open(), length, true);
+	    		}
 	    	} finally {
 	    		fileInfo.close();
 	    	}
@@ -188,16 +362,22 @@ public class FileStorageManager implements StorageManager {
 		
 	    @Override
 		public synchronized void removeDirect() {
-			usedBufferSpace.addAndGet(-getLength());
 			if (fileInfo != null){
+				//release the space now rather than waiting on the collection of the mappings
+				usedBufferSpace.addAndGet(-fileInfo.file.length());
 				fileInfo.delete();
 			}
+			regions = null;
+			references.decrementAndGet();
+			releaseMappings();
 		}
 	    
 	}
 
     // Initialization
     private int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+    private boolean memoryMapped;
+    private int logRegionSize = DEFAULT_LOG_REGION_SIZE;
     private String directory;
     private File dirFile;
     //use subdirectories to hold the files since we may create a relatively unbounded amount of lob files and 
@@ -250,6 +430,22 @@ public class FileStorageManager implements StorageManager {
 		this.maxOpenFiles = maxOpenFiles;
 	}
     
+    /**
+     * Use memory mapped regions rather than explicit reads and writes.
+     * Should be set prior to creating any file stores.
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+    
+    public boolean isMemoryMapped() {
+		return memoryMapped;
+	}
+    
+    void setLogRegionSize(int logRegionSize) {
+		this.logRegionSize = logRegionSize;
+	}
+    
     public void setStorageDirectory(String directory) {
 		this.directory = directory;
 	}
@@ -284,9 +480,21 @@ public class FileStorageManager implements StorageManager {
      * @return
      */
     public long getUsedBufferSpace() {
+    	releaseMappings();
 		return usedBufferSpace.get();
 	}
     
+    /**
+     * Process the mappings that have been collected
+     */
+    void releaseMappings() {
+    	MappingReference ref = null;
+    	while ((ref = (MappingReference)mappingQueue.poll()) != null) {
+    		mappingReferences.remove(ref);
+    		ref.store.references.decrementAndGet();
+    	}
+    }
+    
     /**
      * Set the max amount of buffer space in bytes
      * @param maxBufferSpace
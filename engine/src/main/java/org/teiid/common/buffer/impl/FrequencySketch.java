@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An approximate count-min frequency sketch with 4-bit counters.  
+ * All counters are halved once enough increments have been seen, so that
+ * the frequencies represent recent history.
+ * <p>
+ * Updates are not atomic, the occasional lost increment is acceptable.
+ */
+final class FrequencySketch {
+	
+	static final int MAX_COUNT = 15;
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+	
+	private final long[] table;
+	private final int mask;
+	private final int sampleSize;
+	private final AtomicInteger additions = new AtomicInteger();
+	
+	/**
+	 * @param log the log2 of the number of 16 counter table entries
+	 */
+	FrequencySketch(int log) {
+		this.table = new long[1 << log];
+		this.mask = table.length - 1;
+		this.sampleSize = 10 * (table.length << 2);
+	}
+	
+	int frequency(long id) {
+		int hash = spread(id);
+		int frequency = MAX_COUNT;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long value = table[indexOf(hash, i)] >>> offsetOf(hash, i);
+			frequency = Math.min(frequency, (int)(value & 0xf));
+		}
+		return frequency;
+	}
+	
+	void increment(long id) {
+		int hash = spread(id);
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int index = indexOf(hash, i);
+			int offset = offsetOf(hash, i);
+			long value = table[index];
+			if (((value >>> offset) & 0xf) < MAX_COUNT) {
+				table[index] = value + (1L << offset);
+				added = true;
+			}
+		}
+		if (added && additions.incrementAndGet() == sampleSize) {
+			reset();
+		}
+	}
+	
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions.addAndGet(-(sampleSize >> 1));
+	}
+	
+	private int indexOf(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int)h & mask;
+	}
+	
+	private static int offsetOf(int hash, int i) {
+		return ((hash >>> (i << 3)) & 0xf) << 2;
+	}
+	
+	private static int spread(long id) {
+		long h = id * 0x9e3779b97f4a7c15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+}
@@ -37,7 +37,7 @@ import org.teiid.common.buffer.CacheKey;
  * Null values are not allowed.
  * @param <V>
  */
-public class LrfuEvictionQueue<V extends BaseCacheEntry> {
+public class LrfuEvictionQueue<V extends BaseCacheEntry> implements EvictionQueue<V> {
 	
 	private static final long DEFAULT_HALF_LIFE = 1<<17;
 	private static final long MIN_INTERVAL = 1<<10;
@@ -56,6 +56,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		setHalfLife(DEFAULT_HALF_LIFE);
 	}
 
+	@Override
 	public boolean remove(V value) {
 		if (evictionQueue.remove(value.getKey()) != null) {
 			size.addAndGet(-1);
@@ -64,6 +65,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		return false;
 	}
 	
+	@Override
 	public boolean add(V value) {
 		if (evictionQueue.put(value.getKey(), value) == null) {
 			size.addAndGet(1);
@@ -72,6 +74,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		return false;
 	}
 	
+	@Override
 	public void touch(V value) {
 		long tick = clock.get();
 		if (tick - MIN_INTERVAL < value.getKey().getLastAccess()) {
@@ -86,6 +89,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		return evictionQueue.values();
 	}
 	
+	@Override
 	public V firstEntry(boolean poll) {
 		Map.Entry<CacheKey, V> entry = null;
 		if (poll) {
@@ -105,6 +109,7 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 	/**
      * Callers should be synchronized on value
      */
+	@Override
 	public void recordAccess(V value) {
 		CacheKey key = value.getKey();
 		long lastAccess = key.getLastAccess();
@@ -143,8 +148,15 @@ public class LrfuEvictionQueue<V extends BaseCacheEntry> {
 		this.maxInterval = 62*this.halfLife;
 	}
 	
+	@Override
 	public int getSize() {
 		return size.get();
 	}
 	
+	@Override
+	public void clear() {
+		evictionQueue.clear();
+		size.set(0);
+	}
+	
 }
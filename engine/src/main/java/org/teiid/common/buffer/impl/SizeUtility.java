@@ -38,6 +38,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.core.types.BaseLob;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
@@ -122,6 +123,9 @@ public final class SizeUtility {
 	}
 	
     public long getBatchSize(boolean accountForValueCache, List<? extends List<?>> data) {
+    	if (data instanceof ColumnarBatch) {
+    		return getBatchSize(accountForValueCache, (ColumnarBatch)data);
+    	}
         int colLength = types.length;
         int rowLength = data.size();
     
@@ -146,6 +150,41 @@ public final class SizeUtility {
         return size;
     }
     
+    /**
+     * Estimate a columnar batch.  There are no row lists and primitive columns 
+     * have no per value object overhead. 
+     */
+    private long getBatchSize(boolean accountForValueCache, ColumnarBatch data) {
+    	int colLength = types.length;
+        int rowLength = data.size();
+        
+        // Array overhead for the column array
+        long size = 16 + alignMemory(colLength * REFERENCE_SIZE);
+        for (int col = 0; col < colLength; col++) {
+        	ColumnarBatch.Column column = data.getColumn(col);
+        	int width = column.getWidth();
+        	if (width > 0) {
+        		// value array and null bitmap
+        		size += 48 + alignMemory(rowLength * width) + alignMemory(rowLength / 8); 
+        		continue;
+        	}
+        	size += 32 + alignMemory(rowLength * REFERENCE_SIZE);
+        	Class<?> type = types[col];
+            if (VARIABLE_SIZE_TYPES.contains(type)) {
+                int rowsSampled = 0;
+                int estimatedSize = 0;
+                for (int row = 0; row < rowLength; row=(row*2)+1) {
+                	rowsSampled++;
+                    estimatedSize += getSize(column.get(row), type, true, accountForValueCache);
+                }
+                size += estimatedSize/(float)rowsSampled * rowLength;
+            } else {
+            	size += getSize(accountForValueCache, type) * rowLength;
+            }
+        }
+        return size;
+    }
+    
     static int getSize(boolean isValueCacheEnabled,
 			Class<?> type) {
     	int[] vals = SIZE_ESTIMATES.get(type);
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.StorageManager;
 import org.teiid.core.TeiidComponentException;
@@ -139,6 +140,26 @@ public class SplittableStorageManager implements StorageManager {
 			len = length;
 	    }
 	    
+	    /**
+	     * Delegate to the underlying store if the range is contained in a single file
+	     * so that it may provide its own buffers.
+	     */
+	    @Override
+	    public ExtensibleBufferedInputStream createInputStream(long start,
+	    		long length) {
+	    	FileStore store = null;
+	    	synchronized (this) {
+	    		int index = (int)(start/maxFileSize);
+	    		if (length > 0 && index < storageFiles.size() && (start + length - 1)/maxFileSize == index) {
+	    			store = storageFiles.get(index);
+	    		}
+	    	}
+	    	if (store == null) {
+	    		return super.createInputStream(start, length);
+	    	}
+	    	return store.createInputStream(start%maxFileSize, length);
+	    }
+	    
 		public synchronized void removeDirect() {
 			for (int i = storageFiles.size() - 1; i >= 0; i--) {
 				this.storageFiles.remove(i).remove();
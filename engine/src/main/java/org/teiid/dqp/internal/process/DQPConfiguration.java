@@ -21,7 +21,13 @@
  */
 package org.teiid.dqp.internal.process;
 
+import java.util.concurrent.ThreadFactory;
+
 import org.teiid.client.RequestMessage;
+import org.teiid.core.util.NamedThreadFactory;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.query.QueryPlugin;
 
 
 public class DQPConfiguration{
@@ -49,6 +55,9 @@ public class DQPConfiguration{
     private int userRequestSourceConcurrency = DEFAULT_USER_REQUEST_SOURCE_CONCURRENCY;
     private boolean detectingChangeEvents = true;
     private long queryTimeout;
+    private boolean workStealing;
+    private boolean useVirtualThreads;
+    private int minResultsetCacheCostPerMb;
     
     private transient AuthorizationValidator authorizationValidator;
 
@@ -165,8 +174,62 @@ public class DQPConfiguration{
 		return queryTimeout;
 	}
 
+	public boolean isWorkStealing() {
+		return workStealing;
+	}
+	
+	/**
+	 * Set to true to use the {@link WorkStealingExecutor} rather than the {@link ThreadReuseExecutor}
+	 * @param workStealing
+	 */
+	public void setWorkStealing(boolean workStealing) {
+		this.workStealing = workStealing;
+	}
+
+	public boolean isUseVirtualThreads() {
+		return useVirtualThreads;
+	}
+	
+	/**
+	 * Set to true to run request and source work on virtual threads if supported by the JRE.
+	 * Blocking source calls then do not hold a platform thread, so the max threads may
+	 * be set much higher.
+	 * @param useVirtualThreads
+	 */
+	public void setUseVirtualThreads(boolean useVirtualThreads) {
+		this.useVirtualThreads = useVirtualThreads;
+	}
+	
+	public int getMinResultsetCacheCostPerMb() {
+		return minResultsetCacheCostPerMb;
+	}
+	
+	/**
+	 * Set the minimum observed processing time in milliseconds per megabyte of results 
+	 * for results without a cache hint to be admitted to the result set cache.  Results that
+	 * are cheap to produce relative to their size are then recomputed rather than displacing 
+	 * other cache entries.  The default of 0 admits all results.
+	 * @param minResultsetCacheCostPerMb
+	 */
+	public void setMinResultsetCacheCostPerMb(int minResultsetCacheCostPerMb) {
+		this.minResultsetCacheCostPerMb = minResultsetCacheCostPerMb;
+	}
+
 	public TeiidExecutor getTeiidExecutor() {
-		return new ThreadReuseExecutor(DQPConfiguration.PROCESS_PLAN_QUEUE_NAME, getMaxThreads());
+		ThreadFactory threadFactory = null;
+		if (useVirtualThreads) {
+			threadFactory = NamedThreadFactory.createVirtualThreadFactory("Worker"); //$NON-NLS-1$
+			if (threadFactory == null) {
+				LogManager.logWarning(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31154, DQPConfiguration.PROCESS_PLAN_QUEUE_NAME));
+			}
+		}
+		if (threadFactory == null) {
+			threadFactory = new NamedThreadFactory("Worker"); //$NON-NLS-1$
+		}
+		if (workStealing) {
+			return new WorkStealingExecutor(DQPConfiguration.PROCESS_PLAN_QUEUE_NAME, getMaxThreads(), threadFactory);
+		}
+		return new ThreadReuseExecutor(DQPConfiguration.PROCESS_PLAN_QUEUE_NAME, getMaxThreads(), threadFactory);
 	}
 
 }
@@ -64,6 +64,7 @@ import org.teiid.core.types.Streamable;
 import org.teiid.core.util.ApplicationInfo;
 import org.teiid.core.util.ExecutorUtils;
 import org.teiid.core.util.PropertiesUtils;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.message.AtomicRequestMessage;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.TransactionContext;
@@ -110,6 +111,7 @@ public class DQPCore implements DQP {
     
 	private Map<RequestID, RequestWorkItem> requests = new ConcurrentHashMap<RequestID, RequestWorkItem>();			
 	private Map<String, ClientState> clientState = new ConcurrentHashMap<String, ClientState>();
+	private ConcurrentHashMap<CacheID, RequestWorkItem> inFlightResults = new ConcurrentHashMap<CacheID, RequestWorkItem>();
     
     private int maxActivePlans = DQPConfiguration.DEFAULT_MAX_ACTIVE_PLANS;
     private int currentlyActivePlans;
@@ -339,6 +341,18 @@ public class DQPCore implements DQP {
 		}
     }
     
+    /**
+     * Register the work item as producing the cachable results for the given id.
+     * @return the work item already producing the results or null if the given item was registered
+     */
+    RequestWorkItem registerInFlightResults(CacheID id, RequestWorkItem workItem) {
+    	return this.inFlightResults.putIfAbsent(id, workItem);
+    }
+    
+    void removeInFlightResults(CacheID id, RequestWorkItem workItem) {
+    	this.inFlightResults.remove(id, workItem);
+    }
+    
     public int getActivePlanCount() {
     	return this.currentlyActivePlans;
     }
@@ -572,6 +586,10 @@ public class DQPCore implements DQP {
 		return rsCache;
 	}
 	
+	int getMinResultsetCacheCostPerMb() {
+		return this.config.getMinResultsetCacheCostPerMb();
+	}
+	
 	int getProcessorTimeSlice() {
 		return this.config.getTimeSliceInMilli();
 	}	
@@ -71,7 +71,8 @@ public class DQPWorkContext implements Serializable {
 		EIGHT_2("08.02", (byte)2), //$NON-NLS-1$
 		EIGHT_4("08.04.00.CR3", (byte)2), //$NON-NLS-1$
 		EIGHT_6("08.06.00.Beta3", (byte)3), //$NON-NLS-1$
-		EIGHT_7("08.07.00.Beta2", (byte)3); //$NON-NLS-1$
+		EIGHT_7("08.07.00.Beta2", (byte)3), //$NON-NLS-1$
+		EIGHT_9("08.09.00.Alpha2", (byte)4); //$NON-NLS-1$
 		
 		private String string;
 		private byte clientSerializationVersion;
@@ -140,6 +141,7 @@ public class DQPWorkContext implements Serializable {
     private boolean useCallingThread;
     private Version clientVersion = Version.SEVEN_4;
     private boolean admin;
+    private boolean compressResults;
     private MetadataFactory metadataFactory;
 
 	private transient EmbeddedProfile connectionProfile = new EmbeddedProfile();
@@ -349,6 +351,17 @@ public class DQPWorkContext implements Serializable {
 	public boolean isAdmin() {
 		return admin;
 	}
+	
+	/**
+	 * @return true if the client has requested compressed results
+	 */
+	public boolean isCompressResults() {
+		return compressResults;
+	}
+	
+	public void setCompressResults(boolean compressResults) {
+		this.compressResults = compressResults;
+	}
 
 	public MetadataFactory getTempMetadataFactory() {
 		if (this.metadataFactory == null) {
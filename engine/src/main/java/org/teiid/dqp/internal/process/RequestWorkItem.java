@@ -92,6 +92,23 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	private static final int OUTPUT_BUFFER_MAX_BATCHES = 8;
 	private static final int CLIENT_FETCH_MAX_BATCHES = 3;
 	
+	/**
+	 * Batches handed from a request producing cachable results to a
+	 * concurrent request for the same results.
+	 */
+	private static class CoalescedResults {
+		final RequestWorkItem leader;
+		LinkedList<TupleBatch> batches = new LinkedList<TupleBatch>();
+		int rowCount;
+		boolean done;
+		boolean detached;
+		Throwable failure;
+		
+		CoalescedResults(RequestWorkItem leader) {
+			this.leader = leader;
+		}
+	}
+	
 	public static final class MoreWorkTask implements Runnable {
 
 		WeakReference<RequestWorkItem> ref;
@@ -208,6 +225,16 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 
 	private boolean explicitSourceClose;
 	private int schemaSize;
+	
+	/*
+	 * coalescing of concurrent requests for the same cachable results
+	 */
+	private CacheID inFlightId;
+	private Determinism inFlightScope;
+	private List<RequestWorkItem> followers;
+	private boolean followersClosed;
+	private volatile CoalescedResults coalesced;
+	private long producingStart;
     
     public RequestWorkItem(DQPCore dqpCore, RequestMessage requestMsg, Request request, ResultsReceiver<ResultsMessage> receiver, RequestID requestID, DQPWorkContext workContext) {
         this.requestMsg = requestMsg;
@@ -322,10 +349,10 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
             resume();
         	
             if (this.state == ProcessingState.PROCESSING) {
-            	if (!this.closeRequested) {
+            	if (!this.closeRequested || hasFollowers()) {
             		processMore();
             	}
-            	if (this.closeRequested) {
+            	if (this.closeRequested && !hasFollowers()) {
             		this.state = ProcessingState.CLOSE;
             	}
             }                  	            
@@ -428,6 +455,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	}
 
 	protected void processMore() throws BlockedException, TeiidException {
+		if (this.coalesced != null && processCoalesced()) {
+			return;
+		}
 		if (!doneProducingBatches) {
 			synchronized (queue) {
 				while (!queue.isEmpty() && totalThreads < dqpCore.getUserRequestSourceConcurrency()) {
@@ -479,6 +509,12 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		int rowcount = -1;
 		try {
 			cancelCancelTask();
+			CoalescedResults results = this.coalesced;
+			if (results != null) {
+				this.coalesced = null;
+				results.leader.removeFollower(this);
+			}
+			detachFollowers(this.processingException);
 			if (moreWorkTask != null) {
 				moreWorkTask.cancel(false);
 				moreWorkTask = null;
@@ -564,6 +600,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 	}
 
 	protected void processNew() throws TeiidProcessingException, TeiidComponentException {
+		this.producingStart = System.currentTimeMillis();
 		SessionAwareCache<CachedResults> rsCache = dqpCore.getRsCache();
 				
 		boolean cachable = false;
@@ -618,6 +655,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         }
         request.processor.getContext().setWorkItem(this);
 		processor = request.processor;
+		if (this.cid != null && !requestMsg.isNoExec()) {
+			coalesce(request.transactionContext);
+		}
 		this.dqpCore.logMMCommand(this, Event.PLAN, null);
 		collector = new BatchCollector(processor, processor.getBufferManager(), this.request.context, isForwardOnly()) {
 			
@@ -631,6 +671,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 				}
 				if (cid != null) {
 					super.flushBatchDirect(batch, add);
+					forwardToFollowers(batch);
 				}
 				synchronized (lobStreams) {
 					if (resultsBuffer.isLobs()) {
@@ -756,6 +797,9 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		if (!doneProducingBatches || cid == null) {
 			return;
 		}
+		if (originalCommand.getCacheHint() == null && !isAdmittedToCache()) {
+			return;
+		}
     	Determinism determinismLevel = processor.getContext().getDeterminismLevel();
     	CachedResults cr = new CachedResults();
     	cr.setCommand(originalCommand);
@@ -783,6 +827,249 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         dqpCore.getRsCache().put(cid, determinismLevel, cr, originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null);
 	}
 	
+	/**
+	 * Determine if the results are costly enough to produce relative to their size 
+	 * to be worth caching.  The observed cost is scaled by the number of requests 
+	 * that were coalesced onto this one, since that indicates demand for the results.
+	 */
+	private boolean isAdmittedToCache() {
+		int minCostPerMb = dqpCore.getMinResultsetCacheCostPerMb();
+		if (minCostPerMb <= 0) {
+			return true;
+		}
+		long size = (long)resultsBuffer.getRowCount() * resultsBuffer.getRowSizeEstimate();
+		if (size == 0) {
+			return true;
+		}
+		long cost = System.currentTimeMillis() - producingStart;
+		if (followers != null) {
+			synchronized (followers) {
+				cost *= 1 + followers.size();
+			}
+		}
+		if (cost * (1 << 20) >= size * minCostPerMb) {
+			return true;
+		}
+		LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Results not admitted to the cache with a cost of", cost, "ms and an estimated size of", size, "bytes"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return false;
+	}
+	
+	/**
+	 * Coalesce this request onto an in-flight request producing the same cachable results,
+	 * or register this request as the producer of those results so that concurrent 
+	 * requests may be coalesced onto it.
+	 */
+	private void coalesce(TransactionContext tc) {
+		if (tc != null && tc.getTransactionType() != Scope.NONE) {
+			return;
+		}
+		for (Expression ex : this.originalCommand.getProjectedSymbols()) {
+			if (DataTypeManager.isLOB(ex.getType())) {
+				//lob references are specific to the producing request
+				return;
+			}
+		}
+		Determinism determinismLevel = this.processor.getContext().getDeterminismLevel();
+		if (originalCommand.getCacheHint() != null && originalCommand.getCacheHint().getDeterminism() != null) {
+			determinismLevel = originalCommand.getCacheHint().getDeterminism();
+		}
+		Determinism scope = getCacheScope(determinismLevel);
+		CacheID id = this.cid.getScopedCopy(scope);
+		List<RequestWorkItem> pending = new ArrayList<RequestWorkItem>(2);
+		this.followers = pending;
+		while (true) {
+			RequestWorkItem leader = dqpCore.registerInFlightResults(id, this);
+			if (leader == null) {
+				this.inFlightId = id;
+				this.inFlightScope = scope;
+				return;
+			}
+			if (leader.requestMsg.getRowLimit() != this.requestMsg.getRowLimit()) {
+				break;
+			}
+			if (leader.addFollower(this)) {
+				LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Coalescing onto the in-flight results of", leader.requestID); //$NON-NLS-1$
+				//the results are cached by the leader
+				this.cid = null;
+				break;
+			}
+			//the leader has just finished, try again
+		}
+		this.followers = null;
+	}
+	
+	private static Determinism getCacheScope(Determinism determinismLevel) {
+		if (determinismLevel.compareTo(Determinism.SESSION_DETERMINISTIC) <= 0) {
+			return Determinism.SESSION_DETERMINISTIC;
+		}
+		if (determinismLevel == Determinism.USER_DETERMINISTIC) {
+			return Determinism.USER_DETERMINISTIC;
+		}
+		return Determinism.VDB_DETERMINISTIC;
+	}
+	
+	private boolean addFollower(RequestWorkItem follower) {
+		synchronized (followers) {
+			if (followersClosed) {
+				return false;
+			}
+			follower.coalesced = new CoalescedResults(this);
+			followers.add(follower);
+		}
+		return true;
+	}
+	
+	private void removeFollower(RequestWorkItem follower) {
+		synchronized (followers) {
+			followers.remove(follower);
+		}
+		if (this.closeRequested) {
+			this.moreWork();
+		}
+	}
+	
+	private boolean hasFollowers() {
+		if (this.followers == null || this.doneProducingBatches) {
+			return false;
+		}
+		synchronized (followers) {
+			return !followers.isEmpty();
+		}
+	}
+	
+	/**
+	 * Hand the batch to the requests coalesced onto this one.  Should only be called
+	 * from the processing thread.
+	 */
+	private void forwardToFollowers(TupleBatch batch) throws TeiidComponentException {
+		if (this.inFlightId == null) {
+			return;
+		}
+		if (getCacheScope(this.processor.getContext().getDeterminismLevel()).compareTo(inFlightScope) < 0 
+				&& (originalCommand.getCacheHint() == null || originalCommand.getCacheHint().getDeterminism() == null)) {
+			//the results are no longer shareable at the registered scope
+			detachFollowers(null);
+			return;
+		}
+		synchronized (followers) {
+			for (RequestWorkItem follower : followers) {
+				handOver(follower, batch, batch.getEndRow());
+			}
+		}
+	}
+	
+	/**
+	 * Hand rows up to the end row to the follower.  Followers that attached after
+	 * rows were produced are caught up from the results buffer.
+	 */
+	private void handOver(RequestWorkItem follower, TupleBatch batch, int endRow) throws TeiidComponentException {
+		CoalescedResults results = follower.coalesced;
+		if (results == null) {
+			return;
+		}
+		synchronized (results) {
+			if (batch != null && results.rowCount == batch.getBeginRow() - 1) {
+				results.batches.add(batch);
+				results.rowCount = batch.getEndRow();
+			}
+			while (results.rowCount < endRow) {
+				TupleBatch next = resultsBuffer.getBatch(results.rowCount + 1);
+				if (next.getRowCount() == 0) {
+					break;
+				}
+				if (next.getBeginRow() <= results.rowCount) {
+					next = new TupleBatch(results.rowCount + 1, next.getTuples().subList(results.rowCount + 1 - next.getBeginRow(), next.getRowCount()));
+				}
+				results.batches.add(next);
+				results.rowCount = next.getEndRow();
+			}
+		}
+		follower.moreWork();
+	}
+	
+	/**
+	 * Hand any remaining rows to the coalesced requests and mark them as complete.
+	 */
+	private void completeFollowers() throws TeiidComponentException {
+		if (this.inFlightId == null) {
+			return;
+		}
+		synchronized (followers) {
+			for (RequestWorkItem follower : followers) {
+				handOver(follower, null, resultsBuffer.getRowCount());
+			}
+		}
+		endFollowers(null, true);
+	}
+	
+	private void detachFollowers(Throwable failure) {
+		endFollowers(failure, false);
+	}
+
+	private void endFollowers(Throwable failure, boolean done) {
+		if (this.inFlightId == null) {
+			return;
+		}
+		synchronized (followers) {
+			dqpCore.removeInFlightResults(inFlightId, this);
+			this.inFlightId = null;
+			this.followersClosed = true;
+			for (RequestWorkItem follower : followers) {
+				CoalescedResults results = follower.coalesced;
+				if (results == null) {
+					continue;
+				}
+				synchronized (results) {
+					results.done = done;
+					results.detached = !done;
+					results.failure = failure;
+				}
+				follower.moreWork();
+			}
+		}
+	}
+	
+	/**
+	 * Read the batches handed over by the request this request is coalesced onto.
+	 * @return true if the results are still being provided by the leader
+	 */
+	private boolean processCoalesced() throws TeiidException {
+		CoalescedResults results = this.coalesced;
+		List<TupleBatch> batches = null;
+		boolean done = false;
+		boolean detached = false;
+		Throwable failure = null;
+		synchronized (results) {
+			batches = new ArrayList<TupleBatch>(results.batches);
+			results.batches.clear();
+			done = results.done;
+			detached = results.detached;
+			failure = results.failure;
+		}
+		for (TupleBatch batch : batches) {
+			resultsBuffer.addTupleBatch(batch, true);
+		}
+		if (detached) {
+			this.coalesced = null;
+			results.leader.removeFollower(this);
+			if (resultsBuffer.getRowCount() == 0) {
+				LogManager.logDetail(LogConstants.CTX_DQP, requestID, "No longer coalesced onto", results.leader.requestID, "processing independently"); //$NON-NLS-1$ //$NON-NLS-2$
+				return false;
+			}
+			 throw new TeiidProcessingException(QueryPlugin.Event.TEIID31157, failure, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31157, requestID, results.leader.requestID));
+		}
+		if (done) {
+			this.coalesced = null;
+			resultsBuffer.close();
+			doneProducingBatches();
+		}
+		sendResultsIfNeeded(null);
+		if (!done) {
+			throw BlockedException.block(requestID, "Waiting on coalesced results from", results.leader.requestID); //$NON-NLS-1$
+		}
+		return true;
+	}
+	
 	public SessionAwareCache<CachedResults> getRsCache() {
 		return dqpCore.getRsCache();
 	}
@@ -958,6 +1245,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         }
         ResultsMessage result = new ResultsMessage(batch, columnNames, dataTypes);
         result.setClientSerializationVersion(this.dqpWorkContext.getClientVersion().getClientSerializationVersion());
+        result.setCompressResults(this.dqpWorkContext.isCompressResults());
         result.setDelayDeserialization(this.requestMsg.isDelaySerialization() && this.originalCommand.returnsResultSet());
         setAnalysisRecords(result);
         return result;
@@ -1109,7 +1397,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         		return;
         	}
 		}
-    	if (!this.doneProducingBatches) {
+    	if (!this.doneProducingBatches && !hasFollowers()) {
     		this.requestCancel(); //pending work should be canceled for fastest clean up
     	}
     	this.closeRequested = true;
@@ -1185,7 +1473,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		}
 	}
 
-	private void done() {
+	private void done() throws TeiidComponentException {
 		doneProducingBatches();
 		//TODO: we could perform more tracking to know what source lobs are in use
 		if (this.resultsBuffer.getLobCount() == 0) {
@@ -1194,6 +1482,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
 		    }
 		}
 		addToCache();
+		completeFollowers();
 	}
 
 	private void doneProducingBatches() {
@@ -256,6 +256,31 @@ public class SessionAwareCache<T> {
 			this.originalSessionId = sessionId;
 			this.originalUserName = userName;
 		}
+		
+		private CacheID(CacheID other) {
+			this.sql = other.sql;
+			this.vdbInfo = other.vdbInfo;
+			this.ansiIdentifiers = other.ansiIdentifiers;
+			this.originalSessionId = other.originalSessionId;
+			this.originalUserName = other.originalUserName;
+			this.parameters = other.parameters;
+		}
+		
+		/**
+		 * Create a copy of this id with the session and user set as they would be 
+		 * for a cache entry with the given determinism level.
+		 * @param determinismLevel
+		 * @return
+		 */
+		CacheID getScopedCopy(Determinism determinismLevel) {
+			CacheID result = new CacheID(this);
+			if (determinismLevel.compareTo(Determinism.SESSION_DETERMINISTIC) <= 0) {
+				result.sessionId = originalSessionId;
+			} else if (determinismLevel == Determinism.USER_DETERMINISTIC) {
+				result.userName = originalUserName;
+			}
+			return result;
+		}
 
 		
 		public String getSessionId() {
@@ -32,6 +32,7 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -130,6 +131,17 @@ public class ThreadReuseExecutor implements TeiidExecutor {
 		
 	}
 	
+	static final Comparator<PrioritizedRunnable> PRIORITY_COMPARATOR = new Comparator<PrioritizedRunnable>() {
+		@Override
+		public int compare(PrioritizedRunnable pr1, PrioritizedRunnable pr2) {
+			int result = pr1.getPriority() - pr2.getPriority();
+			if (result == 0) {
+				return Long.signum(pr1.getCreationTime() - pr2.getCreationTime());
+			}
+			return result;
+		}
+	};
+	
 	private final ThreadPoolExecutor tpe; 
 	
 	private volatile int activeCount;
@@ -144,25 +156,23 @@ public class ThreadReuseExecutor implements TeiidExecutor {
 	
 	private String poolName;
 	private int maximumPoolSize;
-	private Queue<PrioritizedRunnable> queue = new PriorityQueue<PrioritizedRunnable>(11, new Comparator<PrioritizedRunnable>() {
-		@Override
-		public int compare(PrioritizedRunnable pr1, PrioritizedRunnable pr2) {
-			int result = pr1.getPriority() - pr2.getPriority();
-			if (result == 0) {
-				return Long.signum(pr1.getCreationTime() - pr2.getCreationTime());
-			}
-			return result;
-		}
-	});
+	private Queue<PrioritizedRunnable> queue = new PriorityQueue<PrioritizedRunnable>(11, PRIORITY_COMPARATOR);
 	private long warnWaitTime = 500;
 	
 	public ThreadReuseExecutor(String name, int maximumPoolSize) {
+		this(name, maximumPoolSize, new NamedThreadFactory("Worker")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * @param threadFactory the factory for the underlying threads, which may create virtual threads
+	 */
+	public ThreadReuseExecutor(String name, int maximumPoolSize, ThreadFactory threadFactory) {
 		this.maximumPoolSize = maximumPoolSize;
 		this.poolName = name;
 		
 		tpe = new ThreadPoolExecutor(0,
 				maximumPoolSize, 2, TimeUnit.MINUTES,
-				new SynchronousQueue<Runnable>(), new NamedThreadFactory("Worker")) { //$NON-NLS-1$ 
+				new SynchronousQueue<Runnable>(), threadFactory) {
 			@Override
 			protected void afterExecute(Runnable r, Throwable t) {
 				if (t != null) {
@@ -128,16 +128,18 @@ public class TupleSourceCache {
 		
 		@Override
 		public void closeSource() {
-			if (--state.expectedReaders == 0 && sharedStates != null && sharedStates.containsKey(state.id)) {
-				state.remove();
-				sharedStates.remove(state.id);
+			synchronized (TupleSourceCache.this) {
+				if (--state.expectedReaders == 0 && sharedStates != null && sharedStates.containsKey(state.id)) {
+					state.remove();
+					sharedStates.remove(state.id);
+				}
 			}
 		}		
 	}
 	
     private Map<Integer, SharedState> sharedStates;
     
-    public void close() {
+    public synchronized void close() {
     	if (sharedStates != null) {
     		for (SharedState ss : sharedStates.values()) {
 				ss.remove();
@@ -146,7 +148,7 @@ public class TupleSourceCache {
     	}
     }
     
-    public TupleSource getSharedTupleSource(CommandContext context, Command command, String modelName, RegisterRequestParameter parameterObject, BufferManager bufferMgr, ProcessorDataManager pdm) throws TeiidComponentException, TeiidProcessingException {
+    public synchronized TupleSource getSharedTupleSource(CommandContext context, Command command, String modelName, RegisterRequestParameter parameterObject, BufferManager bufferMgr, ProcessorDataManager pdm) throws TeiidComponentException, TeiidProcessingException {
 		if (sharedStates == null) {
 			sharedStates = new HashMap<Integer, SharedState>();
 		}
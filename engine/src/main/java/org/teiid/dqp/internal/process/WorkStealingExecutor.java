@@ -0,0 +1,318 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.teiid.adminapi.impl.WorkerPoolStatisticsMetadata;
+import org.teiid.core.util.NamedThreadFactory;
+import org.teiid.dqp.internal.process.ThreadReuseExecutor.PrioritizedRunnable;
+import org.teiid.dqp.internal.process.ThreadReuseExecutor.RunnableWrapper;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.QueryPlugin;
+
+/**
+ * An alternative to the {@link ThreadReuseExecutor} that avoids a single pool lock.
+ * <br/>
+ * Thread accounting is done with atomic counters and queued work is held in
+ * striped priority queues.  Submitting threads add to their own stripe and an idle worker 
+ * will take the highest priority head from any stripe, so that work is stolen from 
+ * busy stripes while the {@link PrioritizedRunnable} ordering is still respected.
+ * <br/>
+ * The maximum thread and statistics semantics are the same as the {@link ThreadReuseExecutor}.
+ */
+public class WorkStealingExecutor implements TeiidExecutor {
+	
+	private final ThreadPoolExecutor tpe;
+	
+	private final PriorityBlockingQueue<PrioritizedRunnable>[] queues;
+	private final AtomicInteger activeCount = new AtomicInteger();
+	private final AtomicInteger highestActiveCount = new AtomicInteger();
+	private final AtomicInteger queueSize = new AtomicInteger();
+	private final AtomicInteger highestQueueSize = new AtomicInteger();
+	private final AtomicInteger submittedCount = new AtomicInteger();
+	private final AtomicInteger completedCount = new AtomicInteger();
+	private final AtomicInteger threadCounter = new AtomicInteger();
+	private volatile boolean terminated;
+	private Object terminationLock = new Object();
+	private Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+	
+	private String poolName;
+	private int maximumPoolSize;
+	private long warnWaitTime = 500;
+	
+	public WorkStealingExecutor(String name, int maximumPoolSize) {
+		this(name, maximumPoolSize, new NamedThreadFactory("Worker")); //$NON-NLS-1$
+	}
+	
+	/**
+	 * @param threadFactory the factory for the underlying threads, which may create virtual threads
+	 */
+	@SuppressWarnings("unchecked")
+	public WorkStealingExecutor(String name, int maximumPoolSize, ThreadFactory threadFactory) {
+		this.maximumPoolSize = maximumPoolSize;
+		this.poolName = name;
+		int stripes = Math.max(1, Math.min(maximumPoolSize, Runtime.getRuntime().availableProcessors()));
+		this.queues = new PriorityBlockingQueue[stripes];
+		for (int i = 0; i < stripes; i++) {
+			this.queues[i] = new PriorityBlockingQueue<PrioritizedRunnable>(11, ThreadReuseExecutor.PRIORITY_COMPARATOR);
+		}
+		
+		tpe = new ThreadPoolExecutor(0,
+				maximumPoolSize, 2, TimeUnit.MINUTES,
+				new SynchronousQueue<Runnable>(), threadFactory) {
+			@Override
+			protected void afterExecute(Runnable r, Throwable t) {
+				if (t != null) {
+					LogManager.logError(LogConstants.CTX_RUNTIME, t, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30021));
+				}
+			}
+			
+		};
+	}
+	
+	public void execute(final Runnable command) {
+		checkForTermination();
+		submittedCount.incrementAndGet();
+		RunnableWrapper wrapper = new RunnableWrapper(command);
+		if (acquireThread()) {
+			startWorker(wrapper);
+			return;
+		}
+		queues[(int)(Thread.currentThread().getId() % queues.length)].add(wrapper);
+		int size = queueSize.incrementAndGet();
+		updateHighest(highestQueueSize, size);
+		//a worker may have exited after our acquire attempt
+		if (acquireThread()) {
+			startWorker(null);
+		}
+	}
+	
+	private static void updateHighest(AtomicInteger highest, int value) {
+		int current = highest.get();
+		while (value > current && !highest.compareAndSet(current, value)) {
+			current = highest.get();
+		}
+	}
+	
+	private boolean acquireThread() {
+		while (true) {
+			int current = activeCount.get();
+			if (current >= maximumPoolSize) {
+				return false;
+			}
+			if (activeCount.compareAndSet(current, current + 1)) {
+				updateHighest(highestActiveCount, current + 1);
+				return true;
+			}
+		}
+	}
+	
+	private void releaseThread() {
+		if (activeCount.decrementAndGet() == 0 && terminated) {
+			synchronized (terminationLock) {
+				terminationLock.notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Take the highest priority head from all of the stripes.
+	 */
+	private PrioritizedRunnable poll() {
+		while (queueSize.get() > 0) {
+			PriorityBlockingQueue<PrioritizedRunnable> best = null;
+			PrioritizedRunnable bestHead = null;
+			for (PriorityBlockingQueue<PrioritizedRunnable> queue : queues) {
+				PrioritizedRunnable head = queue.peek();
+				if (head != null && (bestHead == null || ThreadReuseExecutor.PRIORITY_COMPARATOR.compare(head, bestHead) < 0)) {
+					best = queue;
+					bestHead = head;
+				}
+			}
+			if (best == null) {
+				//the count is incremented after the add
+				Thread.yield();
+				continue;
+			}
+			PrioritizedRunnable r = best.poll();
+			if (r != null) {
+				queueSize.decrementAndGet();
+				return r;
+			}
+		}
+		return null;
+	}
+
+	private void startWorker(final PrioritizedRunnable command) {
+		tpe.execute(new Runnable() {
+			@Override
+			public void run() {
+				Thread t = Thread.currentThread();
+				threads.add(t);
+				String name = t.getName();
+				t.setName(name + "_" + poolName + threadCounter.getAndIncrement()); //$NON-NLS-1$
+				if (LogManager.isMessageToBeRecorded(LogConstants.CTX_RUNTIME, MessageLevel.TRACE)) {
+					LogManager.logTrace(LogConstants.CTX_RUNTIME, "Beginning work with virtual worker", t.getName()); //$NON-NLS-1$ 
+				}
+				PrioritizedRunnable r = command;
+				try {
+					while (true) {
+						if (r == null) {
+							r = poll();
+							if (r == null) {
+								threads.remove(t);
+								releaseThread();
+								//recheck for work added after the poll, but before the release
+								if (queueSize.get() == 0 || !acquireThread()) {
+									return;
+								}
+								threads.add(t);
+								continue;
+							}
+							long warnTime = warnWaitTime;
+							if (System.currentTimeMillis() - r.getCreationTime() > warnTime) {
+								LogManager.logWarning(LogConstants.CTX_RUNTIME, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30009, maximumPoolSize, poolName, highestQueueSize.get(), warnTime));
+								warnWaitTime*=2; //we don't really care if this is synchronized
+							}
+						}
+						boolean success = false;
+						try {
+							r.run();
+							success = true;
+						} finally {
+							r = null;
+							if (success) {
+								completedCount.incrementAndGet();
+							} else {
+								threads.remove(t);
+								releaseThread();
+								//let the exception handling happen immediately, but don't strand the queued work
+								if (queueSize.get() > 0 && !terminated && acquireThread()) {
+									startWorker(null);
+								}
+							}
+						}
+					}
+				} finally {
+					t.setName(name);
+				}
+			};
+		});
+	}
+
+	private void checkForTermination() {
+		if (terminated) {
+			throw new RejectedExecutionException();
+		}
+	}
+	
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+	
+	public int getSubmittedCount() {
+		return submittedCount.get();
+	}
+	
+	public int getCompletedCount() {
+		return completedCount.get();
+	}
+	
+	public int getPoolSize() {
+		return activeCount.get();
+	}
+	
+	public boolean isTerminated() {
+		return terminated;
+	}
+	
+	public void shutdown() {
+		this.terminated = true;
+	}
+	
+	public int getLargestPoolSize() {
+		return this.highestActiveCount.get();
+	}
+	
+	public WorkerPoolStatisticsMetadata getStats() {
+		WorkerPoolStatisticsMetadata stats = new WorkerPoolStatisticsMetadata();
+		stats.setName(poolName);
+		stats.setQueued(queueSize.get());
+		stats.setHighestQueued(highestQueueSize.get());
+		stats.setActiveThreads(getActiveCount());
+		stats.setMaxThreads(this.maximumPoolSize);
+		stats.setTotalSubmitted(getSubmittedCount());
+		stats.setHighestActiveThreads(getLargestPoolSize());
+		stats.setTotalCompleted(getCompletedCount());
+		return stats;
+	}
+	
+	public boolean hasWork() {
+		return this.getSubmittedCount() - this.getCompletedCount() > 0 && !this.isTerminated();
+	}
+
+	public List<Runnable> shutdownNow() {
+		this.shutdown();
+		for (Thread t : threads) {
+			t.interrupt();
+		}
+		List<Runnable> result = new ArrayList<Runnable>();
+		for (PriorityBlockingQueue<PrioritizedRunnable> queue : queues) {
+			int count = queue.drainTo(result);
+			queueSize.addAndGet(-count);
+		}
+		result.addAll(this.tpe.shutdownNow());
+		return result;
+	}
+	
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long timeoutMillis = unit.toMillis(timeout);
+		long finalMillis = System.currentTimeMillis() + timeoutMillis;
+		synchronized (terminationLock) {
+			while (this.activeCount.get() > 0 || !terminated) {
+				if (timeoutMillis < 1) {
+					return false;
+				}
+				terminationLock.wait(timeoutMillis);
+				timeoutMillis = finalMillis - System.currentTimeMillis();
+			}
+		}
+		return true;
+	}
+
+}
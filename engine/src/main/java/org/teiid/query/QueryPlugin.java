@@ -565,5 +565,9 @@ public class QueryPlugin { // extends Plugin {
     	TEIID31151, 
     	TEIID31152, 
     	TEIID31153, 
+    	TEIID31154,
+    	TEIID31155,
+    	TEIID31156,
+    	TEIID31157,
 	}
 }
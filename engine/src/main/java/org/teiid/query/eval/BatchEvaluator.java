@@ -0,0 +1,520 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.TeiidException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.util.CommandContext;
+import org.teiid.translator.SourceSystemFunctions;
+
+/**
+ * Evaluates criteria and expressions over a whole {@link TupleBatch} rather than a row at a time.
+ *
+ * Only element references, constants, comparisons, AND/OR/NOT, IS NULL, integer/long/double
+ * arithmetic, and deterministic functions are supported - see {@link #isSupported(LanguageObject, Map)}.
+ * Integer, long, and double values are operated on as primitives and are read directly from a
+ * {@link ColumnarBatch} when one is available.
+ *
+ * Every row is evaluated, so an error such as a divide by zero may occur where the row evaluation
+ * would have short circuited.  Any error results in a null return and the caller should then use
+ * the row {@link Evaluator}, which will produce the same results and errors as before.
+ */
+public class BatchEvaluator {
+
+	private static final byte FALSE = 0;
+	private static final byte TRUE = 1;
+	private static final byte UNKNOWN = 2;
+
+	private static final class Vector {
+		Class<?> type;
+		int[] ints;
+		long[] longs;
+		double[] doubles;
+		Object[] objects;
+		BitSet nulls;
+		ColumnarBatch.Column column;
+		boolean isConstant;
+		Object constant;
+
+		Vector(Class<?> type) {
+			this.type = type;
+		}
+
+		boolean isNull(int row) {
+			if (isConstant) {
+				return constant == null;
+			}
+			if (objects != null) {
+				return objects[row] == null;
+			}
+			if (column != null) {
+				return column.isNull(row);
+			}
+			return nulls != null && nulls.get(row);
+		}
+
+		void setNull(int row) {
+			if (nulls == null) {
+				nulls = new BitSet();
+			}
+			nulls.set(row);
+		}
+
+		Object get(int row) {
+			if (isConstant) {
+				return constant;
+			}
+			if (objects != null) {
+				return objects[row];
+			}
+			if (isNull(row)) {
+				return null;
+			}
+			if (ints != null) {
+				return ints[row];
+			}
+			if (longs != null) {
+				return longs[row];
+			}
+			return doubles[row];
+		}
+
+		int getInt(int row) {
+			if (ints != null) {
+				return ints[row];
+			}
+			return ((Number)get(row)).intValue();
+		}
+
+		long getLong(int row) {
+			if (longs != null) {
+				return longs[row];
+			}
+			if (ints != null) {
+				return ints[row];
+			}
+			return ((Number)get(row)).longValue();
+		}
+
+		double getDouble(int row) {
+			if (doubles != null) {
+				return doubles[row];
+			}
+			return ((Number)get(row)).doubleValue();
+		}
+	}
+
+	private Map<Expression, Integer> elements;
+	private CommandContext context;
+
+	//the current batch
+	private List<List<?>> rows;
+	private ColumnarBatch columnarBatch;
+	private int rowCount;
+
+	public BatchEvaluator(Map<Expression, Integer> elements, CommandContext context) {
+		this.elements = elements;
+		this.context = context;
+	}
+
+	/**
+	 * Determine if the criteria or expression can be evaluated by batch.
+	 */
+	public static boolean isSupported(LanguageObject obj, Map<Expression, Integer> elements) {
+		if (obj instanceof CompoundCriteria) {
+			for (Criteria crit : ((CompoundCriteria)obj).getCriteria()) {
+				if (!isSupported(crit, elements)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (obj instanceof NotCriteria) {
+			return isSupported(((NotCriteria)obj).getCriteria(), elements);
+		}
+		if (obj instanceof CompareCriteria) {
+			CompareCriteria crit = (CompareCriteria)obj;
+			return crit.getLeftExpression().getType() == crit.getRightExpression().getType()
+					&& isSupported(crit.getLeftExpression(), elements)
+					&& isSupported(crit.getRightExpression(), elements);
+		}
+		if (obj instanceof IsNullCriteria) {
+			return isSupported(((IsNullCriteria)obj).getExpression(), elements);
+		}
+		if (obj instanceof DerivedExpression) {
+			if (elements.containsKey(obj)) {
+				return true;
+			}
+			return obj instanceof ExpressionSymbol && isSupported(((ExpressionSymbol)obj).getExpression(), elements);
+		}
+		if (obj instanceof Constant) {
+			return !((Constant)obj).isMultiValued();
+		}
+		if (obj instanceof Function) {
+			Function function = (Function)obj;
+			FunctionDescriptor fd = function.getFunctionDescriptor();
+			if (fd == null || fd.getPushdown() == PushDown.MUST_PUSHDOWN
+					|| fd.getDeterministic() != Determinism.DETERMINISTIC
+					|| function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+				return false;
+			}
+			for (Expression arg : function.getArgs()) {
+				if (!isSupported(arg, elements)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Evaluate the criteria against each row of the batch.
+	 * @return an array indexed by the batch row offset that is true where the criteria is true,
+	 * or null if the row evaluation should be used instead
+	 */
+	public boolean[] evaluate(Criteria criteria, TupleBatch batch) {
+		setBatch(batch);
+		try {
+			byte[] values = evaluateCriteria(criteria);
+			boolean[] result = new boolean[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				result[i] = values[i] == TRUE;
+			}
+			return result;
+		} catch (Exception e) {
+			return null;
+		} finally {
+			clearBatch();
+		}
+	}
+
+	/**
+	 * Evaluate the expression against each row of the batch.
+	 * @return an array indexed by the batch row offset of the values,
+	 * or null if the row evaluation should be used instead
+	 */
+	public Object[] evaluate(Expression expression, TupleBatch batch) {
+		setBatch(batch);
+		try {
+			Vector vector = evaluateExpression(expression);
+			if (vector.objects != null) {
+				return vector.objects;
+			}
+			Object[] result = new Object[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				result[i] = vector.get(i);
+			}
+			return result;
+		} catch (Exception e) {
+			return null;
+		} finally {
+			clearBatch();
+		}
+	}
+
+	private void setBatch(TupleBatch batch) {
+		this.rows = batch.getTuples();
+		this.columnarBatch = batch.getColumnarBatch();
+		this.rowCount = batch.getRowCount();
+	}
+
+	private void clearBatch() {
+		this.rows = null;
+		this.columnarBatch = null;
+	}
+
+	private byte[] evaluateCriteria(Criteria criteria) throws TeiidException {
+		if (criteria instanceof CompoundCriteria) {
+			CompoundCriteria cc = (CompoundCriteria)criteria;
+			boolean and = cc.getOperator() == CompoundCriteria.AND;
+			byte[] result = null;
+			for (Criteria crit : cc.getCriteria()) {
+				byte[] values = evaluateCriteria(crit);
+				if (result == null) {
+					result = values;
+					continue;
+				}
+				for (int i = 0; i < rowCount; i++) {
+					byte value = values[i];
+					if (result[i] == value) {
+						continue;
+					}
+					if (value == (and?FALSE:TRUE) || result[i] == (and?FALSE:TRUE)) {
+						result[i] = and?FALSE:TRUE;
+					} else {
+						result[i] = UNKNOWN;
+					}
+				}
+			}
+			return result;
+		}
+		if (criteria instanceof NotCriteria) {
+			byte[] result = evaluateCriteria(((NotCriteria)criteria).getCriteria());
+			for (int i = 0; i < rowCount; i++) {
+				if (result[i] != UNKNOWN) {
+					result[i] = result[i] == TRUE?FALSE:TRUE;
+				}
+			}
+			return result;
+		}
+		if (criteria instanceof IsNullCriteria) {
+			IsNullCriteria inc = (IsNullCriteria)criteria;
+			Vector vector = evaluateExpression(inc.getExpression());
+			byte[] result = new byte[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				result[i] = vector.isNull(i) ^ inc.isNegated()?TRUE:FALSE;
+			}
+			return result;
+		}
+		return evaluate((CompareCriteria)criteria);
+	}
+
+	private byte[] evaluate(CompareCriteria criteria) throws TeiidException {
+		Vector left = evaluateExpression(criteria.getLeftExpression());
+		Vector right = evaluateExpression(criteria.getRightExpression());
+		byte[] result = new byte[rowCount];
+		int operator = criteria.getOperator();
+		Class<?> type = left.type;
+		for (int i = 0; i < rowCount; i++) {
+			if (left.isNull(i) || right.isNull(i)) {
+				result[i] = UNKNOWN;
+				continue;
+			}
+			int compare = 0;
+			if (type == DataTypeManager.DefaultDataClasses.INTEGER || type == DataTypeManager.DefaultDataClasses.LONG) {
+				long l = left.getLong(i);
+				long r = right.getLong(i);
+				compare = l < r ? -1 : (l == r ? 0 : 1);
+			} else if (type == DataTypeManager.DefaultDataClasses.DOUBLE) {
+				compare = Double.compare(left.getDouble(i), right.getDouble(i));
+			} else {
+				Boolean value = Evaluator.compare(criteria, left.get(i), right.get(i));
+				result[i] = value == null?UNKNOWN:(value?TRUE:FALSE);
+				continue;
+			}
+			boolean value = false;
+			switch (operator) {
+			case CompareCriteria.EQ:
+				value = compare == 0;
+				break;
+			case CompareCriteria.NE:
+				value = compare != 0;
+				break;
+			case CompareCriteria.LT:
+				value = compare < 0;
+				break;
+			case CompareCriteria.LE:
+				value = compare <= 0;
+				break;
+			case CompareCriteria.GT:
+				value = compare > 0;
+				break;
+			case CompareCriteria.GE:
+				value = compare >= 0;
+				break;
+			default:
+				throw new AssertionError();
+			}
+			result[i] = value?TRUE:FALSE;
+		}
+		return result;
+	}
+
+	private Vector evaluateExpression(Expression expression) throws TeiidException {
+		if (expression instanceof DerivedExpression) {
+			Integer index = elements.get(expression);
+			if (index != null) {
+				return getColumn(index, expression.getType());
+			}
+			return evaluateExpression(((ExpressionSymbol)expression).getExpression());
+		}
+		if (expression instanceof Constant) {
+			Vector result = new Vector(expression.getType());
+			result.isConstant = true;
+			result.constant = ((Constant)expression).getValue();
+			return result;
+		}
+		return evaluate((Function)expression);
+	}
+
+	private Vector getColumn(int index, Class<?> type) {
+		Vector result = new Vector(type);
+		if (columnarBatch != null) {
+			ColumnarBatch.Column column = columnarBatch.getColumn(index);
+			if (column instanceof ColumnarBatch.IntColumn) {
+				result.ints = ((ColumnarBatch.IntColumn)column).getValues();
+				result.column = column;
+				return result;
+			}
+			if (column instanceof ColumnarBatch.LongColumn) {
+				result.longs = ((ColumnarBatch.LongColumn)column).getValues();
+				result.column = column;
+				return result;
+			}
+			if (column instanceof ColumnarBatch.DoubleColumn) {
+				result.doubles = ((ColumnarBatch.DoubleColumn)column).getValues();
+				result.column = column;
+				return result;
+			}
+		}
+		Object[] values = new Object[rowCount];
+		for (int i = 0; i < rowCount; i++) {
+			values[i] = rows.get(i).get(index);
+		}
+		result.objects = values;
+		return result;
+	}
+
+	private Vector evaluate(Function function) throws TeiidException {
+		FunctionDescriptor fd = function.getFunctionDescriptor();
+		Expression[] args = function.getArgs();
+		Vector[] argValues = new Vector[args.length];
+		for (int i = 0; i < args.length; i++) {
+			argValues[i] = evaluateExpression(args[i]);
+		}
+		Class<?> type = function.getType();
+		if (args.length == 2 && args[0].getType() == type && args[1].getType() == type
+				&& (type == DataTypeManager.DefaultDataClasses.INTEGER
+				|| type == DataTypeManager.DefaultDataClasses.LONG
+				|| type == DataTypeManager.DefaultDataClasses.DOUBLE)) {
+			char op = getArithmeticOperator(fd);
+			if (op != 0) {
+				return evaluateArithmetic(op, type, argValues[0], argValues[1]);
+			}
+		}
+		Vector result = new Vector(type);
+		result.objects = new Object[rowCount];
+		int start = fd.requiresContext()?1:0;
+		for (int row = 0; row < rowCount; row++) {
+			Object[] values = new Object[args.length + start];
+			if (start == 1) {
+				values[0] = context;
+			}
+			for (int i = 0; i < args.length; i++) {
+				values[i + start] = argValues[i].get(row);
+			}
+			result.objects[row] = fd.invokeFunction(values, context, null);
+		}
+		return result;
+	}
+
+	private static char getArithmeticOperator(FunctionDescriptor fd) {
+		if (fd.isSystemFunction(SourceSystemFunctions.ADD_OP)) {
+			return '+';
+		}
+		if (fd.isSystemFunction(SourceSystemFunctions.SUBTRACT_OP)) {
+			return '-';
+		}
+		if (fd.isSystemFunction(SourceSystemFunctions.MULTIPLY_OP)) {
+			return '*';
+		}
+		if (fd.isSystemFunction(SourceSystemFunctions.DIVIDE_OP)) {
+			return '/';
+		}
+		return 0;
+	}
+
+	/**
+	 * Primitive arithmetic with the same semantics as the FunctionMethods
+	 * operators.  An integral divide by zero will throw an exception.
+	 */
+	private Vector evaluateArithmetic(char op, Class<?> type, Vector left, Vector right) {
+		Vector result = new Vector(type);
+		if (type == DataTypeManager.DefaultDataClasses.INTEGER) {
+			int[] values = new int[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				if (left.isNull(i) || right.isNull(i)) {
+					result.setNull(i);
+					continue;
+				}
+				int x = left.getInt(i);
+				int y = right.getInt(i);
+				switch (op) {
+				case '+': values[i] = x + y; break;
+				case '-': values[i] = x - y; break;
+				case '*': values[i] = x * y; break;
+				default: values[i] = x / y; break;
+				}
+			}
+			result.ints = values;
+		} else if (type == DataTypeManager.DefaultDataClasses.LONG) {
+			long[] values = new long[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				if (left.isNull(i) || right.isNull(i)) {
+					result.setNull(i);
+					continue;
+				}
+				long x = left.getLong(i);
+				long y = right.getLong(i);
+				switch (op) {
+				case '+': values[i] = x + y; break;
+				case '-': values[i] = x - y; break;
+				case '*': values[i] = x * y; break;
+				default: values[i] = x / y; break;
+				}
+			}
+			result.longs = values;
+		} else {
+			double[] values = new double[rowCount];
+			for (int i = 0; i < rowCount; i++) {
+				if (left.isNull(i) || right.isNull(i)) {
+					result.setNull(i);
+					continue;
+				}
+				double x = left.getDouble(i);
+				double y = right.getDouble(i);
+				switch (op) {
+				case '+': values[i] = x + y; break;
+				case '-': values[i] = x - y; break;
+				case '*': values[i] = x * y; break;
+				default: values[i] = x / y; break;
+				}
+			}
+			result.doubles = values;
+		}
+		return result;
+	}
+
+}
@@ -41,6 +41,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.id.IDGenerator;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
@@ -56,6 +57,7 @@ import org.teiid.query.optimizer.relational.plantree.NodeConstants.Info;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
 import org.teiid.query.optimizer.relational.rules.CapabilitiesUtil;
 import org.teiid.query.optimizer.relational.rules.FrameUtil;
+import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.optimizer.relational.rules.RuleAssignOutputElements;
 import org.teiid.query.optimizer.relational.rules.RuleChooseJoinStrategy;
 import org.teiid.query.processor.ProcessorPlan;
@@ -70,6 +72,7 @@ import org.teiid.query.sql.lang.ObjectTable.ObjectColumn;
 import org.teiid.query.sql.lang.SetQuery.Operation;
 import org.teiid.query.sql.lang.SourceHint.SpecificHint;
 import org.teiid.query.sql.lang.XMLTable.XMLColumn;
+import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -267,6 +270,12 @@ public class PlanToProcessConverter {
                     List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
                     jnode.setJoinExpressions(leftExpressions, rightExpressions);
                     joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
+                } else if (stype == JoinStrategyType.HASH) {
+                	jnode.setJoinStrategy(new HashJoinStrategy(node.hasBooleanProperty(Info.IS_HASH_BUILD_LEFT)));
+                    List leftExpressions = (List) node.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS);
+                    List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
+                    jnode.setJoinExpressions(leftExpressions, rightExpressions);
+                    joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
                 } else if (stype == JoinStrategyType.NESTED_TABLE) {
                 	NestedTableJoinStrategy ntjStrategy = new NestedTableJoinStrategy();
                 	jnode.setJoinStrategy(ntjStrategy);
@@ -472,6 +481,7 @@ public class PlanToProcessConverter {
 				if (orderBy == null) {
 			        if (gCols != null) {
 		                orderBy = new OrderBy(RuleChooseJoinStrategy.createExpressionSymbols(gCols));
+		                gnode.setHashAggregation(useHashAggregation(node, groupingMap, gCols));
 			        }
 				} else {
 			        for (int i = 0; i < gCols.size(); i++) {
@@ -613,6 +623,53 @@ public class PlanToProcessConverter {
 		return processNode;
 	}
 	
+	/**
+	 * Hash aggregation is used if the output does not need to be ordered, 
+	 * the grouping columns have consistent equality, the aggregates have
+	 * a fixed state size, and the cost estimates show few groups that will
+	 * fit in memory.  
+	 */
+	private boolean useHashAggregation(PlanNode node, SymbolMap groupingMap,
+			List<Expression> gCols) throws QueryMetadataException,
+			TeiidComponentException {
+		if (node.hasBooleanProperty(Info.ROLLUP) || node.hasBooleanProperty(Info.IS_DUP_REMOVAL)) {
+			return false;
+		}
+		for (Expression ex : gCols) {
+			if (!DataTypeManager.isHashable(ex.getType())) {
+				return false;
+			}
+		}
+		for (Expression ex : groupingMap.asMap().values()) {
+			if (!(ex instanceof AggregateSymbol)) {
+				continue;
+			}
+			AggregateSymbol agg = (AggregateSymbol)ex;
+			if (agg.isDistinct() || agg.getOrderBy() != null) {
+				return false;
+			}
+			switch (agg.getAggregateFunction()) {
+			case COUNT:
+			case SUM:
+			case AVG:
+			case MIN:
+			case MAX:
+			case ANY:
+			case SOME:
+			case EVERY:
+			case STDDEV_POP:
+			case STDDEV_SAMP:
+			case VAR_POP:
+			case VAR_SAMP:
+				break;
+			default:
+				return false;
+			}
+		}
+		return NewCalculateCostUtil.isHashAggregationCandidate(node, metadata, context != null ? context.getBufferManager() : null, 
+				new ArrayList<Expression>(groupingMap.asMap().values()));
+	}
+
 	private void checkForSharedSourceCommand(AccessNode aNode) {
 		//create a top level key to avoid the full command toString
 		String modelName = aNode.getModelName();
@@ -71,6 +71,9 @@ public class NewCalculateCostUtil {
     private final static float readTime = .001f; //TODO: should come from the connector
     private final static float procNewRequestTime = 1; //TODO: should come from the connector
     
+    // the minimum ratio of input rows to groups for hash aggregation to be chosen
+    private final static int HASH_AGGREGATION_REDUCTION = 8;
+    
     enum Stat {
     	NDV,
     	NNV
@@ -610,6 +613,58 @@ public class NewCalculateCostUtil {
         setCardinalityEstimate(node, cardinality, true, metadata);
     }
 
+    /**
+     * Determine if the grouping is expected to produce few enough groups relative to its input 
+     * that aggregating through a hash table will be cheaper than sorting the input.
+     * Only a known ndv is considered - the cardinality based guesses are not used.
+     * If a buffer manager is given, the estimated size of the groups must also fit within
+     * the max processing size.
+     * @param node the group node
+     * @param metadata
+     * @param bufferManager may be null
+     * @param groupSchema the group columns and aggregates held for each group
+     * @return true if hash aggregation should be used
+     * @throws QueryMetadataException
+     * @throws TeiidComponentException
+     */
+    public static boolean isHashAggregationCandidate(PlanNode node, QueryMetadataInterface metadata, 
+    		BufferManager bufferManager, List<? extends Expression> groupSchema) 
+    	throws QueryMetadataException, TeiidComponentException {
+    	List<? extends Expression> groupCols = (List<? extends Expression>)node.getProperty(Info.GROUP_COLS);
+    	if (groupCols == null || groupCols.isEmpty()) {
+    		return false;
+    	}
+    	float childCardinality = node.getFirstChild().getCardinality();
+    	if (childCardinality == UNKNOWN_VALUE || childCardinality < BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE) {
+    		return false;
+    	}
+    	float ndv = getNDVEstimate(node, metadata, childCardinality, groupCols, false);
+    	if (ndv == UNKNOWN_VALUE || ndv * HASH_AGGREGATION_REDUCTION > childCardinality) {
+    		return false;
+    	}
+    	if (bufferManager == null) {
+    		return true;
+    	}
+    	int batchSize = bufferManager.getProcessorBatchSize(groupSchema);
+    	long groupBytes = (long)Math.ceil(ndv / batchSize) * bufferManager.getSchemaSize(groupSchema);
+    	return groupBytes <= bufferManager.getMaxProcessingSize();
+    }
+
+    /**
+     * Determine if reading the full dependent side is estimated to be cheaper than 
+     * issuing the given number of dependent queries.  The rows returned by the dependent
+     * queries are not counted, so the comparison favors keeping the predicates.
+     * @param cardinality the estimated cardinality of the dependent side without the dependent criteria
+     * @param queries the number of dependent queries that would be issued
+     * @return true if the dependent criteria should be dropped in favor of a full read
+     */
+    public static boolean isFullScanCheaper(float cardinality, float queries) {
+    	if (cardinality == UNKNOWN_VALUE || cardinality < 0) {
+    		return false;
+    	}
+    	return cardinality * readTime + procNewRequestTime < queries * procNewRequestTime;
+    }
+
     static float getStat(Stat stat, Collection<? extends Expression> elems, PlanNode node,
     		float cardinality, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
         float result = 1;
@@ -30,6 +30,7 @@ import java.util.Set;
 
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -179,6 +180,22 @@ public class RuleChooseJoinStrategy implements OptimizerRule {
         return result;
     }
     
+    /**
+     * Determine if the equi-join expressions may be used as hash keys
+     */
+    static boolean isHashJoinCandidate(List<Expression> leftExpressions, List<Expression> rightExpressions) {
+    	if (leftExpressions == null || rightExpressions == null || leftExpressions.size() != rightExpressions.size()) {
+    		return false;
+    	}
+    	for (int i = 0; i < leftExpressions.size(); i++) {
+    		Class<?> type = leftExpressions.get(i).getType();
+    		if (type != rightExpressions.get(i).getType() || !DataTypeManager.isHashable(type)) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
 	static void filterOptionalCriteria(List<Criteria> crits, boolean all) {
 		for (Iterator<Criteria> iter = crits.iterator(); iter.hasNext();) {
 			Criteria crit = iter.next();
@@ -181,6 +181,10 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         		}
             }
 
+            if (key == null && context != null && useHashJoin(joinNode, leftExpressions, rightExpressions, joinType, metadata, capabilitiesFinder, context.getProcessorBatchSize())) {
+            	continue;
+            }
+
 			boolean pushedLeft = insertSort(joinNode.getFirstChild(), leftExpressions, joinNode, metadata, capabilitiesFinder, pushLeft);	
 			
 			//TODO: this check could be performed, as it implies we're using enhanced and can back out of the sort
@@ -210,6 +214,63 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         return plan;
     }
 
+    /**
+     * Use a hash join rather than a merge join when neither side can have its ordering supplied by 
+     * the source and both sides are expected to be larger than a batch.  Smaller inputs are left to the 
+     * enhanced sort join.  The side with the lesser cost is used as the build side.
+     * @return true if the join was changed to a hash join
+     */
+    static boolean useHashJoin(PlanNode joinNode, List<Expression> leftExpressions, List<Expression> rightExpressions, 
+    		JoinType joinType, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, int batchSize) throws QueryMetadataException, TeiidComponentException {
+    	if ((joinType != JoinType.JOIN_INNER && joinType != JoinType.JOIN_LEFT_OUTER && joinType != JoinType.JOIN_SEMI && joinType != JoinType.JOIN_ANTI_SEMI) 
+    			|| joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null
+    			|| !RuleChooseJoinStrategy.isHashJoinCandidate(leftExpressions, rightExpressions)) {
+    		return false;
+    	}
+    	if (isOrderAvailable(joinNode.getFirstChild(), leftExpressions, metadata, capFinder) 
+    			|| isOrderAvailable(joinNode.getLastChild(), rightExpressions, metadata, capFinder)) {
+    		return false;
+    	}
+    	float leftCost = NewCalculateCostUtil.computeCostForTree(joinNode.getFirstChild(), metadata);
+    	float rightCost = NewCalculateCostUtil.computeCostForTree(joinNode.getLastChild(), metadata);
+    	if (leftCost == NewCalculateCostUtil.UNKNOWN_VALUE || rightCost == NewCalculateCostUtil.UNKNOWN_VALUE 
+    			|| leftCost < batchSize || rightCost < batchSize) {
+    		return false;
+    	}
+    	boolean buildLeft = false;
+    	if (joinType == JoinType.JOIN_INNER) {
+    		buildLeft = leftCost < rightCost;
+    	} else if (rightCost > leftCost) {
+    		//only the right side can be the build side
+    		return false;
+    	}
+    	joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+    	joinNode.setProperty(NodeConstants.Info.IS_HASH_BUILD_LEFT, buildLeft);
+    	return true;
+    }
+
+	/**
+	 * Determine if the child is either already ordered or the sort may be pushed to the source.
+	 * Also returns true if the expressions are not projected by the child, since a merge join
+	 * will be needed to correct the output.
+	 */
+	private static boolean isOrderAvailable(PlanNode childNode, List<Expression> expressions, QueryMetadataInterface metadata, CapabilitiesFinder capFinder) 
+			throws QueryMetadataException, TeiidComponentException {
+		List<Expression> outputSymbols = (List<Expression>)childNode.getProperty(NodeConstants.Info.OUTPUT_COLS);
+		if (!outputSymbols.containsAll(expressions)) {
+			return true;
+		}
+		PlanNode sourceNode = FrameUtil.findJoinSourceNode(childNode);
+		if (sourceNode.getType() == NodeConstants.Types.GROUP) {
+			return !sourceNode.hasBooleanProperty(Info.ROLLUP);
+		}
+		if (sourceNode.getType() != NodeConstants.Types.ACCESS) {
+			return false;
+		}
+		PlanNode sortNode = createSortNode(new ArrayList<Expression>(new LinkedHashSet<Expression>(expressions)), outputSymbols);
+		return RuleRaiseAccess.canRaiseOverSort(sourceNode, metadata, capFinder, sortNode, null, false);
+	}
+
     /**
      * Insert a sort node under the merge join node.  If necessary, also insert a project
      * node to handle function evaluation.  
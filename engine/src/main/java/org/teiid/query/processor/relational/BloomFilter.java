@@ -0,0 +1,109 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.processor.relational;
+
+/**
+ * A simple fixed size Bloom filter over object hash codes.  Used to discard dependent
+ * side rows that cannot match the independent values without holding the full value set.
+ * <br>
+ * Since it is based upon {@link Object#hashCode()}, it should only be used with hashable types.
+ */
+public class BloomFilter {
+
+	private static final double LN2 = Math.log(2);
+	static final int MAX_BITS = 1 << 26;
+
+	private long[] bits;
+	private int numBits;
+	private int numHashes;
+
+	/**
+	 * @param expectedInsertions
+	 * @param fpp the desired false positive probability
+	 */
+	public BloomFilter(long expectedInsertions, double fpp) {
+		expectedInsertions = Math.max(1, expectedInsertions);
+		this.numBits = getNumBits(expectedInsertions, fpp);
+		this.bits = new long[numBits >>> 6];
+		this.numHashes = (int)Math.max(1, Math.min(16, Math.round((double)numBits / expectedInsertions * LN2)));
+	}
+
+	/**
+	 * @return the number of bits that a filter for the given parameters will use
+	 */
+	public static int getNumBits(long expectedInsertions, double fpp) {
+		expectedInsertions = Math.max(1, expectedInsertions);
+		long m = (long)Math.ceil(-expectedInsertions * Math.log(fpp) / (LN2 * LN2));
+		m = Math.max(64, Math.min(MAX_BITS, m));
+		return (int)((m + 63) & ~63);
+	}
+
+	public void add(Object value) {
+		long hash = hash(value);
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			bits[index >>> 6] |= 1l << index;
+		}
+	}
+
+	/**
+	 * @return false if the value was definitely not added
+	 */
+	public boolean mightContain(Object value) {
+		long hash = hash(value);
+		int h1 = (int)hash;
+		int h2 = (int)(hash >>> 32);
+		for (int i = 0; i < numHashes; i++) {
+			int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+			if ((bits[index >>> 6] & (1l << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * spread the hash code over 64 bits with the murmur3 finalizer
+	 */
+	private static long hash(Object value) {
+		long h = value.hashCode();
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdl;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53l;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	public int getNumBits() {
+		return numBits;
+	}
+
+	public int getNumHashes() {
+		return numHashes;
+	}
+
+}
@@ -23,6 +23,7 @@
 package org.teiid.query.processor.relational;
 
 import java.util.Collections;
+import java.util.List;
 
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
@@ -31,6 +32,7 @@ import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.util.Options;
 
 
 /**
@@ -136,6 +138,10 @@ public class DependentAccessNode extends AccessNode {
         if (this.criteriaProcessor == null) {
             this.criteriaProcessor = new DependentCriteriaProcessor(this.maxSetSize, this.maxPredicates, this, query.getCriteria());
             this.criteriaProcessor.setPushdown(pushdown);
+            Options options = getContext().getOptions();
+            if (options != null) {
+            	this.criteriaProcessor.setBloomFilterFpp(options.getDependentJoinBloomFilterFpp());
+            }
         }
         
         if (this.dependentCrit == null) {
@@ -178,6 +184,14 @@ public class DependentAccessNode extends AccessNode {
         return criteriaProcessor.hasNextCommand();
     }
 
+	@Override
+	protected void addBatchRow(List<?> row) {
+		if (criteriaProcessor != null && !criteriaProcessor.mightMatch(row)) {
+			return;
+		}
+		super.addBatchRow(row);
+	}
+
 	public void setPushdown(boolean pushdown) {
 		this.pushdown = pushdown;
 	}
@@ -26,10 +26,13 @@ import java.util.*;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.processor.relational.SortUtility.Mode;
@@ -71,6 +74,12 @@ public class DependentCriteriaProcessor {
     	}
         
         long valueCount = 1;
+        
+        Expression expression;
+        
+        BloomFilter bloomFilter;
+        
+        int[] filterIndexes;
 
     }
 
@@ -126,11 +135,77 @@ public class DependentCriteriaProcessor {
                 	if (!setState.overMax && distinctCount > setState.maxNdv) {
                 		LogManager.logWarning(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30011, valueSource, setState.valueExpression, setState.maxNdv));
                 		setState.overMax = true;
+                		createBloomFilter(setState);
                 	}
     			}
+            	for (SetState setState : dependentSetStates) {
+            		//rather than issuing more than the max predicates worth of queries, relax the predicate and filter locally
+            		//but only if reading the full dependent side is estimated to be cheaper than the batched queries
+            		if (!setState.overMax && !pushdown && maxSetSize > 0 && maxPredicates > 0 
+            				&& (long)dvs.getTupleBuffer().getRowCount() * setState.valueCount > (long)maxSetSize * maxPredicates
+            				&& isFullScanCheaper((long)dvs.getTupleBuffer().getRowCount() * setState.valueCount)
+            				&& createBloomFilter(setState)) {
+            			setState.overMax = true;
+            		}
+            	}
             }
         }
         
+        /**
+         * @return true if the estimated cardinality of the dependent side makes reading it
+         * in full cheaper than issuing enough queries to cover all of the values
+         */
+        private boolean isFullScanCheaper(long values) {
+        	Number cardinality = dependentNode.getEstimateNodeCardinality();
+        	if (cardinality == null) {
+        		return false;
+        	}
+        	long valuesPerQuery = (long)maxSetSize * maxPredicates;
+        	return NewCalculateCostUtil.isFullScanCheaper(cardinality.floatValue(), (values + valuesPerQuery - 1) / valuesPerQuery);
+        }
+
+        /**
+         * Create a filter for the over max values so that the dependent side rows
+         * can be discarded locally rather than all being sent to the join.
+         * @return true if the filter was created
+         */
+        private boolean createBloomFilter(SetState setState) throws TeiidComponentException, TeiidProcessingException {
+        	if (bloomFilterFpp <= 0 || bloomFilterFpp >= 1) {
+        		return false;
+        	}
+        	List<Expression> exprs = null;
+        	if (setState.expression instanceof Array) {
+        		exprs = ((Array)setState.expression).getExpressions();
+        	} else {
+        		exprs = Arrays.asList(setState.expression);
+        	}
+        	//the filter can only be used if the dependent values are projected
+        	List<? extends Expression> elements = dependentNode.getElements();
+        	int[] indexes = new int[exprs.size()];
+        	for (int i = 0; i < indexes.length; i++) {
+        		indexes[i] = elements.indexOf(exprs.get(i));
+        		if (indexes[i] == -1) {
+        			return false;
+        		}
+			}
+        	//the bits are held until the processor is closed
+        	int size = BloomFilter.getNumBits(dvs.getTupleBuffer().getRowCount(), bloomFilterFpp) >>> 3;
+        	BufferManager bufferManager = dependentNode.getBufferManager();
+        	int reserved = bufferManager.reserveBuffers(size, BufferReserveMode.FORCE);
+        	setState.bloomFilter = dvs.getBloomFilter(setState.valueExpression, bloomFilterFpp);
+        	if (setState.bloomFilter == null) {
+        		bufferManager.releaseBuffers(reserved);
+        		return false;
+        	}
+        	filterReserved += reserved;
+        	setState.filterIndexes = indexes;
+        	filterStates.add(setState);
+        	if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+        		LogManager.logDetail(LogConstants.CTX_DQP, "Using a bloom filter of", setState.bloomFilter.getNumBits(), "bits for the dependent values from", valueSource); //$NON-NLS-1$ //$NON-NLS-2$
+        	}
+        	return true;
+        }
+        
         public void close() {
         	if (this.sortUtility != null) {
         		this.sortUtility.remove();
@@ -158,10 +233,13 @@ public class DependentCriteriaProcessor {
     private int maxPredicates;
     private RelationalNode dependentNode;
     private boolean pushdown;
+    private double bloomFilterFpp;
 
     //initialization state
     private List<Criteria> queryCriteria;
     private Map<Integer, SetState> setStates = new HashMap<Integer, SetState>();
+    private List<SetState> filterStates = new ArrayList<SetState>(2);
+    private int filterReserved;
     private LinkedHashMap<String, TupleState> dependentState = new LinkedHashMap<String, TupleState>();
     private List<List<SetState>> sources = new ArrayList<List<SetState>>();
 
@@ -208,6 +286,7 @@ public class DependentCriteriaProcessor {
                 SetState state = new SetState();
                 setStates.put(i, state);
                 state.valueExpression = dsc.getValueExpression();
+                state.expression = dsc.getExpression();
                 if (dsc.hasMultipleAttributes()) {
                 	state.valueCount = ((Array)dsc.getExpression()).getExpressions().size();
                 }
@@ -232,6 +311,10 @@ public class DependentCriteriaProcessor {
         if (this.eval != null) {
         	this.eval.close();
         }
+        if (filterReserved > 0) {
+        	dependentNode.getBufferManager().releaseBuffers(filterReserved);
+        	filterReserved = 0;
+        }
     }
 
     public Criteria prepareCriteria() throws TeiidComponentException, TeiidProcessingException {
@@ -492,5 +575,28 @@ public class DependentCriteriaProcessor {
 	public void setPushdown(boolean pushdown) {
 		this.pushdown = pushdown;
 	}
+	
+	/**
+	 * Set the false positive probability of the bloom filters created for dependent sets 
+	 * that exceed their max ndv.  Values outside of (0, 1) disable the filters.
+	 */
+	public void setBloomFilterFpp(double bloomFilterFpp) {
+		this.bloomFilterFpp = bloomFilterFpp;
+	}
+	
+	/**
+	 * @return false if the dependent side tuple is known not to match one of the 
+	 * dependent sets that could not be used as source criteria
+	 */
+	public boolean mightMatch(List<?> tuple) {
+		for (int i = 0; i < filterStates.size(); i++) {
+			SetState state = filterStates.get(i);
+			List<?> key = RelationalNode.projectTuple(state.filterIndexes, tuple);
+			if (key.contains(null) || !state.bloomFilter.mightContain(key)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
 }
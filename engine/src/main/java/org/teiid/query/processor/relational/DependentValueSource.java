@@ -22,6 +22,7 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -150,6 +151,41 @@ public class DependentValueSource implements
     	return result;
     }
     
+    /**
+     * Create a {@link BloomFilter} of the non-null values of the given expression.  Each value is
+     * added as a list of the component values so that it may be checked against a projection of the 
+     * dependent side tuple.
+     * @return the filter or null if the values are not hashable
+     */
+    public BloomFilter getBloomFilter(Expression valueExpression, double fpp) throws TeiidComponentException, TeiidProcessingException {
+    	List<Expression> exprs = null;
+    	if (valueExpression instanceof Array) {
+    		exprs = ((Array)valueExpression).getExpressions();
+    	} else {
+    		exprs = Arrays.asList(valueExpression);
+    	}
+    	int[] indexes = new int[exprs.size()];
+    	for (int i = 0; i < indexes.length; i++) {
+    		indexes[i] = getIndex(exprs.get(i));
+    		if (!DataTypeManager.isHashable(schema.get(indexes[i]).getType())) {
+    			return null;
+    		}
+		}
+    	BloomFilter result = new BloomFilter(buffer.getRowCount(), fpp);
+    	IndexedTupleSource its = buffer.createIndexedTupleSource();
+    	try {
+	    	while (its.hasNext()) {
+	    		List<?> key = RelationalNode.projectTuple(indexes, its.nextTuple());
+	    		if (!key.contains(null)) {
+	    			result.add(key);
+	    		}
+	    	}
+    	} finally {
+    		its.closeSource();
+    	}
+    	return result;
+    }
+    
     @Override
     public boolean isUnused() {
 		return unused;
@@ -28,7 +28,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -38,6 +40,8 @@ import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
@@ -90,6 +94,30 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		    return exprTuple;
 		}
 	}
+    
+    /**
+     * A spilled portion of the hash aggregation input
+     */
+    private static class SpillPartition {
+    	TupleBuffer buffer;
+    	int level;
+    	
+    	SpillPartition(TupleBuffer buffer, int level) {
+    		this.buffer = buffer;
+    		this.level = level;
+		}
+    }
+    
+    /**
+     * The number of partitions to spill to once the hash table can no longer grow
+     */
+    static final int SPILL_PARTITIONS = 16;
+    
+    /**
+     * After this many levels of re-partitioning the hash table is allowed to grow 
+     * regardless of the reserve, which can only happen with heavily colliding keys
+     */
+    static final int MAX_SPILL_LEVEL = 4;
 
 	// Grouping columns set by the planner 
 	private List<OrderByItem> orderBy;
@@ -111,10 +139,24 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private AggregateFunction[][] functions;
     private List<?> lastRow;
 	private List<?> currentGroupTuple;
+	
+	// Hash phase
+	private boolean hashAggregation;
+	private LinkedHashMap<List<?>, AggregateFunction[]> groups;
+	private Iterator<AggregateFunction[]> groupIterator;
+	private boolean inputDone;
+	private TupleBuffer[] spillPartitions;
+	private LinkedList<SpillPartition> pendingPartitions;
+	private SpillPartition currentPartition;
+	private int groupSchemaSize;
+	private int groupBatchSize;
+	private int reservedGroups;
+	private int reserved;
 
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
+    private static final int HASH = 4;
 	private int[] indexes;
 	private boolean rollup;
 	private HashMap<Integer, Integer> indexMap;
@@ -134,6 +176,15 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         lastRow = null;
         currentGroupTuple = null;
         
+        groups = null;
+        groupIterator = null;
+        inputDone = false;
+        spillPartitions = null;
+        pendingPartitions = null;
+        currentPartition = null;
+        reservedGroups = 0;
+        reserved = 0;
+        
         if (this.functions != null) {
 	    	for (AggregateFunction[] functions : this.functions) {
 	    		for (AggregateFunction function : functions) {
@@ -154,6 +205,20 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     public void setOutputMapping(SymbolMap outputMapping) {
 		this.outputMapping = outputMapping;
 	}
+    
+    /**
+     * Use a hash table keyed on the grouping columns rather than sorting the input.
+     * The planner should only set this when the groups are expected to be relatively few,
+     * the output order is not needed, and all of the aggregates have a fixed size state.
+     * @param hashAggregation
+     */
+    public void setHashAggregation(boolean hashAggregation) {
+		this.hashAggregation = hashAggregation;
+	}
+    
+    public boolean isHashAggregation() {
+		return hashAggregation;
+	}
 
 	@Override
 	public void initialize(CommandContext context, BufferManager bufferManager,
@@ -185,26 +250,36 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         // Construct aggregate function state accumulators
         functions = new AggregateFunction[getElements().size()][];
         for(int i=0; i<getElements().size(); i++) {
-            Expression symbol = getElements().get(i);
-            if (this.outputMapping != null) {
-            	symbol = outputMapping.getMappedExpression((ElementSymbol)symbol);
-            }
-            Class<?> outputType = symbol.getType();
+            Expression symbol = getFunctionSymbol(i);
             if(symbol instanceof AggregateSymbol) {
-            	AggregateSymbol aggSymbol = (AggregateSymbol) symbol;
             	functions[i] = new AggregateFunction[rollup?orderBy.size()+1:1];
             	for (int j = 0; j < functions[i].length; j++) {
-            		functions[i][j] = initAccumulator(aggSymbol, this, this.collectedExpressions);
+            		functions[i][j] = initFunction(symbol);
             	}
             } else {
-                AggregateFunction af = new ConstantFunction();
-                af.setArgIndexes(new int[] {this.collectedExpressions.get(symbol)});
-                af.initialize(outputType, new Class<?>[]{symbol.getType()});
-                functions[i] = new AggregateFunction[] {af};
+                functions[i] = new AggregateFunction[] {initFunction(symbol)};
             }
         }
     }
 	
+	private Expression getFunctionSymbol(int i) {
+		Expression symbol = getElements().get(i);
+        if (this.outputMapping != null) {
+        	symbol = outputMapping.getMappedExpression((ElementSymbol)symbol);
+        }
+        return symbol;
+	}
+	
+	private AggregateFunction initFunction(Expression symbol) {
+        if(symbol instanceof AggregateSymbol) {
+        	return initAccumulator((AggregateSymbol) symbol, this, this.collectedExpressions);
+        }
+        AggregateFunction af = new ConstantFunction();
+        af.setArgIndexes(new int[] {this.collectedExpressions.get(symbol)});
+        af.initialize(symbol.getType(), new Class<?>[]{symbol.getType()});
+        return af;
+	}
+	
 	static Integer getIndex(Expression ex, LinkedHashMap<Expression, Integer> expressionIndexes) {
 		Integer index = expressionIndexes.get(ex);
 		if (index == null) {
@@ -330,6 +405,11 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if(this.phase == SORT) {
             sortPhase();
         }
+        
+        // Aggregate each row into its group in a hash table
+        if(this.phase == HASH) {
+        	return hashPhase();
+        }
 
         // Walk through the sorted results and for each group, emit a row
         if(this.phase == GROUP) {
@@ -378,6 +458,15 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         		sortIndexes[i] = index; 
         	}
         	this.indexes = Arrays.copyOf(sortIndexes, orderBy.size());
+        	if (hashAggregation && !rollup && !removeDuplicates) {
+        		List<Expression> schema = new ArrayList<Expression>(collectedExpressions.keySet());
+        		this.groupSchemaSize = getBufferManager().getSchemaSize(schema);
+        		this.groupBatchSize = getBufferManager().getProcessorBatchSize(schema);
+        		this.groups = new LinkedHashMap<List<?>, AggregateFunction[]>();
+        		this.groupTupleSource = getCollectionTupleSource();
+        		this.phase = HASH;
+        		return;
+        	}
         	if (rollup) {
         		this.indexMap = new HashMap<Integer, Integer>();
         		for (int i = 0; i < indexes.length; i++) {
@@ -442,6 +531,151 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         return pullBatch();
     }
 
+    /**
+     * Aggregate the input into a hash table of groups.  When the reserve can no longer
+     * accommodate new groups, rows for new groups are spilled to partitions by the hash
+     * of their grouping columns, which are then processed once the in-memory groups are output.
+     */
+    private TupleBatch hashPhase() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+    	CommandContext context = getContext();
+    	while (true) {
+	    	while (!inputDone) {
+	    		if (currentGroupTuple == null) {
+	    			currentGroupTuple = this.groupTupleSource.nextTuple();
+	    			if (currentGroupTuple == null) {
+	    				inputDone = true;
+	    				break;
+	    			}
+	    		}
+	    		List<?> key = projectTuple(indexes, currentGroupTuple);
+	    		AggregateFunction[] groupFunctions = groups.get(key);
+	    		if (groupFunctions == null) {
+	    			if (spillPartitions != null || !reserveGroup()) {
+	    				spill(key, currentGroupTuple);
+	    				currentGroupTuple = null;
+	    				continue;
+	    			}
+	    			groupFunctions = new AggregateFunction[functions.length];
+	    			for (int i = 0; i < functions.length; i++) {
+	    				groupFunctions[i] = initFunction(getFunctionSymbol(i));
+	    			}
+	    			groups.put(key, groupFunctions);
+	    		}
+	    		for (AggregateFunction function : groupFunctions) {
+	    			function.addInput(currentGroupTuple, context);
+	    		}
+	    		currentGroupTuple = null;
+	    	}
+	    	
+	    	if (groupIterator == null) {
+	    		groupIterator = groups.values().iterator();
+	    	}
+	    	while (groupIterator.hasNext()) {
+	    		AggregateFunction[] groupFunctions = groupIterator.next();
+	    		List<Object> row = new ArrayList<Object>(groupFunctions.length);
+	    		for (AggregateFunction function : groupFunctions) {
+	    			row.add(function.getResult(context));
+	    		}
+	    		addBatchRow(row);
+	    		if (this.isBatchFull()) {
+	    			return pullBatch();
+	    		}
+	    	}
+	    	
+	    	if (!nextPartition()) {
+	    		break;
+	    	}
+    	}
+    	
+    	this.terminateBatches();
+    	return pullBatch();
+    }
+    
+    private int getSpillLevel() {
+    	return currentPartition == null ? 0 : currentPartition.level;
+    }
+    
+    private boolean reserveGroup() {
+    	if (groups.size() < reservedGroups) {
+    		return true;
+    	}
+    	boolean force = groups.isEmpty() || getSpillLevel() >= MAX_SPILL_LEVEL;
+    	int result = getBufferManager().reserveBuffers(groupSchemaSize, force?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT);
+    	reserved += result;
+    	if (result < groupSchemaSize) {
+    		return false;
+    	}
+    	reservedGroups += groupBatchSize;
+    	return true;
+    }
+    
+    private void spill(List<?> key, List<?> tuple) throws TeiidComponentException {
+    	if (spillPartitions == null) {
+    		spillPartitions = new TupleBuffer[SPILL_PARTITIONS];
+    	}
+    	int partition = getPartition(key, getSpillLevel(), SPILL_PARTITIONS);
+    	TupleBuffer buffer = spillPartitions[partition];
+    	if (buffer == null) {
+    		buffer = getBufferManager().createTupleBuffer(new ArrayList<Expression>(collectedExpressions.keySet()), getConnectionID(), TupleSourceType.PROCESSOR);
+    		buffer.setForwardOnly(true);
+    		spillPartitions[partition] = buffer;
+    	}
+    	buffer.addTuple(tuple);
+    }
+    
+    /**
+     * Get the partition for the given key.  The hash is salted with the level so that 
+     * rows from a single spilled partition will be split further when re-partitioned.
+     */
+    static int getPartition(List<?> key, int level, int partitions) {
+    	int hash = key.hashCode() + level * 0x9e3779b9;
+    	hash ^= (hash >>> 20) ^ (hash >>> 12);
+    	hash ^= (hash >>> 7) ^ (hash >>> 4);
+    	return (hash & Integer.MAX_VALUE) % partitions;
+    }
+    
+    /**
+     * Release the current hash table and setup the next spilled partition as input
+     * @return true if there is a partition to process
+     */
+    private boolean nextPartition() throws TeiidComponentException {
+    	if (spillPartitions != null) {
+    		if (pendingPartitions == null) {
+    			pendingPartitions = new LinkedList<SpillPartition>();
+    		}
+    		int level = getSpillLevel() + 1;
+    		for (TupleBuffer buffer : spillPartitions) {
+    			if (buffer != null) {
+    				buffer.close();
+    				pendingPartitions.add(new SpillPartition(buffer, level));
+    			}
+    		}
+    		spillPartitions = null;
+    	}
+    	if (currentPartition != null) {
+    		currentPartition.buffer.remove();
+    		currentPartition = null;
+    	}
+    	groups.clear();
+    	groupIterator = null;
+    	releaseReserved();
+    	if (pendingPartitions == null || pendingPartitions.isEmpty()) {
+    		return false;
+    	}
+    	currentPartition = pendingPartitions.removeFirst();
+    	groupTupleSource = currentPartition.buffer.createIndexedTupleSource(true);
+    	inputDone = false;
+    	return true;
+    }
+
+	private void releaseReserved() {
+		if (reserved > 0) {
+			getBufferManager().releaseBuffers(reserved);
+		}
+		reserved = 0;
+		reservedGroups = 0;
+	}
+
 	private void closeGroup(int colDiff, boolean reset, CommandContext context) throws FunctionExecutionException,
 			ExpressionEvaluationException, TeiidComponentException,
 			TeiidProcessingException {
@@ -509,6 +743,28 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     		this.sortUtility.remove();
     		this.sortUtility = null;
     	}
+    	if (this.currentPartition != null) {
+    		this.currentPartition.buffer.remove();
+    		this.currentPartition = null;
+    	}
+    	if (this.spillPartitions != null) {
+    		for (TupleBuffer buffer : this.spillPartitions) {
+    			if (buffer != null) {
+    				buffer.remove();
+    			}
+    		}
+    		this.spillPartitions = null;
+    	}
+    	if (this.pendingPartitions != null) {
+    		for (SpillPartition partition : this.pendingPartitions) {
+    			partition.buffer.remove();
+    		}
+    		this.pendingPartitions = null;
+    	}
+    	if (this.groups != null) {
+    		this.groups.clear();
+    	}
+    	releaseReserved();
     }
 
 	protected void getNodeString(StringBuffer str) {
@@ -526,6 +782,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
 		clonedNode.outputMapping = outputMapping;
 		clonedNode.orderBy = orderBy;
 		clonedNode.rollup = rollup;
+		clonedNode.hashAggregation = hashAggregation;
 		return clonedNode;
 	}
 
@@ -545,6 +802,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
         	props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (hashAggregation) {
+        	props.addProperty(PROP_GROUP_STRATEGY, "HASH"); //$NON-NLS-1$
+        }
         return props;
     }
 
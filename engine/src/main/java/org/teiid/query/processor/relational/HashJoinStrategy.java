@@ -0,0 +1,584 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.IndexedTupleSource;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.processor.relational.SortUtility.Mode;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.Expression;
+
+
+/**
+ * A partitioned (grace) hash join.  The build side is loaded into a hash table keyed
+ * on the join expressions and the probe side is streamed against it.
+ *
+ * If the reserve is exhausted while building, the build rows are instead written to
+ * partitions by the hash of their keys.  The probe side is then partitioned in the same way
+ * and each pair of partitions is joined in memory.  A build partition that still does not fit
+ * is partitioned again with a different hash, up to {@link #MAX_PARTITION_LEVEL} times, after
+ * which the pair is sorted and merge joined.
+ *
+ * Supports inner joins with either side as the build side.  Left outer, semi, and anti-semi
+ * joins must build on the right.  Rows with null key values never match.
+ */
+public class HashJoinStrategy extends JoinStrategy {
+
+	/**
+	 * The number of partitions to use once the build side does not fit in memory
+	 */
+	static final int PARTITIONS = 16;
+
+	/**
+	 * The maximum number of times a partition is partitioned again before
+	 * falling back to a merge join of that partition
+	 */
+	static final int MAX_PARTITION_LEVEL = 4;
+
+	private static class PartitionPair {
+		TupleBuffer build;
+		TupleBuffer probe;
+		int level;
+
+		PartitionPair(TupleBuffer build, TupleBuffer probe, int level) {
+			this.build = build;
+			this.probe = probe;
+			this.level = level;
+		}
+
+		void remove() {
+			if (build != null) {
+				build.remove();
+				build = null;
+			}
+			if (probe != null) {
+				probe.remove();
+				probe = null;
+			}
+		}
+	}
+
+	private boolean buildLeft;
+
+	//build state
+	private Map<List<?>, List<List<?>>> table;
+	private int tableRows;
+	private int reservedRows;
+	private int tableReserved;
+	private int schemaSize;
+	private int batchSize;
+	private boolean built;
+	private TupleBuffer[] buildPartitions;
+
+	//probe state
+	private TupleBuffer[] probePartitions;
+	private boolean probePartitioned;
+	private LinkedList<PartitionPair> pendingPartitions;
+	private PartitionPair currentPartition;
+	private IndexedTupleSource partitionSource;
+	private List<?> probeTuple;
+	private List<List<?>> matches;
+	private int matchIndex;
+	private boolean matched;
+
+	//merge state
+	private IndexedTupleSource mergeBuild;
+	private int groupStart = 1;
+
+	public HashJoinStrategy(boolean buildLeft) {
+		this.buildLeft = buildLeft;
+	}
+
+	@Override
+	public HashJoinStrategy clone() {
+		return new HashJoinStrategy(buildLeft);
+	}
+
+	@Override
+	public void initialize(JoinNode joinNode) {
+		super.initialize(joinNode);
+		this.table = new HashMap<List<?>, List<List<?>>>();
+		SourceState buildSource = getBuildSource();
+		this.schemaSize = joinNode.getBufferManager().getSchemaSize(buildSource.getSource().getElements());
+		this.batchSize = joinNode.getBufferManager().getProcessorBatchSize(buildSource.getSource().getElements());
+	}
+
+	private SourceState getBuildSource() {
+		return buildLeft?this.leftSource:this.rightSource;
+	}
+
+	private SourceState getProbeSource() {
+		return buildLeft?this.rightSource:this.leftSource;
+	}
+
+	@Override
+	public void close() {
+		if (joinNode != null) {
+			releaseTable();
+		}
+		removePartitions(buildPartitions);
+		buildPartitions = null;
+		removePartitions(probePartitions);
+		probePartitions = null;
+		if (currentPartition != null) {
+			currentPartition.remove();
+			currentPartition = null;
+		}
+		if (pendingPartitions != null) {
+			for (PartitionPair pair : pendingPartitions) {
+				pair.remove();
+			}
+			pendingPartitions = null;
+		}
+		closeMerge();
+		partitionSource = null;
+		table = null;
+		super.close();
+	}
+
+	private void removePartitions(TupleBuffer[] partitions) {
+		if (partitions == null) {
+			return;
+		}
+		for (TupleBuffer buffer : partitions) {
+			if (buffer != null) {
+				buffer.remove();
+			}
+		}
+	}
+
+	private void releaseTable() {
+		if (tableReserved > 0) {
+			joinNode.getBufferManager().releaseBuffers(tableReserved);
+		}
+		tableReserved = 0;
+		reservedRows = 0;
+		tableRows = 0;
+		if (table != null) {
+			table.clear();
+		}
+	}
+
+	@Override
+	protected void loadLeft() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (buildLeft) {
+			build();
+		}
+	}
+
+	@Override
+	protected void loadRight() throws TeiidComponentException,
+			TeiidProcessingException {
+		this.rightSource.setImplicitBuffer(ImplicitBuffer.NONE);
+		if (!buildLeft) {
+			build();
+		}
+	}
+
+	private void build() throws TeiidComponentException, TeiidProcessingException {
+		if (built) {
+			return;
+		}
+		SourceState buildSource = getBuildSource();
+		IndexedTupleSource its = buildSource.getIterator();
+		while (its.hasNext()) {
+			List<?> tuple = its.nextTuple();
+			List<?> key = RelationalNode.projectTuple(buildSource.getExpressionIndexes(), tuple);
+			if (key.contains(null)) {
+				continue;
+			}
+			if (buildPartitions == null && !reserveRow()) {
+				//switch to partitioning and move the existing table contents
+				buildPartitions = new TupleBuffer[PARTITIONS];
+				for (Map.Entry<List<?>, List<List<?>>> entry : table.entrySet()) {
+					for (List<?> row : entry.getValue()) {
+						addToPartition(buildPartitions, buildSource, entry.getKey(), row, 0);
+					}
+				}
+				releaseTable();
+			}
+			if (buildPartitions != null) {
+				addToPartition(buildPartitions, buildSource, key, tuple, 0);
+			} else {
+				addToTable(key, tuple);
+			}
+		}
+		if (buildPartitions != null) {
+			closePartitions(buildPartitions);
+		}
+		built = true;
+	}
+
+	private void addToTable(List<?> key, List<?> tuple) {
+		List<List<?>> rows = table.get(key);
+		if (rows == null) {
+			rows = new ArrayList<List<?>>(2);
+			table.put(key, rows);
+		}
+		rows.add(tuple);
+		tableRows++;
+	}
+
+	private boolean reserveRow() {
+		if (tableRows < reservedRows) {
+			return true;
+		}
+		BufferReserveMode mode = tableRows == 0?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT;
+		int result = joinNode.getBufferManager().reserveBuffers(schemaSize, mode);
+		tableReserved += result;
+		if (result < schemaSize) {
+			return false;
+		}
+		reservedRows += batchSize;
+		return true;
+	}
+
+	private void addToPartition(TupleBuffer[] partitions, SourceState state, List<?> key, List<?> tuple, int level) throws TeiidComponentException {
+		int index = GroupingNode.getPartition(key, level, PARTITIONS);
+		TupleBuffer buffer = partitions[index];
+		if (buffer == null) {
+			buffer = state.createSourceTupleBuffer();
+			buffer.setForwardOnly(true);
+			partitions[index] = buffer;
+		}
+		buffer.addTuple(tuple);
+	}
+
+	private void closePartitions(TupleBuffer[] partitions) throws TeiidComponentException {
+		for (TupleBuffer buffer : partitions) {
+			if (buffer != null) {
+				buffer.close();
+			}
+		}
+	}
+
+	@Override
+	protected void process() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (!probePartitioned) {
+			if (buildPartitions == null) {
+				probe(getProbeSource().getIterator());
+				return;
+			}
+			partitionProbe();
+		}
+		while (true) {
+			if (partitionSource == null) {
+				if (!nextPartition()) {
+					return;
+				}
+			}
+			if (mergeBuild != null) {
+				mergeProbe(partitionSource);
+			} else {
+				probe(partitionSource);
+			}
+			partitionSource = null;
+		}
+	}
+
+	private void partitionProbe() throws TeiidComponentException,
+			TeiidProcessingException {
+		SourceState probeSource = getProbeSource();
+		if (probePartitions == null) {
+			probePartitions = new TupleBuffer[PARTITIONS];
+		}
+		IndexedTupleSource its = probeSource.getIterator();
+		boolean outer = this.joinNode.getJoinType() != JoinType.JOIN_INNER && this.joinNode.getJoinType() != JoinType.JOIN_SEMI;
+		while (its.hasNext()) {
+			List<?> tuple = its.nextTuple();
+			List<?> key = RelationalNode.projectTuple(probeSource.getExpressionIndexes(), tuple);
+			if (key.contains(null)) {
+				if (outer) {
+					this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+				}
+				continue;
+			}
+			addToPartition(probePartitions, probeSource, key, tuple, 0);
+		}
+		closePartitions(probePartitions);
+		pendingPartitions = new LinkedList<PartitionPair>();
+		for (int i = 0; i < PARTITIONS; i++) {
+			pendingPartitions.add(new PartitionPair(buildPartitions[i], probePartitions[i], 0));
+		}
+		buildPartitions = null;
+		probePartitions = null;
+		probePartitioned = true;
+	}
+
+	/**
+	 * Load the next pair of partitions
+	 * @return false if there are no more partitions
+	 */
+	private boolean nextPartition() throws TeiidComponentException, TeiidProcessingException {
+		if (currentPartition != null) {
+			releaseTable();
+			closeMerge();
+			currentPartition.remove();
+			currentPartition = null;
+		}
+		JoinType joinType = this.joinNode.getJoinType();
+		boolean outer = joinType == JoinType.JOIN_LEFT_OUTER || joinType == JoinType.JOIN_ANTI_SEMI;
+		while (!pendingPartitions.isEmpty()) {
+			PartitionPair pair = pendingPartitions.removeFirst();
+			currentPartition = pair;
+			if (pair.probe == null || (pair.build == null && !outer)) {
+				//no possible output
+				pair.remove();
+				currentPartition = null;
+				continue;
+			}
+			if (pair.build == null || loadTable(pair.build)) {
+				partitionSource = pair.probe.createIndexedTupleSource(true);
+				return true;
+			}
+			if (pair.level < MAX_PARTITION_LEVEL) {
+				repartition(pair);
+				currentPartition = null;
+				continue;
+			}
+			sortPartitions(pair);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Load the build partition into the table if the reserve allows
+	 * @return false if the partition does not fit
+	 */
+	private boolean loadTable(TupleBuffer buildBuffer) throws TeiidComponentException, TeiidProcessingException {
+		int size = (int)Math.min(Integer.MAX_VALUE, (long)buildBuffer.getRowCount() * buildBuffer.getRowSizeEstimate());
+		//a partition of a single batch is always allowed
+		BufferReserveMode mode = buildBuffer.getRowCount() <= batchSize?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT;
+		tableReserved += joinNode.getBufferManager().reserveBuffers(size, mode);
+		if (tableReserved < size) {
+			releaseTable();
+			return false;
+		}
+		SourceState buildSource = getBuildSource();
+		IndexedTupleSource its = buildBuffer.createIndexedTupleSource(true);
+		while (its.hasNext()) {
+			List<?> tuple = its.nextTuple();
+			addToTable(RelationalNode.projectTuple(buildSource.getExpressionIndexes(), tuple), tuple);
+		}
+		its.closeSource();
+		return true;
+	}
+
+	/**
+	 * Split both sides of the pair using the hash for the next level and queue the
+	 * resulting pairs ahead of the remaining partitions
+	 */
+	private void repartition(PartitionPair pair) throws TeiidComponentException, TeiidProcessingException {
+		int level = pair.level + 1;
+		int buildRows = pair.build.getRowCount();
+		TupleBuffer[] builds = new TupleBuffer[PARTITIONS];
+		TupleBuffer[] probes = new TupleBuffer[PARTITIONS];
+		splitPartition(pair.build, getBuildSource(), builds, level);
+		splitPartition(pair.probe, getProbeSource(), probes, level);
+		for (int i = PARTITIONS - 1; i >= 0; i--) {
+			int subLevel = level;
+			if (builds[i] != null && builds[i].getRowCount() == buildRows) {
+				//the keys did not split, so go directly to a merge
+				subLevel = MAX_PARTITION_LEVEL;
+			}
+			pendingPartitions.addFirst(new PartitionPair(builds[i], probes[i], subLevel));
+		}
+		pair.remove();
+	}
+
+	private void splitPartition(TupleBuffer buffer, SourceState state, TupleBuffer[] partitions, int level) throws TeiidComponentException, TeiidProcessingException {
+		IndexedTupleSource its = buffer.createIndexedTupleSource(true);
+		while (its.hasNext()) {
+			List<?> tuple = its.nextTuple();
+			addToPartition(partitions, state, RelationalNode.projectTuple(state.getExpressionIndexes(), tuple), tuple, level);
+		}
+		its.closeSource();
+		closePartitions(partitions);
+	}
+
+	/**
+	 * Sort both sides of the pair on the join keys so that it can be merge joined
+	 */
+	private void sortPartitions(PartitionPair pair) throws TeiidComponentException, TeiidProcessingException {
+		TupleBuffer sorted = sort(pair.build, getBuildSource());
+		pair.build.remove();
+		pair.build = sorted;
+		sorted = sort(pair.probe, getProbeSource());
+		pair.probe.remove();
+		pair.probe = sorted;
+		mergeBuild = pair.build.createIndexedTupleSource();
+		groupStart = 1;
+		partitionSource = pair.probe.createIndexedTupleSource(true);
+	}
+
+	private TupleBuffer sort(TupleBuffer buffer, SourceState state) throws TeiidComponentException, TeiidProcessingException {
+		List elements = state.getSource().getElements();
+		int[] indexes = state.getExpressionIndexes();
+		List<Expression> keys = new ArrayList<Expression>(indexes.length);
+		for (int index : indexes) {
+			keys.add((Expression)elements.get(index));
+		}
+		SortUtility sortUtility = new SortUtility(buffer.createIndexedTupleSource(true), keys, Collections.nCopies(keys.size(), OrderBy.ASC), 
+				Mode.SORT, joinNode.getBufferManager(), joinNode.getConnectionID(), elements);
+		sortUtility.setNonBlocking(true);
+		return sortUtility.sort();
+	}
+
+	private void closeMerge() {
+		if (mergeBuild != null) {
+			mergeBuild.closeSource();
+			mergeBuild = null;
+		}
+		groupStart = 1;
+	}
+
+	private void probe(IndexedTupleSource its) throws TeiidComponentException, TeiidProcessingException {
+		SourceState probeSource = getProbeSource();
+		JoinType joinType = this.joinNode.getJoinType();
+		while (true) {
+			if (probeTuple == null) {
+				if (!its.hasNext()) {
+					return;
+				}
+				probeTuple = its.nextTuple();
+				matches = table.get(RelationalNode.projectTuple(probeSource.getExpressionIndexes(), probeTuple));
+				matchIndex = 0;
+				matched = false;
+			}
+			if (matches != null) {
+				while (matchIndex < matches.size()) {
+					List<?> buildTuple = matches.get(matchIndex);
+					List outputTuple = buildLeft?outputTuple(buildTuple, probeTuple):outputTuple(probeTuple, buildTuple);
+					boolean match = this.joinNode.matchesCriteria(outputTuple);
+					matchIndex++;
+					if (!match) {
+						continue;
+					}
+					matched = true;
+					if (joinType == JoinType.JOIN_SEMI || joinType == JoinType.JOIN_ANTI_SEMI) {
+						//only one match is needed
+						matchIndex = matches.size();
+						if (joinType == JoinType.JOIN_ANTI_SEMI) {
+							break;
+						}
+					}
+					this.joinNode.addBatchRow(outputTuple);
+				}
+			}
+			List<?> tuple = probeTuple;
+			probeTuple = null;
+			if (!matched && (joinType == JoinType.JOIN_LEFT_OUTER || joinType == JoinType.JOIN_ANTI_SEMI)) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+	}
+
+	/**
+	 * Join the sorted probe partition against the sorted build partition.  The build rows
+	 * matching the current key are rescanned from the start of their group for each probe row.
+	 */
+	private void mergeProbe(IndexedTupleSource its) throws TeiidComponentException, TeiidProcessingException {
+		int[] probeIndexes = getProbeSource().getExpressionIndexes();
+		int[] buildIndexes = getBuildSource().getExpressionIndexes();
+		JoinType joinType = this.joinNode.getJoinType();
+		while (true) {
+			if (probeTuple == null) {
+				if (!its.hasNext()) {
+					return;
+				}
+				probeTuple = its.nextTuple();
+				matched = false;
+				//skip the build rows with lesser keys
+				mergeBuild.setPosition(groupStart);
+				while (mergeBuild.hasNext()) {
+					List<?> buildTuple = mergeBuild.nextTuple();
+					if (compareKeys(buildTuple, buildIndexes, probeTuple, probeIndexes) >= 0) {
+						mergeBuild.setPosition(mergeBuild.getCurrentIndex() - 1);
+						break;
+					}
+				}
+				groupStart = mergeBuild.getCurrentIndex();
+			}
+			while (mergeBuild.hasNext()) {
+				List<?> buildTuple = mergeBuild.nextTuple();
+				if (compareKeys(buildTuple, buildIndexes, probeTuple, probeIndexes) != 0) {
+					break;
+				}
+				List outputTuple = buildLeft?outputTuple(buildTuple, probeTuple):outputTuple(probeTuple, buildTuple);
+				if (!this.joinNode.matchesCriteria(outputTuple)) {
+					continue;
+				}
+				matched = true;
+				if (joinType == JoinType.JOIN_SEMI || joinType == JoinType.JOIN_ANTI_SEMI) {
+					//only one match is needed
+					mergeBuild.setPosition(currentPartition.build.getRowCount() + 1);
+					if (joinType == JoinType.JOIN_ANTI_SEMI) {
+						break;
+					}
+				}
+				this.joinNode.addBatchRow(outputTuple);
+			}
+			List<?> tuple = probeTuple;
+			probeTuple = null;
+			if (!matched && (joinType == JoinType.JOIN_LEFT_OUTER || joinType == JoinType.JOIN_ANTI_SEMI)) {
+				this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+			}
+		}
+	}
+
+	static int compareKeys(List<?> tuple, int[] indexes, List<?> other, int[] otherIndexes) {
+		for (int i = 0; i < indexes.length; i++) {
+			int c = Constant.COMPARATOR.compare(tuple.get(indexes[i]), other.get(otherIndexes[i]));
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	public boolean isBuildLeft() {
+		return buildLeft;
+	}
+
+	@Override
+	public String toString() {
+		return "HASH JOIN (" + (buildLeft?"BUILD LEFT":"BUILD RIGHT") + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+}
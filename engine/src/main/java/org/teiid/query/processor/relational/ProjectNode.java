@@ -34,15 +34,20 @@ import java.util.Map;
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.BatchEvaluator;
+import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.sql.util.SymbolMap;
+import org.teiid.query.util.CommandContext;
 
 
 public class ProjectNode extends SubqueryAwareRelationalNode {
@@ -54,10 +59,13 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private boolean needsProject = true;
     private List<Expression> expressions;
     private int[] projectionIndexes;
+    private boolean[] batchEvaluation;
+    private BatchEvaluator batchEvaluator;
 
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
     private int currentRow = 1;
+    private Object[][] batchValues;
     
     protected ProjectNode() {
     	super();
@@ -72,6 +80,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 
         currentBatch = null;
         currentRow = 1;
+        batchValues = null;
     }
 
     /**
@@ -130,6 +139,25 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             	projectionIndexes[i] = index;
             }
         }
+        batchEvaluation = null;
+        for (int i = 0; i < expressions.size(); i++) {
+        	Expression ex = expressions.get(i);
+			if (projectionIndexes[i] == -1 && ex instanceof Function && BatchEvaluator.isSupported(ex, elementMap)) {
+				if (batchEvaluation == null) {
+					batchEvaluation = new boolean[expressions.size()];
+				}
+				batchEvaluation[i] = true;
+			}
+		}
+	}
+	
+	@Override
+	public void initialize(CommandContext context, BufferManager bufferManager,
+			ProcessorDataManager dataMgr) {
+		super.initialize(context, bufferManager, dataMgr);
+		if (batchEvaluation != null) {
+			this.batchEvaluator = new BatchEvaluator(this.elementMap, context);
+		}
 	}
 	
 	public TupleBatch nextBatchDirect()
@@ -152,6 +180,15 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
             	currentBatch = null;
                 return result;
             }
+            
+            if (batchEvaluator != null) {
+            	batchValues = new Object[expressions.size()][];
+            	for (int i = 0; i < expressions.size(); i++) {
+            		if (batchEvaluation[i]) {
+            			batchValues[i] = batchEvaluator.evaluate(expressions.get(i), currentBatch);
+            		}
+            	}
+            }
         }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
@@ -162,7 +199,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 			// Walk through symbols
             for(int i=0; i<expressions.size(); i++) {
 				Expression symbol = expressions.get(i);
-				updateTuple(symbol, i, tuple, projectedTuple);
+				updateTuple(symbol, i, tuple, projectedTuple, currentRow - currentBatch.getBeginRow());
 			}
 
             // Add to batch
@@ -175,17 +212,20 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 	            terminateBatches();
 	        }
 	        currentBatch = null;
+	        batchValues = null;
         }
         
     	return pullBatch();
 	}
 
-	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple)
+	private void updateTuple(Expression symbol, int projectionIndex, List<?> values, List<Object> tuple, int batchIndex)
 		throws BlockedException, TeiidComponentException, ExpressionEvaluationException {
 
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
 			tuple.add(values.get(index));
+        } else if (batchValues != null && batchValues[projectionIndex] != null) {
+        	tuple.add(batchValues[projectionIndex][batchIndex]);
         } else { 
 			tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
 		}
@@ -209,6 +249,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         target.elementMap = elementMap;
         target.expressions = expressions;
         target.projectionIndexes = projectionIndexes;
+        target.batchEvaluation = batchEvaluation;
     }
 
     public PlanNode getDescriptionProperties() {
@@ -36,6 +36,7 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.BatchEvaluator;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.Criteria;
@@ -51,10 +52,13 @@ public class SelectNode extends SubqueryAwareRelationalNode {
     // Derived element lookup map
     private Map<Expression, Integer> elementMap; 
     private int[] projectionIndexes;
+    private boolean batchEvaluation;
+    private BatchEvaluator batchEvaluator;
 	
     // State if blocked on evaluating a criteria
     private TupleBatch currentBatch;
     private int currentRow = 1;
+    private boolean[] currentMatches;
 
 	protected SelectNode() {
 		super();
@@ -69,6 +73,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         
         currentBatch = null;
         currentRow = 1;
+        currentMatches = null;
     }
 
 	public void setCriteria(Criteria criteria) { 
@@ -91,6 +96,10 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         if(this.elementMap == null) {
             this.elementMap = createLookupMap(this.getChildren()[0].getElements());
             this.projectionIndexes = getProjectionIndexes(this.elementMap, projectedExpressions!=null?projectedExpressions:getElements());
+            this.batchEvaluation = BatchEvaluator.isSupported(this.criteria, this.elementMap);
+        }
+        if (this.batchEvaluation) {
+        	this.batchEvaluator = new BatchEvaluator(this.elementMap, context);
         }
 	}
 	
@@ -102,12 +111,16 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 		
         if(currentBatch == null) {
         	currentBatch = this.getChildren()[0].nextBatch();
+        	BatchEvaluator eval = getBatchEvaluator();
+        	if (eval != null) {
+        		currentMatches = eval.evaluate(this.criteria, currentBatch);
+        	}
         }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
     		List<?> tuple = currentBatch.getTuple(currentRow);
 
-            if(getEvaluator(this.elementMap).evaluate(this.criteria, tuple)) {
+            if(currentMatches != null?currentMatches[currentRow - currentBatch.getBeginRow()]:getEvaluator(this.elementMap).evaluate(this.criteria, tuple)) {
                 addBatchRow(projectTuple(this.projectionIndexes, tuple));
             }
             currentRow++;
@@ -118,11 +131,19 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 	            terminateBatches();
 	        }
 	        currentBatch = null;
+	        currentMatches = null;
         }
         
     	return pullBatch();
 	}
     
+	/**
+	 * @return the {@link BatchEvaluator} or null if the criteria must be evaluated by row
+	 */
+	protected BatchEvaluator getBatchEvaluator() {
+		return batchEvaluator;
+	}
+    
 	protected void getNodeString(StringBuffer str) {
 		super.getNodeString(str);
 		str.append(criteria);
@@ -140,6 +161,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 		target.elementMap = elementMap;
 		target.projectionIndexes = projectionIndexes;
 		target.projectedExpressions = projectedExpressions;
+		target.batchEvaluation = batchEvaluation;
 	}
     
     public PlanNode getDescriptionProperties() {   
@@ -51,6 +51,7 @@ public class SortNode extends RelationalNode {
     private boolean usingOutput;
     
     private int rowLimit = -1;
+    private int limit = -1;
 
     private static final int SORT = 2;
     private static final int OUTPUT = 3;
@@ -67,6 +68,18 @@ public class SortNode extends RelationalNode {
         outputTs = null;
         usingOutput = false;
         rowLimit = -1;
+        limit = -1;
+    }
+    
+    @Override
+    public void open() throws TeiidComponentException, TeiidProcessingException {
+    	super.open();
+    	if (getParent() instanceof LimitNode) {
+    		LimitNode parent = (LimitNode)getParent();
+    		if (parent.getLimit() > 0) {
+    			limit = (int)Math.min(Integer.MAX_VALUE, (long)parent.getLimit() + parent.getOffset());
+    		}
+    	}
     }
 
 	public void setSortElements(List<OrderByItem> items) {
@@ -108,6 +121,9 @@ public class SortNode extends RelationalNode {
 	        if (ts == null) {
 	        	this.sortUtility.setWorkingBuffer(working);
 	        }
+	        if (limit > 0) {
+	        	this.sortUtility.setLimit(limit);
+	        }
 		}
 		this.output = this.sortUtility.sort();
 		if (this.outputTs == null) {
@@ -200,7 +216,10 @@ public class SortNode extends RelationalNode {
     @Override
     public TupleBuffer getBuffer(int maxRows) throws BlockedException, TeiidComponentException, TeiidProcessingException {
     	this.rowLimit = maxRows;
-    	//TODO: push limiting into the sort logic
+    	if (this.sortUtility == null && maxRows > 0 && (this.limit <= 0 || maxRows < this.limit)) {
+    		//only the first maxRows rows are needed from the sort
+    		this.limit = maxRows;
+    	}
     	if (this.output == null) {
     		sortPhase();
     	}
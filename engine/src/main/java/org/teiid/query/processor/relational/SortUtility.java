@@ -27,6 +27,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.PriorityQueue;
 import java.util.TreeSet;
 
 import org.teiid.common.buffer.BlockedException;
@@ -52,6 +53,10 @@ import org.teiid.query.sql.symbol.Expression;
 /**
  * Implements several modes of a multi-pass sort.
  * 
+ * If a row limit is set and the rows fit in the memory reserve, a single pass
+ * top-n sort is performed instead using a bounded priority queue, or a bounded
+ * set when removing duplicates.
+ * 
  * TODO: could consider using an index for dup_removal and maintaining a separate output buffer
  * TODO: release the tuple buffer in the last merge pass if sublists will fit in processing batch size
  */
@@ -119,6 +124,15 @@ public class SortUtility {
 	private static boolean STABLE_SORT = PropertiesUtils.getBooleanProperty(System.getProperties(), "org.teiid.requireStableSort", false); //$NON-NLS-1$
 	
 	private boolean stableSort = STABLE_SORT;
+	
+	//top-n state
+	private int limit = -1;
+	private boolean topNChecked;
+	private boolean topN;
+	private TupleSource topNSource;
+	private PriorityQueue<List<?>> topNQueue;
+	private TreeSet<List<?>> topNSet;
+	private int topNReserved;
     
     public SortUtility(TupleSource sourceID, List<OrderByItem> items, Mode mode, BufferManager bufferMgr,
                         String groupName, List<? extends Expression> schema) {
@@ -199,7 +213,15 @@ public class SortUtility {
     	boolean success = false;
     	try {
 	        if(this.phase == INITIAL_SORT) {
-	            initialSort(false, false);
+	        	if (this.limit > 0 && !this.topNChecked) {
+	        		this.topNChecked = true;
+	        		this.topN = initTopN();
+	        	}
+	        	if (this.topN) {
+	        		topNSort();
+	        	} else {
+	        		initialSort(false, false);
+	        	}
 	        }
 	        
 	        if(this.phase == MERGE) {
@@ -395,6 +417,123 @@ public class SortUtility {
         this.phase = MERGE;
     }
 
+    /**
+     * Determine if a top-n sort can be used.  The estimated space for the limit
+     * rows must be reserved, otherwise the full sort is used.
+     */
+    private boolean initTopN() throws TeiidComponentException {
+    	if (this.stableSort && this.mode == Mode.SORT) {
+    		return false;
+    	}
+    	long memorySpaceNeeded = this.limit * (long)Math.max(1, this.schemaSize/this.batchSize);
+    	if (memorySpaceNeeded > Integer.MAX_VALUE) {
+    		return false;
+    	}
+    	this.topNReserved = bufferManager.reserveBuffers((int)memorySpaceNeeded, BufferReserveMode.NO_WAIT);
+    	if (this.topNReserved < memorySpaceNeeded) {
+    		bufferManager.releaseBuffers(this.topNReserved);
+    		this.topNReserved = 0;
+    		return false;
+    	}
+    	if (this.source != null) {
+    		this.topNSource = this.source;
+    	} else {
+    		this.topNSource = this.workingBuffer.createIndexedTupleSource();
+    	}
+    	if (this.mode == Mode.SORT) {
+    		this.topNQueue = new PriorityQueue<List<?>>(Math.min(this.limit, this.batchSize), Collections.reverseOrder(comparator));
+    	} else {
+    		this.topNSet = new TreeSet<List<?>>(comparator);
+    		if (this.mode == Mode.DUP_REMOVE) {
+    			//distinct rows are output as they are found
+    			this.output = createTupleBuffer();
+    			this.output.setForwardOnly(false);
+    		}
+    	}
+		if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+			LogManager.logDetail(LogConstants.CTX_DQP, "Using a top-n sort with limit", this.limit); //$NON-NLS-1$
+		}
+    	return true;
+    }
+    
+    /**
+     * Single pass sort retaining only the first limit rows.
+     * For {@link Mode#DUP_REMOVE} reading stops once the limit of distinct rows has been found.
+     */
+    protected void topNSort() throws TeiidComponentException, TeiidProcessingException {
+    	while (!doneReading) {
+    		List<?> tuple = null;
+    		try {
+    			tuple = topNSource.nextTuple();
+    		} catch (BlockedException e) {
+    			if (mode != Mode.DUP_REMOVE || this.output.getRowCount() <= this.processed) {
+    				throw e;
+    			}
+    			//return the new distinct rows
+    			this.processed = this.output.getRowCount();
+    			return;
+    		}
+    		if (tuple == null) {
+    			doneReading = true;
+    			break;
+    		}
+    		if (this.topNQueue != null) {
+    			if (this.topNQueue.size() < this.limit) {
+    				this.topNQueue.add(tuple);
+    			} else if (comparator.compare(tuple, this.topNQueue.peek()) < 0) {
+    				this.topNQueue.poll();
+    				this.topNQueue.add(tuple);
+    			}
+    		} else if (this.mode == Mode.DUP_REMOVE) {
+    			if (this.topNSet.add(tuple)) {
+    				this.output.addTuple(tuple);
+    				if (this.topNSet.size() == this.limit) {
+    					doneReading = true;
+    				}
+    			}
+    		} else if (this.topNSet.size() < this.limit) {
+    			this.topNSet.add(tuple);
+    		} else if (comparator.compare(tuple, this.topNSet.last()) < 0 && this.topNSet.add(tuple)) {
+    			this.topNSet.pollLast();
+    		}
+    	}
+    	if (this.output != null) {
+    		this.output.close();
+    	} else {
+    		TupleBuffer result = createTupleBuffer();
+    		if (this.topNQueue != null) {
+    			List<List<?>> tuples = new ArrayList<List<?>>(this.topNQueue);
+    			Collections.sort(tuples, comparator);
+    			for (List<?> list : tuples) {
+    				result.addTuple(list);
+    			}
+    		} else {
+    			for (List<?> list : this.topNSet) {
+    				result.addTuple(list);
+    			}
+    		}
+    		result.close();
+    		result.setForwardOnly(false);
+    		this.activeTupleBuffers.add(result);
+    	}
+    	releaseTopN();
+    	this.phase = DONE;
+    }
+    
+    private void releaseTopN() {
+    	this.topNQueue = null;
+    	this.topNSet = null;
+    	this.topNSource = null;
+    	if (this.workingBuffer != null) {
+			if (this.source != null) {
+				this.workingBuffer.remove();
+			}
+    		this.workingBuffer = null;
+		}
+    	bufferManager.releaseBuffers(this.topNReserved);
+    	this.topNReserved = 0;
+    }
+
     public void setWorkingBuffer(TupleBuffer workingBuffer) {
 		this.workingBuffer = workingBuffer;
 	}
@@ -553,6 +692,9 @@ public class SortUtility {
     }
 
 	public void remove() {
+		if (this.topN) {
+			releaseTopN();
+		}
 		if (workingBuffer != null && source != null) {
 			workingBuffer.remove();
 			workingBuffer = null;
@@ -587,5 +729,14 @@ public class SortUtility {
 	public boolean isDoneReading() {
 		return doneReading;
 	}
+	
+	/**
+	 * Set the number of rows needed from {@link #sort()}, which allows for a 
+	 * top-n sort.  Must be set prior to sorting.
+	 * @param limit the row limit or -1 for no limit
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
     
 }
@@ -22,7 +22,9 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.concurrent.Executor;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
@@ -31,9 +33,14 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.dqp.internal.process.RequestWorkItem;
+import org.teiid.dqp.service.TransactionContext;
+import org.teiid.dqp.service.TransactionContext.Scope;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 
 public class UnionAllNode extends RelationalNode {
@@ -45,6 +52,18 @@ public class UnionAllNode extends RelationalNode {
     private int outputRow = 1;
     private int reserved;
     private int schemaSize;
+    
+    //parallel state - guarded by this
+    private boolean parallel;
+    private int parallelism;
+    private int maxQueuedBatches;
+    private int queueReserved;
+    private ArrayDeque<TupleBatch> queue;
+    private ChildTask[] running;
+    private int runningCount;
+    private int pass;
+    private boolean closing;
+    private Throwable asynchException;
 	
 	public UnionAllNode(int nodeID) {
 		super(nodeID);
@@ -56,6 +75,12 @@ public class UnionAllNode extends RelationalNode {
         sourceDone = null;
         sourceOpen = null;
         outputRow = 1;   
+        parallel = false;
+        queue = null;
+        running = null;
+        runningCount = 0;
+        closing = false;
+        asynchException = null;
     }    
     
     @Override
@@ -122,13 +147,71 @@ public class UnionAllNode extends RelationalNode {
 		if (reserved == 0) {
         	reserved = getBufferManager().reserveBuffers((getChildCount()) * schemaSize, BufferReserveMode.FORCE);
         }
+		
+		boolean useParallel = useParallel();
+		if (useParallel) {
+			//each child subtree is processed by its own thread, so it gets its own context
+			RelationalNode[] children = getChildren();
+			for (int i = 0; i < getChildCount(); i++) {
+				setContext(children[i], getContext().cloneForThread());
+			}
+		}
     	
         // Open the children
         super.open();
+        
+        if (useParallel) {
+        	parallel = true;
+        	queue = new ArrayDeque<TupleBatch>(maxQueuedBatches);
+        	running = new ChildTask[getChildCount()];
+        	if (queueReserved == 0) {
+        		queueReserved = getBufferManager().reserveBuffers(maxQueuedBatches * schemaSize, BufferReserveMode.FORCE);
+        	}
+        }
+	}
+	
+	/**
+	 * Determine if the children should be processed concurrently.  Requires that 
+	 * parallelism is enabled and that there is no transaction - as the transaction 
+	 * is associated with the processing thread.
+	 */
+	private boolean useParallel() {
+		CommandContext context = getContext();
+		Options options = context.getOptions();
+		if (options == null || options.getUnionAllParallelism() < 2 || getChildCount() < 2) {
+			return false;
+		}
+		TransactionContext tc = context.getTransactionContext();
+		if (tc != null && tc.getTransactionType() != Scope.NONE) {
+			return false;
+		}
+		//limit the threads used by this request
+		parallelism = Math.min(options.getUnionAllParallelism(), getChildCount());
+		if (context.getUserRequestSourceConcurrency() > 0) {
+			parallelism = Math.min(parallelism, Math.max(2, context.getUserRequestSourceConcurrency()));
+		}
+		maxQueuedBatches = Math.max(1, options.getUnionAllParallelBatches());
+		return true;
+	}
+	
+	private static void setContext(RelationalNode node, CommandContext context) {
+		node.setContext(context);
+		RelationalNode[] children = node.getChildren();
+		for (int i = 0; i < node.getChildCount(); i++) {
+			setContext(children[i], context);
+		}
+	}
+	
+	boolean isParallel() {
+		return parallel;
 	}
 
     public TupleBatch nextBatchDirect() 
         throws BlockedException, TeiidComponentException, TeiidProcessingException {
+    	
+    	if (parallel) {
+    		return nextParallelBatch();
+    	}
 
         // Walk through all children and for each one that isn't done, try to retrieve a batch
         // When all sources are done, set the termination flag on that batch
@@ -222,8 +305,187 @@ public class UnionAllNode extends RelationalNode {
         return outputBatch;
     }    
     
+    /**
+     * Submit work for each open child up to the parallelism and return the next 
+     * queued batch.  The processing thread only drains the queue, each child is 
+     * processed by at most one task at a time.
+     */
+    private synchronized TupleBatch nextParallelBatch() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+		pass++;
+		checkAsynchException();
+		TupleBatch batch = queue.poll();
+		if (batch == null && !isDone()) {
+			submitChildren();
+			//a direct executor will have already run the tasks
+			checkAsynchException();
+			batch = queue.poll();
+		}
+		if (batch != null) {
+			TupleBatch outputBatch = new TupleBatch(outputRow, batch.getTuples());
+			outputBatch.setTerminationFlag(queue.isEmpty() && isDone());
+			outputRow += outputBatch.getRowCount();
+			if (!outputBatch.getTerminationFlag()) {
+				submitChildren();
+			}
+			return outputBatch;
+		}
+		if (isDone()) {
+			TupleBatch outputBatch = new TupleBatch(outputRow, Collections.EMPTY_LIST);
+            outputBatch.setTerminationFlag(true);
+            return outputBatch;
+		}
+		throw BlockedException.block(getContext().getRequestId(), "Blocking on parallel union sources.", getID()); //$NON-NLS-1$
+    }
+
+	private void checkAsynchException() throws TeiidComponentException, TeiidProcessingException {
+		if (asynchException == null) {
+			return;
+		}
+		if (asynchException instanceof TeiidComponentException) {
+			throw (TeiidComponentException)asynchException;
+		}
+		if (asynchException instanceof TeiidProcessingException) {
+			throw (TeiidProcessingException)asynchException;
+		}
+		if (asynchException instanceof RuntimeException) {
+			throw (RuntimeException)asynchException;
+		}
+		throw new TeiidComponentException(asynchException);
+	}
+
+	private boolean isDone() {
+		for (boolean done : sourceDone) {
+			if (!done) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void submitChildren() {
+		if (queue.size() >= maxQueuedBatches) {
+			return;
+		}
+		Executor executor = getContext().getExecutor();
+		RelationalNode[] children = getChildren();
+		for (int i = 0; i < getChildCount() && runningCount < parallelism; i++) {
+			if (sourceDone[i] || running[i] != null) {
+				continue;
+			}
+			ChildTask task = new ChildTask(children[i], i, pass);
+			running[i] = task;
+			runningCount++;
+			executor.execute(task);
+		}
+	}
+	
+	/**
+	 * Pulls batches from a single child until it is blocked, done, or the queue is full
+	 */
+	private class ChildTask implements Runnable {
+		private RelationalNode child;
+		private int index;
+		private int startPass;
+		//guarded by the node
+		private boolean started;
+		private boolean cancelled;
+		
+		public ChildTask(RelationalNode child, int index, int startPass) {
+			this.child = child;
+			this.index = index;
+			this.startPass = startPass;
+		}
+		
+		@Override
+		public void run() {
+			synchronized (UnionAllNode.this) {
+				if (cancelled) {
+					return;
+				}
+				started = true;
+			}
+			boolean blocked = false;
+			CommandContext.pushThreadLocalContext(child.getContext());
+			try {
+				while (true) {
+					synchronized (UnionAllNode.this) {
+						if (closing || asynchException != null || queue.size() >= maxQueuedBatches) {
+							break;
+						}
+					}
+					TupleBatch batch = child.nextBatch();
+					synchronized (UnionAllNode.this) {
+						if (batch.getRowCount() > 0) {
+							queue.add(batch);
+						}
+						if (batch.getTerminationFlag()) {
+							sourceDone[index] = true;
+							if (reserved > 0) {
+								getBufferManager().releaseBuffers(schemaSize);
+								reserved-=schemaSize;
+							}
+							break;
+						}
+					}
+				}
+			} catch (BlockedException e) {
+				blocked = e != BlockedException.BLOCKED_ON_MEMORY_EXCEPTION;
+			} catch (Throwable e) {
+				synchronized (UnionAllNode.this) {
+					asynchException = e;
+				}
+			} finally {
+				CommandContext.popThreadLocalContext();
+				boolean moreWork = true;
+				synchronized (UnionAllNode.this) {
+					//the source is responsible for signaling more work, unless 
+					//the processing thread has run while this task was active - 
+					//it would have skipped this child as running.  This must be 
+					//checked while clearing the running flag so that no pass can be missed
+					if (blocked) {
+						moreWork = pass != startPass;
+					}
+					running[index] = null;
+					runningCount--;
+					UnionAllNode.this.notifyAll();
+				}
+				RequestWorkItem workItem = getContext().getWorkItem();
+				if (moreWork && workItem != null) {
+					workItem.moreWork();
+				}
+			}
+		}
+	}
+    
     @Override
     public void closeDirect() {
+    	if (parallel) {
+	    	synchronized (this) {
+	    		closing = true;
+	    		//tasks that have not been run by the executor will not access their child
+	    		for (int i = 0; i < running.length; i++) {
+	    			ChildTask task = running[i];
+	    			if (task != null && !task.started) {
+	    				task.cancelled = true;
+	    				running[i] = null;
+	    				runningCount--;
+	    			}
+	    		}
+	    		//a started task stops before pulling its next batch, it must finish before the children are closed 
+	    		while (runningCount > 0) {
+	    			try {
+						this.wait();
+					} catch (InterruptedException e) {
+						throw new TeiidRuntimeException(e);
+					}
+	    		}
+	    		queue.clear();
+	    	}
+    	}
+    	if (queueReserved > 0) {
+    		getBufferManager().releaseBuffers(queueReserved);
+    		queueReserved = 0;
+    	}
     	if (reserved > 0) {
 	    	getBufferManager().releaseBuffers(reserved);
 	    	reserved = 0;
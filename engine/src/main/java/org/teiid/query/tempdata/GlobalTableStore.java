@@ -52,6 +52,14 @@ public interface GlobalTableStore {
 	Serializable getAddress();
 	
 	List<?> updateMatViewRow(String matTableName, List<?> tuple, boolean delete) throws TeiidComponentException;
+	
+	/**
+	 * Record a row change to a source table so that the dependent materialized views may be incrementally maintained.
+	 * @param tableName the upper case full name of the table
+	 * @param oldTuple the old values in table order, or null for an insert
+	 * @param newTuple the new values in table order, or null for a delete
+	 */
+	void rowModified(String tableName, List<?> oldTuple, List<?> newTuple);
 
 	TempTable createMatTable(String tableName, GroupSymbol group)
 	throws TeiidComponentException, QueryMetadataException, TeiidProcessingException;
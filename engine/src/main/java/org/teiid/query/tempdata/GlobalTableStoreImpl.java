@@ -45,6 +45,7 @@ import org.teiid.api.exception.query.QueryResolverException;
 import org.teiid.api.exception.query.QueryValidatorException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
@@ -100,6 +101,8 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		private long ttl = -1;
 		private boolean valid;
 		private boolean asynch; //sub state of loading
+		private boolean stale; //a source change could not be applied incrementally
+		private MatViewMaintenance maintenance;
 		private Map<RequestID, WeakReference<RequestWorkItem>> waiters = new HashMap<RequestID, WeakReference<RequestWorkItem>>(2);
 		
 		protected MatTableInfo() {}
@@ -128,6 +131,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			case LOADED:
 				if (!firstPass
 						|| refresh 
+						|| stale
 						|| ttl >= 0 && System.currentTimeMillis() - updateTime - ttl > 0) {
 					if (firstPass) {
 						setState(MatState.NEEDS_LOADING, null);
@@ -151,6 +155,11 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			}
 			this.state = state;
 			this.updateTime = System.currentTimeMillis();
+			if (state == MatState.LOADING) {
+				//the load will reflect any prior changes
+				this.stale = false;
+				this.maintenance = null;
+			}
 			for (WeakReference<RequestWorkItem> request : waiters.values()) {
 				RequestWorkItem workItem = request.get();
 				if (workItem != null) {
@@ -178,7 +187,7 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		}
 		
 		public synchronized boolean isUpToDate() {
-			return isValid() && (ttl < 0 || System.currentTimeMillis() - updateTime - ttl <= 0);
+			return isValid() && !stale && (ttl < 0 || System.currentTimeMillis() - updateTime - ttl <= 0);
 		}
 		
 		public synchronized boolean isValid() {
@@ -197,6 +206,46 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 			waiters.put(waiter.getRequestID(), new WeakReference<RequestWorkItem>(waiter));
 		}
 		
+		/**
+		 * Record a change to a source table.  If the change cannot be applied incrementally,
+		 * the table will be reloaded on next use.
+		 */
+		synchronized void rowModified(Object viewId, String tableName, List<?> oldTuple, List<?> newTuple) {
+			if (state != MatState.LOADED && state != MatState.LOADING) {
+				return;
+			}
+			try {
+				if (maintenance == null) {
+					maintenance = MatViewMaintenance.create(viewId, metadata);
+				}
+				if (!maintenance.references(tableName) || maintenance.addChange(tableName, oldTuple, newTuple)) {
+					return;
+				}
+			} catch (TeiidException e) {
+				//if the view cannot be analyzed, then we must assume that it references the table
+				LogManager.logDetail(LogConstants.CTX_MATVIEWS, e, "could not process the change to", tableName); //$NON-NLS-1$
+			} catch (RuntimeException e) {
+				LogManager.logDetail(LogConstants.CTX_MATVIEWS, e, "could not process the change to", tableName); //$NON-NLS-1$
+			}
+			setStale();
+		}
+		
+		synchronized void setStale() {
+			LogManager.logDetail(LogConstants.CTX_MATVIEWS, this, "marking as stale"); //$NON-NLS-1$
+			stale = true;
+			if (maintenance != null) {
+				maintenance.drain();
+			}
+		}
+		
+		synchronized boolean hasPendingChanges() {
+			return maintenance != null && maintenance.hasPendingChanges();
+		}
+		
+		synchronized MatViewMaintenance getMaintenance() {
+			return maintenance;
+		}
+		
 	}
 	
 	private ConcurrentHashMap<String, MatTableInfo> matTables = new ConcurrentHashMap<String, MatTableInfo>();
@@ -417,6 +466,17 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
 		return null;
 	}
 
+	@Override
+	public void rowModified(String tableName, List<?> oldTuple, List<?> newTuple) {
+		for (Map.Entry<String, MatTableInfo> entry : matTables.entrySet()) {
+			TempMetadataID id = tableStore.getMetadataStore().getTempGroupID(entry.getKey());
+			if (id == null || id.getOriginalMetadataID() == null) {
+				continue;
+			}
+			entry.getValue().rowModified(id.getOriginalMetadataID(), tableName, oldTuple, newTuple);
+		}
+	}
+
 	public TempTableStore getTempTableStore() {
 		return this.tableStore;
 	}
@@ -0,0 +1,503 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.tempdata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.language.SQLConstants;
+import org.teiid.language.SQLConstants.Reserved;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.processor.BatchCollector;
+import org.teiid.query.processor.QueryProcessor;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.UnaryFromClause;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.sql.util.SymbolMap;
+import org.teiid.query.sql.visitor.GroupCollectorVisitor;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Incremental maintenance of an internal materialized view from row changes to the 
+ * source tables referenced by the view definition.
+ * <br>
+ * Only a view with a primary key selecting directly from a single source table, without subqueries, 
+ * is maintained incrementally.  Views with joins, aggregation, set operations, or limits are not maintained - 
+ * a change to any table the view depends upon, including those referenced through nested views, 
+ * inline views, or subqueries, requires a full reload.
+ * <br>
+ * If the primary key of the view is projected from the changed table, the affected keys are
+ * taken directly from the changed rows.  Otherwise the affected keys are found by matching the
+ * columns projected from the changed table against the old values in the materialized table and 
+ * the new values in the view.  The affected rows are then refreshed from the view, 
+ * {@link #KEY_BATCH_SIZE} keys per query.
+ * <br>
+ * Changes to referenced tables that cannot be mapped in this way require a full reload.
+ */
+class MatViewMaintenance {
+	
+	static final int MAX_PENDING = PropertiesUtils.getIntProperty(System.getProperties(), "org.teiid.maxMatViewPendingChanges", 100000); //$NON-NLS-1$
+	
+	/**
+	 * The number of keys or lookups applied with a single view query
+	 */
+	static final int KEY_BATCH_SIZE = 256;
+	
+	static class Lookup {
+		int[] columns;
+		List<?> values;
+		boolean current;
+		
+		/**
+		 * @param columns the view column indexes
+		 * @param values
+		 * @param current true if the values should be matched against the view rather than the materialized table 
+		 */
+		Lookup(int[] columns, List<?> values, boolean current) {
+			this.columns = columns;
+			this.values = values;
+			this.current = current;
+		}
+	}
+	
+	static class Delta {
+		Set<List<?>> keys = new LinkedHashSet<List<?>>();
+		List<Lookup> lookups = new ArrayList<Lookup>();
+		
+		boolean isEmpty() {
+			return keys.isEmpty() && lookups.isEmpty();
+		}
+	}
+	
+	private Set<String> tables = new HashSet<String>();
+	private Map<String, int[]> mappings = new HashMap<String, int[]>();
+	private String viewName;
+	private String[] columnNames;
+	private Class<?>[] types;
+	private int[] pkColumns;
+	private int[] tableIndexes;
+	private Delta pending = new Delta();
+	private int pendingCount;
+	
+	/**
+	 * Analyze the view definition
+	 */
+	static MatViewMaintenance create(Object viewId, QueryMetadataInterface metadata) throws TeiidComponentException, TeiidProcessingException {
+		MatViewMaintenance result = new MatViewMaintenance();
+		result.viewName = metadata.getFullName(viewId);
+		Command command = resolveView(viewId, metadata);
+		List<String> referenced = new ArrayList<String>();
+		Set<Object> views = new HashSet<Object>();
+		views.add(viewId);
+		collectTables(command, metadata, referenced, views);
+		result.tables.addAll(referenced);
+		List<?> columnIds = metadata.getElementIDsInGroupID(viewId);
+		result.columnNames = new String[columnIds.size()];
+		result.types = new Class<?>[columnIds.size()];
+		for (int i = 0; i < result.columnNames.length; i++) {
+			Object id = columnIds.get(i);
+			result.columnNames[i] = metadata.getFullName(id);
+			result.types[i] = DataTypeManager.getDataTypeClass(metadata.getElementType(id));
+		}
+		Object pk = metadata.getPrimaryKey(viewId);
+		if (pk == null || !(command instanceof Query) || referenced.size() != 1) {
+			return result;
+		}
+		Query query = (Query)command;
+		if (query.getFrom() == null || query.getLimit() != null || query.getWith() != null 
+				|| query.getFrom().getClauses().size() != 1 || !(query.getFrom().getClauses().get(0) instanceof UnaryFromClause)) {
+			return result;
+		}
+		List<?> pkIds = metadata.getElementIDsInKey(pk);
+		result.pkColumns = new int[pkIds.size()];
+		//the materialized table has the key columns first
+		result.tableIndexes = new int[columnIds.size()];
+		Arrays.fill(result.tableIndexes, -1);
+		for (int i = 0; i < result.pkColumns.length; i++) {
+			result.pkColumns[i] = metadata.getPosition(pkIds.get(i)) - 1;
+			result.tableIndexes[result.pkColumns[i]] = i;
+		}
+		int index = result.pkColumns.length;
+		for (int i = 0; i < result.tableIndexes.length; i++) {
+			if (result.tableIndexes[i] == -1) {
+				result.tableIndexes[i] = index++;
+			}
+		}
+		List<GroupSymbol> fromGroups = query.getFrom().getGroups();
+		List<Expression> projected = query.getProjectedSymbols();
+		for (int i = 0; i < projected.size(); i++) {
+			Expression ex = SymbolMap.getExpression(projected.get(i));
+			if (!(ex instanceof ElementSymbol)) {
+				continue;
+			}
+			ElementSymbol es = (ElementSymbol)ex;
+			GroupSymbol gs = es.getGroupSymbol();
+			if (gs == null || !fromGroups.contains(gs) || !isSourceTable(gs, metadata)) {
+				continue;
+			}
+			String name = metadata.getFullName(gs.getMetadataID()).toUpperCase();
+			int[] mapping = result.mappings.get(name);
+			if (mapping == null) {
+				mapping = new int[projected.size()];
+				Arrays.fill(mapping, -1);
+				result.mappings.put(name, mapping);
+			}
+			mapping[i] = metadata.getPosition(es.getMetadataID()) - 1;
+		}
+		return result;
+	}
+
+	private static Command resolveView(Object viewId, QueryMetadataInterface metadata) throws TeiidComponentException, TeiidProcessingException {
+		GroupSymbol group = new GroupSymbol(metadata.getFullName(viewId));
+		group.setMetadataID(viewId);
+		return QueryResolver.resolveView(group, metadata.getVirtualPlan(viewId), SQLConstants.Reserved.SELECT, metadata).getCommand();
+	}
+	
+	/**
+	 * Collect the source tables the command depends upon, including those referenced through nested views.
+	 * A table is added for each reference.
+	 * @param views the views being expanded
+	 */
+	private static void collectTables(Command command, QueryMetadataInterface metadata, List<String> tables, Set<Object> views) throws TeiidComponentException, TeiidProcessingException {
+		for (GroupSymbol gs : GroupCollectorVisitor.getGroupsIgnoreInlineViews(command, false)) {
+			Object id = gs.getMetadataID();
+			if (id == null || id instanceof TempMetadataID || gs.isProcedure()) {
+				continue;
+			}
+			if (!metadata.isVirtualGroup(id)) {
+				tables.add(metadata.getFullName(id).toUpperCase());
+			} else if (views.add(id)) {
+				collectTables(resolveView(id, metadata), metadata, tables, views);
+				views.remove(id);
+			}
+		}
+	}
+
+	private static boolean isSourceTable(GroupSymbol gs, QueryMetadataInterface metadata) throws TeiidComponentException {
+		Object id = gs.getMetadataID();
+		return id != null && !(id instanceof TempMetadataID) && !metadata.isVirtualGroup(id);
+	}
+	
+	/**
+	 * @param tableName the upper case full name of the source table
+	 * @return true if the view definition references the table
+	 */
+	boolean references(String tableName) {
+		return tables.contains(tableName);
+	}
+	
+	/**
+	 * Record a change to the source table.
+	 * @param tableName the upper case full name of the source table
+	 * @param oldTuple the old row values in table order or null for an insert
+	 * @param newTuple the new row values in table order or null for a delete
+	 * @return false if the change cannot be applied incrementally 
+	 */
+	synchronized boolean addChange(String tableName, List<?> oldTuple, List<?> newTuple) throws TeiidProcessingException {
+		int[] mapping = mappings.get(tableName);
+		if (mapping == null) {
+			return false;
+		}
+		boolean direct = true;
+		for (int col : pkColumns) {
+			if (mapping[col] == -1) {
+				direct = false;
+				break;
+			}
+		}
+		if (direct) {
+			addKey(project(mapping, pkColumns, oldTuple));
+			addKey(project(mapping, pkColumns, newTuple));
+		} else {
+			int count = 0;
+			for (int i = 0; i < mapping.length; i++) {
+				if (mapping[i] != -1) {
+					count++;
+				}
+			}
+			int[] columns = new int[count];
+			count = 0;
+			for (int i = 0; i < mapping.length; i++) {
+				if (mapping[i] != -1) {
+					columns[count++] = i;
+				}
+			}
+			if (oldTuple != null) {
+				pending.lookups.add(new Lookup(columns, project(mapping, columns, oldTuple), false));
+				pendingCount++;
+			}
+			if (newTuple != null) {
+				pending.lookups.add(new Lookup(columns, project(mapping, columns, newTuple), true));
+				pendingCount++;
+			}
+		}
+		return pendingCount <= MAX_PENDING;
+	}
+	
+	private void addKey(List<?> key) {
+		if (key != null && !key.contains(null) && pending.keys.add(key)) {
+			pendingCount++;
+		}
+	}
+	
+	private List<?> project(int[] mapping, int[] columns, List<?> tuple) throws TeiidProcessingException {
+		if (tuple == null) {
+			return null;
+		}
+		List<Object> result = new ArrayList<Object>(columns.length);
+		for (int col : columns) {
+			int index = mapping[col];
+			if (index >= tuple.size()) {
+				throw new IllegalArgumentException(String.valueOf(tuple));
+			}
+			result.add(DataTypeManager.transformValue(tuple.get(index), types[col]));
+		}
+		return result;
+	}
+	
+	synchronized boolean hasPendingChanges() {
+		return !pending.isEmpty();
+	}
+	
+	/**
+	 * Remove and return the pending changes
+	 */
+	synchronized Delta drain() {
+		Delta result = pending;
+		pending = new Delta();
+		pendingCount = 0;
+		return result;
+	}
+	
+	/**
+	 * Create a {@link TupleSource} that applies the delta to the materialized table and 
+	 * returns null when complete.  It may be called repeatedly if a {@link org.teiid.common.buffer.BlockedException} is thrown.
+	 */
+	TupleSource createDeltaTupleSource(final CommandContext context, final GlobalTableStore globalStore, final String matTableName, final Delta delta) {
+		return new TupleSource() {
+			Iterator<Lookup> lookups = delta.lookups.iterator();
+			Iterator<List<?>> keys;
+			Set<List<?>> batch;
+			QueryProcessor qp;
+			TupleSource ts;
+			
+			@Override
+			public List<?> nextTuple() throws TeiidComponentException,
+					TeiidProcessingException {
+				//find the affected keys
+				while (keys == null) {
+					if (ts == null) {
+						//the lookups of the single table share the same columns
+						int[] columns = null;
+						List<List<?>> values = new ArrayList<List<?>>();
+						while (values.size() < KEY_BATCH_SIZE && lookups.hasNext()) {
+							Lookup lookup = lookups.next();
+							if (!lookup.current) {
+								addMatTableKeys(lookup);
+								continue;
+							}
+							columns = lookup.columns;
+							values.add(lookup.values);
+						}
+						if (values.isEmpty()) {
+							keys = delta.keys.iterator();
+							break;
+						}
+						open(columns, values, true);
+					}
+					List<?> tuple = null;
+					while ((tuple = ts.nextTuple()) != null) {
+						delta.keys.add(new ArrayList<Object>(tuple));
+					}
+					closeSource();
+				}
+				//refresh the rows a batch of keys at a time
+				while (true) {
+					if (ts == null) {
+						if (!keys.hasNext()) {
+							return null;
+						}
+						batch = new LinkedHashSet<List<?>>();
+						while (batch.size() < KEY_BATCH_SIZE && keys.hasNext()) {
+							batch.add(keys.next());
+						}
+						open(pkColumns, new ArrayList<List<?>>(batch), false);
+					}
+					List<?> tuple = null;
+					while ((tuple = ts.nextTuple()) != null) {
+						List<Object> row = new ArrayList<Object>(tuple.size());
+						for (int col : pkColumns) {
+							row.add(tuple.get(col));
+						}
+						batch.remove(row);
+						for (int i = 0; i < tuple.size(); i++) {
+							if (tableIndexes[i] >= pkColumns.length) {
+								row.add(tuple.get(i));
+							}
+						}
+						globalStore.updateMatViewRow(matTableName, row, false);
+					}
+					//the remaining keys no longer exist in the view
+					for (List<?> key : batch) {
+						globalStore.updateMatViewRow(matTableName, key, true);
+					}
+					batch = null;
+					closeSource();
+				}
+			}
+			
+			private void addMatTableKeys(Lookup lookup) throws TeiidComponentException, TeiidProcessingException {
+				TempTable table = globalStore.getTempTable(matTableName);
+				if (table == null) {
+					return;
+				}
+				List<ElementSymbol> columns = table.getColumns();
+				Criteria crit = null;
+				for (int i = 0; i < lookup.columns.length; i++) {
+					ElementSymbol es = columns.get(tableIndexes[lookup.columns[i]]);
+					Object value = lookup.values.get(i);
+					if (value == null) {
+						crit = Criteria.combineCriteria(crit, new IsNullCriteria(es));
+					} else {
+						crit = Criteria.combineCriteria(crit, new CompareCriteria(es, CompareCriteria.EQ, new Constant(value, types[lookup.columns[i]])));
+					}
+				}
+				TupleSource keySource = table.createTupleSource(columns.subList(0, pkColumns.length), crit, null);
+				try {
+					List<?> tuple = null;
+					while ((tuple = keySource.nextTuple()) != null) {
+						delta.keys.add(new ArrayList<Object>(tuple));
+					}
+				} finally {
+					keySource.closeSource();
+				}
+			}
+			
+			/**
+			 * Query the view for the rows matching any of the value rows
+			 */
+			private void open(int[] columns, List<List<?>> values, boolean keysOnly) throws TeiidProcessingException, TeiidComponentException {
+				StringBuilder sql = new StringBuilder();
+				sql.append(Reserved.SELECT).append(' ');
+				if (keysOnly) {
+					for (int i = 0; i < pkColumns.length; i++) {
+						if (i > 0) {
+							sql.append(", "); //$NON-NLS-1$
+						}
+						sql.append(columnNames[pkColumns[i]]);
+					}
+				} else {
+					sql.append('*');
+				}
+				sql.append(' ').append(Reserved.FROM).append(' ').append(viewName).append(' ').append(Reserved.WHERE).append(' ');
+				List<Object> params = new ArrayList<Object>(columns.length * values.size());
+				if (columns.length == 1) {
+					String column = columnNames[columns[0]];
+					boolean hasNull = false;
+					for (List<?> row : values) {
+						Object value = row.get(0);
+						if (value == null) {
+							hasNull = true;
+						} else {
+							sql.append(params.isEmpty()?column + ' ' + Reserved.IN + " (":", ").append('?'); //$NON-NLS-1$ //$NON-NLS-2$
+							params.add(value);
+						}
+					}
+					if (!params.isEmpty()) {
+						sql.append(')');
+					}
+					if (hasNull) {
+						if (!params.isEmpty()) {
+							sql.append(' ').append(Reserved.OR).append(' ');
+						}
+						sql.append(column).append(' ').append(Reserved.IS).append(' ').append(Reserved.NULL);
+					}
+				} else {
+					for (int j = 0; j < values.size(); j++) {
+						if (j > 0) {
+							sql.append(' ').append(Reserved.OR).append(' ');
+						}
+						sql.append('(');
+						List<?> row = values.get(j);
+						for (int i = 0; i < columns.length; i++) {
+							if (i > 0) {
+								sql.append(' ').append(Reserved.AND).append(' ');
+							}
+							sql.append(columnNames[columns[i]]);
+							Object value = row.get(i);
+							if (value == null) {
+								sql.append(' ').append(Reserved.IS).append(' ').append(Reserved.NULL);
+							} else {
+								sql.append(" = ?"); //$NON-NLS-1$
+								params.add(value);
+							}
+						}
+						sql.append(')');
+					}
+				}
+				sql.append(' ').append(Reserved.OPTION).append(' ').append(Reserved.NOCACHE);
+				qp = context.getQueryProcessorFactory().createQueryProcessor(sql.toString(), viewName.toUpperCase(), context, params.toArray());
+				ts = new BatchCollector.BatchProducerTupleSource(qp);
+			}
+			
+			@Override
+			public void closeSource() {
+				if (ts != null) {
+					ts.closeSource();
+					ts = null;
+				}
+				if (qp != null) {
+					qp.closeProcessing();
+					qp = null;
+				}
+			}
+		};
+	}
+	
+	int getColumnCount() {
+		return columnNames.length;
+	}
+	
+}
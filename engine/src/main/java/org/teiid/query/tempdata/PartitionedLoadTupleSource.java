@@ -0,0 +1,212 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.tempdata;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.language.SQLConstants.NonReserved;
+import org.teiid.language.SQLConstants.Reserved;
+import org.teiid.language.SQLConstants.Tokens;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.processor.BatchCollector;
+import org.teiid.query.processor.QueryProcessor;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Loads an internal materialized view with several concurrent queries, each restricted to
+ * a range of an integral partition column.
+ * <br>
+ * The bounds are determined first with a min/max query.  The resulting source queries are 
+ * then consumed round-robin - while one is blocked waiting on its source the others are 
+ * read, so that the source work proceeds in parallel.
+ */
+class PartitionedLoadTupleSource implements TupleSource {
+	
+	private CommandContext context;
+	private String viewName;
+	private String columnName;
+	private Class<?> columnType;
+	private int partitions;
+	
+	private QueryProcessor boundsProcessor;
+	private TupleSource boundsSource;
+	private List<QueryProcessor> processors;
+	private List<TupleSource> sources;
+	private int current;
+	private Determinism determinism = Determinism.DETERMINISTIC;
+	
+	PartitionedLoadTupleSource(CommandContext context, String viewName, String columnName, Class<?> columnType, int partitions) {
+		this.context = context;
+		this.viewName = viewName;
+		this.columnName = columnName;
+		this.columnType = columnType;
+		this.partitions = partitions;
+	}
+	
+	static boolean isPartitionable(Class<?> type) {
+		return type == DataTypeManager.DefaultDataClasses.INTEGER 
+				|| type == DataTypeManager.DefaultDataClasses.LONG
+				|| type == DataTypeManager.DefaultDataClasses.SHORT
+				|| type == DataTypeManager.DefaultDataClasses.BYTE
+				|| type == DataTypeManager.DefaultDataClasses.BIG_INTEGER;
+	}
+	
+	@Override
+	public List<?> nextTuple() throws TeiidComponentException,
+			TeiidProcessingException {
+		if (sources == null) {
+			if (boundsSource == null) {
+				String sql = Reserved.SELECT + ' ' + NonReserved.MIN + '(' + columnName + "), " + NonReserved.MAX + '(' + columnName + ") " + Reserved.FROM + ' ' + viewName + ' ' + Reserved.OPTION + ' ' + Reserved.NOCACHE; //$NON-NLS-1$ //$NON-NLS-2$
+				boundsProcessor = context.getQueryProcessorFactory().createQueryProcessor(sql, viewName.toUpperCase(), context);
+				boundsSource = new BatchCollector.BatchProducerTupleSource(boundsProcessor);
+			}
+			List<?> bounds = boundsSource.nextTuple();
+			updateDeterminism(boundsProcessor);
+			boundsProcessor.closeProcessing();
+			openPartitions(bounds);
+		}
+		int blocked = 0;
+		while (!sources.isEmpty()) {
+			if (current >= sources.size()) {
+				current = 0;
+			}
+			try {
+				List<?> tuple = sources.get(current).nextTuple();
+				if (tuple != null) {
+					return tuple;
+				}
+				QueryProcessor qp = processors.remove(current);
+				sources.remove(current);
+				updateDeterminism(qp);
+				qp.closeProcessing();
+				blocked = 0;
+			} catch (BlockedException e) {
+				if (++blocked >= sources.size()) {
+					throw e;
+				}
+				current++;
+			}
+		}
+		return null;
+	}
+	
+	private void openPartitions(List<?> bounds) throws TeiidProcessingException, TeiidComponentException {
+		processors = new ArrayList<QueryProcessor>();
+		sources = new ArrayList<TupleSource>();
+		BigInteger min = null;
+		BigInteger max = null;
+		if (bounds != null && bounds.get(0) != null) {
+			min = (BigInteger)DataTypeManager.transformValue(bounds.get(0), DataTypeManager.DefaultDataClasses.BIG_INTEGER);
+			max = (BigInteger)DataTypeManager.transformValue(bounds.get(1), DataTypeManager.DefaultDataClasses.BIG_INTEGER);
+		}
+		if (min == null) {
+			open(null, null, false);
+			return;
+		}
+		BigInteger span = max.subtract(min).add(BigInteger.ONE);
+		BigInteger count = BigInteger.valueOf(partitions).min(span);
+		int n = count.intValue();
+		LogManager.logDetail(LogConstants.CTX_MATVIEWS, "Loading", viewName, "with", n, "partitions on", columnName, "from", min, "to", max); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		//the first and last partitions are open ended so that all rows are loaded even if the bounds have since changed
+		Object lower = null;
+		for (int i = 1; i <= n; i++) {
+			Object upper = null;
+			if (i < n) {
+				upper = DataTypeManager.transformValue(min.add(span.multiply(BigInteger.valueOf(i)).divide(count)), columnType);
+			}
+			open(lower, upper, false);
+			lower = upper;
+		}
+		open(null, null, true);
+	}
+	
+	private void open(Object lower, Object upper, boolean nulls) throws TeiidProcessingException, TeiidComponentException {
+		StringBuilder sql = new StringBuilder();
+		sql.append(Reserved.SELECT).append(" * ").append(Reserved.FROM).append(' ').append(viewName); //$NON-NLS-1$
+		List<Object> params = new ArrayList<Object>(2);
+		if (nulls) {
+			sql.append(' ').append(Reserved.WHERE).append(' ').append(columnName).append(' ').append(Reserved.IS).append(' ').append(Reserved.NULL);
+		} else if (lower != null || upper != null) {
+			sql.append(' ').append(Reserved.WHERE).append(' ');
+			if (lower != null) {
+				sql.append(columnName).append(' ').append(Tokens.GE).append(" ?"); //$NON-NLS-1$
+				params.add(lower);
+			}
+			if (upper != null) {
+				if (lower != null) {
+					sql.append(' ').append(Reserved.AND).append(' ');
+				}
+				sql.append(columnName).append(' ').append(Tokens.LT).append(" ?"); //$NON-NLS-1$
+				params.add(upper);
+			}
+		}
+		sql.append(' ').append(Reserved.OPTION).append(' ').append(Reserved.NOCACHE);
+		QueryProcessor qp = context.getQueryProcessorFactory().createQueryProcessor(sql.toString(), viewName.toUpperCase(), context, params.toArray());
+		processors.add(qp);
+		sources.add(new BatchCollector.BatchProducerTupleSource(qp));
+	}
+	
+	private void updateDeterminism(QueryProcessor qp) {
+		Determinism d = qp.getContext().getDeterminismLevel();
+		if (d != null && d.compareTo(determinism) < 0) {
+			determinism = d;
+		}
+	}
+	
+	/**
+	 * @return the least determinism level of the queries used for the load
+	 */
+	Determinism getDeterminismLevel() {
+		if (processors != null) {
+			for (QueryProcessor qp : processors) {
+				updateDeterminism(qp);
+			}
+		}
+		return determinism;
+	}
+	
+	@Override
+	public void closeSource() {
+		if (boundsProcessor != null) {
+			boundsProcessor.closeProcessing();
+		}
+		if (processors != null) {
+			for (QueryProcessor qp : processors) {
+				qp.closeProcessing();
+			}
+			processors.clear();
+			sources.clear();
+		}
+	}
+
+}
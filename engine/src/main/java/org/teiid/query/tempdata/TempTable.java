@@ -87,23 +87,37 @@ public class TempTable implements Cloneable, SearchableTable {
 		private boolean addRowId;
 		private int[] indexes;
 		private GeneratedKeysImpl keys;
+		private boolean bulk;
 		
 		private InsertUpdateProcessor(TupleSource ts, boolean addRowId, int[] indexes, boolean canUndo)
 				throws TeiidComponentException {
 			super(null, ts, canUndo);
 			this.addRowId = addRowId;
 			this.indexes = indexes;
+			//appends to an empty tree or a rowid key can be bulk loaded until an out of order tuple is seen
+			this.bulk = !canUndo && (addRowId || tree.getRowCount() == 0 || bulkAppend);
+			bulkAppend = false;
 		}
 		
 		@Override
 		int process() throws ExpressionEvaluationException,
 				TeiidComponentException, TeiidProcessingException {
 			tree.setBatchInsert(addRowId);
-			return super.process();
+			if (bulk) {
+				tree.startBulkLoad();
+			}
+			try {
+				return super.process();
+			} catch (BlockedException e) {
+				//allow the next insert to resume appending
+				bulkAppend = bulk;
+				throw e;
+			}
 		}
 		
 		@Override
 		protected void afterCompletion() throws TeiidComponentException {
+			tree.finishBulkLoad();
 			tree.setBatchInsert(false);
 		}
 		
@@ -147,7 +161,15 @@ public class TempTable implements Cloneable, SearchableTable {
 					 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30236, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30236, columns.get(i)));
 				}
 			}
-			insertTuple(tuple, addRowId);
+			if (bulk) {
+				if (!tree.bulkAdd(tuple)) {
+					tree.finishBulkLoad();
+					bulk = false;
+					insertTuple(tuple, addRowId);
+				}
+			} else {
+				insertTuple(tuple, addRowId);
+			}
 			if (generatedKey != null) {
 				this.keys.addKey(generatedKey);
 			}
@@ -316,6 +338,12 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	private static AtomicLong ID_GENERATOR = new AtomicLong();
 	
+	/**
+	 * The serialized form version that added index include columns.  It is written as a negative
+	 * value ahead of the index count so that the prior form, which has a non-negative count, can still be read.
+	 */
+	private static final int INCLUDE_COLUMNS_VERSION = 1;
+	
 	private Long id = ID_GENERATOR.getAndIncrement();
 	private STree tree;
 	private AtomicInteger rowId;
@@ -334,6 +362,7 @@ public class TempTable implements Cloneable, SearchableTable {
 	private int[] notNull;
 	private Map<Integer, AtomicInteger> sequences;
 	private int uniqueColIndex;
+	private boolean bulkAppend;
 	
 	private AtomicInteger activeReaders = new AtomicInteger();
 
@@ -407,18 +436,35 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 	
 	void addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
+		addIndex(indexColumns, Collections.<ElementSymbol>emptyList(), unique);
+	}
+	
+	/**
+	 * Add a secondary index.  The include columns are stored in the index, but are not part
+	 * of the key, so that queries projecting only index, primary key, and include columns 
+	 * can be answered without accessing the primary tree.
+	 */
+	void addIndex(List<ElementSymbol> indexColumns, List<ElementSymbol> includeColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
 		List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
 		if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
 			return;
 		}
-		TempTable indexTable = createIndexTable(indexColumns, unique);
-		//TODO: ordered insert optimization
-		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
+		TempTable indexTable = createIndexTable(indexColumns, includeColumns, unique);
+		//read from the primary tree, since the new index is already registered and the unsorted load relies on pk order
+		TupleSource ts = createTupleSource(indexTable.getColumns(), null, null, new IndexInfo(this, indexTable.getColumns(), null, null, true), false);
+		if (indexColumns.size() > keyColumns.size() || !keyColumns.subList(0, indexColumns.size()).equals(indexColumns)) {
+			//sort into index order so that the index tree can be bulk loaded
+			List<ElementSymbol> indexKey = indexTable.getColumns().subList(0, indexTable.getTree().getKeyLength());
+			SortUtility sort = new SortUtility(ts, indexKey, Collections.nCopies(indexKey.size(), OrderBy.ASC), Mode.SORT, bm, sessionID, indexTable.getColumns());
+			sort.setNonBlocking(true);
+			TupleBuffer tb = sort.sort();
+			ts = tb.createIndexedTupleSource(true);
+		}
 		indexTable.insert(ts, indexTable.getColumns(), false, null);
 		indexTable.getTree().compact();
 	}
 
-	private TempTable createIndexTable(List<ElementSymbol> indexColumns,
+	private TempTable createIndexTable(List<ElementSymbol> indexColumns, List<ElementSymbol> includeColumns,
 			boolean unique) {
 		List<ElementSymbol> allColumns = new ArrayList<ElementSymbol>(indexColumns);
 		for (ElementSymbol elementSymbol : columns.subList(0, tree.getKeyLength())) {
@@ -426,7 +472,13 @@ public class TempTable implements Cloneable, SearchableTable {
 				allColumns.add(elementSymbol);
 			}
 		}
-		TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, allColumns.size(), this.sessionID); //$NON-NLS-1$
+		int keyLength = allColumns.size();
+		for (ElementSymbol elementSymbol : includeColumns) {
+			if (allColumns.indexOf(elementSymbol) < 0) {
+				allColumns.add(elementSymbol);
+			}
+		}
+		TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, keyLength, this.sessionID); //$NON-NLS-1$
 		indexTable.setPreferMemory(this.tree.isPreferMemory());
 		indexTable.lock = this.lock;
 		if (unique) {
@@ -434,8 +486,8 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		if (indexTables == null) {
 			indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-			indexTables.put(indexColumns, indexTable);
 		}
+		indexTables.put(indexColumns, indexTable);
 		indexTable.setUpdatable(this.updatable);
 		return indexTable;
 	}
@@ -462,7 +514,8 @@ public class TempTable implements Cloneable, SearchableTable {
 		}
 		IndexInfo primary = new IndexInfo(this, projectedCols, condition, orderBy, true);
 		IndexInfo ii = primary;
-		if (indexTables != null && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
+		//without a condition or ordering a narrower covering index may still be cheaper to scan
+		if (indexTables != null && ii.valueSet.size() != 1) {
 			LogManager.logDetail(LogConstants.CTX_DQP, "Considering indexes on table", this, "for query", projectedCols, condition, orderBy); //$NON-NLS-1$ //$NON-NLS-2$
 			int rowCost = this.tree.getRowCount();
 			long bestCost = estimateCost(orderBy, ii, rowCost);
@@ -546,11 +599,11 @@ public class TempTable implements Cloneable, SearchableTable {
 	}
 
 	/**
-	 * TODO: this could easily use statistics - the tree level 1 would be an ideal place
-	 * to compute them, since it minimizes page loads, and is a random sample.
+	 * Estimate the cost of using the index.  Point lookups on partial keys use the distinct 
+	 * counts and ranges use the first index level as a sample when available.
 	 * TODO: this should also factor in the block size
 	 */
-	private long estimateCost(OrderBy orderBy, IndexInfo ii, long rowCost) {
+	private long estimateCost(OrderBy orderBy, IndexInfo ii, long rowCost) throws TeiidComponentException {
 		long initialCost = rowCost;
 		long additionalCost = 0;
 		if (ii.valueSet.size() != 0) {
@@ -558,18 +611,29 @@ public class TempTable implements Cloneable, SearchableTable {
 			rowCost = ii.valueSet.size();
 			additionalCost = rowCost * (64 - Long.numberOfLeadingZeros(initialCost - 1));
 			if (ii.table.uniqueColIndex != length) {
-				rowCost *= 3*(ii.table.uniqueColIndex - length);
+				int distinct = ii.table.tree.getDistinctCount(length);
+				if (distinct > 0) {
+					rowCost *= Math.max(1, initialCost/distinct);
+				} else {
+					rowCost *= 3*(ii.table.uniqueColIndex - length);
+				}
 			}
 			if (rowCost > initialCost) {
 				additionalCost = rowCost - initialCost;
 				rowCost = initialCost;
 			}
-		} else if (ii.upper != null) {
+		} else if (ii.upper != null || ii.lower != null) {
 			additionalCost = (64 - Long.numberOfLeadingZeros(initialCost - 1));
-			rowCost /= 3;
-		} else if (ii.lower != null) {
-			additionalCost = (64 - Long.numberOfLeadingZeros(initialCost - 1));
-			rowCost /= 3;
+			float selectivity = ii.table.tree.estimateSelectivity(ii.lower, ii.upper);
+			if (selectivity >= 0) {
+				rowCost = Math.max(1, (long)Math.ceil(rowCost * selectivity));
+			} else {
+				rowCost /= 3;
+			}
+		}
+		if (ii.covering && ii.table != this) {
+			//scanning a covering index reads fewer columns than the base table
+			rowCost = Math.max(1, rowCost * ii.table.columns.size() / this.columns.size());
 		}
 		if (rowCost > 1 && (!ii.covering || (orderBy != null && ii.ordering == null))) {
 			//pk order or non-covered ordering
@@ -802,14 +866,21 @@ public class TempTable implements Cloneable, SearchableTable {
 			if (this.indexTables == null) {
 				oos.writeInt(0);
 			} else {
+				oos.writeInt(-INCLUDE_COLUMNS_VERSION);
 				oos.writeInt(this.indexTables.size());
 				for (Map.Entry<List<ElementSymbol>, TempTable> entry : this.indexTables.entrySet()) {
-					oos.writeBoolean(entry.getValue().uniqueColIndex > 0);
+					TempTable index = entry.getValue();
+					oos.writeBoolean(index.uniqueColIndex < index.tree.getKeyLength());
 					oos.writeInt(entry.getKey().size());
 					for (ElementSymbol es : entry.getKey()) {
 						oos.writeInt(this.columnMap.get(es));
 					}
-					entry.getValue().writeTo(oos);
+					List<ElementSymbol> includeColumns = index.columns.subList(index.tree.getKeyLength(), index.columns.size());
+					oos.writeInt(includeColumns.size());
+					for (ElementSymbol es : includeColumns) {
+						oos.writeInt(this.columnMap.get(es));
+					}
+					index.writeTo(oos);
 				}
 			}
 		} finally {
@@ -820,6 +891,14 @@ public class TempTable implements Cloneable, SearchableTable {
 	void readFrom(ObjectInputStream ois) throws TeiidComponentException, IOException, ClassNotFoundException {
 		this.tree.readValuesFrom(ois);
 		int numIdx = ois.readInt();
+		int version = 0;
+		if (numIdx < 0) {
+			version = -numIdx;
+			if (version > INCLUDE_COLUMNS_VERSION) {
+				throw new IOException("Unknown temp table serialization version " + version); //$NON-NLS-1$
+			}
+			numIdx = ois.readInt();
+		}
 		for (int i = 0; i < numIdx; i++) {
 			boolean unique = ois.readBoolean();
 			int numCols = ois.readInt();
@@ -828,7 +907,15 @@ public class TempTable implements Cloneable, SearchableTable {
 				int colIndex = ois.readInt();
 				indexColumns.add(this.columns.get(colIndex));
 			}
-			TempTable tt = this.createIndexTable(indexColumns, unique);
+			List<ElementSymbol> includeColumns = Collections.emptyList();
+			if (version >= INCLUDE_COLUMNS_VERSION) {
+				int numInclude = ois.readInt();
+				includeColumns = new ArrayList<ElementSymbol>(numInclude);
+				for (int j = 0; j < numInclude; j++) {
+					includeColumns.add(this.columns.get(ois.readInt()));
+				}
+			}
+			TempTable tt = this.createIndexTable(indexColumns, includeColumns, unique);
 			tt.readFrom(ois);
 		}
 	}
@@ -843,8 +930,7 @@ public class TempTable implements Cloneable, SearchableTable {
 				}
 				if (indexTables != null) {
 					for (TempTable index : this.indexTables.values()) {
-						tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), result);
-						index.tree.remove(tuple);
+						index.tree.remove(RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(columnMap, index.columns), result));
 					}
 				}
 				tid.getTableData().dataModified(1);
@@ -853,8 +939,12 @@ public class TempTable implements Cloneable, SearchableTable {
 			List<?> result = tree.insert(tuple, InsertMode.UPDATE, -1);
 			if (indexTables != null) {
 				for (TempTable index : this.indexTables.values()) {
-					tuple = RelationalNode.projectTuple(RelationalNode.getProjectionIndexes(index.getColumnMap(), index.columns), tuple);
-					index.tree.insert(tuple, InsertMode.UPDATE, -1);
+					int[] projection = RelationalNode.getProjectionIndexes(columnMap, index.columns);
+					if (result != null) {
+						//the index key may have changed
+						index.tree.remove(RelationalNode.projectTuple(projection, result));
+					}
+					index.tree.insert(RelationalNode.projectTuple(projection, tuple), InsertMode.UPDATE, -1);
 				}
 			}
 			tid.getTableData().dataModified(1);
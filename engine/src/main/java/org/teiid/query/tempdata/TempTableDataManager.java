@@ -45,6 +45,7 @@ import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.CoreConstants;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.ArrayImpl;
@@ -65,6 +66,7 @@ import org.teiid.logging.LogManager;
 import org.teiid.metadata.FunctionMethod.Determinism;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.metadata.MaterializationMetadataRepository;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -477,6 +479,7 @@ public class TempTableDataManager implements ProcessorDataManager {
 			return new ProxyTupleSource() {
 				Future<Void> moreWork = null;
 				TupleSource loadingTupleSource;
+				TupleSource deltaTupleSource;
 				DQPWorkContext newWorkContext;
 
 				@Override
@@ -486,6 +489,15 @@ public class TempTableDataManager implements ProcessorDataManager {
 					if (loadingTupleSource != null) {
 						load();
 					} else {
+						if (deltaTupleSource == null && info.hasPendingChanges()) {
+							MatViewMaintenance maintenance = info.getMaintenance();
+							TempTable table = globalStore.getTempTable(tableName);
+							if (maintenance != null && table != null && table.isUpdatable() && table.getColumns().size() == maintenance.getColumnCount()) {
+								deltaTupleSource = maintenance.createDeltaTupleSource(context, globalStore, tableName, maintenance.drain());
+							} else {
+								info.setStale();
+							}
+						}
 						boolean load = false;
 						if (!info.isUpToDate()) {
 							boolean invalidate = true;
@@ -533,6 +545,9 @@ public class TempTableDataManager implements ProcessorDataManager {
 							} 
 						}
 					}
+					if (deltaTupleSource != null) {
+						applyDelta();
+					}
 					TempTable table = globalStore.getTempTable(tableName);
 					context.accessedDataObject(group.getMetadataID());
 					TupleSource result = table.createTupleSource(query.getProjectedSymbols(), query.getCriteria(), query.getOrderBy());
@@ -559,6 +574,23 @@ public class TempTableDataManager implements ProcessorDataManager {
 					}
 				}
 
+				private void applyDelta() throws TeiidComponentException,
+						TeiidProcessingException {
+					try {
+						deltaTupleSource.nextTuple();
+					} catch (BlockedException e) {
+						throw e;
+					} catch (TeiidException e) {
+						LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31155, tableName));
+						info.setStale();
+					} catch (RuntimeException e) {
+						LogManager.logWarning(LogConstants.CTX_MATVIEWS, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31155, tableName));
+						info.setStale();
+					}
+					deltaTupleSource.closeSource();
+					deltaTupleSource = null;
+				}
+
 				private void cancelMoreWork() {
 					if (moreWork != null) {
 						moreWork.cancel(false);
@@ -571,6 +603,11 @@ public class TempTableDataManager implements ProcessorDataManager {
 					if (loadingTupleSource != null) {
 						loadingTupleSource.closeSource();
 					}
+					if (deltaTupleSource != null) {
+						//the remaining changes are lost
+						deltaTupleSource.closeSource();
+						info.setStale();
+					}
 					super.closeSource();
 					cancelMoreWork();
 				}
@@ -643,6 +680,7 @@ public class TempTableDataManager implements ProcessorDataManager {
 			TupleSource insertTupleSource;
 			boolean success;
 			QueryProcessor qp;
+			PartitionedLoadTupleSource partitioned;
 			boolean closed;
 			boolean errored;
 		
@@ -653,23 +691,33 @@ public class TempTableDataManager implements ProcessorDataManager {
 				try {
 					if (insertTupleSource == null) {
 						String fullName = metadata.getFullName(group.getMetadataID());
-						String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
-						qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
-						insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						partitioned = createPartitionedLoad(context, group, fullName, allColumns);
+						if (partitioned != null) {
+							insertTupleSource = partitioned;
+						} else {
+							String transformation = metadata.getVirtualPlan(group.getMetadataID()).getQuery();
+							qp = context.getQueryProcessorFactory().createQueryProcessor(transformation, fullName, context);
+							insertTupleSource = new BatchCollector.BatchProducerTupleSource(qp);
+						}
 					}
 					table.insert(insertTupleSource, allColumns, false, null);
 					table.getTree().compact();
 					rowCount = table.getRowCount();
-					Determinism determinism = qp.getContext().getDeterminismLevel();
+					Determinism determinism = null;
+					if (partitioned != null) {
+						determinism = partitioned.getDeterminismLevel();
+					} else {
+						determinism = qp.getContext().getDeterminismLevel();
+					}
 					context.setDeterminismLevel(determinism);
 					//TODO: could pre-process indexes to remove overlap
 					for (Object index : metadata.getIndexesInGroup(group.getMetadataID())) {
 						List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, index);
-						table.addIndex(columns, false);
+						table.addIndex(columns, getIncludeColumns(metadata, allColumns, index), false);
 					}
 					for (Object key : metadata.getUniqueKeysInGroup(group.getMetadataID())) {
 						List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
-						table.addIndex(columns, true);
+						table.addIndex(columns, getIncludeColumns(metadata, allColumns, key), true);
 					}
 					CacheHint hint = table.getCacheHint();
 					if (hint != null && table.getPkLength() > 0) {
@@ -709,10 +757,67 @@ public class TempTableDataManager implements ProcessorDataManager {
 				if (qp != null) {
 					qp.closeProcessing();
 				}
+				if (partitioned != null) {
+					partitioned.closeSource();
+				}
 				super.closeSource();
 			}
 		};
 	}
+	
+	/**
+	 * Get the non-key columns to store in the index from the include extension property
+	 */
+	private static List<ElementSymbol> getIncludeColumns(QueryMetadataInterface metadata, List<ElementSymbol> allColumns, Object index) throws TeiidComponentException, QueryMetadataException {
+		String include = metadata.getExtensionProperty(index, MaterializationMetadataRepository.MATVIEW_INDEX_INCLUDE, false);
+		if (include == null) {
+			return Collections.emptyList();
+		}
+		List<ElementSymbol> result = new ArrayList<ElementSymbol>();
+		for (String name : StringUtil.split(include, ",")) { //$NON-NLS-1$
+			name = name.trim();
+			for (ElementSymbol column : allColumns) {
+				if (column.getShortName().equalsIgnoreCase(name)) {
+					result.add(column);
+					break;
+				}
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Create a partitioned load if the view specifies a valid partition column
+	 * @return the partitioned source or null if the load should use a single query
+	 */
+	private PartitionedLoadTupleSource createPartitionedLoad(CommandContext context, GroupSymbol group, String fullName, List<ElementSymbol> allColumns) throws TeiidComponentException, TeiidProcessingException {
+		QueryMetadataInterface metadata = context.getMetadata();
+		String columnName = metadata.getExtensionProperty(group.getMetadataID(), MaterializationMetadataRepository.MATVIEW_PARTITION_COLUMN, false);
+		if (columnName == null) {
+			return null;
+		}
+		int partitions = Runtime.getRuntime().availableProcessors();
+		String count = metadata.getExtensionProperty(group.getMetadataID(), MaterializationMetadataRepository.MATVIEW_PARTITION_COUNT, false);
+		if (count != null) {
+			try {
+				partitions = Integer.parseInt(count);
+			} catch (NumberFormatException e) {
+				partitions = 0;
+			}
+		} else if (partitions < 2) {
+			return null;
+		}
+		for (ElementSymbol column : allColumns) {
+			if (column.getShortName().equalsIgnoreCase(columnName)) {
+				if (partitions > 1 && PartitionedLoadTupleSource.isPartitionable(column.getType())) {
+					return new PartitionedLoadTupleSource(context, fullName, metadata.getFullName(column.getMetadataID()), column.getType(), partitions);
+				}
+				break;
+			}
+		}
+		LogManager.logWarning(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31156, fullName, columnName, count));
+		return null;
+	}
 
 	public Object lookupCodeValue(CommandContext context, String codeTableName,
 			String returnElementName, String keyElementName, Object keyValue)
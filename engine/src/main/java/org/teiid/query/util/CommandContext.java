@@ -168,8 +168,6 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 		private Executor executor = ExecutorUtils.getDirectExecutor();
 		Map<Object, List<ReusableExecution<?>>> reusableExecutions;
 	    Set<CommandListener> commandListeners = null;
-	    private LRUCache<String, DecimalFormat> decimalFormatCache;
-		private LRUCache<String, SimpleDateFormat> dateFormatCache;
 		private AtomicLong reuseCount = null;
 		
 	    private List<Exception> warnings = null;
@@ -196,6 +194,8 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     private TupleSourceCache tupleSourceCache;
     private VDBState vdbState = new VDBState();
     private Determinism[] determinismLevel = new Determinism[] {Determinism.DETERMINISTIC};
+    private LRUCache<String, DecimalFormat> decimalFormatCache;
+	private LRUCache<String, SimpleDateFormat> dateFormatCache;
 
     /**
      * Construct a new context.
@@ -282,6 +282,20 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     	clone.tupleSourceCache = this.tupleSourceCache;
     	clone.vdbState = this.vdbState;
     	clone.determinismLevel = this.determinismLevel; 
+    	clone.decimalFormatCache = this.decimalFormatCache;
+    	clone.dateFormatCache = this.dateFormatCache;
+    	return clone;
+    }
+    
+    /**
+     * Create a clone for processing on another thread concurrently with this context.
+     * The format caches are not shared since the formats are not thread-safe.
+     */
+    public CommandContext cloneForThread() {
+    	CommandContext clone = clone();
+    	clone.decimalFormatCache = null;
+    	clone.dateFormatCache = null;
+    	clone.dataObjects = this.dataObjects;
     	return clone;
     }
     
@@ -389,18 +403,22 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
     }
     
     public double getNextRand() {
-        if (globalState.random == null) {
-        	globalState.random = new Random();
-        }
-        return globalState.random.nextDouble();
+    	synchronized (this.globalState) {
+	        if (globalState.random == null) {
+	        	globalState.random = new Random();
+	        }
+	        return globalState.random.nextDouble();
+    	}
     }
     
     public double getNextRand(long seed) {
-        if (globalState.random == null) {
-        	globalState.random = new Random();
-        }
-        globalState.random.setSeed(seed);
-        return globalState.random.nextDouble();
+    	synchronized (this.globalState) {
+	        if (globalState.random == null) {
+	        	globalState.random = new Random();
+	        }
+	        globalState.random.setSeed(seed);
+	        return globalState.random.nextDouble();
+    	}
     }
     
     void setRandom(Random random) {
@@ -632,7 +650,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	
 	public void accessedDataObject(Object id) {
 		if (this.dataObjects != null) {
-			this.dataObjects.add(id);
+			synchronized (this.dataObjects) {
+				this.dataObjects.add(id);
+			}
 		}
 	}
 	
@@ -801,17 +821,17 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	public static DecimalFormat getDecimalFormat(CommandContext context, String format) {
 		DecimalFormat result = null;
 		if (context != null) {
-			if (context.globalState.decimalFormatCache == null) {
-				context.globalState.decimalFormatCache = new LRUCache<String, DecimalFormat>(32);
+			if (context.decimalFormatCache == null) {
+				context.decimalFormatCache = new LRUCache<String, DecimalFormat>(32);
 			} else {
-				result = context.globalState.decimalFormatCache.get(format);
+				result = context.decimalFormatCache.get(format);
 			}
 		}
 		if (result == null) {
 			result = new DecimalFormat(format); //TODO: could be locale sensitive
 			result.setParseBigDecimal(true);
 			if (context != null) {
-				context.globalState.decimalFormatCache.put(format, result);
+				context.decimalFormatCache.put(format, result);
 			}
 		}
 		return result;
@@ -820,16 +840,16 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	public static SimpleDateFormat getDateFormat(CommandContext context, String format) {
 		SimpleDateFormat result = null;
 		if (context != null) {
-			if (context.globalState.dateFormatCache == null) {
-				context.globalState.dateFormatCache = new LRUCache<String, SimpleDateFormat>(32);
+			if (context.dateFormatCache == null) {
+				context.dateFormatCache = new LRUCache<String, SimpleDateFormat>(32);
 			} else {
-				result = context.globalState.dateFormatCache.get(format);
+				result = context.dateFormatCache.get(format);
 			}
 		}
 		if (result == null) {
 			result = new SimpleDateFormat(format); //TODO: could be locale sensitive
 			if (context != null) {
-				context.globalState.dateFormatCache.put(format, result);
+				context.dateFormatCache.put(format, result);
 			}
 		}
 		return result;
@@ -954,7 +974,9 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 
 	public long addAndGetReservedBuffers(int i) {
-		return globalState.reservedBuffers += i;
+		synchronized (globalState) {
+			return globalState.reservedBuffers += i;
+		}
 	}
 
 	@Override
@@ -972,17 +994,21 @@ public class CommandContext implements Cloneable, org.teiid.CommandContext {
 	}
 	
 	public TupleSource getCodeLookup(String matTableName, Object keyValue) {
-		if (this.globalState.lookups != null) {
-			return this.globalState.lookups.remove(new LookupKey(matTableName, keyValue));
+		synchronized (this.globalState) {
+			if (this.globalState.lookups != null) {
+				return this.globalState.lookups.remove(new LookupKey(matTableName, keyValue));
+			}
+			return null;
 		}
-		return null;
 	}
 
 	public void putCodeLookup(String matTableName, Object keyValue, TupleSource ts) {
-		if (this.globalState.lookups == null) {
-			this.globalState.lookups = new TreeMap<LookupKey, TupleSource>();
+		synchronized (this.globalState) {
+			if (this.globalState.lookups == null) {
+				this.globalState.lookups = new TreeMap<LookupKey, TupleSource>();
+			}
+			this.globalState.lookups.put(new LookupKey(matTableName, keyValue), ts);
 		}
-		this.globalState.lookups.put(new LookupKey(matTableName, keyValue), ts);
 	}
 	
 	
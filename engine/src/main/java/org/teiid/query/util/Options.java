@@ -34,6 +34,9 @@ public class Options {
 	public static final String IMPLICIT_MULTISOURCE_JOIN = "org.teiid.implicitMultiSourceJoin"; //$NON-NLS-1$
 	public static final String JOIN_PREFETCH_BATCHES = "org.teiid.joinPrefetchBatches"; //$NON-NLS-1$
 	public static final String SANITIZE_MESSAGES = "org.teiid.sanitizeMessages"; //$NON-NLS-1$
+	public static final String UNION_ALL_PARALLELISM = "org.teiid.unionAllParallelism"; //$NON-NLS-1$
+	public static final String UNION_ALL_PARALLEL_BATCHES = "org.teiid.unionAllParallelBatches"; //$NON-NLS-1$
+	public static final String DEPENDENT_JOIN_BLOOM_FILTER_FPP = "org.teiid.dependentJoinBloomFilterFpp"; //$NON-NLS-1$
 
 	private Properties properties;
 	private boolean subqueryUnnestDefault;
@@ -42,6 +45,9 @@ public class Options {
 	private int joinPrefetchBatches = 10;
 	private boolean sanitizeMessages;
 	private float dependentJoinPushdownThreshold = 0;
+	private int unionAllParallelism;
+	private int unionAllParallelBatches = 4;
+	private float dependentJoinBloomFilterFpp;
 	
 	public Properties getProperties() {
 		return properties;
@@ -131,4 +137,54 @@ public class Options {
 		return this;
 	}
 
+	/**
+	 * @return the maximum number of union all children to process concurrently, 
+	 * values less than 2 disable parallel processing
+	 */
+	public int getUnionAllParallelism() {
+		return unionAllParallelism;
+	}
+	
+	public void setUnionAllParallelism(int unionAllParallelism) {
+		this.unionAllParallelism = unionAllParallelism;
+	}
+	
+	public Options unionAllParallelism(int i) {
+		this.unionAllParallelism = i;
+		return this;
+	}
+	
+	/**
+	 * @return the maximum number of batches buffered by a parallel union all
+	 */
+	public int getUnionAllParallelBatches() {
+		return unionAllParallelBatches;
+	}
+	
+	public void setUnionAllParallelBatches(int unionAllParallelBatches) {
+		this.unionAllParallelBatches = unionAllParallelBatches;
+	}
+	
+	public Options unionAllParallelBatches(int i) {
+		this.unionAllParallelBatches = i;
+		return this;
+	}
+	
+	/**
+	 * @return the false positive probability of the bloom filter used to discard dependent 
+	 * side rows when the independent values exceed the max ndv, 0 disables the filter
+	 */
+	public float getDependentJoinBloomFilterFpp() {
+		return dependentJoinBloomFilterFpp;
+	}
+	
+	public void setDependentJoinBloomFilterFpp(float dependentJoinBloomFilterFpp) {
+		this.dependentJoinBloomFilterFpp = dependentJoinBloomFilterFpp;
+	}
+	
+	public Options dependentJoinBloomFilterFpp(float f) {
+		this.dependentJoinBloomFilterFpp = f;
+		return this;
+	}
+
 }
@@ -105,6 +105,121 @@ public class TestSTree {
 				
 	}
 	
+	@Test public void testBulkLoad() throws TeiidComponentException {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		bm.setProcessorBatchSize(4);
+		
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		List<ElementSymbol> elements = Arrays.asList(e1);
+		STree map = bm.createSTree(elements, "1", 1);
+		
+		int size = (1<<16)+(1<<4)+1;
+		
+		map.startBulkLoad();
+		for (int i = 0; i < size; i++) {
+			assertTrue(map.bulkAdd(Arrays.asList(i*2)));
+		}
+		assertFalse(map.bulkAdd(Arrays.asList(0)));
+		map.finishBulkLoad();
+		assertEquals(size, map.getRowCount());
+		
+		for (int i = 0; i < size; i++) {
+			assertEquals(Arrays.asList(i*2), map.find(Arrays.asList(i*2)));
+			assertNull(map.find(Arrays.asList(i*2 + 1)));
+		}
+		
+		//resume appending to the existing tree
+		map.startBulkLoad();
+		assertFalse(map.bulkAdd(Arrays.asList(0)));
+		assertTrue(map.bulkAdd(Arrays.asList(size*2)));
+		map.finishBulkLoad();
+		
+		//regular inserts and removes should work against the bulk loaded structure
+		assertNull(map.insert(Arrays.asList(1), InsertMode.NEW, -1));
+		assertEquals(size + 2, map.getRowCount());
+		
+		TupleBrowser browser = new TupleBrowser(map, (List<Object>)null, null, true);
+		int count = 0;
+		int last = -1;
+		List<?> next = null;
+		while ((next = browser.nextTuple()) != null) {
+			int value = (Integer)next.get(0);
+			assertTrue(value > last);
+			last = value;
+			count++;
+		}
+		assertEquals(size + 2, count);
+		
+		for (int i = 0; i <= size; i++) {
+			assertNotNull(map.remove(Arrays.asList(i*2)));
+		}
+		assertNotNull(map.remove(Arrays.asList(1)));
+		assertEquals(0, map.getRowCount());
+	}
+	
+	@Test public void testStatistics() throws TeiidComponentException {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		bm.setProcessorBatchSize(4);
+		
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		ElementSymbol e2 = new ElementSymbol("y");
+		e2.setType(Integer.class);
+		List<ElementSymbol> elements = Arrays.asList(e1, e2);
+		STree map = bm.createSTree(elements, "1", 2);
+		
+		assertEquals(-1, map.estimateSelectivity(Arrays.asList(0), null), 0);
+		
+		map.startBulkLoad();
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(map.bulkAdd(Arrays.asList(i/10, i)));
+		}
+		map.finishBulkLoad();
+		
+		assertEquals(100, map.getDistinctCount(1));
+		assertEquals(1000, map.getDistinctCount(2));
+		assertEquals(-1, map.getDistinctCount(0));
+		assertEquals(-1, map.getDistinctCount(3));
+		
+		assertEquals(.5, map.estimateSelectivity(Arrays.asList(50), null), .1);
+		assertEquals(.5, map.estimateSelectivity(null, Arrays.asList(49)), .1);
+		assertEquals(.25, map.estimateSelectivity(Arrays.asList(25), Arrays.asList(49)), .1);
+		assertEquals(0, map.estimateSelectivity(Arrays.asList(100), null), 0);
+		
+		//the cached sample should reflect removes
+		for (int i = 500; i < 1000; i++) {
+			assertNotNull(map.remove(Arrays.asList(i/10, i)));
+		}
+		assertEquals(0, map.estimateSelectivity(Arrays.asList(50), null), 0);
+		
+		//and inserts
+		for (int i = 1000; i < 1500; i++) {
+			assertNull(map.insert(Arrays.asList(i/10, i), InsertMode.NEW, -1));
+		}
+		assertTrue(map.estimateSelectivity(Arrays.asList(100), null) > 0);
+		
+		map.truncate(true);
+		assertEquals(-1, map.getDistinctCount(1));
+		assertEquals(-1, map.estimateSelectivity(Arrays.asList(50), null), 0);
+	}
+	
+	@Test public void testDistinctCountOutOfOrder() throws TeiidComponentException {
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		ElementSymbol e1 = new ElementSymbol("x");
+		e1.setType(Integer.class);
+		List<ElementSymbol> elements = Arrays.asList(e1);
+		STree map = bm.createSTree(elements, "1", 1);
+		
+		map.startBulkLoad();
+		assertTrue(map.bulkAdd(Arrays.asList(2)));
+		assertFalse(map.bulkAdd(Arrays.asList(1)));
+		map.finishBulkLoad();
+		
+		//the rejected tuple was not counted
+		assertEquals(-1, map.getDistinctCount(1));
+	}
+	
 	@Test public void testStorageWrites() throws TeiidComponentException {
 		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
 		bm.setProcessorBatchSize(32);
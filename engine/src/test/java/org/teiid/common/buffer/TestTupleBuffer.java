@@ -24,6 +24,11 @@ package org.teiid.common.buffer;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -61,6 +66,63 @@ public class TestTupleBuffer {
 		assertEquals(2, batch.getBeginRow());
 	}
 	
+	@Test public void testColumnar() throws Exception {
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		ElementSymbol y = new ElementSymbol("y"); //$NON-NLS-1$
+		y.setType(DataTypeManager.DefaultDataClasses.STRING);
+		List<ElementSymbol> schema = Arrays.asList(x, y);
+		TupleBuffer tb = BufferManagerFactory.getStandaloneBufferManager().createTupleBuffer(schema, "x", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		tb.setColumnarTypes(new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.STRING});
+		tb.setBatchSize(2);
+		tb.addTuple(Arrays.asList(1, "a")); //$NON-NLS-1$
+		tb.addTuple(Arrays.asList(null, "b")); //$NON-NLS-1$
+		tb.addTuple(Arrays.asList(3, null));
+		tb.close();
+		TupleBatch batch = tb.getBatch(1);
+		assertEquals(2, batch.getRowCount());
+		ColumnarBatch columnar = batch.getColumnarBatch();
+		assertNotNull(columnar);
+		assertArrayEquals(new int[] {1, 0}, ((ColumnarBatch.IntColumn)columnar.getColumn(0)).getValues());
+		assertTrue(columnar.getColumn(0).isNull(1));
+		assertEquals(Arrays.asList(null, "b"), batch.getTuple(2)); //$NON-NLS-1$
+		TupleBufferTupleSource tbts = tb.createIndexedTupleSource();
+		assertEquals(Arrays.asList(1, "a"), tbts.nextTuple()); //$NON-NLS-1$
+		tbts.nextTuple();
+		assertEquals(Arrays.asList(3, null), tbts.nextTuple());
+		assertFalse(tbts.hasNext());
+	}
+	
+	@Test public void testLazyColumnBatch() throws Exception {
+		String[] types = new String[] {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.STRING};
+		List<List<?>> rows = new ArrayList<List<?>>();
+		rows.add(Arrays.asList(1, "a", "x")); //$NON-NLS-1$ //$NON-NLS-2$
+		rows.add(Arrays.asList(null, "a", null)); //$NON-NLS-1$
+		rows.add(Arrays.asList(3, null, "x")); //$NON-NLS-1$
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		LazyColumnBatch.write(oos, types, rows);
+		oos.close();
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		LazyColumnBatch batch = LazyColumnBatch.read(ois, types);
+		assertEquals(3, batch.size());
+		assertFalse(batch.isDecoded(1));
+		assertEquals("x", batch.get(2).get(2)); //$NON-NLS-1$
+		assertTrue(batch.isDecoded(2));
+		assertFalse(batch.isDecoded(0));
+		assertFalse(batch.isDecoded(1));
+		assertEquals(rows, batch);
+		
+		//rewriting should not require decoding
+		batch = LazyColumnBatch.read(new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())), types);
+		baos = new ByteArrayOutputStream();
+		oos = new ObjectOutputStream(baos);
+		LazyColumnBatch.write(oos, types, batch);
+		oos.close();
+		assertFalse(batch.isDecoded(0));
+		assertEquals(rows, LazyColumnBatch.read(new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())), types));
+	}
+	
 	@Test public void testReverseIteration() throws Exception {
 		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
 		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
@@ -22,6 +22,8 @@
 
 package org.teiid.common.buffer.impl;
 
+import static org.junit.Assert.*;
+
 import org.junit.Test;
 
 public class TestBlockByteBuffer {
@@ -31,4 +33,14 @@ public class TestBlockByteBuffer {
 		bbb.getByteBuffer(1);
 	}
 	
+	@Test public void testSegmentCountOver2GB() {
+		//4GB of 8k blocks
+		assertEquals(4, BlockByteBuffer.getSegmentCount(30, 1 << 19, 13));
+		assertEquals(5, BlockByteBuffer.getSegmentCount(30, (1 << 19) + 1, 13));
+		//~2.3GB
+		assertEquals(3, BlockByteBuffer.getSegmentCount(30, 300000, 13));
+		assertEquals(1 << 14, BlockByteBuffer.getSegmentCount(30, Integer.MAX_VALUE, 13));
+		assertEquals(2, BlockByteBuffer.getSegmentCount(10, 100, 4));
+	}
+	
 }
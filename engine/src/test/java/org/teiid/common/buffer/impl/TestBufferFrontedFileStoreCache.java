@@ -381,6 +381,12 @@ public class TestBufferFrontedFileStoreCache {
 		assertEquals(131072, cache.getDiskUsage());
 	}
 	
+	@Test public void testMemoryInUseOver2GB() {
+		//more than 2GB of blocks and inodes
+		assertEquals(300000l * BufferFrontedFileStoreCache.BLOCK_SIZE + 300001l * 64, BufferFrontedFileStoreCache.getMemoryInUseBytes(300000, 300001));
+		assertEquals(((long)Integer.MAX_VALUE) << BufferFrontedFileStoreCache.LOG_BLOCK_SIZE, BufferFrontedFileStoreCache.getMemoryInUseBytes(Integer.MAX_VALUE, 0));
+	}
+	
 	@Test public void testDefragMin() throws Exception {
 		cache = createLayeredCache(1<<15, 1<<15, true);
 		cache.setMinDefrag(10000000);
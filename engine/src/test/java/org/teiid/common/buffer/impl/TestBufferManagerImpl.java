@@ -49,5 +49,17 @@ public class TestBufferManagerImpl {
         //the difference between 1mb and 1000k
         assertEquals(24576, bufferManager.reserveBuffers(1024000, BufferReserveMode.NO_WAIT));
     }
+    
+    @Test public void testReserveOver2GB() throws Exception {
+        BufferManagerImpl bufferManager = new BufferManagerImpl();
+        bufferManager.setCache(new MemoryStorageManager());
+        bufferManager.setMaxProcessingKB(3 << 20);
+        bufferManager.setMaxReserveKB(3 << 20);
+        bufferManager.initialize();
+        
+        assertEquals(3 << 20, bufferManager.getMaxReserveKB());
+        assertEquals(3l << 30, bufferManager.getReserveBatchBytes());
+        assertEquals(Integer.MAX_VALUE, bufferManager.getMaxProcessingSize());
+    }
 
 }
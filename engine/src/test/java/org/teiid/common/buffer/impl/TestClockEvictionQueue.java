@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.common.buffer.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BaseCacheEntry;
+import org.teiid.common.buffer.CacheKey;
+
+public class TestClockEvictionQueue {
+	
+	private static BaseCacheEntry entry(long id) {
+		return new BaseCacheEntry(new CacheKey(id, 0, 0));
+	}
+	
+	@Test public void testSecondChance() {
+		ClockEvictionQueue<BaseCacheEntry> q = new ClockEvictionQueue<BaseCacheEntry>(new AtomicLong(), 4);
+		BaseCacheEntry[] entries = new BaseCacheEntry[4];
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = entry(i);
+			assertTrue(q.add(entries[i]));
+		}
+		q.touch(entries[0]);
+		q.touch(entries[1]);
+		assertSame(entries[2], q.firstEntry(false));
+		assertSame(entries[2], q.firstEntry(true));
+		assertSame(entries[3], q.firstEntry(true));
+		//the counts have been consumed
+		assertSame(entries[0], q.firstEntry(true));
+		assertSame(entries[1], q.firstEntry(true));
+		assertNull(q.firstEntry(true));
+		assertEquals(0, q.getSize());
+	}
+	
+	@Test public void testScanResistance() {
+		ClockEvictionQueue<BaseCacheEntry> q = new ClockEvictionQueue<BaseCacheEntry>(new AtomicLong(), 4);
+		//a frequently used entry that has been evicted and readded
+		BaseCacheEntry hot = entry(0);
+		for (int i = 0; i < 3; i++) {
+			q.add(hot);
+			q.remove(hot);
+		}
+		q.add(hot);
+		//a scan of single use entries
+		for (int i = 1; i < 10; i++) {
+			q.add(entry(i));
+		}
+		for (int i = 1; i < 10; i++) {
+			assertEquals(i, q.firstEntry(true).getId().intValue());
+		}
+		assertSame(hot, q.firstEntry(true));
+	}
+	
+	@Test public void testRemove() {
+		ClockEvictionQueue<BaseCacheEntry> q = new ClockEvictionQueue<BaseCacheEntry>(new AtomicLong());
+		for (int i = 0; i < 1000; i++) {
+			BaseCacheEntry e = entry(i);
+			q.add(e);
+			if (i % 10 != 0) {
+				assertTrue(q.remove(e));
+				assertFalse(q.remove(e));
+			}
+		}
+		assertEquals(100, q.getSize());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i * 10, q.firstEntry(true).getId().intValue());
+		}
+		assertNull(q.firstEntry(false));
+	}
+
+}
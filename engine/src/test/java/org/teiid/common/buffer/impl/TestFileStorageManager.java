@@ -28,10 +28,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.Test;
+import org.teiid.common.buffer.ExtensibleBufferedInputStream;
 import org.teiid.common.buffer.FileStore;
 import org.teiid.common.buffer.FileStore.FileStoreOutputStream;
 import org.teiid.core.TeiidComponentException;
@@ -190,6 +192,51 @@ public class TestFileStorageManager {
        	c = in.read(readContent, 0, 3000);
        	assertEquals(-1, c);
        	in.close();        
-    }	
+    }
+    
+    @Test public void testMemoryMapped() throws Exception {
+    	FileStorageManager sm = getStorageManager(null, null);
+    	sm.setMemoryMapped(true);
+    	//use small regions so that a region boundary is reached quickly
+    	int logRegionSize = 16;
+    	sm.setLogRegionSize(logRegionSize);
+    	FileStore store = sm.createFileStore("0");
+    	assertEquals(-1, store.read(0, new byte[1], 0, 1));
+    	byte[] expectedBytes = writeBytes(store, 2048);
+    	assertEquals(4096, store.getLength());
+    	//the file grows ahead of the logical length
+    	assertEquals(FileStorageManager.MIN_MAPPED_LENGTH, sm.getUsedBufferSpace());
+    	writeBytes(store, 4096);
+    	assertEquals(6144, store.getLength());
+    	assertEquals(FileStorageManager.MIN_MAPPED_LENGTH, sm.getUsedBufferSpace());
+    	//spans a region boundary
+    	long start = (1 << logRegionSize) - 1024;
+    	byte[] spanningBytes = writeBytes(store, start);
+    	
+    	ExtensibleBufferedInputStream is = store.createInputStream(2048, 2048);
+    	ByteBuffer bb = is.getBuffer();
+    	assertTrue(bb.isDirect());
+    	byte[] bytesRead = new byte[2048];
+    	bb.get(bytesRead);
+    	assertArrayEquals(expectedBytes, bytesRead);
+    	assertNull(is.getBuffer());
+    	
+    	is = store.createInputStream(start, 2048);
+    	assertEquals(2048, is.read(bytesRead, 0, 1024) + is.read(bytesRead, 1024, 1024));
+    	assertArrayEquals(spanningBytes, bytesRead);
+    	
+    	long used = sm.getUsedBufferSpace();
+    	//the buffer is still valid after a truncate
+    	store.setLength(100);
+    	assertEquals(100, store.getLength());
+    	assertEquals(-1, store.read(100, new byte[1], 0, 1));
+    	assertEquals(expectedBytes[0], bb.get(0));
+    	assertEquals(used, sm.getUsedBufferSpace());
+    	
+    	//the space is released on removal even though the mappings are still reachable
+    	store.remove();
+    	assertEquals(0, sm.getUsedBufferSpace());
+    	assertNotNull(bb);
+    }
 	
 }
@@ -35,6 +35,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
 
@@ -190,4 +191,19 @@ public class TestSizeUtility {
         assertEquals("Got unexpected size: ", 2667, actualSize); //$NON-NLS-1$        
     }
     
+    @Test public void testColumnarBatch() {
+    	List<List<?>> rows = new ArrayList<List<?>>();
+    	for (int i = 0; i < 256; i++) {
+    		rows.add(Arrays.asList("a", i, (long)i, i%2==0?null:(double)i)); //$NON-NLS-1$
+    	}
+        Class<?>[] types = {DataTypeManager.DefaultDataClasses.STRING,
+        		DataTypeManager.DefaultDataClasses.INTEGER,
+        		DataTypeManager.DefaultDataClasses.LONG,
+        		DataTypeManager.DefaultDataClasses.DOUBLE};
+        SizeUtility sizeUtility = new SizeUtility(types);
+        long rowSize = sizeUtility.getBatchSize(false, rows);
+        long columnarSize = sizeUtility.getBatchSize(false, ColumnarBatch.create(types, rows));
+        assertTrue(columnarSize < rowSize / 2);
+    }
+    
 }
\ No newline at end of file
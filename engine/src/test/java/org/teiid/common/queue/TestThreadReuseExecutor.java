@@ -33,12 +33,15 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import javax.resource.spi.work.Work;
 
+import org.junit.Assume;
 import org.junit.Test;
 import org.teiid.adminapi.impl.WorkerPoolStatisticsMetadata;
+import org.teiid.core.util.NamedThreadFactory;
 import org.teiid.dqp.internal.process.FutureWork;
 import org.teiid.dqp.internal.process.TeiidExecutor;
 import org.teiid.dqp.internal.process.ThreadReuseExecutor;
@@ -161,4 +164,29 @@ public class TestThreadReuseExecutor {
     	assertEquals(Integer.valueOf(4), order.remove());
     }
         
+    @Test public void testVirtualThreads() throws Exception {
+    	ThreadFactory factory = NamedThreadFactory.createVirtualThreadFactory("test"); //$NON-NLS-1$
+    	Assume.assumeNotNull(factory);
+    	ThreadReuseExecutor pool = new ThreadReuseExecutor("test", 100, factory); //$NON-NLS-1$
+    	final Semaphore signal = new Semaphore(0);
+    	for (int i = 0; i < 100; i++) {
+	    	pool.execute(new Runnable() {
+	    		@Override
+	    		public void run() {
+	    			try {
+	    				//hold all of the threads
+						signal.acquire();
+					} catch (InterruptedException e) {
+					}
+	    		}
+	    	});
+    	}
+    	signal.release(100);
+        pool.shutdown();        
+        assertTrue(pool.awaitTermination(1000, TimeUnit.MILLISECONDS));
+        WorkerPoolStatisticsMetadata stats = pool.getStats();
+        assertEquals(100, stats.getTotalCompleted());
+        assertEquals(0, stats.getQueued());
+    }
+        
 }
@@ -0,0 +1,168 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.common.queue;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.teiid.adminapi.impl.WorkerPoolStatisticsMetadata;
+import org.teiid.dqp.internal.process.FutureWork;
+import org.teiid.dqp.internal.process.WorkStealingExecutor;
+
+@SuppressWarnings("nls")
+public class TestWorkStealingExecutor {
+	
+    @Test public void testQueuing() throws Exception {
+        final long SINGLE_WAIT = 50;
+        final int WORK_ITEMS = 10;
+        final int MAX_THREADS = 5;
+
+        final WorkStealingExecutor pool = new WorkStealingExecutor("test", MAX_THREADS); 
+        
+        for(int i=0; i<WORK_ITEMS; i++) {
+            pool.execute(new FakeWorkItem(SINGLE_WAIT));
+        }
+        
+        pool.shutdown();        
+        pool.awaitTermination(1000, TimeUnit.MILLISECONDS);
+        assertTrue(pool.isTerminated());
+        WorkerPoolStatisticsMetadata stats = pool.getStats();
+        assertEquals(10, stats.getTotalCompleted());
+        assertEquals(0, stats.getQueued());
+        assertEquals("Expected threads to be maxed out", MAX_THREADS, stats.getHighestActiveThreads()); 
+    }
+    
+    @Test public void testManySubmitters() throws Exception {
+    	final int SUBMITTERS = 8;
+    	final int WORK_ITEMS = 5000;
+    	final int MAX_THREADS = 3;
+    	
+    	final WorkStealingExecutor pool = new WorkStealingExecutor("test", MAX_THREADS);
+    	final CountDownLatch latch = new CountDownLatch(SUBMITTERS * WORK_ITEMS);
+    	final Runnable work = new Runnable() {
+    		@Override
+    		public void run() {
+    			latch.countDown();
+    		}
+    	};
+    	Thread[] submitters = new Thread[SUBMITTERS];
+    	for (int i = 0; i < SUBMITTERS; i++) {
+    		submitters[i] = new Thread() {
+    			@Override
+    			public void run() {
+    				for (int j = 0; j < WORK_ITEMS; j++) {
+    					pool.execute(work);
+    				}
+    			}
+    		};
+    		submitters[i].start();
+    	}
+    	assertTrue(latch.await(10, TimeUnit.SECONDS));
+    	pool.shutdown();
+    	assertTrue(pool.awaitTermination(1000, TimeUnit.MILLISECONDS));
+        WorkerPoolStatisticsMetadata stats = pool.getStats();
+        assertEquals(SUBMITTERS * WORK_ITEMS, stats.getTotalCompleted());
+        assertTrue(stats.getHighestActiveThreads() <= MAX_THREADS);
+    }
+
+    @Test(expected=RejectedExecutionException.class) public void testShutdown() throws Exception {
+    	WorkStealingExecutor pool = new WorkStealingExecutor("test", 5); 
+        pool.shutdown();
+    	pool.execute(new FakeWorkItem(1));
+    }
+    
+    @Test public void testFailingWork() throws Exception {
+    	WorkStealingExecutor pool = new WorkStealingExecutor("test", 1); 
+    	final Semaphore signal = new Semaphore(0);
+    	pool.execute(new Runnable() {
+    		@Override
+    		public void run() {
+    			signal.release();
+    			throw new RuntimeException();
+    		}
+    	});
+    	pool.execute(new Runnable() {
+    		@Override
+    		public void run() {
+    			signal.release();
+    		}
+    	});
+    	assertTrue(signal.tryAcquire(2, 2, TimeUnit.SECONDS));
+    }
+    
+    @Test public void testPriorities() throws Exception {
+    	final WorkStealingExecutor pool = new WorkStealingExecutor("test", 1); 
+    	FutureWork<Boolean> work1 = new FutureWork<Boolean>(new Callable<Boolean>() {
+    		public Boolean call() throws Exception {
+    			synchronized (pool) {
+    				while (pool.getSubmittedCount() < 4) {
+    					pool.wait();
+    				}
+				}
+    			return true;
+    		}
+		}, 0);
+    	final ConcurrentLinkedQueue<Integer> order = new ConcurrentLinkedQueue<Integer>();
+    	FutureWork<Boolean> work2 = new FutureWork<Boolean>(new Callable<Boolean>() {
+    		public Boolean call() throws Exception {
+    			order.add(2);
+    			return true;
+    		}
+		}, 2);
+    	FutureWork<Boolean> work3 = new FutureWork<Boolean>(new Callable<Boolean>() {
+    		public Boolean call() throws Exception {
+    			order.add(3);
+    			return false;
+    		}
+		}, 1);
+    	Thread.sleep(20); //ensure a later timestamp
+    	FutureWork<Boolean> work4 = new FutureWork<Boolean>(new Callable<Boolean>() {
+    		public Boolean call() throws Exception {
+    			order.add(4);
+    			return false;
+    		}
+		}, 2);
+    	pool.execute(work1);
+    	pool.execute(work2);
+    	pool.execute(work3);
+    	pool.execute(work4);
+    	synchronized (pool) {
+        	pool.notifyAll();
+		}
+    	work1.get();
+    	work2.get();
+    	work3.get();
+    	work4.get();
+    	assertEquals(Integer.valueOf(3), order.remove());
+    	assertEquals(Integer.valueOf(2), order.remove());
+    	assertEquals(Integer.valueOf(4), order.remove());
+    }
+        
+}
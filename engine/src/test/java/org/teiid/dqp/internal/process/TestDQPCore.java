@@ -56,6 +56,7 @@ import org.teiid.dqp.internal.datamgr.FakeTransactionService;
 import org.teiid.dqp.internal.process.AbstractWorkItem.ThreadState;
 import org.teiid.dqp.service.AutoGenDataService;
 import org.teiid.dqp.service.FakeBufferService;
+import org.teiid.query.QueryPlugin;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
@@ -648,6 +649,138 @@ public class TestDQPCore {
         assertEquals(1, this.core.getRsCache().getCacheHitCount());
     }
     
+    @Test public void testRsCacheCoalescing() throws Exception {
+        String sql = "select * FROM vqt.SmallB"; //$NON-NLS-1$
+        agds.setSleep(100);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        RequestMessage reqMsg1 = exampleRequestMessage(sql);
+        reqMsg1.setUseResultSetCache(true);
+        reqMsg1.setExecutionId(101);
+        Future<ResultsMessage> message1 = core.executeRequest(reqMsg1.getExecutionId(), reqMsg1);
+        assertEquals(10, message.get(500000, TimeUnit.MILLISECONDS).getResultsList().size());
+        assertEquals(10, message1.get(500000, TimeUnit.MILLISECONDS).getResultsList().size());
+        //the second request reads the results of the first
+        assertEquals(1, agds.getExecuteCount().get());
+        assertEquals(0, this.core.getRsCache().getCacheHitCount());
+        
+        reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        reqMsg.setExecutionId(102);
+        ResultsMessage rm = execute("1", 1, reqMsg); //$NON-NLS-1$
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+    
+    @Test public void testRsCacheCoalescingFallback() throws Exception {
+        String sql = "select * FROM vqt.SmallB"; //$NON-NLS-1$
+        agds.setSleep(500);
+        agds.throwExceptionOnExecute = true;
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        Future<ResultsMessage> message = core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        waitForExecuteCount(1);
+        RequestMessage reqMsg1 = exampleRequestMessage(sql);
+        reqMsg1.setUseResultSetCache(true);
+        reqMsg1.setExecutionId(101);
+        Future<ResultsMessage> message1 = core.executeRequest(reqMsg1.getExecutionId(), reqMsg1);
+        assertNotNull(message.get(500000, TimeUnit.MILLISECONDS).getException());
+        //the follower has not received any rows, so it should execute on its own
+        agds.throwExceptionOnExecute = false;
+        ResultsMessage rm = message1.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(2, agds.getExecuteCount().get());
+    }
+    
+    @Test public void testRsCacheCoalescingLeaderFailure() throws Exception {
+        String sql = "SELECT IntKey FROM BQT1.SmallA"; //$NON-NLS-1$
+        agds.setSleep(500);
+        agds.throwExceptionAfterResults = true;
+        ((BufferManagerImpl)core.getBufferManager()).setProcessorBatchSize(1);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        waitForExecuteCount(1);
+        RequestMessage reqMsg1 = exampleRequestMessage(sql);
+        reqMsg1.setUseResultSetCache(true);
+        reqMsg1.setExecutionId(101);
+        Future<ResultsMessage> message1 = core.executeRequest(reqMsg1.getExecutionId(), reqMsg1);
+        //the first batch is handed over before the source fails
+        ResultsMessage rm = message1.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        assertEquals(8, rm.getResultsList().size());
+        message1 = core.processCursorRequest(reqMsg1.getExecutionId(), 9, 10);
+        rm = message1.get(500000, TimeUnit.MILLISECONDS);
+        assertEquals(QueryPlugin.Event.TEIID31157.name(), rm.getException().getCode());
+        assertEquals(1, agds.getExecuteCount().get());
+    }
+    
+    @Test public void testRsCacheCoalescingLeaderClosed() throws Exception {
+        String sql = "select * FROM vqt.SmallB"; //$NON-NLS-1$
+        agds.setSleep(500);
+        DQPWorkContext.getWorkContext().getSession().setSessionId("1"); //$NON-NLS-1$
+        DQPWorkContext.getWorkContext().getSession().setUserName("1"); //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        core.executeRequest(reqMsg.getExecutionId(), reqMsg);
+        waitForExecuteCount(1);
+        RequestMessage reqMsg1 = exampleRequestMessage(sql);
+        reqMsg1.setUseResultSetCache(true);
+        reqMsg1.setExecutionId(101);
+        Future<ResultsMessage> message1 = core.executeRequest(reqMsg1.getExecutionId(), reqMsg1);
+        Thread.sleep(100); //give the follower a chance to coalesce
+        core.closeRequest(reqMsg.getExecutionId());
+        //the leader should continue to produce the results for the follower
+        ResultsMessage rm = message1.get(500000, TimeUnit.MILLISECONDS);
+        assertNull(rm.getException());
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(1, agds.getExecuteCount().get());
+    }
+    
+    @Test public void testRsCacheAdmission() throws Exception {
+        String sql = "select * FROM vqt.SmallB"; //$NON-NLS-1$
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1;
+        config.setMinResultsetCacheCostPerMb(Integer.MAX_VALUE);
+        RequestMessage reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size());
+        
+        //not costly enough to cache
+        reqMsg = exampleRequestMessage(sql);
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(0, this.core.getRsCache().getCacheHitCount());
+        assertEquals(2, agds.getExecuteCount().get());
+        
+        //a cache hint bypasses admission
+        sql = "/*+ cache */ select * FROM vqt.SmallB"; //$NON-NLS-1$
+        reqMsg = exampleRequestMessage(sql);
+        rm = execute(userName, sessionid, reqMsg);
+        reqMsg = exampleRequestMessage(sql);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(10, rm.getResultsList().size());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+        assertEquals(3, agds.getExecuteCount().get());
+    }
+    
+    private void waitForExecuteCount(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && agds.getExecuteCount().get() < count; i++) {
+        	Thread.sleep(10);
+        }
+        assertEquals(count, agds.getExecuteCount().get());
+    }
+    
     @Test public void testLobConcurrency() throws Exception {
     	RequestMessage reqMsg = exampleRequestMessage("select to_bytes(stringkey, 'utf-8') FROM BQT1.SmallA"); 
         reqMsg.setTxnAutoWrapMode(RequestMessage.TXN_WRAP_OFF);
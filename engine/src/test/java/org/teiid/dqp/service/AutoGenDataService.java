@@ -64,6 +64,7 @@ public class AutoGenDataService extends ConnectorManager{
     private int rows = 10;
     private SourceCapabilities caps;
 	public boolean throwExceptionOnExecute;
+	public boolean throwExceptionAfterResults;
 	public Integer dataNotAvailable;
 	public boolean strict;
 	public int sleep;
@@ -110,7 +111,9 @@ public class AutoGenDataService extends ConnectorManager{
         }
                 
         final AtomicResultsMessage msg = ConnectorWorkItem.createResultsMessage(results);
-        msg.setFinalRow(rows);
+        if (!throwExceptionAfterResults) {
+        	msg.setFinalRow(rows);
+        }
         return new ConnectorWork() {
         	
         	boolean returnedInitial;
@@ -136,12 +139,23 @@ public class AutoGenDataService extends ConnectorManager{
 					returnedInitial = true;
 					return msg;
 				}
+				if (throwExceptionAfterResults) {
+					sleep();
+					throw new TranslatorException("Connector Exception"); //$NON-NLS-1$
+				}
 				throw new RuntimeException("Should not be called"); //$NON-NLS-1$
 			}
 			
 			@Override
 			public void execute() throws TranslatorException {
 				executeCount.incrementAndGet();
+				sleep();
+				if (throwExceptionOnExecute) {
+		    		throw new TranslatorException("Connector Exception"); //$NON-NLS-1$
+		    	}
+			}
+			
+			private void sleep() {
 				if (sleep > 0) {
 					try {
 						Thread.sleep(sleep);
@@ -149,9 +163,6 @@ public class AutoGenDataService extends ConnectorManager{
 						throw new RuntimeException(e);
 					}
 				}
-				if (throwExceptionOnExecute) {
-		    		throw new TranslatorException("Connector Exception"); //$NON-NLS-1$
-		    	}
 			}
 			
 			@Override
@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.optimizer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.metadata.Column;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
+import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
+import org.teiid.query.processor.ProcessorPlan;
+import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.processor.relational.RelationalPlan;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+
+@SuppressWarnings("nls")
+public class TestHashAggregationPlanning {
+
+	private static final int CARDINALITY = BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 40;
+
+	private GroupingNode helpPlanGrouping(String sql, int ndv, BufferManager bufferManager) throws Exception {
+		TransformationMetadata metadata = RealMetadataFactory.example1();
+		RealMetadataFactory.setCardinality("pm1.g1", CARDINALITY, metadata);
+		Column e1 = metadata.getElementID("pm1.g1.e1");
+		e1.setDistinctValues(ndv);
+		CommandContext cc = new CommandContext();
+		cc.setBufferManager(bufferManager);
+		//the source does not support aggregation, so the grouping is processed by the engine
+		BasicSourceCapabilities caps = TestOptimizer.getTypicalCapabilities();
+		ProcessorPlan plan = TestOptimizer.getPlan(TestOptimizer.helpGetCommand(sql, metadata, null), metadata, new DefaultCapabilitiesFinder(caps), null, true, cc);
+		GroupingNode node = findGroupingNode(((RelationalPlan)plan).getRootNode());
+		assertNotNull(node);
+		return node;
+	}
+
+	private GroupingNode findGroupingNode(RelationalNode node) {
+		if (node instanceof GroupingNode) {
+			return (GroupingNode)node;
+		}
+		for (RelationalNode child : node.getChildren()) {
+			if (child == null) {
+				break;
+			}
+			GroupingNode result = findGroupingNode(child);
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+
+	@Test public void testHashAggregationForFewGroups() throws Exception {
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(*), sum(e2) FROM pm1.g1 GROUP BY e1", 100, BufferManagerFactory.getStandaloneBufferManager());
+		assertTrue(node.isHashAggregation());
+	}
+
+	@Test public void testNoHashAggregationForManyGroups() throws Exception {
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(*) FROM pm1.g1 GROUP BY e1", CARDINALITY / 2, BufferManagerFactory.getStandaloneBufferManager());
+		assertFalse(node.isHashAggregation());
+	}
+
+	@Test public void testNoHashAggregationForUnknownNdv() throws Exception {
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(*) FROM pm1.g1 GROUP BY e1", -1, BufferManagerFactory.getStandaloneBufferManager());
+		assertFalse(node.isHashAggregation());
+	}
+
+	/**
+	 * The order by is satisfied by the grouping sort, so the output must remain ordered
+	 */
+	@Test public void testNoHashAggregationForOrderedOutput() throws Exception {
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(*) FROM pm1.g1 GROUP BY e1 ORDER BY e1", 100, BufferManagerFactory.getStandaloneBufferManager());
+		assertFalse(node.isHashAggregation());
+	}
+
+	@Test public void testNoHashAggregationForDistinctAggregate() throws Exception {
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(DISTINCT e2) FROM pm1.g1 GROUP BY e1", 100, BufferManagerFactory.getStandaloneBufferManager());
+		assertFalse(node.isHashAggregation());
+	}
+
+	@Test public void testNoHashAggregationOverMemoryEstimate() throws Exception {
+		//the groups fit within a single batch, which is still larger than the max processing size
+		GroupingNode node = helpPlanGrouping("SELECT e1, count(*), sum(e2) FROM pm1.g1 GROUP BY e1", 100, BufferManagerFactory.getTestBufferManager(1 << 12, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE));
+		assertFalse(node.isHashAggregation());
+	}
+
+}
@@ -23,6 +23,7 @@
 
 package org.teiid.query.optimizer;
 
+import static org.junit.Assert.*;
 import static org.teiid.query.optimizer.TestOptimizer.*;
 
 import org.junit.Test;
@@ -33,6 +34,8 @@ import org.teiid.query.optimizer.capabilities.FakeCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
 import org.teiid.query.processor.ProcessorPlan;
 import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
+import org.teiid.query.processor.relational.HashJoinStrategy;
+import org.teiid.query.processor.relational.MergeJoinStrategy;
 import org.teiid.query.unittest.RealMetadataFactory;
 
 @SuppressWarnings("nls")
@@ -73,8 +76,62 @@ public class TestPartitionedJoinPlanning {
             0,      // Sort
             0       // UnionAll
         });  
-        checkNodeTypes(plan, new int[] {1}, new Class[] {EnhancedSortMergeJoinStrategy.class});
-    }    
+        checkNodeTypes(plan, new int[] {1, 0}, new Class[] {EnhancedSortMergeJoinStrategy.class, HashJoinStrategy.class});
+    }
+
+    private ProcessorPlan helpPlanHashJoin(String sql, int leftCardinality, int rightCardinality, String[] expected) throws Exception {
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_COMPARE_EQ, true);
+        caps.setCapabilitySupport(Capability.QUERY_FROM_GROUP_ALIAS, true);
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+
+        QueryMetadataInterface metadata = RealMetadataFactory.example1();
+        RealMetadataFactory.setCardinality("pm1.g1", leftCardinality, metadata);
+        RealMetadataFactory.setCardinality("pm1.g2", rightCardinality, metadata);
+
+        return helpPlan(sql, metadata, null, capFinder, expected, SHOULD_SUCCEED);
+    }
+
+    @Test public void testHashJoinBuildsSmallerSide() throws Exception {
+        ProcessorPlan plan = helpPlanHashJoin("SELECT pm1.g1.e1 FROM pm1.g1, pm1.g2 WHERE pm1.g1.e1 = pm1.g2.e1",
+        		BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 2, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 16,
+        		new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm1.g2.e1 FROM pm1.g2" });
+        checkNodeTypes(plan, new int[] {1, 0}, new Class[] {HashJoinStrategy.class, MergeJoinStrategy.class});
+        assertTrue(plan.toString().contains("HASH JOIN (BUILD LEFT)"));
+    }
+
+    @Test public void testHashJoinBuildsRightForOuterJoin() throws Exception {
+        ProcessorPlan plan = helpPlanHashJoin("SELECT pm1.g1.e1 FROM pm1.g1 LEFT OUTER JOIN pm1.g2 ON pm1.g1.e1 = pm1.g2.e1",
+        		BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 16, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 2,
+        		new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm1.g2.e1 FROM pm1.g2" });
+        checkNodeTypes(plan, new int[] {1, 0}, new Class[] {HashJoinStrategy.class, MergeJoinStrategy.class});
+        assertTrue(plan.toString().contains("HASH JOIN (BUILD RIGHT)"));
+    }
+
+    /**
+     * The right side of an outer join is the only possible build side, so a larger right side is merge joined
+     */
+    @Test public void testNoHashJoinForLargerOuterSide() throws Exception {
+        ProcessorPlan plan = helpPlanHashJoin("SELECT pm1.g1.e1 FROM pm1.g1 LEFT OUTER JOIN pm1.g2 ON pm1.g1.e1 = pm1.g2.e1",
+        		BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 2, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 16,
+        		new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm1.g2.e1 FROM pm1.g2" });
+        checkNodeTypes(plan, new int[] {0, 1}, new Class[] {HashJoinStrategy.class, MergeJoinStrategy.class});
+    }
+
+    @Test public void testNoHashJoinForSmallSide() throws Exception {
+        ProcessorPlan plan = helpPlanHashJoin("SELECT pm1.g1.e1 FROM pm1.g1, pm1.g2 WHERE pm1.g1.e1 = pm1.g2.e1",
+        		BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE / 2, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 16,
+        		new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm1.g2.e1 FROM pm1.g2" });
+        checkNodeTypes(plan, new int[] {0, 1}, new Class[] {HashJoinStrategy.class, MergeJoinStrategy.class});
+    }
+
+    @Test public void testNoHashJoinForUnknownCardinality() throws Exception {
+        ProcessorPlan plan = helpPlanHashJoin("SELECT pm1.g1.e1 FROM pm1.g1, pm1.g2 WHERE pm1.g1.e1 = pm1.g2.e1",
+        		-1, BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE * 16,
+        		new String[] { "SELECT pm1.g1.e1 FROM pm1.g1", "SELECT pm1.g2.e1 FROM pm1.g2" });
+        checkNodeTypes(plan, new int[] {0, 1}, new Class[] {HashJoinStrategy.class, MergeJoinStrategy.class});
+    }
 
 
 }
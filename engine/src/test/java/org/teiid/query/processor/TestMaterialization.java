@@ -162,6 +162,13 @@ public class TestMaterialization {
 		execute("SELECT * from vgroup5 where y is null and z = 2");
 	}
 	
+	@Test public void testIncludeColumnsSecondaryIndex() throws Exception {
+		execute("SELECT * from vgroup8 where y in ('zne', 'zwo') order by y desc", Arrays.asList("two", "zwo", 1), Arrays.asList("one", "zne", 1));
+		execute("SELECT y, z from vgroup8 where y is null", Arrays.asList((String)null, 1));
+		execute("SELECT * from vgroup8 where y is null and z = 2");
+		execute("SELECT y, z from vgroup8 where y >= 'zne' order by y", Arrays.asList("zne", 1), Arrays.asList("zwo", 1));
+	}
+	
 	@Test public void testNonCoveringSecondaryIndexWithoutPrimaryKey() throws Exception {
 		execute("SELECT * from vgroup6 where y in ('zne', 'zwo') order by y desc", Arrays.asList("two", "zwo"), Arrays.asList("one", "zne"));
 		execute("SELECT * from vgroup6 where y is null", Arrays.asList((String)null, (String)null));
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.query.processor.eval;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.BatchEvaluator;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.resolver.util.ResolverVisitor;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.query.unittest.RealMetadataFactory;
+
+@SuppressWarnings("nls")
+public class TestBatchEvaluator {
+	
+	private static final List<?>[] ROWS = new List<?>[] {
+		Arrays.asList("a", 1, 1.0),
+		Arrays.asList("b", 2, 2.5),
+		Arrays.asList(null, 3, null),
+		Arrays.asList("a", null, 4.0),
+		Arrays.asList("c", 0, -1.0),
+	};
+	
+	private static final Class<?>[] TYPES = new Class<?>[] {DataTypeManager.DefaultDataClasses.STRING, 
+		DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.DOUBLE};
+	
+	private Map<Expression, Integer> getElements(LanguageObject obj) {
+		Map<Expression, Integer> elements = new HashMap<Expression, Integer>();
+		for (ElementSymbol es : ElementCollectorVisitor.getElements(obj, true)) {
+			elements.put(es, Arrays.asList("e1", "e2", "e4").indexOf(es.getShortName()));
+		}
+		return elements;
+	}
+	
+	private Criteria helpGetCriteria(String sql) throws Exception {
+		Criteria crit = QueryParser.getQueryParser().parseCriteria(sql);
+		ResolverVisitor.resolveLanguageObject(crit, RealMetadataFactory.example1Cached());
+		return crit;
+	}
+
+	private void helpTestCriteria(String sql) throws Exception {
+		Criteria crit = helpGetCriteria(sql);
+		Map<Expression, Integer> elements = getElements(crit);
+		assertTrue(BatchEvaluator.isSupported(crit, elements));
+		Evaluator eval = new Evaluator(elements, null, null);
+		for (TupleBatch batch : new TupleBatch[] {new TupleBatch(1, ROWS), new TupleBatch(1, ColumnarBatch.create(TYPES, Arrays.asList(ROWS)))}) {
+			boolean[] result = new BatchEvaluator(elements, null).evaluate(crit, batch);
+			assertNotNull(result);
+			for (int i = 0; i < ROWS.length; i++) {
+				assertEquals("row " + i, eval.evaluate(crit, ROWS[i]), result[i]);
+			}
+		}
+	}
+	
+	@Test public void testCompare() throws Exception {
+		helpTestCriteria("pm1.g1.e2 >= 2");
+		helpTestCriteria("pm1.g1.e4 < 2.5");
+		helpTestCriteria("pm1.g1.e1 <> 'a'");
+	}
+	
+	@Test public void testCompound() throws Exception {
+		helpTestCriteria("pm1.g1.e2 + 1 > 2 and pm1.g1.e1 = 'a'");
+		helpTestCriteria("not(pm1.g1.e4 * 2.0 <= 4.0) or pm1.g1.e2 is null");
+		helpTestCriteria("pm1.g1.e1 is not null and (pm1.g1.e2 - 1 = 0 or pm1.g1.e4 / 2 > 1)");
+	}
+	
+	@Test public void testFunction() throws Exception {
+		helpTestCriteria("concat(pm1.g1.e1, 'x') = 'ax'");
+		helpTestCriteria("convert(pm1.g1.e2, double) = pm1.g1.e4");
+	}
+	
+	@Test public void testExpression() throws Exception {
+		Expression ex = QueryParser.getQueryParser().parseExpression("pm1.g1.e2 * 2");
+		ResolverVisitor.resolveLanguageObject(ex, RealMetadataFactory.example1Cached());
+		Map<Expression, Integer> elements = getElements(ex);
+		Object[] result = new BatchEvaluator(elements, null).evaluate(ex, new TupleBatch(1, ColumnarBatch.create(TYPES, Arrays.asList(ROWS))));
+		assertArrayEquals(new Object[] {2, 4, 6, null, 0}, result);
+	}
+	
+	@Test public void testErrorFallsBack() throws Exception {
+		Criteria crit = helpGetCriteria("pm1.g1.e2 = 0 or 10 / pm1.g1.e2 > 1");
+		assertNull(new BatchEvaluator(getElements(crit), null).evaluate(crit, new TupleBatch(1, ROWS)));
+	}
+	
+	@Test public void testNotSupported() throws Exception {
+		Criteria crit = helpGetCriteria("pm1.g1.e1 like 'a%'");
+		assertFalse(BatchEvaluator.isSupported(crit, getElements(crit)));
+		crit = helpGetCriteria("pm1.g1.e2 = rand()");
+		assertFalse(BatchEvaluator.isSupported(crit, getElements(crit)));
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class TestBloomFilter {
+
+	@Test public void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(50000, .01);
+		for (int i = 0; i < 50000; i++) {
+			filter.add(Arrays.asList("key" + i, i));
+		}
+		for (int i = 0; i < 50000; i++) {
+			assertTrue(filter.mightContain(Arrays.asList("key" + i, i)));
+		}
+		int falsePositives = 0;
+		for (int i = 50000; i < 150000; i++) {
+			if (filter.mightContain(Arrays.asList("key" + i, i))) {
+				falsePositives++;
+			}
+		}
+		//expected ~1000
+		assertTrue(String.valueOf(falsePositives), falsePositives < 2000);
+	}
+	
+	@Test public void testSizing() {
+		BloomFilter filter = new BloomFilter(0, .01);
+		assertEquals(64, filter.getNumBits());
+		filter = new BloomFilter(1000, .01);
+		assertEquals(9600, filter.getNumBits());
+		assertEquals(7, filter.getNumHashes());
+		filter = new BloomFilter(Integer.MAX_VALUE, .01);
+		assertEquals(BloomFilter.MAX_BITS, filter.getNumBits());
+		assertEquals(1, filter.getNumHashes());
+	}
+	
+}
@@ -28,8 +28,15 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Test;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.DependentSetCriteria;
 import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
@@ -76,4 +83,115 @@ public class TestDependentCriteriaProcessor {
 		assertFalse(dcp.hasNextCommand());
 	}
 	
+	@Test public void testBloomFilterOverMaxNdv() throws Exception {
+		DependentAccessNode dan = new DependentAccessNode(0);
+		CommandContext cc = new CommandContext();
+		ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+		e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		dan.setElements(Arrays.asList(e1));
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+		dan.initialize(cc, bm, null);
+		TupleBuffer tb = bm.createTupleBuffer(Arrays.asList(x), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (int i = 0; i < 1000; i++) {
+			tb.addTuple(Arrays.asList(i));
+		}
+		tb.close();
+		DependentValueSource dvs = new DependentValueSource(tb);
+		dvs.setDistinct(true);
+		cc.getVariableContext().setGlobalValue("dvs", dvs); //$NON-NLS-1$
+		DependentSetCriteria dsc = new DependentSetCriteria(e1, "dvs"); //$NON-NLS-1$
+		dsc.setValueExpression(x);
+		dsc.setMaxNdv(10);
+		DependentCriteriaProcessor dcp = new DependentCriteriaProcessor(100, -1, dan, dsc);
+		dcp.setBloomFilterFpp(.01);
+		dcp.prepareCriteria();
+		assertFalse(dcp.hasNextCommand());
+		assertTrue(dvs.isUnused());
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(dcp.mightMatch(Arrays.asList(i)));
+		}
+		assertFalse(dcp.mightMatch(Arrays.asList((Object)null)));
+		int falsePositives = 0;
+		for (int i = 1000; i < 11000; i++) {
+			if (dcp.mightMatch(Arrays.asList(i))) {
+				falsePositives++;
+			}
+		}
+		assertTrue(String.valueOf(falsePositives), falsePositives < 300);
+	}
+	
+	private DependentCriteriaProcessor helpTestOverMaxPredicates(BufferManagerImpl bm, DependentValueSource dvs, Number dependentCardinality) throws Exception {
+		DependentAccessNode dan = new DependentAccessNode(0);
+		CommandContext cc = new CommandContext();
+		ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+		e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		dan.setElements(Arrays.asList(e1));
+		dan.setEstimateNodeCardinality(dependentCardinality);
+		dan.initialize(cc, bm, null);
+		dvs.setDistinct(true);
+		cc.getVariableContext().setGlobalValue("dvs", dvs); //$NON-NLS-1$
+		DependentSetCriteria dsc = new DependentSetCriteria(e1, "dvs"); //$NON-NLS-1$
+		dsc.setValueExpression((ElementSymbol)dvs.getTupleBuffer().getSchema().get(0));
+		//1000 values would require more than 2 predicates of 100 values 
+		DependentCriteriaProcessor dcp = new DependentCriteriaProcessor(100, 2, dan, dsc);
+		dcp.setBloomFilterFpp(.01);
+		return dcp;
+	}
+
+	private DependentValueSource createValueSource(BufferManager bm) throws Exception {
+		ElementSymbol x = new ElementSymbol("x"); //$NON-NLS-1$
+		x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		TupleBuffer tb = bm.createTupleBuffer(Arrays.asList(x), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+		for (int i = 0; i < 1000; i++) {
+			tb.addTuple(Arrays.asList(i));
+		}
+		tb.close();
+		return new DependentValueSource(tb);
+	}
+	
+	@Test public void testBloomFilterOverMaxPredicates() throws Exception {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		DependentValueSource dvs = createValueSource(bm);
+		//reading 2000 rows is cheaper than issuing 5 queries
+		DependentCriteriaProcessor dcp = helpTestOverMaxPredicates(bm, dvs, 2000);
+		long reserveBatchBytes = bm.getReserveBatchBytes();
+		dcp.prepareCriteria();
+		assertFalse(dcp.hasNextCommand());
+		//the predicate is not used
+		assertTrue(dvs.isUnused());
+		//the filter bits are reserved
+		assertTrue(bm.getReserveBatchBytes() < reserveBatchBytes);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(dcp.mightMatch(Arrays.asList(i)));
+		}
+		dcp.close();
+		assertEquals(reserveBatchBytes, bm.getReserveBatchBytes());
+	}
+	
+	@Test public void testOverMaxPredicatesLargeDependentSide() throws Exception {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		DependentValueSource dvs = createValueSource(bm);
+		//reading 100000 rows is more expensive than issuing 5 queries
+		DependentCriteriaProcessor dcp = helpTestOverMaxPredicates(bm, dvs, 100000);
+		long reserveBatchBytes = bm.getReserveBatchBytes();
+		dcp.prepareCriteria();
+		//the predicates are still issued in batches without a filter
+		assertTrue(dcp.hasNextCommand());
+		assertFalse(dvs.isUnused());
+		assertEquals(reserveBatchBytes, bm.getReserveBatchBytes());
+		dcp.close();
+	}
+	
+	@Test public void testOverMaxPredicatesUnknownDependentSide() throws Exception {
+		BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+		DependentValueSource dvs = createValueSource(bm);
+		DependentCriteriaProcessor dcp = helpTestOverMaxPredicates(bm, dvs, null);
+		dcp.prepareCriteria();
+		assertTrue(dcp.hasNextCommand());
+		assertFalse(dvs.isUnused());
+		dcp.close();
+	}
+	
 }
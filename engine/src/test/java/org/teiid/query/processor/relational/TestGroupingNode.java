@@ -28,8 +28,10 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -420,6 +422,84 @@ public class TestGroupingNode {
         helpProcess(mgr, node, context, expected, null);
     }
 
+    @Test public void testHashAggregation() throws Exception {
+        BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+
+        GroupingNode node = getExampleHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        //groups are output in the order they are first seen
+        List[] expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(2) }),
+            Arrays.asList(new Object[] { null, new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1) })
+        };
+                
+        helpProcess(mgr, node, context, expected, null);
+    }
+    
+    @Test public void testHashAggregationSpill() throws Exception {
+    	//no reserve, so all but the first group in each pass will be spilled
+        BufferManager mgr = BufferManagerFactory.getTestBufferManager(0, 2);
+
+        GroupingNode node = getExampleHashGroupingNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+        
+        RelationalNode dataNode = new FakeRelationalNode(0, createTupleSource1(), mgr.getProcessorBatchSize());
+        dataNode.setElements(createTupleSource1().getSchema());            
+        node.addChild(dataNode);    
+        node.initialize(context, mgr, null);
+        node.open();
+        
+        Set<List<?>> actual = new HashSet<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                actual.addAll(batch.getTuples());
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //ignore
+            }
+        }
+        Set<List<?>> expected = new HashSet<List<?>>(Arrays.asList(
+            Arrays.asList(new Object[] { null, new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2) })
+        ));
+        assertEquals(expected, actual);
+        node.close();
+    }
+
+	private GroupingNode getExampleHashGroupingNode() {
+		GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, col2)); //$NON-NLS-1$ //$NON-NLS-2$
+        node.setElements(outputElements);
+        
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1); 
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setHashAggregation(true);
+		return node;
+	}
+
 	private GroupingNode getExampleGroupingNode() {
 		GroupingNode node = new GroupingNode(1);
         List outputElements = new ArrayList();
@@ -26,6 +26,8 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -795,6 +797,114 @@ public class TestJoinNode {
         helpTestJoinDirect(expected, 10, 1);
 	}
     
+    @Test public void testHashJoin() throws Exception {
+    	helpTestEnhancedSortMergeJoin(99);
+        helpCreateJoin();               
+        this.joinStrategy = new HashJoinStrategy(false);
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestJoinDirect(expected, 99, 100000);
+    }
+    
+    @Test public void testHashJoinSpill() throws Exception {
+    	helpTestEnhancedSortMergeJoin(99);
+    	for (boolean buildLeft : new boolean[] {true, false}) {
+	        helpCreateJoin();               
+	        this.joinStrategy = new HashJoinStrategy(buildLeft);
+	        this.join.setJoinStrategy(joinStrategy);
+	        helpTestUnorderedJoin(expected, 10);
+    	}
+    }
+    
+    @Test public void testHashJoinLeftOuterSpill() throws Exception {
+    	this.joinType = JoinType.JOIN_LEFT_OUTER;
+    	this.leftTuples = new List[] {
+    		Arrays.asList(4),
+    		Arrays.asList((Integer)null),
+    		Arrays.asList(1),
+    		Arrays.asList(12),
+    		Arrays.asList(4),
+    	};
+    	expected = new List[] {
+    		Arrays.asList(4, 4),
+    		Arrays.asList(4, 4),
+    		Arrays.asList(null, null),
+    		Arrays.asList(1, 1),
+    		Arrays.asList(12, null),
+    		Arrays.asList(4, 4),
+    		Arrays.asList(4, 4),
+    	};
+        helpCreateJoin();               
+        this.joinStrategy = new HashJoinStrategy(false);
+        this.join.setJoinStrategy(joinStrategy);
+        helpTestUnorderedJoin(expected, 1);
+    }
+
+    /**
+     * A partition of a single key cannot be split by repartitioning, so it must be merge joined
+     */
+    @Test public void testHashJoinSkewedSpill() throws Exception {
+    	for (JoinType type : new JoinType[] {JoinType.JOIN_INNER, JoinType.JOIN_LEFT_OUTER}) {
+	    	this.joinType = type;
+	    	List<List<?>> left = new ArrayList<List<?>>();
+	    	List<List<?>> right = new ArrayList<List<?>>();
+	    	List<List<?>> results = new ArrayList<List<?>>();
+	    	for (int i = 0; i < 20; i++) {
+	    		left.add(Arrays.asList(1));
+	    		right.add(Arrays.asList(1));
+	    		for (int j = 0; j < 20; j++) {
+	    			results.add(Arrays.asList(1, 1));
+	    		}
+	    		left.add(Arrays.asList(i + 2));
+	    		if (i % 2 == 0) {
+	    			right.add(Arrays.asList(i + 2));
+	    			results.add(Arrays.asList(i + 2, i + 2));
+	    		} else if (type == JoinType.JOIN_LEFT_OUTER) {
+	    			results.add(Arrays.asList(i + 2, null));
+	    		}
+	    	}
+	    	this.leftTuples = left.toArray(new List[left.size()]);
+	    	this.rightTuples = right.toArray(new List[right.size()]);
+	        helpCreateJoin();
+	        this.joinStrategy = new HashJoinStrategy(false);
+	        this.join.setJoinStrategy(joinStrategy);
+	        helpTestUnorderedJoin(results.toArray(new List[results.size()]), 2);
+    	}
+    }
+
+	private void helpTestUnorderedJoin(List[] expectedResults, int batchSize) throws TeiidComponentException, TeiidProcessingException {
+		BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(1, batchSize);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);
+        join.addChild(leftNode);
+        join.addChild(rightNode);
+        leftNode.initialize(context, mgr, dataMgr);
+        rightNode.initialize(context, mgr, dataMgr);
+        join.initialize(context, mgr, dataMgr);
+        join.open();
+        List<List<?>> actual = new ArrayList<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = join.nextBatch();
+                actual.addAll(batch.getTuples());
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch(BlockedException e) {
+                // ignore and retry
+            }
+        }
+        join.close();
+        Comparator<List<?>> comparator = new Comparator<List<?>>() {
+        	@Override
+        	public int compare(List<?> o1, List<?> o2) {
+        		return o1.toString().compareTo(o2.toString());
+        	}
+		};
+        List<List<?>> expectedList = new ArrayList<List<?>>((List)Arrays.asList(expectedResults));
+        Collections.sort(expectedList, comparator);
+        Collections.sort(actual, comparator);
+        assertEquals(expectedList, actual);
+	}
+    
     @Test public void testMergeJoinOptimizationMultiBatch() throws Exception {
     	helpTestEnhancedSortMergeJoin(10);
     }
@@ -39,6 +39,7 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.BatchEvaluator;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.processor.BatchIterator;
@@ -158,6 +159,11 @@ public class TestSelectNode {
         helpTestSelect(elements, crit, childElements, null, data, new FakeRelationalNode(2, data), new SelectNode(3) {
         	int i = 0;
         	
+        	@Override
+        	protected BatchEvaluator getBatchEvaluator() {
+        		return null;
+        	}
+        	
         	@Override
         	protected Evaluator getEvaluator(Map elementMap) {
         		return new Evaluator(elementMap, getDataManager(), getContext()) {
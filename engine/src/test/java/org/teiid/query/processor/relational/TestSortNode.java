@@ -420,4 +420,73 @@ public class TestSortNode {
     	assertNull(ts.nextTuple());
     }
 
+    @Test public void testTopN() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        for (int i = 10; i > 0; i--) {
+        	tsid.addTuple(Arrays.asList(i % 5));
+        }
+    	tsid.close();
+    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setLimit(3);
+    	TupleBuffer out = su.sort();
+    	assertEquals(3, out.getRowCount());
+    	TupleSource ts = out.createIndexedTupleSource();
+    	assertEquals(Arrays.asList(0), ts.nextTuple());
+    	assertEquals(Arrays.asList(0), ts.nextTuple());
+    	assertEquals(Arrays.asList(1), ts.nextTuple());
+    	assertNull(ts.nextTuple());
+    	
+    	su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.FALSE), Mode.DUP_REMOVE_SORT, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setLimit(3);
+    	out = su.sort();
+    	ts = out.createIndexedTupleSource();
+    	assertEquals(Arrays.asList(4), ts.nextTuple());
+    	assertEquals(Arrays.asList(3), ts.nextTuple());
+    	assertEquals(Arrays.asList(2), ts.nextTuple());
+    	assertNull(ts.nextTuple());
+    }
+    
+    @Test public void testTopNDupRemove() throws Exception {
+    	ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+        TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        tsid.addTuple(Arrays.asList(1));
+        tsid.addTuple(Arrays.asList(1));
+    	SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), Mode.DUP_REMOVE, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+    	su.setLimit(2);
+    	TupleBuffer out = su.sort();
+    	TupleSource ts = out.createIndexedTupleSource();
+    	assertEquals(Arrays.asList(1), ts.nextTuple());
+    	try {
+    		ts.nextTuple();
+    		fail();
+    	} catch (BlockedException e) {
+    		
+    	}
+    	tsid.addTuple(Arrays.asList(2));
+    	tsid.addTuple(Arrays.asList(3));
+    	su.sort();
+    	//reading stops at the limit without the source being final
+    	assertTrue(out.isFinal());
+    	assertEquals(Arrays.asList(2), ts.nextTuple());
+    	assertNull(ts.nextTuple());
+    }
+    
+    @Test public void testTopNProcessing() throws Exception {
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        capFinder.addCapabilities("pm1", new BasicSourceCapabilities()); //$NON-NLS-1$
+    	String sql = "select e1, e2 from pm1.g1 order by e2 desc, e1 limit 1, 2"; //$NON-NLS-1$
+        ProcessorPlan plan = helpPlan(sql, RealMetadataFactory.example1Cached(), null, capFinder, 
+        		new String[] {"SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1"}, ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
+        checkNodeTypes(plan, new int[] {1}, new Class[] {SortNode.class});
+        FakeDataManager dataMgr = new FakeDataManager();
+        dataMgr.setBlockOnce();
+        FakeDataStore.sampleData1(dataMgr, RealMetadataFactory.example1Cached());
+        TestProcessor.helpProcess(plan, dataMgr, new List[] {Arrays.asList("b", 2), Arrays.asList(null, 1)}); //$NON-NLS-1$
+    }
+
 }
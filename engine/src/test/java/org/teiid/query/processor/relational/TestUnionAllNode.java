@@ -26,7 +26,11 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -39,6 +43,7 @@ import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 
 /**
@@ -225,4 +230,108 @@ public class TestUnionAllNode {
         helpTestUnionConfigs(3, 1, 6, 1, expected);       
     }    
 
+    @Test public void testParallel() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        List<ElementSymbol> elements = Arrays.asList(es1);
+        
+        int sources = 5;
+        int rowsPerSource = 20;
+        UnionAllNode union = new UnionAllNode(sources);
+        union.setElements(elements);
+        List<Integer> expected = new ArrayList<Integer>();
+        
+        BufferManager mgr = BufferManagerFactory.getTestBufferManager(1, 2);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().unionAllParallelism(3).unionAllParallelBatches(2));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        context.setExecutor(executor);
+        FakeDataManager fdm = new FakeDataManager();
+        for(int i=0; i<sources; i++) {
+            List[] tuples = new List[rowsPerSource];
+            for(int r = 0; r<rowsPerSource; r++) {
+                tuples[r] = Arrays.asList(i * rowsPerSource + r);
+                expected.add(i * rowsPerSource + r);
+            }
+            RelationalNode child = i%2==0?new BlockingFakeRelationalNode(i, tuples, 3):new FakeRelationalNode(i, tuples, 3);
+            child.setElements(elements);
+            union.addChild(child);
+            child.initialize(context, mgr, fdm);
+        }
+        union.initialize(context, mgr, fdm);
+        
+        List<Integer> actual = new ArrayList<Integer>();
+        try {
+	        union.open();
+	        assertTrue(union.isParallel());
+	        int currentRow = 1;
+	        while(true) {
+	            try {
+	                TupleBatch batch = union.nextBatch();
+	                assertEquals(currentRow, batch.getBeginRow());
+	                for (List<?> tuple : batch.getTuples()) {
+	                	actual.add((Integer)tuple.get(0));
+	                }
+	                currentRow += batch.getRowCount();    
+	                if(batch.getTerminationFlag()) {
+	                    break;
+	                }
+	            } catch(BlockedException e) {
+	                // ignore and retry
+	            }
+	        }
+	        union.close();
+        } finally {
+        	executor.shutdownNow();
+        }
+        
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+    }
+    
+    /**
+     * Tasks that the executor has not yet run should not delay the close
+     */
+    @Test public void testParallelCloseWithPendingTasks() throws Exception {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        List<ElementSymbol> elements = Arrays.asList(es1);
+        
+        UnionAllNode union = new UnionAllNode(3);
+        union.setElements(elements);
+        
+        BufferManager mgr = BufferManagerFactory.getTestBufferManager(1, 2);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().unionAllParallelism(2));
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        context.setExecutor(new Executor() {
+        	@Override
+        	public void execute(Runnable command) {
+        		pending.add(command);
+        	}
+        });
+        FakeDataManager fdm = new FakeDataManager();
+        for(int i=0; i<2; i++) {
+            RelationalNode child = new FakeRelationalNode(i, new List[] {Arrays.asList(i)});
+            child.setElements(elements);
+            union.addChild(child);
+            child.initialize(context, mgr, fdm);
+        }
+        union.initialize(context, mgr, fdm);
+        union.open();
+        assertTrue(union.isParallel());
+        try {
+        	union.nextBatch();
+        	fail();
+        } catch (BlockedException e) {
+        	
+        }
+        assertEquals(2, pending.size());
+        union.close();
+        //running the cancelled tasks has no effect
+        for (Runnable runnable : pending) {
+        	runnable.run();
+        }
+    }
+
 }
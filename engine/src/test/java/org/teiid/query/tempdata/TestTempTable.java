@@ -0,0 +1,169 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.metadata.TempMetadataStore;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+@SuppressWarnings("nls")
+public class TestTempTable {
+	
+	private static final int ROWS = 100;
+	
+	private ElementSymbol a;
+	private ElementSymbol b;
+	private ElementSymbol c;
+	private TempMetadataID id;
+	private BufferManager bm = BufferManagerFactory.getStandaloneBufferManager();
+	private TempTable table;
+	
+	@Before public void setUp() throws Exception {
+		a = new ElementSymbol("a");
+		a.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		b = new ElementSymbol("b");
+		b.setType(DataTypeManager.DefaultDataClasses.STRING);
+		c = new ElementSymbol("c");
+		c.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		List<ElementSymbol> columns = Arrays.asList(a, b, c);
+		id = new TempMetadataStore().addTempGroup("x", columns, false, true);
+		table = new TempTable(id, bm, columns, 1, "1");
+		for (int i = 0; i < ROWS; i++) {
+			assertNull(table.updateTuple(Arrays.asList(i, "b" + i, ROWS - 1 - i), false));
+		}
+		table.addIndex(Arrays.asList(b), false);
+		table.addIndex(Arrays.asList(c), false);
+	}
+	
+	private List<?> query(ElementSymbol column, int operator, Object value) throws Exception {
+		return query(table, column, operator, value);
+	}
+	
+	private List<?> query(TempTable tempTable, ElementSymbol column, int operator, Object value) throws Exception {
+		TupleSource ts = tempTable.createTupleSource(Arrays.asList(column, a), new CompareCriteria(column, operator, new Constant(value)), null);
+		try {
+			return ts.nextTuple();
+		} finally {
+			ts.closeSource();
+		}
+	}
+	
+	@Test public void testMultipleIndexes() throws Exception {
+		assertEquals(Arrays.asList("b1", 1), query(b, CompareCriteria.EQ, "b1"));
+		assertEquals(Arrays.asList(98, 1), query(c, CompareCriteria.EQ, 98));
+		//the range is answered from the second index in c order rather than in primary key order
+		assertEquals(Arrays.asList(0, ROWS - 1), query(c, CompareCriteria.GE, 0));
+	}
+	
+	@Test public void testUpdateMaintainsIndexes() throws Exception {
+		assertEquals(Arrays.asList(1, "b1", 98), table.updateTuple(Arrays.asList(1, "x1", 200), false));
+		assertEquals(ROWS, table.getRowCount());
+		
+		assertNull(query(b, CompareCriteria.EQ, "b1"));
+		assertEquals(Arrays.asList("x1", 1), query(b, CompareCriteria.EQ, "x1"));
+		assertNull(query(c, CompareCriteria.EQ, 98));
+		assertEquals(Arrays.asList(200, 1), query(c, CompareCriteria.EQ, 200));
+	}
+	
+	@Test public void testDeleteMaintainsIndexes() throws Exception {
+		assertEquals(Arrays.asList(2, "b2", 97), table.updateTuple(Arrays.asList(2), true));
+		assertNull(table.updateTuple(Arrays.asList(2), true));
+		assertEquals(ROWS - 1, table.getRowCount());
+		
+		assertNull(query(b, CompareCriteria.EQ, "b2"));
+		assertNull(query(c, CompareCriteria.EQ, 97));
+		assertEquals(Arrays.asList("b3", 3), query(b, CompareCriteria.EQ, "b3"));
+	}
+	
+	private TempTable read(ByteArrayOutputStream baos, List<ElementSymbol> columns) throws Exception {
+		TempTable result = new TempTable(id, bm, columns, 1, "1");
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		result.readFrom(ois);
+		ois.close();
+		return result;
+	}
+	
+	@Test public void testReadWrite() throws Exception {
+		ElementSymbol d = new ElementSymbol("d");
+		d.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+		List<ElementSymbol> columns = Arrays.asList(a, b, c, d);
+		id = new TempMetadataStore().addTempGroup("y", columns, false, true);
+		table = new TempTable(id, bm, columns, 1, "1");
+		for (int i = 0; i < ROWS; i++) {
+			table.updateTuple(Arrays.asList(i, "b" + i, ROWS - 1 - i, i * 2), false);
+		}
+		table.addIndex(Arrays.asList(b), Arrays.asList(d), false);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		table.writeTo(oos);
+		oos.close();
+		TempTable copy = read(baos, columns);
+		assertEquals(ROWS, copy.getRowCount());
+		assertEquals(Arrays.asList("b1", 1), query(copy, b, CompareCriteria.EQ, "b1"));
+		assertEquals(Arrays.asList(2, 1), query(copy, d, CompareCriteria.EQ, 2));
+	}
+	
+	/**
+	 * The form written before index include columns were added has no version marker
+	 */
+	@Test public void testReadPreviousFormat() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		table.getTree().writeValuesTo(oos);
+		oos.writeInt(1);
+		oos.writeBoolean(false);
+		oos.writeInt(1);
+		oos.writeInt(1);
+		TempTable index = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), bm, Arrays.asList(b, a), 2, "1");
+		for (int i = 0; i < ROWS; i++) {
+			index.updateTuple(Arrays.asList("b" + i, i), false);
+		}
+		index.getTree().writeValuesTo(oos);
+		oos.writeInt(0);
+		oos.close();
+		TempTable copy = read(baos, Arrays.asList(a, b, c));
+		assertEquals(ROWS, copy.getRowCount());
+		assertEquals(Arrays.asList("b1", 1), query(copy, b, CompareCriteria.EQ, "b1"));
+		assertEquals(Arrays.asList(98, 1), query(copy, c, CompareCriteria.EQ, 98));
+	}
+	
+}
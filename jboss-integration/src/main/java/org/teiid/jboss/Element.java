@@ -68,6 +68,10 @@ enum Element {
 	MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE("max-storage-object-size", "buffer-service-max-storage-object-size"),
 	INLINE_LOBS("inline-lobs", "buffer-service-inline-lobs"),
 	ENCRYPT_FILES_ATTRIBUTE("encrypt-files", "buffer-service-encrypt-files"),
+	COLUMNAR_BATCHES_ATTRIBUTE("columnar-batches", "buffer-service-columnar-batches"),
+	MEMORY_MAP_FILES_ATTRIBUTE("memory-map-files", "buffer-service-memory-map-files"),
+	EVICTION_POLICY_ATTRIBUTE("eviction-policy", "buffer-service-eviction-policy"),
+	LAZY_COLUMN_BATCHES_ATTRIBUTE("lazy-column-batches", "buffer-service-lazy-column-batches"),
 	
 	//prepared-plan-cache-config
 	PREPAREDPLAN_CACHE_ELEMENT("preparedplan-cache"),
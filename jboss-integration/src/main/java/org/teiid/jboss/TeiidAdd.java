@@ -114,6 +114,10 @@ class TeiidAdd extends AbstractAddStepHandler {
 		TeiidConstants.MEMORY_BUFFER_OFFHEAP_ATTRIBUTE,
 		TeiidConstants.MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE,
 		TeiidConstants.ENCRYPT_FILES_ATTRIBUTE,
+		TeiidConstants.COLUMNAR_BATCHES_ATTRIBUTE,
+		TeiidConstants.MEMORY_MAP_FILES_ATTRIBUTE,
+		TeiidConstants.EVICTION_POLICY_ATTRIBUTE,
+		TeiidConstants.LAZY_COLUMN_BATCHES_ATTRIBUTE,
 		
 		// prepared plan cache
 		TeiidConstants.PPC_NAME_ATTRIBUTE,
@@ -483,6 +487,18 @@ class TeiidAdd extends AbstractAddStepHandler {
     	if (isDefined(ENCRYPT_FILES_ATTRIBUTE, node, context)) {
     		bufferManger.setEncryptFiles(asBoolean(ENCRYPT_FILES_ATTRIBUTE, node, context));
     	}
+    	if (isDefined(COLUMNAR_BATCHES_ATTRIBUTE, node, context)) {
+    		bufferManger.setColumnarBatches(asBoolean(COLUMNAR_BATCHES_ATTRIBUTE, node, context));
+    	}
+    	if (isDefined(MEMORY_MAP_FILES_ATTRIBUTE, node, context)) {
+    		bufferManger.setMemoryMapFiles(asBoolean(MEMORY_MAP_FILES_ATTRIBUTE, node, context));
+    	}
+    	if (isDefined(EVICTION_POLICY_ATTRIBUTE, node, context)) {
+    		bufferManger.setEvictionPolicy(asString(EVICTION_POLICY_ATTRIBUTE, node, context));
+    	}
+    	if (isDefined(LAZY_COLUMN_BATCHES_ATTRIBUTE, node, context)) {
+    		bufferManger.setLazyColumnBatches(asBoolean(LAZY_COLUMN_BATCHES_ATTRIBUTE, node, context));
+    	}
     	return bufferManger;
     }	
     
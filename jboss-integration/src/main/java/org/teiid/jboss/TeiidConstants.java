@@ -259,6 +259,34 @@ public class TeiidConstants {
         .setDefaultValue(new ModelNode(false))
         .build();   
 	
+	public static SimpleAttributeDefinition COLUMNAR_BATCHES_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.COLUMNAR_BATCHES_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
+        .setXmlName(Element.COLUMNAR_BATCHES_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode(false))
+        .build();   
+	
+	public static SimpleAttributeDefinition MEMORY_MAP_FILES_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.MEMORY_MAP_FILES_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
+        .setXmlName(Element.MEMORY_MAP_FILES_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode(false))
+        .build();   
+	
+	public static SimpleAttributeDefinition EVICTION_POLICY_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.EVICTION_POLICY_ATTRIBUTE.getModelName(), ModelType.STRING)
+        .setXmlName(Element.EVICTION_POLICY_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode("LRFU"))
+        .build();   
+	
+	public static SimpleAttributeDefinition LAZY_COLUMN_BATCHES_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.LAZY_COLUMN_BATCHES_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
+        .setXmlName(Element.LAZY_COLUMN_BATCHES_ATTRIBUTE.getXMLName())
+        .setAllowNull(true)
+        .setAllowExpression(false)
+        .setDefaultValue(new ModelNode(false))
+        .build();   
+	
 	// prepared-plan-cache-config
 	// PREPAREDPLAN_CACHE_ELEMENT("preparedplan-cache",true, false, MeasurementUnit.NONE);
 	public static SimpleAttributeDefinition PPC_ENABLE_ATTRIBUTE = new SimpleAttributeDefinitionBuilder(Element.PPC_ENABLE_ATTRIBUTE.getModelName(), ModelType.BOOLEAN)
@@ -198,6 +198,10 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
 		MEMORY_BUFFER_OFFHEAP_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		MAX_STORAGE_OBJECT_SIZE_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 		ENCRYPT_FILES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		COLUMNAR_BATCHES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		MEMORY_MAP_FILES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		EVICTION_POLICY_ATTRIBUTE.marshallAsAttribute(node, false, writer);
+		LAZY_COLUMN_BATCHES_ATTRIBUTE.marshallAsAttribute(node, false, writer);
 	}
 
 	private void writeResultsetCacheConfiguration(XMLExtendedStreamWriter writer, ModelNode node) throws XMLStreamException {
@@ -622,6 +626,18 @@ class TeiidSubsystemParser implements XMLStreamConstants, XMLElementReader<List<
     			case ENCRYPT_FILES_ATTRIBUTE:
     				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
     				break;
+    			case COLUMNAR_BATCHES_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
+    			case MEMORY_MAP_FILES_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
+    			case EVICTION_POLICY_ATTRIBUTE:
+    				node.get(element.getModelName()).set(attrValue);
+    				break;
+    			case LAZY_COLUMN_BATCHES_ATTRIBUTE:
+    				node.get(element.getModelName()).set(Boolean.parseBoolean(attrValue));
+    				break;
     			default:
     				throw ParseUtils.unexpectedAttribute(reader, i);    			
     			}
@@ -28,6 +28,7 @@ import java.util.*;
 import org.odata4j.core.*;
 import org.odata4j.core.OCollection.Builder;
 import org.odata4j.edm.*;
+import org.odata4j.exceptions.BadRequestException;
 import org.odata4j.exceptions.NotFoundException;
 import org.odata4j.exceptions.ServerErrorException;
 import org.odata4j.producer.*;
@@ -47,9 +48,15 @@ import org.teiid.odbc.ODBCServerRemoteImpl;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Limit;
+import org.teiid.query.sql.lang.OrderByItem;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
 import org.teiid.translator.CacheDirective;
 import org.teiid.translator.odata.ODataEntitySchemaBuilder;
 import org.teiid.translator.odata.ODataTypeManager;
@@ -192,10 +199,17 @@ public class LocalClient implements Client {
 
 	@Override
 	public EntityList executeSQL(Query query, List<SQLParam> parameters, EdmEntitySet entitySet, LinkedHashMap<String, Boolean> projectedColumns, QueryInfo queryInfo) {
+		boolean keyset = queryInfo != null && this.batchSize > 0 && isKeysetPageable(query, entitySet, queryInfo);
+		boolean cache = !keyset && queryInfo != null && this.batchSize > 0; 
+		if (keyset && queryInfo.skipToken != null) {
+			//page by the last key seen, rather than by skipping past a cached result
+			query.setCriteria(Criteria.combineCriteria(query.getCriteria(), buildKeysetCriteria(query.getOrderBy().getOrderByItems(), entitySet, queryInfo.skipToken)));
+		}
 		Connection connection = null;
 		try {
-			boolean cache = queryInfo != null && this.batchSize > 0; 
-			if (cache) {
+			if (keyset) {
+				query.setLimit(new Limit(null, new Constant(this.batchSize + 1)));
+			} else if (cache) {
 				CacheHint hint = new CacheHint();
 				hint.setTtl(this.cacheTime);
 				hint.setScope(CacheDirective.Scope.USER);
@@ -255,7 +269,7 @@ public class LocalClient implements Client {
 				skipSize = queryInfo.skip;
 			}
 			//skip based upon the skipToken
-			if (queryInfo != null && queryInfo.skipToken != null) {
+			if (!keyset && queryInfo != null && queryInfo.skipToken != null) {
 				skipSize += Integer.parseInt(queryInfo.skipToken);
 			}
 			if (skipSize > 0) {
@@ -298,7 +312,9 @@ public class LocalClient implements Client {
 			result.setCount(count);
 			
 			//set the skipToken if needed
-			if (cache && result.size() == this.batchSize) {
+			if (keyset && result.size() == this.batchSize && rs.next()) {
+				result.setSkipToken(result.get(result.size() - 1).getEntityKey().toKeyString());
+			} else if (cache && result.size() == this.batchSize) {
 				int end = skipSize + result.size();
 				if (getCount) {
 					if (end < Math.min(top, count)) {
@@ -323,6 +339,96 @@ public class LocalClient implements Client {
 		}
 	}
 
+	/**
+	 * Keyset paging may be used when the results are ordered by exactly the entity key
+	 * and the skip token, if any, is a key string rather than a row offset.
+	 */
+	static boolean isKeysetPageable(Query query, EdmEntitySet entitySet, QueryInfo queryInfo) {
+		if (queryInfo.inlineCount == InlineCount.ALLPAGES || queryInfo.top != null || queryInfo.skip != null 
+				|| query.getOrderBy() == null || query.getGroupBy() != null || query.getLimit() != null
+				|| (queryInfo.skipToken != null && !queryInfo.skipToken.startsWith("("))) { //$NON-NLS-1$
+			return false;
+		}
+		List<String> keys = entitySet.getType().getKeys();
+		List<OrderByItem> items = query.getOrderBy().getOrderByItems();
+		if (keys.isEmpty() || items.size() != keys.size()) {
+			return false;
+		}
+		Set<String> names = new HashSet<String>();
+		for (OrderByItem item : items) {
+			if (!(item.getSymbol() instanceof ElementSymbol)) {
+				return false;
+			}
+			names.add(((ElementSymbol)item.getSymbol()).getShortName());
+		}
+		return names.containsAll(keys);
+	}
+	
+	/**
+	 * Build the criteria for the rows following the key given by the skip token in the key ordering.
+	 * For an ordering of a, b that is: a > ? OR (a = ? AND b > ?)
+	 * @throws BadRequestException if the skip token is not a valid key for the entity set
+	 */
+	static Criteria buildKeysetCriteria(List<OrderByItem> items, EdmEntitySet entitySet, String skipToken) {
+		Map<String, Object> values = new HashMap<String, Object>();
+		try {
+			OEntityKey key = OEntityKey.parse(skipToken);
+			if (key.getKeyType() == OEntityKey.KeyType.SINGLE) {
+				if (items.size() != 1) {
+					throw new IllegalArgumentException(skipToken);
+				}
+				values.put(((ElementSymbol)items.get(0).getSymbol()).getShortName(), key.asSingleValue());
+			} else {
+				for (NamedValue<?> value : key.asComplexValue()) {
+					values.put(value.getName(), value.getValue());
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			throw new BadRequestException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID16017, skipToken, entitySet.getName()), e);
+		}
+		if (values.size() != items.size()) {
+			throw new BadRequestException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID16017, skipToken, entitySet.getName()));
+		}
+		List<Constant> keyValues = new ArrayList<Constant>(items.size());
+		for (OrderByItem item : items) {
+			String name = ((ElementSymbol)item.getSymbol()).getShortName();
+			Object value = values.get(name);
+			EdmProperty property = entitySet.getType().findProperty(name);
+			if (value == null || property == null) {
+				throw new BadRequestException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID16017, skipToken, entitySet.getName()));
+			}
+			//the literal type in the key string need not match the column type
+			Class<?> type = DataTypeManager.getDataTypeClass(ODataTypeManager.teiidType(property.getType().getFullyQualifiedTypeName()));
+			try {
+				value = DataTypeManager.transformValue(ODataTypeManager.convertToTeiidRuntimeType(value), type);
+			} catch (TransformationException e) {
+				throw new BadRequestException(ODataPlugin.Util.gs(ODataPlugin.Event.TEIID16017, skipToken, entitySet.getName()), e);
+			}
+			keyValues.add(new Constant(value, type));
+		}
+		List<Criteria> disjuncts = new ArrayList<Criteria>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			List<Criteria> conjuncts = new ArrayList<Criteria>(i + 1);
+			for (int j = 0; j <= i; j++) {
+				OrderByItem item = items.get(j);
+				int operator = CompareCriteria.EQ;
+				if (j == i) {
+					operator = item.isAscending()?CompareCriteria.GT:CompareCriteria.LT;
+				}
+				conjuncts.add(new CompareCriteria((Expression)item.getSymbol().clone(), operator, keyValues.get(j)));
+			}
+			if (conjuncts.size() == 1) {
+				disjuncts.add(conjuncts.get(0));
+			} else {
+				disjuncts.add(new CompoundCriteria(CompoundCriteria.AND, conjuncts));
+			}
+		}
+		if (disjuncts.size() == 1) {
+			return disjuncts.get(0);
+		}
+		return new CompoundCriteria(CompoundCriteria.OR, disjuncts);
+	}
+
 	private int skip(boolean cache, final ResultSet rs, int skipSize)
 			throws SQLException {
 		int skipped = 0;
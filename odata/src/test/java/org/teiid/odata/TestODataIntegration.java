@@ -58,6 +58,7 @@ import org.odata4j.edm.EdmDataServices;
 import org.odata4j.edm.EdmEntitySet;
 import org.odata4j.edm.EdmSimpleType;
 import org.odata4j.edm.EdmType;
+import org.odata4j.exceptions.BadRequestException;
 import org.odata4j.format.xml.EdmxFormatWriter;
 import org.odata4j.producer.QueryInfo;
 import org.odata4j.producer.Responses;
@@ -88,6 +89,7 @@ import org.teiid.odbc.ODBCServerRemoteImpl;
 import org.teiid.query.metadata.DDLStringVisitor;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -487,6 +489,8 @@ public class TestODataIntegration extends BaseResourceTest {
 	        assertNotNull(contentHandler.next);
 	        assertTrue(response.getEntity().contains("abc"));
 	        assertTrue(!response.getEntity().contains("xyz"));
+	        //the skip token should be the last key
+	        assertTrue(((String) contentHandler.value).contains("abc"));
 	        
 	        //follow the skip
 	        request = new ClientRequest((String) contentHandler.value);
@@ -499,11 +503,57 @@ public class TestODataIntegration extends BaseResourceTest {
 	        contentHandler.value = null;
 	        parser.parse(response.getEntity(), contentHandler);
 	        assertNull(contentHandler.value);
+	        
+	        //row offset skip tokens are still supported
+	        request = new ClientRequest(TestPortProvider.generateURL("/odata/northwind/x?$format=json&$skiptoken=1"));
+	        response = request.get(String.class);
+	        assertEquals(200, response.getStatus());
+	        assertTrue(!response.getEntity().contains("abc"));
+	        assertTrue(response.getEntity().contains("xyz"));
+	        
+	        //a key skip token must match the entity key
+	        request = new ClientRequest(TestPortProvider.generateURL("/odata/northwind/x?$format=json&$skiptoken=(a='abc',b=1)"));
+	        response = request.get(String.class);
+	        assertEquals(400, response.getStatus());
 		} finally {
 			es.stop();
 		}
 	}
 	
+	@Test public void testKeysetCriteria() throws Exception {
+		TransformationMetadata tm = RealMetadataFactory.fromDDL("create foreign table x (a string, b integer, c string, primary key (a, b));", "northwind", "nw");
+		EdmEntitySet entitySet = LocalClient.buildMetadata(mock(VDBMetaData.class), tm.getMetadataStore()).findEdmEntitySet("x");
+		
+		OrderBy orderBy = new OrderBy();
+		orderBy.addVariable(new ElementSymbol("a"));
+		orderBy.addVariable(new ElementSymbol("b"));
+		//the int64 literal should be converted to the integer key type
+		assertEquals("(a > 'abc') OR ((a = 'abc') AND (b > 1))", LocalClient.buildKeysetCriteria(orderBy.getOrderByItems(), entitySet, "(a='abc',b=1L)").toString());
+		
+		orderBy = new OrderBy();
+		orderBy.addVariable(new ElementSymbol("b"), OrderBy.DESC);
+		orderBy.addVariable(new ElementSymbol("a"), OrderBy.DESC);
+		assertEquals("(b < 1) OR ((b = 1) AND (a < 'abc'))", LocalClient.buildKeysetCriteria(orderBy.getOrderByItems(), entitySet, "(a='abc',b=1)").toString());
+	}
+	
+	@Test(expected=BadRequestException.class) public void testKeysetCriteriaIncompleteKey() throws Exception {
+		TransformationMetadata tm = RealMetadataFactory.fromDDL("create foreign table x (a string, b integer, c string, primary key (a, b));", "northwind", "nw");
+		EdmEntitySet entitySet = LocalClient.buildMetadata(mock(VDBMetaData.class), tm.getMetadataStore()).findEdmEntitySet("x");
+		OrderBy orderBy = new OrderBy();
+		orderBy.addVariable(new ElementSymbol("a"));
+		orderBy.addVariable(new ElementSymbol("b"));
+		LocalClient.buildKeysetCriteria(orderBy.getOrderByItems(), entitySet, "(a='abc')");
+	}
+	
+	@Test(expected=BadRequestException.class) public void testKeysetCriteriaInvalidValue() throws Exception {
+		TransformationMetadata tm = RealMetadataFactory.fromDDL("create foreign table x (a string, b integer, c string, primary key (a, b));", "northwind", "nw");
+		EdmEntitySet entitySet = LocalClient.buildMetadata(mock(VDBMetaData.class), tm.getMetadataStore()).findEdmEntitySet("x");
+		OrderBy orderBy = new OrderBy();
+		orderBy.addVariable(new ElementSymbol("a"));
+		orderBy.addVariable(new ElementSymbol("b"));
+		LocalClient.buildKeysetCriteria(orderBy.getOrderByItems(), entitySet, "(a='abc',b='x')");
+	}
+	
 	@Test public void testCount() throws Exception {
 		EmbeddedServer es = new EmbeddedServer();
 		es.start(new EmbeddedConfiguration());
@@ -135,6 +135,16 @@ public class CompositeGlobalTableStore implements GlobalTableStore {
 		return getStoreForTable(matTableName).updateMatViewRow(matTableName, tuple, delete);
 	}
 
+	@Override
+	public void rowModified(String tableName, List<?> oldTuple,
+			List<?> newTuple) {
+		primary.rowModified(tableName, oldTuple, newTuple);
+		GlobalTableStore store = getStore(tableName.substring(0, tableName.indexOf('.')));
+		if (store != primary) {
+			store.rowModified(tableName, oldTuple, newTuple);
+		}
+	}
+
 	@Override
 	public TempTable createMatTable(String matTableName, GroupSymbol group)
 			throws TeiidComponentException, QueryMetadataException,
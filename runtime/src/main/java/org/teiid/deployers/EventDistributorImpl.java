@@ -105,6 +105,19 @@ public abstract class EventDistributorImpl implements EventDistributor {
 		updateModified(true, vdbName, vdbVersion, schema, tableNames);
 	}
 	
+	@Override
+	public void rowModification(String vdbName, int vdbVersion, String schema,
+			String tableName, List<?> oldTuple, List<?> newTuple) {
+		updateModified(true, vdbName, vdbVersion, schema, tableName);
+		VDBMetaData metadata = getVdbRepository().getLiveVDB(vdbName, vdbVersion);
+		if (metadata != null) {
+			GlobalTableStore gts = metadata.getAttachment(GlobalTableStore.class);
+			if (gts != null) {
+				gts.rowModified((schema + '.' + tableName).toUpperCase(), oldTuple, newTuple);
+			}
+		}
+	}
+	
 	private void updateModified(boolean data, String vdbName, int vdbVersion, String schema,
 			String... objectNames) {
 		Schema s = getSchema(vdbName, vdbVersion, schema);
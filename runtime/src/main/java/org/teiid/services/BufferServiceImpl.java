@@ -31,6 +31,7 @@ import org.teiid.common.buffer.StorageManager;
 import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.BufferManagerImpl.EvictionPolicy;
 import org.teiid.common.buffer.impl.EncryptedStorageManager;
 import org.teiid.common.buffer.impl.FileStorageManager;
 import org.teiid.common.buffer.impl.MemoryStorageManager;
@@ -59,6 +60,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
 	private File bufferDir;
 	private boolean useDisk = true;
 	private boolean encryptFiles = false;
+	private boolean memoryMapFiles = false;
 	private int processorBatchSize = BufferManager.DEFAULT_PROCESSOR_BATCH_SIZE;
     private int maxOpenFiles = FileStorageManager.DEFAULT_MAX_OPEN_FILES;
     private long maxFileSize = SplittableStorageManager.DEFAULT_MAX_FILESIZE; // 2GB
@@ -66,6 +68,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
     private int maxReserveKb = BufferManager.DEFAULT_RESERVE_BUFFER_KB;
     private long maxBufferSpace = FileStorageManager.DEFAULT_MAX_BUFFERSPACE>>20;
     private boolean inlineLobs = true;
+    private boolean columnarBatches;
+    private boolean lazyColumnBatches;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRFU;
     private long memoryBufferSpace = -1;
     private int maxStorageObjectSize = BufferFrontedFileStoreCache.DEFAuLT_MAX_OBJECT_SIZE;
     private boolean memoryBufferOffHeap;
@@ -90,6 +95,9 @@ public class BufferServiceImpl implements BufferService, Serializable {
             this.bufferMgr.setMaxReserveKB(this.maxReserveKb);
             this.bufferMgr.setMaxProcessingKB(this.maxProcessingKb);
             this.bufferMgr.setInlineLobs(inlineLobs);
+            this.bufferMgr.setColumnarBatches(columnarBatches);
+            this.bufferMgr.setLazyColumnBatches(lazyColumnBatches);
+            this.bufferMgr.setEvictionPolicy(evictionPolicy);
             this.bufferMgr.initialize();
             
             // If necessary, add disk storage manager
@@ -106,6 +114,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsm.setStorageDirectory(bufferDir.getCanonicalPath());
                 fsm.setMaxOpenFiles(maxOpenFiles);
                 fsm.setMaxBufferSpace(maxBufferSpace*MB);
+                fsm.setMemoryMapped(memoryMapFiles);
                 SplittableStorageManager ssm = new SplittableStorageManager(fsm);
                 ssm.setMaxFileSize(maxFileSize);
                 StorageManager sm = ssm;
@@ -116,7 +125,7 @@ public class BufferServiceImpl implements BufferService, Serializable {
                 fsc.setBufferManager(this.bufferMgr);
                 fsc.setMaxStorageObjectSize(maxStorageObjectSize);
                 fsc.setDirect(memoryBufferOffHeap);
-                int batchOverheadKB = (int)(this.memoryBufferSpace<0?(this.bufferMgr.getMaxReserveKB()<<8):this.memoryBufferSpace)>>20;
+                int batchOverheadKB = (int)((this.memoryBufferSpace<0?(((long)this.bufferMgr.getMaxReserveKB())<<8):this.memoryBufferSpace)>>20);
         		this.bufferMgr.setMaxReserveKB(Math.max(0, this.bufferMgr.getMaxReserveKB() - batchOverheadKB));
                 if (memoryBufferSpace < 0) {
                 	//use approximately 25% of what's set aside for the reserved
@@ -194,6 +203,33 @@ public class BufferServiceImpl implements BufferService, Serializable {
 	public boolean isInlineLobs() {
 		return inlineLobs;
 	}
+	
+	public void setColumnarBatches(boolean columnarBatches) {
+		this.columnarBatches = columnarBatches;
+	}
+	
+	public boolean isColumnarBatches() {
+		return columnarBatches;
+	}
+	
+	public void setLazyColumnBatches(boolean lazyColumnBatches) {
+		this.lazyColumnBatches = lazyColumnBatches;
+	}
+	
+	public boolean isLazyColumnBatches() {
+		return lazyColumnBatches;
+	}
+	
+	/**
+	 * @param evictionPolicy the name of a {@link EvictionPolicy}
+	 */
+	public void setEvictionPolicy(String evictionPolicy) {
+		this.evictionPolicy = EvictionPolicy.valueOf(evictionPolicy.toUpperCase());
+	}
+	
+	public String getEvictionPolicy() {
+		return evictionPolicy.name();
+	}
 
 	public int getProcessorBatchSize() {
 		return this.processorBatchSize;
@@ -314,4 +350,12 @@ public class BufferServiceImpl implements BufferService, Serializable {
     public void setEncryptFiles(boolean encryptFiles) {
 		this.encryptFiles = encryptFiles;
 	}
+    
+    public boolean isMemoryMapFiles() {
+		return memoryMapFiles;
+	}
+    
+    public void setMemoryMapFiles(boolean memoryMapFiles) {
+		this.memoryMapFiles = memoryMapFiles;
+	}
 }
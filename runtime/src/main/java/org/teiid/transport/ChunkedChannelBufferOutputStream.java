@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * See the COPYRIGHT.txt file distributed with this work for information
+ * regarding copyright ownership.  Some portions may be licensed
+ * to Red Hat, Inc. under one or more contributor license agreements.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+
+package org.teiid.transport;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferFactory;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * An {@link OutputStream} that writes into a list of {@link ChannelBuffer} chunks
+ * rather than a single growing buffer.  Chunk sizes double up to the max chunk size, 
+ * so that existing bytes are never copied as the stream grows.
+ * <p>
+ * The result is a gathering composite buffer so that the chunks may be 
+ * written to the socket without first being merged.
+ */
+class ChunkedChannelBufferOutputStream extends OutputStream {
+	
+	private final ChannelBufferFactory factory;
+	private final int maxChunkSize;
+	private List<ChannelBuffer> chunks = new ArrayList<ChannelBuffer>(2);
+	private ChannelBuffer current;
+	private int nextChunkSize;
+	
+	public ChunkedChannelBufferOutputStream(ChannelBufferFactory factory, int initialSize, int maxChunkSize) {
+		this.factory = factory;
+		this.maxChunkSize = maxChunkSize;
+		this.nextChunkSize = Math.max(1, initialSize);
+	}
+	
+	@Override
+	public void write(int b) {
+		if (current == null || !current.writable()) {
+			nextChunk();
+		}
+		current.writeByte(b);
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) {
+		while (len > 0) {
+			if (current == null || !current.writable()) {
+				nextChunk();
+			}
+			int toWrite = Math.min(len, current.writableBytes());
+			current.writeBytes(b, off, toWrite);
+			off += toWrite;
+			len -= toWrite;
+		}
+	}
+	
+	private void nextChunk() {
+		current = factory.getBuffer(nextChunkSize);
+		chunks.add(current);
+		nextChunkSize = Math.min(maxChunkSize, nextChunkSize << 1);
+	}
+	
+	/**
+	 * @return the written bytes as a single buffer.  The chunks are not copied.
+	 */
+	public ChannelBuffer getBuffer() {
+		if (chunks.isEmpty()) {
+			return ChannelBuffers.EMPTY_BUFFER;
+		}
+		if (chunks.size() == 1) {
+			return current;
+		}
+		return ChannelBuffers.wrappedBuffer(true, chunks.toArray(new ChannelBuffer[chunks.size()]));
+	}
+
+}
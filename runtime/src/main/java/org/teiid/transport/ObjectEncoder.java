@@ -22,15 +22,15 @@
  */
 package org.teiid.transport;
 
-import static org.jboss.netty.buffer.ChannelBuffers.*;
 import static org.jboss.netty.channel.Channels.*;
 
-import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.PushbackInputStream;
 
 import org.jboss.netty.buffer.ChannelBuffer;
-import org.jboss.netty.buffer.ChannelBufferOutputStream;
+import org.jboss.netty.buffer.ChannelBufferFactory;
 import org.jboss.netty.channel.ChannelDownstreamHandler;
 import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelHandlerContext;
@@ -38,7 +38,6 @@ import org.jboss.netty.channel.ChannelPipelineCoverage;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.stream.ChunkedInput;
-import org.jboss.netty.handler.stream.ChunkedStream;
 import org.teiid.core.util.ExternalizeUtil;
 import org.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
@@ -51,6 +50,11 @@ import org.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
  * compatible with the standard {@link ObjectInputStream}.  Please use
  * {@link ObjectDecoder} or {@link ObjectDecoderInputStream} to ensure the
  * interoperability with this encoder.
+ * <p>
+ * Objects are serialized into chunks taken from the channel's buffer factory that are written
+ * with a gathering write, and lob streams are read directly into framed buffers, so that the
+ * serialized form is not copied as it grows.  The {@link SocketListener} configures a direct
+ * buffer factory so that the chunks are not copied again by the socket write.
  *
  * @author The Netty Project (netty-dev@lists.jboss.org)
  * @author Trustin Lee (tlee@redhat.com)
@@ -122,9 +126,9 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
             return;
         }
         
-        ChannelBufferOutputStream bout =
-            new ChannelBufferOutputStream(dynamicBuffer(
-                    estimatedLength, ctx.getChannel().getConfig().getBufferFactory()));
+        ChannelBufferFactory bufferFactory = ctx.getChannel().getConfig().getBufferFactory();
+        ChunkedChannelBufferOutputStream bout = 
+        	new ChunkedChannelBufferOutputStream(bufferFactory, estimatedLength, CHUNK_SIZE + 1);
         bout.write(LENGTH_PLACEHOLDER);
         final CompactObjectOutputStream oout = new CompactObjectOutputStream(bout);
         try {
@@ -135,32 +139,73 @@ public class ObjectEncoder implements ChannelDownstreamHandler {
         } catch (Throwable t) {
         	throw new FailedWriteException(e.getMessage(), t);
         }
-        ChannelBuffer encoded = bout.buffer();
+        ChannelBuffer encoded = bout.getBuffer();
         encoded.setInt(0, encoded.writerIndex() - 4);
         write(ctx, e.getFuture(), encoded, e.getRemoteAddress());
 		for (InputStream is : oout.getStreams()) {
-			Channels.write(ctx.getChannel(), new AnonymousChunkedStream(new BufferedInputStream(is, CHUNK_SIZE)));
+			Channels.write(ctx.getChannel(), new AnonymousChunkedStream(is, bufferFactory));
 		}
     }
     
-    static class AnonymousChunkedStream extends ChunkedStream {
+    /**
+     * Writes the stream as a series of chunks each prefixed by the short length.
+     * The final chunk is followed by a 0 short.  
+     */
+    static class AnonymousChunkedStream implements ChunkedInput {
+    	
+    	private final PushbackInputStream in;
+    	private final ChannelBufferFactory bufferFactory;
 
-		public AnonymousChunkedStream(InputStream in) {
-			super(in, CHUNK_SIZE);
+		public AnonymousChunkedStream(InputStream in, ChannelBufferFactory bufferFactory) {
+			this.in = new PushbackInputStream(in);
+			this.bufferFactory = bufferFactory;
+		}
+		
+		@Override
+		public boolean hasNextChunk() throws Exception {
+			int b = in.read();
+			if (b < 0) {
+				return false;
+			}
+			in.unread(b);
+			return true;
+		}
+		
+		@Override
+		public boolean isEndOfInput() throws Exception {
+			return !hasNextChunk();
 		}
     	
 		@Override
 		public Object nextChunk() throws Exception {
-			ChannelBuffer cb = (ChannelBuffer)super.nextChunk();
-			int length = cb.capacity();
-			ChannelBuffer prefix = wrappedBuffer(new byte[2]);
-			prefix.setShort(0, (short)length);
 			if (!hasNextChunk()) {
+				return null;
+			}
+			//read directly into the framed buffer to avoid intermediate copies
+			ChannelBuffer cb = bufferFactory.getBuffer(CHUNK_SIZE + 4);
+			cb.writerIndex(2);
+			while (cb.writerIndex() < CHUNK_SIZE + 2) {
+				if (cb.writeBytes(in, CHUNK_SIZE + 2 - cb.writerIndex()) < 0) {
+					break;
+				}
+			}
+			cb.setShort(0, (short)(cb.writerIndex() - 2));
+			if (!hasNextChunk()) {
+				if (cb.writerIndex() + 2 < cb.capacity()) {
+					//don't hold the full chunk size for a short final chunk
+					ChannelBuffer last = bufferFactory.getBuffer(cb.writerIndex() + 2);
+					last.writeBytes(cb);
+					cb = last;
+				}
 				//append a 0 short
-				return wrappedBuffer(prefix, cb, wrappedBuffer(new byte[2]));
+				cb.writeShort(0);
 			}
-			
-			return wrappedBuffer(prefix, cb);
+			return cb;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			in.close();
 		}
 		
     }
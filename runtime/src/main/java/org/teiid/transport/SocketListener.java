@@ -27,6 +27,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
@@ -92,6 +93,8 @@ public class SocketListener implements ChannelListenerFactory {
         	bootstrap.setOption("sendBufferSize", new Integer(outputBufferSize)); //$NON-NLS-1$
         }
         bootstrap.setOption("keepAlive", Boolean.TRUE); //$NON-NLS-1$
+        //encoded results are written in chunks taken from the accepted channel's buffer factory
+        bootstrap.setOption("child.bufferFactory", DirectChannelBufferFactory.getInstance()); //$NON-NLS-1$
         
         this.serverChanel = bootstrap.bind(address);
     }
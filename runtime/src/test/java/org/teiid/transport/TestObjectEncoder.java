@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright (C) 2008 Red Hat, Inc.
+ * Licensed to Red Hat, Inc. under one or more contributor 
+ * license agreements.  See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ */
+
+package org.teiid.transport;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.DirectChannelBufferFactory;
+import org.jboss.netty.buffer.HeapChannelBufferFactory;
+import org.junit.Test;
+import org.teiid.transport.ObjectEncoder.AnonymousChunkedStream;
+
+@SuppressWarnings("nls")
+public class TestObjectEncoder {
+	
+	@Test public void testChunkedOutputStream() throws Exception {
+		ChunkedChannelBufferOutputStream out = new ChunkedChannelBufferOutputStream(HeapChannelBufferFactory.getInstance(), 4, 16);
+		byte[] bytes = new byte[100];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)i;
+		}
+		out.write(bytes[0]);
+		out.write(bytes, 1, bytes.length - 1);
+		ChannelBuffer buffer = out.getBuffer();
+		assertEquals(100, buffer.readableBytes());
+		byte[] result = new byte[100];
+		buffer.readBytes(result);
+		assertArrayEquals(bytes, result);
+	}
+	
+	@Test public void testChunkedStream() throws Exception {
+		byte[] bytes = new byte[(1 << 16) + 10];
+		AnonymousChunkedStream stream = new AnonymousChunkedStream(new ByteArrayInputStream(bytes), DirectChannelBufferFactory.getInstance());
+		ChannelBuffer chunk = (ChannelBuffer)stream.nextChunk();
+		assertTrue(chunk.isDirect());
+		assertEquals((1 << 16) - 1, chunk.getUnsignedShort(0));
+		assertEquals((1 << 16) + 1, chunk.readableBytes());
+		assertTrue(stream.hasNextChunk());
+		chunk = (ChannelBuffer)stream.nextChunk();
+		assertEquals(11, chunk.getUnsignedShort(0));
+		//the terminating 0 short
+		assertEquals(15, chunk.readableBytes());
+		assertEquals(15, chunk.capacity());
+		assertEquals(0, chunk.getShort(13));
+		assertTrue(chunk.isDirect());
+		assertTrue(stream.isEndOfInput());
+		assertNull(stream.nextChunk());
+	}
+
+}
@@ -28,10 +28,12 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -389,5 +391,129 @@ public class TestMatViews {
 		assertEquals(1, rs.getInt(1));
 		assertFalse(rs.next());
 	}
+	
+	@Test public void testPartitionedLoad() throws Exception {
+		ModelMetaData mmd = new ModelMetaData();
+		mmd.setName("phy");
+		mmd.setSchemaSourceType("DDL");
+		mmd.setSchemaText("create foreign table x (id integer, val string)");
+		mmd.addSourceMapping("a", "a", null);
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIEW v1 ( id integer, val string ) OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_PARTITION_COLUMN\" 'id', \"teiid_rel:MATVIEW_PARTITION_COUNT\" 3) AS select id, val from x");
+		HardCodedExecutionFactory hcef = new HardCodedExecutionFactory();
+		List<List<?>> data = new ArrayList<List<?>>();
+		List<List<?>> ids = new ArrayList<List<?>>();
+		for (int i = 0; i < 10; i++) {
+			data.add(Arrays.asList(i, String.valueOf(i)));
+			ids.add(Arrays.asList(i));
+		}
+		data.add(Arrays.asList(null, "null"));
+		ids.add(Arrays.asList((Integer)null));
+		hcef.addData("SELECT x.id, x.val FROM x", data);
+		hcef.addData("SELECT x.id FROM x", ids);
+		server.addTranslator("a", hcef);
+		server.deployVDB("part", mmd, mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:part", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select count(*), count(id), min(id), max(id) from v1");
+		assertTrue(rs.next());
+		assertEquals(11, rs.getInt(1));
+		assertEquals(10, rs.getInt(2));
+		assertEquals(0, rs.getInt(3));
+		assertEquals(9, rs.getInt(4));
+	}
+	
+	@Test public void testIncrementalRowMaintenance() throws Exception {
+		ModelMetaData mmd = new ModelMetaData();
+		mmd.setName("phy");
+		mmd.setSchemaSourceType("DDL");
+		mmd.setSchemaText("create foreign table x (id integer primary key, val string)");
+		mmd.addSourceMapping("a", "a", null);
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIEW v1 ( id integer, val string, primary key (id) ) OPTIONS (MATERIALIZED true) AS /*+ cache(updatable) */ select id, val from x");
+		HardCodedExecutionFactory hcef = new HardCodedExecutionFactory();
+		hcef.addData("SELECT x.id, x.val FROM x", Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2, "b")));
+		server.addTranslator("a", hcef);
+		server.deployVDB("inc", mmd, mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:inc", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select val from v1 order by id");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+		
+		hcef.addData("SELECT x.id, x.val FROM x", Arrays.asList(Arrays.asList(1, "c"), Arrays.asList(3, "d")));
+		
+		//not yet notified, so the materialized contents are still used
+		rs = s.executeQuery("select val from v1 order by id");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+		
+		server.getEventDistributor().rowModification("inc", 1, "phy", "x", Arrays.asList(1, "a"), Arrays.asList(1, "c"));
+		server.getEventDistributor().rowModification("inc", 1, "phy", "x", Arrays.asList(2, "b"), null);
+		server.getEventDistributor().rowModification("inc", 1, "phy", "x", null, Arrays.asList(3, "d"));
+		
+		rs = s.executeQuery("select id, val from v1 order by id");
+		assertTrue(rs.next());
+		assertEquals(1, rs.getInt(1));
+		assertEquals("c", rs.getString(2));
+		assertTrue(rs.next());
+		assertEquals(3, rs.getInt(1));
+		assertEquals("d", rs.getString(2));
+		assertFalse(rs.next());
+		
+		rs = s.executeQuery("select loadstate, valid from SYSADMIN.MatViews where name = 'v1'");
+		assertTrue(rs.next());
+		assertEquals("LOADED", rs.getString(1));
+		assertTrue(rs.getBoolean(2));
+	}
+
+	
+	@Test public void testIndirectRowModificationMarksStale() throws Exception {
+		ModelMetaData mmd = new ModelMetaData();
+		mmd.setName("phy");
+		mmd.setSchemaSourceType("DDL");
+		mmd.setSchemaText("create foreign table x (id integer primary key, val string)");
+		mmd.addSourceMapping("a", "a", null);
+		ModelMetaData mmd2 = new ModelMetaData();
+		mmd2.setName("view1");
+		mmd2.setModelType(Type.VIRTUAL);
+		mmd2.setSchemaSourceType("DDL");
+		mmd2.setSchemaText("CREATE VIEW vx ( id integer, val string ) AS select id, val from x; " +
+				"CREATE VIEW v2 ( id integer, val string, primary key (id) ) OPTIONS (MATERIALIZED true) AS /*+ cache(updatable) */ select id, val from vx");
+		HardCodedExecutionFactory hcef = new HardCodedExecutionFactory();
+		hcef.addData("SELECT x.id, x.val FROM x", Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2, "b")));
+		server.addTranslator("a", hcef);
+		server.deployVDB("inc", mmd, mmd2);
+		
+		Connection c = server.getDriver().connect("jdbc:teiid:inc", null);
+		Statement s = c.createStatement();
+		ResultSet rs = s.executeQuery("select val from v2 order by id");
+		assertTrue(rs.next());
+		assertEquals("a", rs.getString(1));
+		
+		hcef.addData("SELECT x.id, x.val FROM x", Arrays.asList(Arrays.asList(1, "c")));
+		
+		//x is only referenced through the nested view, so the whole table is marked stale
+		server.getEventDistributor().rowModification("inc", 1, "phy", "x", Arrays.asList(1, "a"), Arrays.asList(1, "c"));
+		
+		rs = s.executeQuery("select loadstate, valid from SYSADMIN.MatViews where name = 'v2'");
+		assertTrue(rs.next());
+		assertEquals("LOADED", rs.getString(1));
+		
+		//without lazy-invalidate the stale table is reloaded before the next read
+		rs = s.executeQuery("select id, val from v2 order by id");
+		assertTrue(rs.next());
+		assertEquals(1, rs.getInt(1));
+		assertEquals("c", rs.getString(2));
+		assertFalse(rs.next());
+	}
 
 }
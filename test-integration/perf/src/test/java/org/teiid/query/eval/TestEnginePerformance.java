@@ -38,9 +38,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
@@ -52,11 +56,15 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 import org.teiid.api.exception.query.QueryParserException;
 import org.teiid.client.BatchSerializer;
+import org.teiid.common.buffer.BaseCacheEntry;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.CacheKey;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.impl.BufferFrontedFileStoreCache;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.common.buffer.impl.BufferManagerImpl.EvictionPolicy;
+import org.teiid.common.buffer.impl.EvictionQueue;
 import org.teiid.common.buffer.impl.FileStorageManager;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
@@ -64,6 +72,9 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.AccessibleByteArrayOutputStream;
 import org.teiid.core.util.UnitTestUtil;
+import org.teiid.dqp.internal.process.TeiidExecutor;
+import org.teiid.dqp.internal.process.ThreadReuseExecutor;
+import org.teiid.dqp.internal.process.WorkStealingExecutor;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
@@ -390,6 +401,156 @@ public class TestEnginePerformance {
 		helpTestLike(50000, 16);
 	}
 	
+	@Test public void runThreadReuseExecutor_16() throws Exception {
+		helpTestExecutor(new ThreadReuseExecutor("test", 16), 20000, 16);
+	}
+	
+	@Test public void runWorkStealingExecutor_16() throws Exception {
+		helpTestExecutor(new WorkStealingExecutor("test", 16), 20000, 16);
+	}
+	
+	@Test public void runThreadReuseExecutor_64() throws Exception {
+		helpTestExecutor(new ThreadReuseExecutor("test", 64), 20000, 16);
+	}
+	
+	@Test public void runWorkStealingExecutor_64() throws Exception {
+		helpTestExecutor(new WorkStealingExecutor("test", 64), 20000, 16);
+	}
+	
+	/**
+	 * Submits many short work items from several threads
+	 */
+	private void helpTestExecutor(final TeiidExecutor executor, int iterations, int threadCount) throws Exception {
+		final CountDownLatch latch = new CountDownLatch(iterations * threadCount);
+		final Runnable work = new Runnable() {
+			@Override
+			public void run() {
+				latch.countDown();
+			}
+		};
+		try {
+			runTask(iterations, threadCount, new Task() {
+				@Override
+				public Void call() throws Exception {
+					executor.execute(work);
+					return null;
+				}
+			});
+			assertTrue(latch.await(30, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test public void runEvictionQueue_Lrfu() throws Exception {
+		helpTestEvictionQueue(EvictionPolicy.LRFU, 200, 16);
+	}
+	
+	@Test public void runEvictionQueue_Clock() throws Exception {
+		helpTestEvictionQueue(EvictionPolicy.CLOCK, 200, 16);
+	}
+	
+	/**
+	 * Replays batch access traces modeled after sort and join processing against 
+	 * a capacity limited eviction queue.
+	 */
+	private void helpTestEvictionQueue(EvictionPolicy policy, int iterations, int threadCount) throws Exception {
+		final AtomicLong clock = new AtomicLong();
+		final EvictionQueue<BaseCacheEntry> queue = policy.createQueue(clock);
+		final ConcurrentHashMap<Long, BaseCacheEntry> resident = new ConcurrentHashMap<Long, BaseCacheEntry>();
+		final AtomicLong ids = new AtomicLong();
+		final AtomicLong misses = new AtomicLong();
+		final int capacity = 1 << 12;
+		runTask(iterations, threadCount, new Task() {
+			
+			@Override
+			public Void call() throws Exception {
+				long[] trace = r.nextBoolean()?sortTrace(ids):joinTrace(ids);
+				for (long id : trace) {
+					if (!access(id)) {
+						misses.incrementAndGet();
+					}
+				}
+				for (long id : trace) {
+					BaseCacheEntry entry = resident.remove(id);
+					if (entry != null) {
+						queue.remove(entry);
+					}
+				}
+				return null;
+			}
+			
+			private boolean access(long id) {
+				clock.incrementAndGet();
+				BaseCacheEntry entry = resident.get(id);
+				if (entry != null) {
+					synchronized (entry) {
+						queue.touch(entry);
+					}
+					return true;
+				}
+				entry = new BaseCacheEntry(new CacheKey(id, clock.get(), 0));
+				synchronized (entry) {
+					queue.recordAccess(entry);
+				}
+				resident.put(id, entry);
+				queue.add(entry);
+				while (queue.getSize() > capacity) {
+					BaseCacheEntry victim = queue.firstEntry(true);
+					if (victim == null) {
+						break;
+					}
+					resident.remove(victim.getId());
+				}
+				return false;
+			}
+		});
+		if (debug) {
+			System.out.println(policy + " hit ratio " + (1 - misses.get()/(double)clock.get()));
+		}
+	}
+	
+	/**
+	 * Write the sorted runs, then read them back interleaved in a merge
+	 */
+	static long[] sortTrace(AtomicLong ids) {
+		int runs = 8;
+		int batchesPerRun = 64;
+		long base = ids.getAndAdd(runs * batchesPerRun);
+		long[] trace = new long[2 * runs * batchesPerRun];
+		int index = 0;
+		for (int i = 0; i < runs * batchesPerRun; i++) {
+			trace[index++] = base + i;
+		}
+		for (int batch = 0; batch < batchesPerRun; batch++) {
+			for (int run = 0; run < runs; run++) {
+				trace[index++] = base + run * batchesPerRun + batch;
+			}
+		}
+		return trace;
+	}
+	
+	/**
+	 * Stream the outer side once and repeatedly scan the inner side
+	 */
+	static long[] joinTrace(AtomicLong ids) {
+		int inner = 128;
+		int outer = 512;
+		int outerPerScan = 64;
+		long base = ids.getAndAdd(inner + outer);
+		long[] trace = new long[outer + (outer/outerPerScan) * inner];
+		int index = 0;
+		for (int i = 0; i < outer; i++) {
+			trace[index++] = base + inner + i;
+			if ((i + 1) % outerPerScan == 0) {
+				for (int j = 0; j < inner; j++) {
+					trace[index++] = base + j;
+				}
+			}
+		}
+		return trace;
+	}
+	
 	@Test public void runBatchSerialization_String() throws Exception {
 		String[] types = new String[] {DataTypeManager.DefaultDataTypes.STRING};
 		int size = 1024;